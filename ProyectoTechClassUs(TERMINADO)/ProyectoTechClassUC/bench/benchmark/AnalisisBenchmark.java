@@ -0,0 +1,101 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package benchmark;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import modelo.AnalisisDeHistorial;
+import modelo.ResumenDeEspera;
+import modelo.SistemaDeGestion;
+import modelo.TipoSolicitud;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide los informes en paralelo de AnalisisDeHistorial con pools de 1 a 8
+ * hilos sobre el mismo historial. Con un hilo el recorrido es secuencial;
+ * con más, el tiempo debería bajar casi en proporción mientras haya núcleos
+ * libres (en una máquina de 8 núcleos, cerca de 8 veces con 8 hilos). La
+ * mayor parte del historial está en el archivo de atendidos, así que también
+ * mide leer las columnas mapeadas desde varios hilos.
+ *
+ * Ejemplo: ant bench -Dbench.args="AnalisisBenchmark -p tamanio=1000000"
+ *
+ * @author young
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AnalisisBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int tamanio;
+
+    @Param({"1", "2", "4", "8"})
+    private int paralelismo;
+
+    private SistemaDeGestion sistema;
+    private ForkJoinPool pool;
+    private AnalisisDeHistorial analisis;
+
+    /**
+     * Carga el historial y crea el pool con la cantidad de hilos pedida.
+     */
+    @Setup(Level.Trial)
+    public void preparar() {
+        sistema = Datos.conHistorial(tamanio, 42);
+        pool = new ForkJoinPool(paralelismo);
+        analisis = sistema.getAnalisis(pool);
+    }
+
+    /**
+     * Cierra el pool y el sistema.
+     *
+     * @throws IOException si falla el cierre
+     */
+    @TearDown(Level.Trial)
+    public void cerrar() throws IOException {
+        pool.shutdown();
+        sistema.cerrar();
+    }
+
+    /**
+     * Calcula la distribución de la espera por tipo y día.
+     *
+     * @return el informe
+     */
+    @Benchmark
+    public SortedMap<LocalDate, Map<TipoSolicitud, ResumenDeEspera>> esperaPorTipoYDia() {
+        return analisis.getEsperaPorTipoYDia();
+    }
+
+    /**
+     * Calcula la proporción de urgentes por semana.
+     *
+     * @return el informe
+     */
+    @Benchmark
+    public SortedMap<LocalDate, Double> proporcionUrgentesPorSemana() {
+        return analisis.getProporcionUrgentesPorSemana();
+    }
+}
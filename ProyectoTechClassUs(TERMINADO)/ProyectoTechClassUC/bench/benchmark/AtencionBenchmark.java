@@ -0,0 +1,75 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import modelo.Cliente;
+import modelo.SistemaDeGestion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide atenderCliente (la regla 2:1) con distintas mezclas de URGENTE y
+ * NORMAL. Con 0% o 100% de urgentes nunca se salta de sub-cola; con mezclas
+ * intermedias la regla alterna entre la cabeza general y el primer urgente.
+ *
+ * Cada invocación atiende al siguiente y agrega un cliente nuevo con la misma
+ * mezcla, así que la cola conserva su tamaño; el historial sí crece, por lo
+ * que el sistema se vuelve a cargar en cada iteración.
+ *
+ * @author young
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AtencionBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    private int tamanio;
+
+    @Param({"0", "10", "50", "100"})
+    private int porcentajeUrgentes;
+
+    private SistemaDeGestion sistema;
+    private SplittableRandom azar;
+    private long nuevos;
+
+    /**
+     * Carga la cola con la mezcla pedida.
+     */
+    @Setup(Level.Iteration)
+    public void preparar() {
+        sistema = Datos.conCola(tamanio, porcentajeUrgentes, 42);
+        azar = new SplittableRandom(7);
+        nuevos = 0;
+    }
+
+    /**
+     * Atiende al siguiente cliente y repone uno nuevo.
+     *
+     * @return el cliente atendido
+     */
+    @Benchmark
+    public Cliente atenderCliente() {
+        Cliente atendido = sistema.atenderCliente();
+        sistema.agregarCliente(Datos.cliente("n" + nuevos++,
+                azar.nextInt(100) < porcentajeUrgentes, "Soporte"));
+        return atendido;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+import modelo.Cliente;
+import modelo.SistemaDeGestion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide la recepción sobre colas de distinto tamaño: agregarCliente y
+ * eliminarClienteDeCola por ID.
+ *
+ * agregarCliente hace crecer la cola, así que el sistema se vuelve a cargar
+ * en cada iteración; el tamaño medido es el del parámetro más lo agregado en
+ * esa iteración. Para eliminar, cada invocación quita un cliente al azar y lo
+ * vuelve a agregar al final, de modo que la cola conserva su tamaño.
+ *
+ * @author young
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ColaBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    private int tamanio;
+
+    private SistemaDeGestion sistema;
+    private Cliente[] clientes;
+    private int[] indices;
+    private int siguiente;
+    private long nuevos;
+
+    /**
+     * Carga la cola con tamanio clientes, 30% URGENTE.
+     */
+    @Setup(Level.Iteration)
+    public void preparar() {
+        sistema = Datos.conCola(tamanio, 30, 42);
+        clientes = sistema.getClientesEnEspera().toArray(new Cliente[0]);
+        indices = Datos.indicesAleatorios(tamanio, 7);
+        siguiente = 0;
+        nuevos = 0;
+    }
+
+    /**
+     * Agrega un cliente nuevo al final de la cola. Incluye crear el cliente
+     * y su ID, como ocurre en el formulario de recepción.
+     *
+     * @return el sistema, para que el JIT no descarte la operación
+     */
+    @Benchmark
+    public SistemaDeGestion agregarCliente() {
+        sistema.agregarCliente(Datos.cliente("n" + nuevos++, false, "Soporte"));
+        return sistema;
+    }
+
+    /**
+     * Elimina por ID un cliente al azar y lo vuelve a agregar.
+     *
+     * @return true si se eliminó
+     */
+    @Benchmark
+    public boolean eliminarClienteDeCola() {
+        Cliente cliente = clientes[indices[siguiente++ & (indices.length - 1)]];
+        boolean eliminado = sistema.eliminarClienteDeCola(cliente.getId());
+        sistema.agregarCliente(cliente);
+        return eliminado;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import modelo.Cliente;
+import modelo.Prioridad;
+import modelo.SistemaDeGestion;
+
+/**
+ * Datos de prueba compartidos por los benchmarks: clientes con IDs únicos y
+ * sistemas ya cargados con una cola o un historial de cierto tamaño. Todo es
+ * determinista a partir de una semilla, para que dos corridas midan lo mismo.
+ *
+ * @author young
+ */
+final class Datos {
+
+    /**
+     * Tipos de solicitud del formulario de recepción.
+     */
+    static final String[] TIPOS = {"Soporte", "Mantenimiento", "Reclamo"};
+
+    private Datos() {
+    }
+
+    /**
+     * Crea un cliente. El nombre y el problema son textos compartidos, así
+     * que solo el ID ocupa memoria propia y los tamaños grandes caben en el
+     * heap del benchmark.
+     *
+     * @param id el identificador único
+     * @param urgente true para prioridad URGENTE
+     * @param tipo el tipo de solicitud
+     * @return el cliente nuevo
+     */
+    static Cliente cliente(String id, boolean urgente, String tipo) {
+        return new Cliente(id, "Cliente", tipo, urgente ? Prioridad.URGENTE : Prioridad.NORMAL,
+                "Problema reportado", "01/01/2026");
+    }
+
+    /**
+     * Crea un cliente con cualquier nivel de prioridad.
+     *
+     * @param id el identificador único
+     * @param prioridad la prioridad
+     * @param tipo el tipo de solicitud
+     * @return el cliente nuevo
+     */
+    static Cliente cliente(String id, Prioridad prioridad, String tipo) {
+        return new Cliente(id, "Cliente", tipo, prioridad, "Problema reportado", "01/01/2026");
+    }
+
+    /**
+     * Crea un sistema en memoria con clientes en espera.
+     *
+     * @param tamanio la cantidad de clientes en la cola
+     * @param porcentajeUrgentes el porcentaje de clientes URGENTE (0 a 100)
+     * @param semilla la semilla del generador
+     * @return el sistema cargado; los IDs son "c0" a "c(tamanio-1)"
+     */
+    static SistemaDeGestion conCola(int tamanio, int porcentajeUrgentes, long semilla) {
+        SistemaDeGestion sistema = new SistemaDeGestion();
+        SplittableRandom azar = new SplittableRandom(semilla);
+        for (int i = 0; i < tamanio; i++) {
+            sistema.agregarCliente(cliente("c" + i, azar.nextInt(100) < porcentajeUrgentes,
+                    TIPOS[azar.nextInt(TIPOS.length)]));
+        }
+        return sistema;
+    }
+
+    /**
+     * Crea un sistema en memoria con clientes atendidos y la cola vacía. Cada
+     * cliente pasa por atenderCliente() y finalizarAtencion(), igual que en
+     * el mostrador, así que el historial y las estadísticas quedan como en
+     * uso real.
+     *
+     * @param tamanio la cantidad de clientes en el historial
+     * @param semilla la semilla del generador
+     * @return el sistema cargado; los IDs son "h0" a "h(tamanio-1)"
+     */
+    static SistemaDeGestion conHistorial(int tamanio, long semilla) {
+        SistemaDeGestion sistema = new SistemaDeGestion();
+        SplittableRandom azar = new SplittableRandom(semilla);
+        for (int i = 0; i < tamanio; i++) {
+            sistema.agregarCliente(cliente("h" + i, azar.nextInt(100) < 30,
+                    TIPOS[azar.nextInt(TIPOS.length)]));
+            sistema.atenderCliente();
+            sistema.finalizarAtencion("Diagnóstico");
+        }
+        return sistema;
+    }
+
+    /**
+     * Escribe un archivo CSV de clientes registrados con anticipación, en el
+     * formato de SistemaDeGestion.importarClientes(), con encabezado y con
+     * nombres y problemas entre comillas.
+     *
+     * @param archivo el archivo a escribir
+     * @param tamanio la cantidad de clientes
+     * @param semilla la semilla del generador
+     * @throws IOException si falla la escritura
+     */
+    static void csvDeClientes(Path archivo, int tamanio, long semilla) throws IOException {
+        SplittableRandom azar = new SplittableRandom(semilla);
+        try (BufferedWriter salida = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+            salida.write("id,nombre,tipo,prioridad,problema,fecha");
+            salida.newLine();
+            for (int i = 0; i < tamanio; i++) {
+                salida.write("p" + i + ",\"Cliente, " + i + "\"," + TIPOS[azar.nextInt(TIPOS.length)]
+                        + "," + (azar.nextInt(100) < 30 ? "Urgente" : "Normal")
+                        + ",\"Problema \"\"reportado\"\" " + i + "\",01/01/2026");
+                salida.newLine();
+            }
+        }
+    }
+
+    /**
+     * Genera índices aleatorios entre 0 y tamanio-1 en un arreglo de largo
+     * potencia de dos (hasta 65536), para recorrerlo con una máscara en vez
+     * de un módulo.
+     *
+     * @param tamanio el límite superior (exclusivo) de los índices
+     * @param semilla la semilla del generador
+     * @return los índices aleatorios
+     */
+    static int[] indicesAleatorios(int tamanio, long semilla) {
+        int largo = Integer.highestOneBit(Math.max(1, Math.min(tamanio, 1 << 16)) * 2 - 1);
+        int[] indices = new int[largo];
+        SplittableRandom azar = new SplittableRandom(semilla);
+        for (int i = 0; i < largo; i++) {
+            indices[i] = azar.nextInt(tamanio);
+        }
+        return indices;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+import modelo.RegistroDeAcciones;
+import modelo.SistemaDeGestion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide deshacerUltimaAccion sobre colas de distinto tamaño. Cada invocación
+ * hace una acción y la deshace, así que el estado vuelve a ser el mismo y el
+ * sistema se carga una sola vez por corrida. Se mide el par completo; la
+ * acción sola se mide en ColaBenchmark y AtencionBenchmark.
+ *
+ * @author young
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class DeshacerBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    private int tamanio;
+
+    private SistemaDeGestion sistema;
+
+    /**
+     * Carga la cola con tamanio clientes, 30% URGENTE.
+     */
+    @Setup(Level.Trial)
+    public void preparar() {
+        sistema = Datos.conCola(tamanio, 30, 42);
+    }
+
+    /**
+     * Agrega un cliente y deshace el agregado.
+     *
+     * @return el registro deshecho
+     */
+    @Benchmark
+    public RegistroDeAcciones deshacerAgregar() {
+        sistema.agregarCliente(Datos.cliente("deshacer", false, "Soporte"));
+        return sistema.deshacerUltimaAccion();
+    }
+
+    /**
+     * Atiende al siguiente cliente y deshace la atención, lo que lo devuelve
+     * al inicio de la cola y lo quita del historial.
+     *
+     * @return el registro deshecho
+     */
+    @Benchmark
+    public RegistroDeAcciones deshacerAtender() {
+        sistema.atenderCliente();
+        return sistema.deshacerUltimaAccion();
+    }
+}
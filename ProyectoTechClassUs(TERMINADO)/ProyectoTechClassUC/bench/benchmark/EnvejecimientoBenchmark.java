@@ -0,0 +1,112 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package benchmark;
+
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import modelo.Cliente;
+import modelo.Prioridad;
+import modelo.SistemaDeGestion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide atenderCliente y envejecerCola con y sin envejecimiento por espera.
+ * Los clientes en espera llegaron repartidos en los últimos 40 minutos, así
+ * que con umbrales de 10, 20 y 30 minutos hay subidas de nivel en cada
+ * segundo de la medición. La rueda de temporizadores solo visita a los que
+ * vencen, así que el costo no debería cambiar con el tamaño de la cola.
+ *
+ * Cada invocación de atenderCliente repone un cliente recién llegado para
+ * conservar el tamaño de la cola; el sistema se vuelve a cargar en cada
+ * iteración porque el historial crece.
+ *
+ * Ejemplo: ant bench -Dbench.args="EnvejecimientoBenchmark -p umbrales=10,20,30"
+ *
+ * @author young
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class EnvejecimientoBenchmark {
+
+    // Los niveles que pueden subir: BAJA, NORMAL y PREFERENTE
+    private static final Prioridad[] QUE_ENVEJECEN = {Prioridad.BAJA, Prioridad.NORMAL, Prioridad.PREFERENTE};
+    private static final int SEGUNDOS_DE_LLEGADAS = 40 * 60;
+
+    @Param({"1000", "100000"})
+    private int tamanio;
+
+    @Param({"0,0,0", "10,20,30"})
+    private String umbrales;
+
+    private SistemaDeGestion sistema;
+    private SplittableRandom azar;
+    private long nuevos;
+
+    /**
+     * Carga la cola con llegadas repartidas y configura los umbrales.
+     */
+    @Setup(Level.Iteration)
+    public void preparar() {
+        sistema = new SistemaDeGestion();
+        azar = new SplittableRandom(42);
+        LocalDateTime ahora = LocalDateTime.now();
+        for (int i = 0; i < tamanio; i++) {
+            Cliente cliente = nuevo("c" + i);
+            cliente.setHoraLlegada(ahora.minusSeconds(SEGUNDOS_DE_LLEGADAS - (long) i * SEGUNDOS_DE_LLEGADAS / tamanio));
+            sistema.agregarCliente(cliente);
+        }
+        String[] partes = umbrales.split(",");
+        int[] minutos = new int[partes.length];
+        for (int i = 0; i < partes.length; i++) {
+            minutos[i] = Integer.parseInt(partes[i]);
+        }
+        sistema.setUmbralesDeEnvejecimiento(minutos);
+        nuevos = 0;
+    }
+
+    /**
+     * Atiende al siguiente cliente, subiendo antes a los que vencieron, y
+     * repone uno nuevo.
+     *
+     * @return el cliente atendido
+     */
+    @Benchmark
+    public Cliente atenderCliente() {
+        Cliente atendido = sistema.atenderCliente();
+        sistema.agregarCliente(nuevo("n" + nuevos++));
+        return atendido;
+    }
+
+    /**
+     * Sube de nivel a los que vencieron desde la llamada anterior.
+     *
+     * @return la cantidad de subidas
+     */
+    @Benchmark
+    public int envejecerCola() {
+        return sistema.envejecerCola();
+    }
+
+    private Cliente nuevo(String id) {
+        return Datos.cliente(id, QUE_ENVEJECEN[azar.nextInt(QUE_ENVEJECEN.length)],
+                Datos.TIPOS[azar.nextInt(Datos.TIPOS.length)]);
+    }
+}
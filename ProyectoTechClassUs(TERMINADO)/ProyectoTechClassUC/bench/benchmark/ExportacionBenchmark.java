@@ -0,0 +1,87 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import modelo.FormatoDeExportacion;
+import modelo.SistemaDeGestion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide exportar todo el historial de atendidos a un archivo, en CSV y en
+ * NDJSON: el corte con los cerrojos, la lectura de las posiciones
+ * archivadas de a tramos y la escritura por el FileChannel. La memoria usada
+ * no depende del tamaño, así que el tiempo debería crecer en proporción a
+ * la cantidad de clientes.
+ *
+ * Ejemplo: ant bench -Dbench.args="ExportacionBenchmark -p tamanio=1000000"
+ *
+ * @author young
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ExportacionBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int tamanio;
+
+    @Param({"CSV", "NDJSON"})
+    private FormatoDeExportacion formato;
+
+    private SistemaDeGestion sistema;
+    private Path archivo;
+
+    /**
+     * Carga el historial y elige el archivo de destino.
+     *
+     * @throws IOException si no se puede crear el archivo
+     */
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        sistema = Datos.conHistorial(tamanio, 42);
+        archivo = Files.createTempFile("exportacion-benchmark", "." + formato.getExtension());
+    }
+
+    /**
+     * Cierra el sistema y borra el archivo.
+     *
+     * @throws IOException si falla el cierre
+     */
+    @TearDown(Level.Trial)
+    public void cerrar() throws IOException {
+        sistema.cerrar();
+        Files.deleteIfExists(archivo);
+    }
+
+    /**
+     * Exporta el historial completo.
+     *
+     * @return la cantidad de clientes exportados
+     * @throws IOException si falla la escritura
+     */
+    @Benchmark
+    public long exportarHistorial() throws IOException {
+        return sistema.exportarHistorial(archivo, formato);
+    }
+}
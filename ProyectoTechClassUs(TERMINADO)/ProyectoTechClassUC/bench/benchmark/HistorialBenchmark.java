@@ -0,0 +1,92 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package benchmark;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+import modelo.Cliente;
+import modelo.SistemaDeGestion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide las consultas sobre historiales de distinto tamaño: buscarPorId,
+ * buscarPorTipoSolicitud y getPromedioTiempoAtencion. Ninguna modifica el
+ * historial, así que se carga una sola vez por corrida.
+ *
+ * buscarPorTipoSolicitud copia los clientes del tipo pedido (un tercio del
+ * historial), así que su costo crece con el tamaño; las otras dos deberían
+ * mantenerse planas.
+ *
+ * @author young
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class HistorialBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    private int tamanio;
+
+    private SistemaDeGestion sistema;
+    private String[] ids;
+    private int siguiente;
+
+    /**
+     * Carga el historial y elige los IDs a buscar.
+     */
+    @Setup(Level.Trial)
+    public void preparar() {
+        sistema = Datos.conHistorial(tamanio, 42);
+        int[] indices = Datos.indicesAleatorios(tamanio, 7);
+        ids = new String[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            ids[i] = "h" + indices[i];
+        }
+    }
+
+    /**
+     * Busca un cliente atendido al azar por su ID.
+     *
+     * @return el cliente encontrado
+     */
+    @Benchmark
+    public Cliente buscarPorId() {
+        return sistema.buscarPorId(ids[siguiente++ & (ids.length - 1)]);
+    }
+
+    /**
+     * Busca los clientes atendidos de un tipo, rotando entre los tres.
+     *
+     * @return los clientes del tipo
+     */
+    @Benchmark
+    public LinkedList<Cliente> buscarPorTipoSolicitud() {
+        return sistema.buscarPorTipoSolicitud(Datos.TIPOS[siguiente++ % Datos.TIPOS.length]);
+    }
+
+    /**
+     * Obtiene el promedio de espera de todos los atendidos.
+     *
+     * @return el promedio en minutos
+     */
+    @Benchmark
+    public double getPromedioTiempoAtencion() {
+        return sistema.getPromedioTiempoAtencion();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import modelo.InformeDeImportacion;
+import modelo.SistemaDeGestion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide importar un archivo CSV de clientes a un sistema vacío: la lectura
+ * por FileChannel, la separación de campos, la creación de cada Cliente y
+ * la inserción en la cola de a lotes. Con 1.000.000 de filas debería tardar
+ * unos pocos segundos.
+ *
+ * Ejemplo: ant bench -Dbench.args="ImportacionBenchmark -p tamanio=1000000"
+ *
+ * @author young
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ImportacionBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int tamanio;
+
+    private Path archivo;
+    private SistemaDeGestion sistema;
+
+    /**
+     * Escribe el archivo CSV con tamanio clientes.
+     *
+     * @throws IOException si falla la escritura
+     */
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        archivo = Files.createTempFile("importacion-benchmark", ".csv");
+        Datos.csvDeClientes(archivo, tamanio, 42);
+    }
+
+    /**
+     * Crea un sistema vacío para cada importación.
+     */
+    @Setup(Level.Invocation)
+    public void vaciar() {
+        sistema = new SistemaDeGestion();
+    }
+
+    /**
+     * Borra el archivo CSV.
+     *
+     * @throws IOException si no se puede borrar
+     */
+    @TearDown(Level.Trial)
+    public void borrar() throws IOException {
+        Files.deleteIfExists(archivo);
+    }
+
+    /**
+     * Importa el archivo completo.
+     *
+     * @return el informe de la importación
+     * @throws IOException si falla la lectura
+     */
+    @Benchmark
+    public InformeDeImportacion importar() throws IOException {
+        return sistema.importarClientes(archivo);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import modelo.Cliente;
+import modelo.PoliticaDeAtencion;
+import modelo.Prioridad;
+import modelo.SistemaDeGestion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide atenderCliente con cada política de atención sobre colas con los
+ * cuatro niveles de prioridad y los tres tipos de solicitud mezclados. Todas
+ * las políticas eligen mirando solo la cabeza de las listas por prioridad o
+ * por tipo, así que el resultado no debería cambiar con el tamaño de la
+ * cola.
+ *
+ * Cada invocación atiende al siguiente y agrega un cliente nuevo con la misma
+ * mezcla, así que la cola conserva su tamaño; el historial sí crece, por lo
+ * que el sistema se vuelve a cargar en cada iteración.
+ *
+ * Ejemplo: ant bench -Dbench.args="PoliticasBenchmark -p politica=estricta"
+ *
+ * @author young
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PoliticasBenchmark {
+
+    private static final Prioridad[] PRIORIDADES = Prioridad.values();
+
+    @Param({"1000", "1000000"})
+    private int tamanio;
+
+    @Param({"dos-a-uno", "ponderada:4,3,2,1", "estricta", "deficit:10,20,30,15"})
+    private String politica;
+
+    private SistemaDeGestion sistema;
+    private SplittableRandom azar;
+    private long nuevos;
+
+    /**
+     * Carga la cola y elige la política.
+     */
+    @Setup(Level.Iteration)
+    public void preparar() {
+        sistema = new SistemaDeGestion();
+        azar = new SplittableRandom(42);
+        for (int i = 0; i < tamanio; i++) {
+            sistema.agregarCliente(nuevo("c" + i));
+        }
+        sistema.setPoliticaDeAtencion(PoliticaDeAtencion.desdeTexto(politica));
+        nuevos = 0;
+    }
+
+    /**
+     * Atiende al siguiente cliente y repone uno nuevo.
+     *
+     * @return el cliente atendido
+     */
+    @Benchmark
+    public Cliente atenderCliente() {
+        Cliente atendido = sistema.atenderCliente();
+        sistema.agregarCliente(nuevo("n" + nuevos++));
+        return atendido;
+    }
+
+    private Cliente nuevo(String id) {
+        return Datos.cliente(id, PRIORIDADES[azar.nextInt(PRIORIDADES.length)],
+                Datos.TIPOS[azar.nextInt(Datos.TIPOS.length)]);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import modelo.Cliente;
+import modelo.SistemaDeGestion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Mide 16 puestos de atención pidiendo el siguiente cliente a la vez sobre
+ * la misma cola. Cada hilo usa su propio puesto: atiende, finaliza y repone
+ * un cliente con 30% de urgentes. Todos compiten por el mismo cerrojo de la
+ * cola, así que el resultado muestra cuánto escala el sistema con varios
+ * técnicos; el historial crece, por lo que se vuelve a cargar en cada
+ * iteración.
+ *
+ * Ejemplo: ant bench -Dbench.args="PuestosBenchmark"
+ *
+ * @author young
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PuestosBenchmark {
+
+    private static final int TAMANIO = 100_000;
+    private static final int PORCENTAJE_URGENTES = 30;
+
+    private SistemaDeGestion sistema;
+    private AtomicLong nuevos;
+
+    /**
+     * Puesto de atención de cada hilo.
+     */
+    @State(Scope.Thread)
+    public static class Puesto {
+
+        private int numero;
+
+        /**
+         * Asigna al hilo un puesto distinto de los demás.
+         *
+         * @param hilo los datos del hilo
+         */
+        @Setup(Level.Trial)
+        public void preparar(ThreadParams hilo) {
+            numero = hilo.getThreadIndex() % SistemaDeGestion.MAXIMO_PUESTOS;
+        }
+    }
+
+    /**
+     * Carga la cola compartida.
+     */
+    @Setup(Level.Iteration)
+    public void preparar() {
+        sistema = Datos.conCola(TAMANIO, PORCENTAJE_URGENTES, 42);
+        nuevos = new AtomicLong();
+    }
+
+    /**
+     * Atiende al siguiente cliente en el puesto del hilo, lo finaliza y
+     * repone uno nuevo.
+     *
+     * @param puesto el puesto del hilo
+     * @return el cliente finalizado
+     */
+    @Benchmark
+    public Cliente atenderYFinalizar(Puesto puesto) {
+        long n = nuevos.getAndIncrement();
+        sistema.agregarCliente(Datos.cliente("n" + n, n % 100 < PORCENTAJE_URGENTES, "Soporte"));
+        sistema.atenderCliente(puesto.numero);
+        return sistema.finalizarAtencion(puesto.numero, "Revisado");
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package controlador;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import modelo.Cliente;
+
+/**
+ * Caché de las ProyeccionDeCliente que comparten la tabla de espera, el área
+ * de diagnóstico y los reportes. Repintar las mismas filas reutiliza los
+ * textos ya calculados en vez de volver a concatenarlos; una proyección se
+ * rehace solo si el cliente cambió (su versión aumentó, por ejemplo al
+ * registrar el diagnóstico o la hora de atención).
+ *
+ * Conserva las CAPACIDAD proyecciones usadas más recientemente, que alcanzan
+ * de sobra para las filas visibles de todas las listas. Solo se usa desde el
+ * hilo de eventos de Swing.
+ *
+ * @author young
+ */
+public class CacheDeProyecciones {
+
+    /**
+     * Cantidad máxima de proyecciones guardadas.
+     */
+    public static final int CAPACIDAD = 4096;
+
+    private final LinkedHashMap<Cliente, ProyeccionDeCliente> proyecciones;
+
+    /**
+     * Constructor de la caché vacía.
+     */
+    public CacheDeProyecciones() {
+        // Cliente no redefine equals(), así que la clave es la identidad
+        this.proyecciones = new LinkedHashMap<Cliente, ProyeccionDeCliente>(CAPACIDAD * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Cliente, ProyeccionDeCliente> mayor) {
+                return size() > CAPACIDAD;
+            }
+        };
+    }
+
+    /**
+     * Obtiene la proyección de un cliente, calculándola si no estaba o si el
+     * cliente cambió desde la última vez.
+     *
+     * @param cliente el cliente a mostrar
+     * @return la proyección vigente del cliente
+     */
+    public ProyeccionDeCliente obtener(Cliente cliente) {
+        ProyeccionDeCliente proyeccion = proyecciones.get(cliente);
+        if (proyeccion == null || !proyeccion.vigentePara(cliente)) {
+            proyeccion = new ProyeccionDeCliente(cliente);
+            proyecciones.put(cliente, proyeccion);
+        }
+        return proyeccion;
+    }
+}
@@ -8,14 +8,35 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
-import java.text.SimpleDateFormat;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import modelo.Cliente;
+import modelo.FormatoDeExportacion;
+import modelo.InformeDeImportacion;
 import modelo.Prioridad;
 import modelo.RegistroDeAcciones;
+import modelo.ResumenDeEspera;
+import modelo.ResumenDePuesto;
+import modelo.SerieDeActividad;
 import modelo.SistemaDeGestion;
+import modelo.TipoAccion;
+import modelo.TipoSolicitud;
 import vista.VentanaTechClassUC;
 
 /**
@@ -23,29 +44,80 @@ import vista.VentanaTechClassUC;
  * la lógica de negocio y coordina la comunicación entre el modelo
  * (SistemaDeGestion) y la vista (VentanaTechClassUC).
  *
- * Utiliza las siguientes estructuras de datos: - ArrayDeque: Cola de clientes
- * en espera - LinkedList: Historial de clientes atendidos - Stack: Pila de
- * acciones para deshacer
+ * Utiliza las siguientes estructuras de datos: - ColaDeEspera: Cola de
+ * clientes en espera - HistorialAtendidos: Historial de clientes atendidos -
+ * BitacoraDeAcciones: Pila acotada de acciones para deshacer
  *
  * @author young
  */
 public class MVCTechClassUC {
 
+    private static final String PROTOTIPO_ACCION
+            = "FINALIZAR - Nombre y apellido del cliente (ID: 0000000000) - 00/00/0000 00:00:00"
+            + " - PUESTO 00";
+    // Puestos de atención que se ofrecen en la pestaña de diagnóstico
+    private static final int PUESTOS = 4;
+    private static final String SIN_CLIENTE_EN_ATENCION = "No hay cliente en atención actualmente";
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    // Pausa de escritura antes de buscar por ID y máximo de resultados
+    private static final int ESPERA_BUSQUEDA_MS = 200;
+    private static final int LIMITE_BUSQUEDA = 500;
+    // Cada cuánto se suben de nivel los clientes que esperaron de más, para
+    // que la tabla lo muestre aunque nadie pase a atención. Corre en
+    // hiloDeEnvejecimiento y la tabla se entera como oyente de la cola
+    private static final int PERIODO_ENVEJECIMIENTO_MS = 15_000;
+    // Máximo de casos mostrados al buscar en problema y diagnóstico
+    private static final int LIMITE_CASOS = 50;
+    private static final String PROTOTIPO_ATENDIDO
+            = "ID: 0000000000 | Nombre y apellido del cliente | Mantenimiento | PREFERENTE"
+            + " | Problema: descripción del problema del cliente"
+            + " | Diagnóstico: diagnóstico dado por el técnico"
+            + " | Llegada: 00/00/0000 00:00:00 | Atención: 00/00/0000 00:00:00";
+
     private SistemaDeGestion sistema;
     private VentanaTechClassUC vista;
-    private DefaultTableModel modeloTabla;
+    private CacheDeProyecciones proyecciones;
+    private ModeloTablaEspera modeloTabla;
+    private ModeloListaAcciones modeloAcciones;
+    private ModeloListaAtendidos modeloAtendidos;
+    private Timer temporizadorBusqueda;
+    private Timer temporizadorCasos;
+    private ScheduledExecutorService hiloDeEnvejecimiento;
+    // Si la última subida de nivel falló; solo se usa en hiloDeEnvejecimiento
+    private boolean envejecimientoFallido;
+    private ExecutorService hiloDeBusqueda;
+    private Future<?> busquedaPendiente;
+    private ExecutorService hiloDeImportacion;
+    private ExecutorService hiloDeExportacion;
+    // Número de la última búsqueda pedida (por ID o en casos); solo se usa
+    // en el EDT
+    private int ultimaBusqueda;
 
     /**
-     * Constructor del controlador MVC. Inicializa el sistema de gestión,
-     * configura los componentes y establece los listeners de eventos.
+     * Constructor del controlador MVC. Inicializa un sistema de gestión en
+     * memoria, configura los componentes y establece los listeners de
+     * eventos.
      *
      * @param vista la ventana principal de la aplicación
      */
     public MVCTechClassUC(VentanaTechClassUC vista) {
+        this(vista, new SistemaDeGestion());
+    }
+
+    /**
+     * Constructor del controlador MVC con un sistema de gestión ya creado
+     * (por ejemplo, recuperado de su diario). Muestra en la vista el estado
+     * que traiga el sistema.
+     *
+     * @param vista la ventana principal de la aplicación
+     * @param sistema el sistema de gestión a usar
+     */
+    public MVCTechClassUC(VentanaTechClassUC vista, SistemaDeGestion sistema) {
         this.vista = vista;
-        this.sistema = new SistemaDeGestion();
+        this.sistema = sistema;
         inicializarComponentes();
         configurarEventos();
+        mostrarEstadoInicial();
     }
 
     /**
@@ -77,16 +149,69 @@ public class MVCTechClassUC {
         vista.getComboFiltro().addItem("Mantenimiento");
         vista.getComboFiltro().addItem("Reclamo");
 
-        // Configurar modelo de tabla
-        modeloTabla = new DefaultTableModel(
-                new String[]{"ID", "Nombre", "Tipo Solicitud", "Prioridad", "Problema", "Fecha"}, 0
-        ) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        // Cargar los puestos de atención en DIAGNÓSTICO
+        vista.getComboPuesto().removeAllItems();
+        for (int puesto = 0; puesto < PUESTOS; puesto++) {
+            vista.getComboPuesto().addItem("PUESTO " + (puesto + 1));
+        }
+
+        // Los textos de cada cliente se calculan una vez y los comparten la
+        // tabla, el área de diagnóstico y los reportes
+        proyecciones = new CacheDeProyecciones();
+
+        // Configurar modelo de tabla: lee directo de la cola de espera
+        modeloTabla = new ModeloTablaEspera(sistema, proyecciones);
+        sistema.agregarOyenteDeCola(modeloTabla);
         vista.getTablaClientes().setModel(modeloTabla);
+
+        // Configurar la lista del reporte de acciones: lee directo de la
+        // bitácora. Con un prototipo de fila la lista no mide cada acción
+        modeloAcciones = new ModeloListaAcciones(sistema, proyecciones);
+        sistema.agregarOyenteDeBitacora(modeloAcciones);
+        vista.getInformeAcciones().setPrototypeCellValue(PROTOTIPO_ACCION);
+        vista.getInformeAcciones().setModel(modeloAcciones);
+
+        // Lo que el sistema guarda por su cuenta puede fallar sin que falle
+        // ninguna operación: se avisa con un diálogo
+        sistema.agregarOyenteDeFallos(this::mostrarFalloAlGuardar);
+
+        // Configurar la lista del reporte de atendidos: pide al historial
+        // solo las páginas visibles
+        modeloAtendidos = new ModeloListaAtendidos(sistema, proyecciones);
+        vista.getReporteAtendidos().setPrototypeCellValue(PROTOTIPO_ATENDIDO);
+        vista.getReporteAtendidos().setModel(modeloAtendidos);
+
+        // Las búsquedas esperan una pausa al escribir y corren fuera del EDT,
+        // así escribir nunca traba el repintado
+        temporizadorBusqueda = new Timer(ESPERA_BUSQUEDA_MS, e -> filtrarPorId());
+        temporizadorBusqueda.setRepeats(false);
+        temporizadorCasos = new Timer(ESPERA_BUSQUEDA_MS, e -> buscarCasos());
+        temporizadorCasos.setRepeats(false);
+        // Subir de nivel guarda en el diario, así que no corre en el EDT
+        hiloDeEnvejecimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "envejecimiento");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        hiloDeEnvejecimiento.scheduleWithFixedDelay(this::envejecerCola,
+                PERIODO_ENVEJECIMIENTO_MS, PERIODO_ENVEJECIMIENTO_MS, TimeUnit.MILLISECONDS);
+        hiloDeBusqueda = Executors.newSingleThreadExecutor(r -> {
+            Thread hilo = new Thread(r, "busquedas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        // Las importaciones pueden tardar segundos: corren en su propio hilo
+        // para no demorar las búsquedas
+        hiloDeImportacion = Executors.newSingleThreadExecutor(r -> {
+            Thread hilo = new Thread(r, "importaciones");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        hiloDeExportacion = Executors.newSingleThreadExecutor(r -> {
+            Thread hilo = new Thread(r, "exportaciones");
+            hilo.setDaemon(true);
+            return hilo;
+        });
     }
 
     /**
@@ -96,31 +221,62 @@ public class MVCTechClassUC {
     private void configurarEventos() {
         // PESTAÑA RECEPCIÓN
         vista.getBotonAgregar().addActionListener(e -> agregarCliente());
+        vista.getBotonImportar().addActionListener(e -> importarClientes());
         vista.getBotonEliminar().addActionListener(e -> eliminarCliente());
         vista.getBotonContinuar().addActionListener(e -> continuarADiagnostico());
         vista.getBotonDeshacer().addActionListener(e -> deshacerAccion());
 
         // PESTAÑA DIAGNÓSTICO
+        vista.getComboPuesto().addActionListener(e -> mostrarPuesto());
         vista.getBotonAtender().addActionListener(e -> atenderCliente());
-        vista.getBotonDeshacer2().addActionListener(e -> deshacerAccion());
+        vista.getBotonDeshacer2().addActionListener(e -> deshacerAccionDelPuesto());
 
         // PESTAÑA INFORME
         vista.getComboFiltro().addActionListener(e -> filtrarPorTipo());
+        vista.getBotonExportarHistorial().addActionListener(e -> exportar(true));
 
         // Filtrar por ID (al escribir)
         vista.getFiltrarID().addKeyListener(new KeyAdapter() {
             @Override
             public void keyReleased(KeyEvent e) {
-                filtrarPorId();
+                temporizadorBusqueda.restart();
             }
         });
+
+        // Buscar en problema y diagnóstico (al escribir)
+        vista.getBuscarCasos().addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyReleased(KeyEvent e) {
+                temporizadorCasos.restart();
+            }
+        });
+
+        // PESTAÑA REPORTE DE PROCESOS
+        vista.getBotonExportarAcciones().addActionListener(e -> exportar(false));
+    }
+
+    /**
+     * Muestra el estado con el que arranca el sistema: el cliente en atención
+     * del puesto seleccionado y los informes. La tabla ya lee los clientes en
+     * espera de la cola. Si al recuperar el historial no se pudo archivar,
+     * lo avisa, porque eso pasó antes de registrar el oyente.
+     */
+    private void mostrarEstadoInicial() {
+        mostrarPuesto();
+        actualizarAreaEspera();
+        actualizarReporteAtendidos();
+        Exception falloDeArchivo = sistema.getFalloDeArchivo();
+        if (falloDeArchivo != null) {
+            mostrarFalloAlGuardar("No se pudo archivar clientes atendidos; siguen en memoria",
+                    falloDeArchivo);
+        }
     }
 
     // ==================== MÉTODOS DE RECEPCIÓN ====================
     /**
      * Agrega un nuevo cliente al sistema. Valida los campos del formulario,
-     * crea un nuevo cliente y lo agrega a la cola de espera (ArrayDeque).
-     * También registra la acción en el Stack para poder deshacerla.
+     * crea un nuevo cliente y lo agrega a la cola de espera (ColaDeEspera).
+     * También registra la acción en la bitácora para poder deshacerla.
      */
     private void agregarCliente() {
         try {
@@ -132,6 +288,10 @@ public class MVCTechClassUC {
             Prioridad prioridad;
             if (vista.getRadioPrioridadUrgente().isSelected()) {
                 prioridad = Prioridad.URGENTE;
+            } else if (vista.getRadioPrioridadPreferente().isSelected()) {
+                prioridad = Prioridad.PREFERENTE;
+            } else if (vista.getRadioPrioridadBaja().isSelected()) {
+                prioridad = Prioridad.BAJA;
             } else {
                 prioridad = Prioridad.NORMAL; // Por defecto o si Normal está seleccionado
             }
@@ -145,24 +305,19 @@ public class MVCTechClassUC {
 
             // Obtener fecha del calendario
             Date fechaSeleccionada = vista.getCalendario().getDate();
-            SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
-            String fecha = sdf.format(fechaSeleccionada);
+            String fecha = fechaSeleccionada.toInstant().atZone(ZoneId.systemDefault())
+                    .toLocalDate().format(FORMATO_FECHA);
 
-            // Crear cliente y agregarlo al sistema (usando ArrayDeque)
+            // Crear cliente y agregarlo al sistema (usando ColaDeEspera)
+            // La tabla recibe la fila nueva como oyente de la cola
             Cliente nuevoCliente = new Cliente(id, nombre, tipoSolicitud, prioridad, problema, fecha);
             sistema.agregarCliente(nuevoCliente);
 
-            // Agregar a la tabla
-            modeloTabla.addRow(new Object[]{
-                id, nombre, tipoSolicitud, prioridad.toString(), problema, fecha
-            });
-
             // Limpiar campos
             limpiarCamposRecepcion();
 
             // Actualizar vistas
             actualizarAreaEspera();
-            actualizarInformeAcciones();
 
             JOptionPane.showMessageDialog(vista, "Cliente agregado exitosamente",
                     "Éxito", JOptionPane.INFORMATION_MESSAGE);
@@ -173,10 +328,52 @@ public class MVCTechClassUC {
         }
     }
 
+    /**
+     * Importa a la cola los clientes registrados con anticipación de un
+     * archivo CSV elegido por el usuario (id, nombre, tipo de solicitud,
+     * prioridad, problema y fecha opcional). La importación corre fuera del
+     * EDT; la tabla se actualiza una vez por lote y al terminar se muestra un
+     * único resumen en lugar de un mensaje por cliente. Se deshace de una
+     * vez con DESHACER.
+     */
+    private void importarClientes() {
+        JFileChooser selector = new JFileChooser();
+        selector.setFileFilter(new FileNameExtensionFilter("Archivos CSV", "csv"));
+        if (selector.showOpenDialog(vista) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path archivo = selector.getSelectedFile().toPath();
+
+        vista.getBotonImportar().setEnabled(false);
+        hiloDeImportacion.execute(() -> {
+            InformeDeImportacion informe = null;
+            String error = null;
+            try {
+                informe = sistema.importarClientes(archivo);
+            } catch (IOException | RuntimeException ex) {
+                error = ex.getMessage();
+            }
+            InformeDeImportacion resultado = informe;
+            String mensajeDeError = error;
+            SwingUtilities.invokeLater(() -> {
+                vista.getBotonImportar().setEnabled(true);
+                actualizarAreaEspera();
+                if (resultado == null) {
+                    JOptionPane.showMessageDialog(vista, "Error al importar clientes: " + mensajeDeError,
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(vista, resultado.toString(),
+                            "Importación terminada", resultado.getImportados() > 0
+                            ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+                }
+            });
+        });
+    }
+
     /**
      * Elimina un cliente seleccionado de la cola de espera. Remueve el cliente
-     * del ArrayDeque y actualiza la tabla. Registra la acción en el Stack para
-     * poder deshacerla.
+     * de la ColaDeEspera y actualiza la tabla. Registra la acción en la
+     * bitácora para poder deshacerla.
      */
     private void eliminarCliente() {
         int filaSeleccionada = vista.getTablaClientes().getSelectedRow();
@@ -187,13 +384,11 @@ public class MVCTechClassUC {
             return;
         }
 
-        String idCliente = (String) modeloTabla.getValueAt(filaSeleccionada, 0);
+        String idCliente = modeloTabla.getClienteEnFila(filaSeleccionada).getId();
 
-        // Eliminar de la cola (ArrayDeque)
+        // Eliminar de la cola (ColaDeEspera); la tabla quita la fila sola
         if (sistema.eliminarClienteDeCola(idCliente)) {
-            modeloTabla.removeRow(filaSeleccionada);
             actualizarAreaEspera();
-            actualizarInformeAcciones();
             JOptionPane.showMessageDialog(vista, "Cliente eliminado exitosamente",
                     "Éxito", JOptionPane.INFORMATION_MESSAGE);
         } else {
@@ -203,48 +398,50 @@ public class MVCTechClassUC {
     }
 
     /**
-     * Mueve el siguiente cliente de la cola de espera a diagnóstico. Utiliza
-     * poll() en el ArrayDeque para obtener el primer cliente. Verifica que no
-     * haya un cliente ya en diagnóstico antes de continuar.
+     * Mueve el siguiente cliente de la cola de espera a diagnóstico, en el
+     * primer puesto de atención libre. El cliente sale de la cola con la
+     * política de atención que comparten todos los puestos. Solo se rechaza si todos los
+     * puestos tienen un cliente en diagnóstico.
      */
     private void continuarADiagnostico() {
-        // Verificar si ya hay un cliente en diagnóstico
-        if (sistema.getClienteEnAtencion() != null) {
+        // Buscar un puesto sin cliente en diagnóstico
+        int puestoLibre = -1;
+        for (int puesto = 0; puesto < PUESTOS && puestoLibre < 0; puesto++) {
+            if (sistema.getClienteEnAtencion(puesto) == null) {
+                puestoLibre = puesto;
+            }
+        }
+        if (puestoLibre < 0) {
             JOptionPane.showMessageDialog(vista,
-                    "Ya hay un cliente en diagnóstico. Debe atenderlo primero antes de continuar con otro.",
+                    "Todos los puestos tienen un cliente en diagnóstico. Debe atender uno antes de continuar con otro.",
                     "Advertencia", JOptionPane.WARNING_MESSAGE);
             return;
         }
 
-        if (sistema.getColaClientes().isEmpty()) {
+        if (sistema.getTotalClientesEnEspera() == 0) {
             JOptionPane.showMessageDialog(vista, "No hay clientes en espera",
                     "Advertencia", JOptionPane.WARNING_MESSAGE);
             return;
         }
 
-        // Atender el siguiente cliente de la cola (poll en ArrayDeque)
-        Cliente cliente = sistema.atenderCliente();
+        // Atender el siguiente cliente de la cola en ese puesto. Otro
+        // técnico (por ejemplo desde el servidor) pudo ocuparlo recién
+        Cliente cliente;
+        try {
+            cliente = sistema.atenderCliente(puestoLibre);
+        } catch (IllegalStateException ex) {
+            JOptionPane.showMessageDialog(vista, ex.getMessage(),
+                    "Advertencia", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
 
         if (cliente != null) {
-            //Buscar y eliminar la fila correcta por ID del cliente
-            for (int i = 0; i < modeloTabla.getRowCount(); i++) {
-                String idEnTabla = (String) modeloTabla.getValueAt(i, 0);
-                if (idEnTabla.equals(cliente.getId())) {
-                    modeloTabla.removeRow(i);
-                    break;
-                }
-            }
-
-            // Actualizar área de diagnóstico
-            actualizarAreaDiagnostico(cliente);
+            // Mostrar el puesto que recibió al cliente
+            vista.getComboPuesto().setSelectedIndex(puestoLibre);
+            mostrarPuesto();
             actualizarAreaEspera();
-            actualizarInformeAcciones();
-
-            String mensajePrioridad = cliente.getPrioridad() == Prioridad.URGENTE
-                    ? " (Cliente URGENTE atendido por el sistema de prioridad 2:1)"
-                    : " (Cliente NORMAL)";
 
-            JOptionPane.showMessageDialog(vista, "Cliente pasó a diagnóstico",
+            JOptionPane.showMessageDialog(vista, "Cliente pasó a diagnóstico en el PUESTO " + (puestoLibre + 1),
                     "Éxito", JOptionPane.INFORMATION_MESSAGE);
         }
     }
@@ -260,12 +457,32 @@ public class MVCTechClassUC {
         vista.getComboRecepcion().setSelectedIndex(0);
     }
 
+    /**
+     * Sube de nivel a los clientes que esperaron de más. Corre en
+     * hiloDeEnvejecimiento; un error se muestra una sola vez hasta que una
+     * subida vuelva a funcionar, y no detiene las siguientes.
+     */
+    private void envejecerCola() {
+        try {
+            sistema.envejecerCola();
+            envejecimientoFallido = false;
+        } catch (RuntimeException ex) {
+            if (!envejecimientoFallido) {
+                envejecimientoFallido = true;
+                String mensaje = ex.getMessage();
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(vista,
+                        "Error al subir de nivel a los clientes en espera: " + mensaje,
+                        "Error", JOptionPane.ERROR_MESSAGE));
+            }
+        }
+    }
+
     // ==================== MÉTODOS DE DIAGNÓSTICO ====================
     /**
-     * Finaliza la atención del cliente actual. Guarda el diagnóstico ingresado
-     * y agrega el cliente al historial de atendidos (LinkedList). Registra la
-     * acción "finalizar" en el Stack. Actualiza todas las vistas
-     * correspondientes.
+     * Finaliza la atención del cliente del puesto seleccionado. Guarda el
+     * diagnóstico ingresado y agrega el cliente al historial de atendidos
+     * (HistorialAtendidos). Registra la acción FINALIZAR en la bitácora.
+     * Actualiza todas las vistas correspondientes.
      */
     private void atenderCliente() {
         String diagnosticoTexto = vista.getDiagnostico().getText().trim();
@@ -276,7 +493,8 @@ public class MVCTechClassUC {
             return;
         }
 
-        Cliente clienteEnAtencion = sistema.getClienteEnAtencion();
+        int puesto = puestoSeleccionado();
+        Cliente clienteEnAtencion = sistema.getClienteEnAtencion(puesto);
 
         if (clienteEnAtencion == null) {
             JOptionPane.showMessageDialog(vista, "No hay cliente en atención",
@@ -284,23 +502,14 @@ public class MVCTechClassUC {
             return;
         }
 
-        clienteEnAtencion.setDiagnostico(diagnosticoTexto);
-
-        // SOLUCIÓN: Agregar al historial si no está ya
-        if (!sistema.getHistorialAtendidos().contains(clienteEnAtencion)) {
-            sistema.getHistorialAtendidos().add(clienteEnAtencion);
-        }
-
-        // Registrar la acción "finalizar" ANTES de finalizarla
-        sistema.registrarAccion("finalizar", clienteEnAtencion);
-
-        sistema.finalizarAtencion();
+        // Guarda el diagnóstico, asegura el cliente en el historial y
+        // registra la acción "finalizar"
+        sistema.finalizarAtencion(puesto, diagnosticoTexto);
 
         vista.getDiagnostico().setText("");
-        vista.getAreaDeDiagnostico().setText("No hay cliente en atención actualmente");
+        mostrarPuesto();
 
         actualizarAreaEspera();
-        actualizarInformeAcciones();
         actualizarReporteAtendidos();
 
         JOptionPane.showMessageDialog(vista, "Cliente atendido exitosamente",
@@ -314,82 +523,111 @@ public class MVCTechClassUC {
      * @param cliente el cliente cuya información se mostrará
      */
     private void actualizarAreaDiagnostico(Cliente cliente) {
-        String info = "Cliente en atención:\n\n"
-                + "ID: " + cliente.getId() + "\n"
-                + "Nombre: " + cliente.getNombre() + "\n"
-                + "Tipo de solicitud: " + cliente.getTipoSolicitud() + "\n"
-                + "Prioridad: " + cliente.getPrioridad() + "\n"
-                + "Problema: " + cliente.getProblema() + "\n";
-
-        vista.getAreaDeDiagnostico().setText(info);
+        vista.getAreaDeDiagnostico().setText(proyecciones.obtener(cliente).getDetalleAtencion());
+    }
+
+    /**
+     * Muestra el cliente en atención del puesto seleccionado y el resumen
+     * del puesto (atendidos, finalizados y servicio promedio).
+     */
+    private void mostrarPuesto() {
+        int puesto = puestoSeleccionado();
+        Cliente clienteEnAtencion = sistema.getClienteEnAtencion(puesto);
+        if (clienteEnAtencion != null) {
+            actualizarAreaDiagnostico(clienteEnAtencion);
+        } else {
+            vista.getAreaDeDiagnostico().setText(SIN_CLIENTE_EN_ATENCION);
+        }
+        vista.getResumenPuesto().setText(sistema.getResumenDePuesto(puesto).toString());
+    }
+
+    /**
+     * Obtiene el puesto elegido en el combo de DIAGNÓSTICO.
+     *
+     * @return el número del puesto, desde 0
+     */
+    private int puestoSeleccionado() {
+        return Math.max(0, vista.getComboPuesto().getSelectedIndex());
     }
 
     // ==================== MÉTODO DESHACER ====================
     /**
-     * Deshace la última acción realizada en el sistema. Utiliza pop() en el
-     * Stack para obtener la última acción. Restaura el estado anterior según el
-     * tipo de acción: - "agregar": elimina el cliente de la cola y de la tabla
-     * - "eliminar": devuelve el cliente a la cola y a la tabla - "atender":
-     * devuelve el cliente de diagnóstico a la cola y a la tabla - "finalizar":
-     * devuelve el cliente del historial a diagnóstico
+     * Deshace la última acción realizada en el sistema, sea de la recepción
+     * o de cualquier puesto. Toma la cima de la bitácora para obtener la
+     * última acción.
      */
     private void deshacerAccion() {
-        RegistroDeAcciones ultimaAccion = sistema.getUltimaAccion();
+        // Deshacer la acción (cima de la bitácora)
+        RegistroDeAcciones ultimaAccion;
+        try {
+            ultimaAccion = sistema.deshacerUltimaAccion();
+        } catch (IllegalStateException ex) {
+            JOptionPane.showMessageDialog(vista, ex.getMessage(),
+                    "Advertencia", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        mostrarAccionDeshecha(ultimaAccion, "No hay acciones para deshacer");
+    }
+
+    /**
+     * Deshace la última acción del puesto seleccionado en DIAGNÓSTICO,
+     * aunque otros puestos o la recepción hayan actuado después.
+     */
+    private void deshacerAccionDelPuesto() {
+        int puesto = puestoSeleccionado();
+        RegistroDeAcciones ultimaAccion;
+        try {
+            ultimaAccion = sistema.deshacerUltimaAccion(puesto);
+        } catch (IllegalStateException ex) {
+            JOptionPane.showMessageDialog(vista, ex.getMessage(),
+                    "Advertencia", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        mostrarAccionDeshecha(ultimaAccion,
+                "El PUESTO " + (puesto + 1) + " no tiene acciones para deshacer");
+    }
 
+    /**
+     * Actualiza la interfaz después de deshacer una acción. Restaura el
+     * estado anterior según el tipo de acción: - AGREGAR: elimina el cliente
+     * de la cola y de la tabla - ELIMINAR: devuelve el cliente a la cola y a
+     * la tabla - ATENDER: devuelve el cliente de diagnóstico a la cola y a la
+     * tabla - FINALIZAR: devuelve el cliente del historial a diagnóstico en
+     * su puesto - IMPORTAR: quita de la cola y de la tabla los clientes
+     * importados
+     *
+     * @param ultimaAccion la acción deshecha, o null si no había
+     * @param sinAcciones el mensaje a mostrar si no había acción
+     */
+    private void mostrarAccionDeshecha(RegistroDeAcciones ultimaAccion, String sinAcciones) {
         if (ultimaAccion == null) {
-            JOptionPane.showMessageDialog(vista, "No hay acciones para deshacer",
+            JOptionPane.showMessageDialog(vista, sinAcciones,
                     "Advertencia", JOptionPane.WARNING_MESSAGE);
             return;
         }
 
-        String tipoAccion = ultimaAccion.getTipoAccion();
+        TipoAccion tipoAccion = ultimaAccion.getTipoAccion();
         Cliente clienteAfectado = ultimaAccion.getCliente();
 
-        // Deshacer la acción (pop del Stack)
-        sistema.deshacerUltimaAccion();
-
-        // Actualizar la interfaz según el tipo de acción
+        // Actualizar la interfaz según el tipo de acción. La tabla de espera
+        // ya recibió la fila agregada o quitada como oyente de la cola.
         switch (tipoAccion) {
-            case "agregar":
-                // Si se agregó un cliente, al deshacer se elimina de la tabla
-                for (int i = 0; i < modeloTabla.getRowCount(); i++) {
-                    if (modeloTabla.getValueAt(i, 0).equals(clienteAfectado.getId())) {
-                        modeloTabla.removeRow(i);
-                        break;
-                    }
-                }
+            case AGREGAR:
+            case ELIMINAR:
+            case IMPORTAR:
                 break;
 
-            case "eliminar":
-                // Si se eliminó un cliente, al deshacer se agrega de vuelta a la tabla
-                modeloTabla.addRow(new Object[]{
-                    clienteAfectado.getId(),
-                    clienteAfectado.getNombre(),
-                    clienteAfectado.getTipoSolicitud(),
-                    clienteAfectado.getPrioridad(),
-                    clienteAfectado.getProblema() != null ? clienteAfectado.getProblema() : "",
-                    clienteAfectado.getFechaRegistro() != null ? clienteAfectado.getFechaRegistro() : ""
-                });
-                break;
-
-            case "atender":
-                // Si se envió a diagnóstico, al deshacer vuelve a la cola y a la tabla
-                modeloTabla.insertRow(0, new Object[]{
-                    clienteAfectado.getId(),
-                    clienteAfectado.getNombre(),
-                    clienteAfectado.getTipoSolicitud(),
-                    clienteAfectado.getPrioridad(),
-                    clienteAfectado.getProblema() != null ? clienteAfectado.getProblema() : "",
-                    clienteAfectado.getFechaRegistro() != null ? clienteAfectado.getFechaRegistro() : ""
-                });
-                // Limpiar área de diagnóstico
-                vista.getAreaDeDiagnostico().setText("No hay cliente en atención actualmente");
+            case ATENDER:
+                // Si se envió a diagnóstico, al deshacer vuelve a la cola;
+                // se muestra el puesto que quedó libre
+                seleccionarPuesto(ultimaAccion.getPuesto());
                 vista.getDiagnostico().setText("");
                 break;
 
-            case "finalizar":
+            case FINALIZAR:
                 // Si se finalizó atención, al deshacer vuelve a diagnóstico
-                actualizarAreaDiagnostico(clienteAfectado);
+                // en su puesto
+                seleccionarPuesto(ultimaAccion.getPuesto());
                 // Restaurar el diagnóstico que tenía
                 if (clienteAfectado.getDiagnostico() != null) {
                     vista.getDiagnostico().setText(clienteAfectado.getDiagnostico());
@@ -397,131 +635,182 @@ public class MVCTechClassUC {
                 break;
         }
 
+        mostrarPuesto();
         actualizarAreaEspera();
-        actualizarInformeAcciones();
         actualizarReporteAtendidos();
 
         JOptionPane.showMessageDialog(vista, "Acción deshecha: " + tipoAccion,
                 "Éxito", JOptionPane.INFORMATION_MESSAGE);
     }
 
+    /**
+     * Selecciona un puesto en el combo de DIAGNÓSTICO, si se muestra.
+     *
+     * @param puesto el número del puesto, o RegistroDeAcciones.SIN_PUESTO
+     */
+    private void seleccionarPuesto(int puesto) {
+        int numero = Math.max(0, puesto);
+        if (numero < vista.getComboPuesto().getItemCount()) {
+            vista.getComboPuesto().setSelectedIndex(numero);
+        }
+    }
+
     // ==================== MÉTODOS DE INFORME ====================
     /**
-     * Filtra los clientes atendidos por tipo de solicitud. Busca en la
-     * LinkedList de clientes atendidos.
+     * Filtra los clientes atendidos por tipo de solicitud. Usa el índice por
+     * tipo del HistorialAtendidos; la lista solo pide las páginas visibles.
      */
     private void filtrarPorTipo() {
         String tipoSeleccionado = (String) vista.getComboFiltro().getSelectedItem();
 
         if (tipoSeleccionado.equals("Todos")) {
-            mostrarTodosLosAtendidos();
+            modeloAtendidos.mostrarTodos();
         } else {
-            // Buscar en LinkedList de atendidos
-            java.util.LinkedList<Cliente> clientesFiltrados = sistema.buscarPorTipoSolicitud(tipoSeleccionado);
-            mostrarClientesFiltrados(clientesFiltrados);
+            // Contar y paginar con el índice por tipo del historial
+            modeloAtendidos.filtrarPorTipo(tipoSeleccionado);
         }
     }
 
     /**
-     * Filtra y muestra un cliente específico por su ID. Busca en la LinkedList
-     * de clientes atendidos. Si el campo está vacío, muestra todos los
-     * clientes.
+     * Filtra y muestra los clientes cuyo ID empieza con el texto escrito.
+     * Usa los IDs ordenados del HistorialAtendidos. Se llama cuando se deja
+     * de escribir por ESPERA_BUSQUEDA_MS; la búsqueda corre en hiloDeBusqueda
+     * y el resultado vuelve al EDT con invokeLater. Si mientras tanto se
+     * pidió otra búsqueda, la anterior se cancela o su resultado se descarta.
+     * Si el campo está vacío, muestra todos los clientes.
      */
     private void filtrarPorId() {
         String idBuscado = vista.getFiltrarID().getText().trim();
+        int busqueda = ++ultimaBusqueda;
+        if (busquedaPendiente != null) {
+            busquedaPendiente.cancel(false);
+            busquedaPendiente = null;
+        }
 
         if (idBuscado.isEmpty()) {
-            mostrarTodosLosAtendidos();
+            modeloAtendidos.mostrarTodos();
             return;
         }
 
-        // Buscar en LinkedList de atendidos
-        Cliente cliente = sistema.buscarPorId(idBuscado);
-
-        if (cliente != null) {
-            StringBuilder sb = new StringBuilder();
-            sb.append("ID: ").append(cliente.getId()).append("\n");
-            sb.append("Nombre: ").append(cliente.getNombre()).append("\n");
-            sb.append("Tipo: ").append(cliente.getTipoSolicitud()).append("\n");
-            sb.append("Prioridad: ").append(cliente.getPrioridad()).append("\n");
-
-            if (cliente.getProblema() != null && !cliente.getProblema().isEmpty()) {
-                sb.append("Problema: ").append(cliente.getProblema()).append("\n");
-            }
-
-            if (cliente.getDiagnostico() != null && !cliente.getDiagnostico().isEmpty()) {
-                sb.append("Diagnóstico: ").append(cliente.getDiagnostico()).append("\n");
-            }
+        // Buscar por prefijo; se pide uno de más para saber si hay más
+        busquedaPendiente = hiloDeBusqueda.submit(() -> {
+            List<Cliente> encontrados = sistema.buscarPorPrefijoDeId(idBuscado, LIMITE_BUSQUEDA + 1);
+            SwingUtilities.invokeLater(() -> {
+                if (busqueda != ultimaBusqueda) {
+                    return;
+                }
+                boolean hayMas = encontrados.size() > LIMITE_BUSQUEDA;
+                modeloAtendidos.mostrarCoincidencias(idBuscado,
+                        hayMas ? encontrados.subList(0, LIMITE_BUSQUEDA) : encontrados, hayMas);
+            });
+        });
+    }
 
-            if (cliente.getHoraLlegada() != null) {
-                sb.append("Hora llegada: ").append(formatearFechaHora(cliente.getHoraLlegada())).append("\n");
-            }
-            if (cliente.getHoraAtencion() != null) {
-                sb.append("Hora atención: ").append(formatearFechaHora(cliente.getHoraAtencion())).append("\n");
-            }
+    /**
+     * Busca los casos atendidos cuyo problema o diagnóstico contienen las
+     * palabras escritas y los muestra del más relevante al menos. Usa el
+     * índice de texto del sistema; como filtrarPorId(), corre en
+     * hiloDeBusqueda tras una pausa al escribir y descarta resultados
+     * viejos. Si el campo está vacío, muestra todos los clientes.
+     */
+    private void buscarCasos() {
+        String consulta = vista.getBuscarCasos().getText().trim();
+        int busqueda = ++ultimaBusqueda;
+        if (busquedaPendiente != null) {
+            busquedaPendiente.cancel(false);
+            busquedaPendiente = null;
+        }
 
-            vista.getReporteAtendidos().setText(sb.toString());
-        } else {
-            vista.getReporteAtendidos().setText("No se encontró cliente con ID: " + idBuscado);
+        if (consulta.isEmpty()) {
+            modeloAtendidos.mostrarTodos();
+            return;
         }
+
+        busquedaPendiente = hiloDeBusqueda.submit(() -> {
+            List<Cliente> encontrados = sistema.buscarCasos(consulta, LIMITE_CASOS);
+            SwingUtilities.invokeLater(() -> {
+                if (busqueda == ultimaBusqueda) {
+                    modeloAtendidos.mostrarCasos(consulta, encontrados);
+                }
+            });
+        });
     }
 
     /**
-     * Muestra todos los clientes atendidos sin filtrar. Obtiene la LinkedList
-     * completa del historial.
+     * Exporta el historial de atendidos o la bitácora de acciones a un
+     * archivo elegido por el usuario, en CSV o NDJSON según su extensión.
+     * La exportación corre fuera del EDT sobre el estado del momento en que
+     * se pidió, así que se puede seguir atendiendo mientras se escribe; al
+     * terminar se muestra cuántas filas se exportaron.
+     *
+     * @param historial true para el historial, false para las acciones
      */
-    private void mostrarTodosLosAtendidos() {
-        // Obtener LinkedList de atendidos
-        java.util.LinkedList<Cliente> atendidos = sistema.getHistorialAtendidos();
-        mostrarClientesFiltrados(atendidos);
+    private void exportar(boolean historial) {
+        JFileChooser selector = new JFileChooser();
+        FileNameExtensionFilter filtroCsv = new FileNameExtensionFilter("Archivos CSV", "csv");
+        FileNameExtensionFilter filtroNdjson = new FileNameExtensionFilter("Archivos NDJSON",
+                "ndjson", "jsonl");
+        selector.addChoosableFileFilter(filtroCsv);
+        selector.addChoosableFileFilter(filtroNdjson);
+        selector.setFileFilter(filtroCsv);
+        selector.setSelectedFile(new File(historial ? "atendidos.csv" : "acciones.csv"));
+        if (selector.showSaveDialog(vista) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path elegido = selector.getSelectedFile().toPath();
+        // Sin extensión se usa la del filtro elegido
+        if (!elegido.getFileName().toString().contains(".")) {
+            FormatoDeExportacion delFiltro = selector.getFileFilter() == filtroNdjson
+                    ? FormatoDeExportacion.NDJSON : FormatoDeExportacion.CSV;
+            elegido = elegido.resolveSibling(elegido.getFileName() + "." + delFiltro.getExtension());
+        }
+        Path archivo = elegido;
+        FormatoDeExportacion formato = FormatoDeExportacion.desdeArchivo(archivo);
+        JButton boton = historial ? vista.getBotonExportarHistorial() : vista.getBotonExportarAcciones();
+
+        boton.setEnabled(false);
+        hiloDeExportacion.execute(() -> {
+            long filas = -1;
+            String error = null;
+            try {
+                filas = historial ? sistema.exportarHistorial(archivo, formato)
+                        : sistema.exportarAcciones(archivo, formato);
+            } catch (IOException | RuntimeException ex) {
+                error = ex.getMessage();
+            }
+            long exportadas = filas;
+            String mensajeDeError = error;
+            SwingUtilities.invokeLater(() -> {
+                boton.setEnabled(true);
+                if (exportadas < 0) {
+                    JOptionPane.showMessageDialog(vista, "Error al exportar: " + mensajeDeError,
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(vista, "Se exportaron " + exportadas
+                            + (historial ? " clientes atendidos" : " acciones") + " a " + archivo,
+                            "Exportación terminada", JOptionPane.INFORMATION_MESSAGE);
+                }
+            });
+        });
     }
 
+    // ==================== MÉTODOS DE ACTUALIZACIÓN DE VISTAS ====================
     /**
-     * Muestra una lista filtrada de clientes en el área de reporte. Recorre la
-     * LinkedList y muestra los detalles de cada cliente.
+     * Muestra un error de lo que el sistema guarda en segundo plano. Puede
+     * llamarse desde cualquier hilo; el diálogo se abre en el EDT.
      *
-     * @param clientes la lista de clientes a mostrar
+     * @param descripcion qué no se pudo guardar
+     * @param error el error encontrado
      */
-    private void mostrarClientesFiltrados(java.util.LinkedList<Cliente> clientes) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("=== HISTORIAL DE CLIENTES ATENDIDOS ===\n\n");
-
-        if (clientes.isEmpty()) {
-            sb.append("No hay clientes atendidos con este filtro\n");
-        } else {
-            // Recorrer LinkedList
-            for (Cliente c : clientes) {
-                sb.append("ID: ").append(c.getId()).append("\n");
-                sb.append("Nombre: ").append(c.getNombre()).append("\n");
-                sb.append("Tipo: ").append(c.getTipoSolicitud()).append("\n");
-                sb.append("Prioridad: ").append(c.getPrioridad()).append("\n");
-
-                if (c.getProblema() != null && !c.getProblema().isEmpty()) {
-                    sb.append("Problema: ").append(c.getProblema()).append("\n");
-                }
-
-                if (c.getDiagnostico() != null && !c.getDiagnostico().isEmpty()) {
-                    sb.append("Diagnóstico: ").append(c.getDiagnostico()).append("\n");
-                }
-
-                if (c.getHoraLlegada() != null) {
-                    sb.append("Hora llegada: ").append(formatearFechaHora(c.getHoraLlegada())).append("\n");
-                }
-                if (c.getHoraAtencion() != null) {
-                    sb.append("Hora atención: ").append(formatearFechaHora(c.getHoraAtencion())).append("\n");
-                }
-
-                sb.append("----------------------------------------\n\n");
-            }
-        }
-
-        vista.getReporteAtendidos().setText(sb.toString());
+    private void mostrarFalloAlGuardar(String descripcion, Exception error) {
+        String mensaje = descripcion + ": " + error.getMessage();
+        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(vista, mensaje,
+                "Error", JOptionPane.ERROR_MESSAGE));
     }
 
-    // ==================== MÉTODOS DE ACTUALIZACIÓN DE VISTAS ====================
     /**
      * Actualiza el área de espera con el número actual de clientes. Muestra el
-     * tamaño del ArrayDeque (cola de espera).
+     * tamaño de la ColaDeEspera (cola de espera).
      */
     private void actualizarAreaEspera() {
         int clientesEnEspera = sistema.getTotalClientesEnEspera();
@@ -530,53 +819,57 @@ public class MVCTechClassUC {
 
     /**
      * Actualiza el reporte de clientes atendidos y estadísticas. Muestra el
-     * total de clientes atendidos (tamaño de LinkedList) y el promedio de
-     * tiempo de atención.
+     * total de clientes atendidos (tamaño del HistorialAtendidos), el
+     * promedio de tiempo de atención y sus percentiles, y la actividad de la
+     * última hora y de las últimas 24 horas por tipo de solicitud, que salen
+     * de los contadores por tiempo sin recorrer el historial, y el resumen de
+     * cada puesto de atención usado.
      */
     private void actualizarReporteAtendidos() {
-        mostrarTodosLosAtendidos();
+        modeloAtendidos.mostrarTodos();
 
         int totalAtendidos = sistema.getTotalClientesAtendidos();
-        double promedioTiempo = sistema.getPromedioTiempoAtencion();
+        ResumenDeEspera resumen = sistema.getResumenDeEspera();
 
         String stats = "Total de clientes atendidos: " + totalAtendidos + "\n"
-                + "Promedio tiempo de atención: " + String.format("%.2f", promedioTiempo) + " minutos";
+                + "Promedio tiempo de atención: " + String.format("%.2f", resumen.getPromedio()) + " minutos\n"
+                + "Mediana / P90 / P99: " + String.format("%.2f / %.2f / %.2f",
+                        resumen.getP50(), resumen.getP90(), resumen.getP99()) + " minutos\n"
+                + "Mínimo / Máximo: " + String.format("%.2f / %.2f",
+                        resumen.getMinimo(), resumen.getMaximo()) + " minutos";
+
+        SerieDeActividad hora = sistema.getActividadPorMinuto(60);
+        SerieDeActividad dia = sistema.getActividadPorHora(24);
+        stats += "\nÚltima hora: " + hora.getTotalLlegadas() + " llegadas, "
+                + hora.getTotalAtendidos() + " atendidos, máximo en cola " + hora.getMaximoEnCola()
+                + "\nEspera en 24 h por tipo: " + String.format("Soporte %.2f / Mantenimiento %.2f / Reclamo %.2f",
+                        dia.getEsperaPromedio(TipoSolicitud.SOPORTE),
+                        dia.getEsperaPromedio(TipoSolicitud.MANTENIMIENTO),
+                        dia.getEsperaPromedio(TipoSolicitud.RECLAMO)) + " minutos"
+                + "\nPolítica de atención: " + sistema.getPoliticaDeAtencion()
+                + "\nEnvejecimiento: " + describirEnvejecimiento(sistema.getUmbralesDeEnvejecimiento());
+        for (ResumenDePuesto puesto : sistema.getResumenesDePuestos()) {
+            stats += "\n" + puesto;
+        }
 
         vista.getTotalAtendidos().setText(stats);
     }
 
     /**
-     * Actualiza el informe de acciones realizadas. Obtiene las acciones del
-     * Stack en orden inverso y las muestra en formato legible.
+     * Describe los umbrales de envejecimiento para el reporte.
+     *
+     * @param minutos los umbrales de BAJA, NORMAL y PREFERENTE
+     * @return los umbrales de cada nivel, o "desactivado"
      */
-    private void actualizarInformeAcciones() {
-        // Obtener acciones del Stack en orden inverso
-        java.util.List<RegistroDeAcciones> acciones = sistema.getAccionesEnOrdenInverso();
+    private static String describirEnvejecimiento(int[] minutos) {
         StringBuilder sb = new StringBuilder();
-        sb.append("=== HISTORIAL DE ACCIONES (Stack) ===\n\n");
-
-        for (RegistroDeAcciones accion : acciones) {
-            sb.append("Acción: ").append(accion.getTipoAccion().toUpperCase()).append("\n");
-            sb.append("Cliente: ").append(accion.getCliente().getNombre());
-            sb.append(" (ID: ").append(accion.getCliente().getId()).append(")\n");
-            sb.append("Fecha/Hora: ").append(formatearFechaHora(accion.getFechaHora())).append("\n");
-            sb.append("----------------------------------------\n\n");
+        for (int i = 0; i < minutos.length; i++) {
+            if (minutos[i] > 0) {
+                // El índice es el nivel de la prioridad que sube
+                sb.append(sb.length() == 0 ? "" : ", ").append(Prioridad.desdeNivel(i)).append(" a los ")
+                        .append(minutos[i]).append(" min");
+            }
         }
-
-        vista.getInformeAcciones().setText(sb.toString());
-    }
-
-    // ==================== MÉTODO AUXILIAR ====================
-    /**
-     * Formatea una fecha y hora a un formato legible. Patrón: dd/MM/yyyy
-     * HH:mm:ss Ejemplo: 25/11/2025 16:55:37
-     *
-     * @param fechaHora el LocalDateTime a formatear
-     * @return la fecha y hora en formato String
-     */
-    private String formatearFechaHora(java.time.LocalDateTime fechaHora) {
-        java.time.format.DateTimeFormatter formatter
-                = java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
-        return fechaHora.format(formatter);
+        return sb.length() == 0 ? "desactivado" : sb.toString();
     }
 }
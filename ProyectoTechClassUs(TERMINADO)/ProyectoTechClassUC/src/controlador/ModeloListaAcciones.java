@@ -0,0 +1,123 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package controlador;
+
+import javax.swing.AbstractListModel;
+import javax.swing.SwingUtilities;
+import modelo.OyenteDeBitacora;
+import modelo.RegistroDeAcciones;
+import modelo.SistemaDeGestion;
+
+/**
+ * Modelo de la lista del reporte de acciones que lee directamente la bitácora
+ * del SistemaDeGestion, de la acción más reciente a la más antigua. Solo se
+ * da formato a las filas que la lista pide, es decir, a las visibles; antes
+ * se armaba el texto de toda la bitácora después de cada operación.
+ *
+ * Como OyenteDeBitacora, avisa a la lista solo la fila que cambió: una acción
+ * nueva se inserta en la posición 0 y una deshecha se quita de la posición
+ * que tenía. Las acciones de un puesto de atención muestran el puesto.
+ *
+ * @author young
+ */
+public class ModeloListaAcciones extends AbstractListModel<String> implements OyenteDeBitacora {
+
+    private final SistemaDeGestion sistema;
+    private final CacheDeProyecciones proyecciones;
+
+    /**
+     * Constructor del modelo. Para recibir los cambios debe registrarse con
+     * agregarOyenteDeBitacora() del mismo sistema.
+     *
+     * @param sistema el sistema de gestión cuya bitácora se muestra
+     * @param proyecciones la caché de textos de los clientes
+     */
+    public ModeloListaAcciones(SistemaDeGestion sistema, CacheDeProyecciones proyecciones) {
+        this.sistema = sistema;
+        this.proyecciones = proyecciones;
+    }
+
+    /**
+     * Obtiene la cantidad de acciones en la bitácora.
+     *
+     * @return la cantidad de filas
+     */
+    @Override
+    public int getSize() {
+        return sistema.getTotalAcciones();
+    }
+
+    /**
+     * Obtiene el texto de una fila a partir de la acción en esa posición.
+     *
+     * @param indice 0 para la acción más reciente
+     * @return la acción en formato legible
+     */
+    @Override
+    public String getElementAt(int indice) {
+        return formatear(sistema.getAccion(indice));
+    }
+
+    /**
+     * Da formato a una acción en una sola línea, con la etiqueta del cliente
+     * tomada de su proyección y, si la hizo un puesto de atención, el
+     * puesto. Ejemplo: ATENDER - Ana (ID: 12) - 25/11/2025 16:55:37 - PUESTO 2
+     *
+     * @param accion la acción a mostrar
+     * @return la acción en formato legible
+     */
+    private String formatear(RegistroDeAcciones accion) {
+        String texto = accion.getTipoAccion().name()
+                + " - " + proyecciones.obtener(accion.getCliente()).getEtiqueta()
+                + " - " + accion.getFechaHora().format(ProyeccionDeCliente.FORMATO_FECHA_HORA);
+        if (accion.getPuesto() != RegistroDeAcciones.SIN_PUESTO) {
+            texto += " - PUESTO " + (accion.getPuesto() + 1);
+        }
+        return texto;
+    }
+
+    /**
+     * Avisa a la lista la fila insertada al inicio y, si la bitácora estaba
+     * llena, la fila descartada al final.
+     *
+     * @param registro la acción registrada
+     * @param descartoLaMasAntigua true si se descartó la acción más antigua
+     */
+    @Override
+    public void accionRegistrada(RegistroDeAcciones registro, boolean descartoLaMasAntigua) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(this::avisarTodo);
+            return;
+        }
+        if (descartoLaMasAntigua) {
+            int ultima = getSize() - 1;
+            fireIntervalRemoved(this, ultima, ultima);
+        }
+        fireIntervalAdded(this, 0, 0);
+    }
+
+    /**
+     * Avisa a la lista la fila quitada.
+     *
+     * @param indice la posición que tenía la acción
+     * @param registro la acción deshecha
+     */
+    @Override
+    public void accionDeshecha(int indice, RegistroDeAcciones registro) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(this::avisarTodo);
+            return;
+        }
+        fireIntervalRemoved(this, indice, indice);
+    }
+
+    /**
+     * Avisa a la lista que todas las filas pueden haber cambiado. Se usa
+     * cuando la bitácora cambió fuera del hilo de eventos.
+     */
+    private void avisarTodo() {
+        fireContentsChanged(this, 0, Math.max(0, getSize() - 1));
+    }
+}
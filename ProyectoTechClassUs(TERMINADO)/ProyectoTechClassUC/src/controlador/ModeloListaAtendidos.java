@@ -0,0 +1,175 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package controlador;
+
+import java.util.Collections;
+import java.util.List;
+import javax.swing.AbstractListModel;
+import modelo.Cliente;
+import modelo.SistemaDeGestion;
+
+/**
+ * Modelo de la lista del reporte de clientes atendidos. No copia el
+ * historial: pide al SistemaDeGestion solo la página de TAMANIO_PAGINA
+ * clientes que contiene la fila que la lista necesita, y al desplazarse
+ * pide la siguiente. Así un cambio de filtro o una finalización cuesta un
+ * conteo, no armar el texto de todo el historial.
+ *
+ * El filtro puede ser todos los atendidos, un tipo de solicitud o las
+ * coincidencias ya buscadas de un prefijo de ID. Si el filtro no tiene
+ * clientes, la lista muestra una sola fila con un mensaje.
+ *
+ * @author young
+ */
+public class ModeloListaAtendidos extends AbstractListModel<String> {
+
+    /**
+     * Cantidad de clientes que se piden al historial de una vez.
+     */
+    public static final int TAMANIO_PAGINA = 100;
+
+    private static final String MENSAJE_SIN_ATENDIDOS = "No hay clientes atendidos con este filtro";
+
+    private final SistemaDeGestion sistema;
+    private final CacheDeProyecciones proyecciones;
+    private String tipo;
+    // Coincidencias de la búsqueda por ID, o null si se pagina el historial
+    private List<Cliente> coincidencias;
+    private int total;
+    private String mensajeVacio;
+    private String mensajeMas;
+    // Página del historial leída por última vez y la fila donde empieza
+    private List<Cliente> pagina;
+    private int inicioPagina;
+
+    /**
+     * Constructor del modelo. Empieza mostrando todos los atendidos.
+     *
+     * @param sistema el sistema de gestión cuyo historial se muestra
+     * @param proyecciones la caché de textos de los clientes
+     */
+    public ModeloListaAtendidos(SistemaDeGestion sistema, CacheDeProyecciones proyecciones) {
+        this.sistema = sistema;
+        this.proyecciones = proyecciones;
+        this.tipo = null;
+        this.coincidencias = null;
+        this.total = sistema.contarAtendidos(null);
+        this.mensajeVacio = MENSAJE_SIN_ATENDIDOS;
+        this.mensajeMas = null;
+        this.pagina = Collections.emptyList();
+        this.inicioPagina = 0;
+    }
+
+    /**
+     * Muestra todos los clientes atendidos.
+     */
+    public void mostrarTodos() {
+        filtrar(null);
+    }
+
+    /**
+     * Muestra los clientes atendidos de un tipo de solicitud.
+     *
+     * @param tipo el tipo de solicitud
+     */
+    public void filtrarPorTipo(String tipo) {
+        filtrar(tipo);
+    }
+
+    /**
+     * Muestra el resultado de una búsqueda por prefijo de ID.
+     *
+     * @param prefijo el prefijo buscado
+     * @param encontrados los clientes encontrados
+     * @param hayMas true si la búsqueda se cortó en su límite
+     */
+    public void mostrarCoincidencias(String prefijo, List<Cliente> encontrados, boolean hayMas) {
+        tipo = null;
+        coincidencias = encontrados;
+        pagina = encontrados;
+        inicioPagina = 0;
+        total = encontrados.size();
+        mensajeVacio = "No se encontró cliente con ID: " + prefijo + "...";
+        if (hayMas) {
+            mensajeMas = "Se muestran los primeros " + total + "; escriba más del ID para acotar";
+            total++;
+        } else {
+            mensajeMas = null;
+        }
+        fireContentsChanged(this, 0, getSize() - 1);
+    }
+
+    /**
+     * Muestra el resultado de una búsqueda en los textos de los casos, en el
+     * orden de relevancia en que llegan.
+     *
+     * @param consulta las palabras buscadas
+     * @param encontrados los clientes encontrados, del más relevante al menos
+     */
+    public void mostrarCasos(String consulta, List<Cliente> encontrados) {
+        tipo = null;
+        coincidencias = encontrados;
+        pagina = encontrados;
+        inicioPagina = 0;
+        total = encontrados.size();
+        mensajeVacio = "No se encontraron casos con: " + consulta;
+        mensajeMas = null;
+        fireContentsChanged(this, 0, getSize() - 1);
+    }
+
+    /**
+     * Obtiene la cantidad de filas: los clientes del filtro, o una fila con
+     * el mensaje si no hay ninguno.
+     *
+     * @return la cantidad de filas
+     */
+    @Override
+    public int getSize() {
+        return total == 0 ? 1 : total;
+    }
+
+    /**
+     * Obtiene el texto de una fila. Si la fila no está en la página leída,
+     * lee la página que la contiene; el texto sale de la proyección del
+     * cliente.
+     *
+     * @param indice la fila, desde 0
+     * @return el cliente en formato legible
+     */
+    @Override
+    public String getElementAt(int indice) {
+        if (total == 0) {
+            return mensajeVacio;
+        }
+        if (coincidencias != null) {
+            return indice < coincidencias.size()
+                    ? proyecciones.obtener(coincidencias.get(indice)).getLineaReporte()
+                    : mensajeMas;
+        }
+        if (indice < inicioPagina || indice >= inicioPagina + pagina.size()) {
+            inicioPagina = indice - indice % TAMANIO_PAGINA;
+            pagina = sistema.getPaginaDeAtendidos(tipo, inicioPagina, TAMANIO_PAGINA);
+        }
+        int enPagina = indice - inicioPagina;
+        // El historial pudo achicarse desde el conteo (deshacer)
+        return enPagina < pagina.size() ? proyecciones.obtener(pagina.get(enPagina)).getLineaReporte() : "";
+    }
+
+    /**
+     * Cambia el filtro, cuenta sus clientes y avisa a la lista. Descarta la
+     * página leída.
+     *
+     * @param tipo el tipo de solicitud, o null para todos
+     */
+    private void filtrar(String tipo) {
+        this.tipo = tipo;
+        this.coincidencias = null;
+        this.pagina = Collections.emptyList();
+        this.inicioPagina = 0;
+        this.total = sistema.contarAtendidos(tipo);
+        this.mensajeVacio = MENSAJE_SIN_ATENDIDOS;
+        fireContentsChanged(this, 0, getSize() - 1);
+    }
+}
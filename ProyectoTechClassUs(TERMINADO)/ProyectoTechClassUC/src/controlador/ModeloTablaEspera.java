@@ -0,0 +1,163 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package controlador;
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import modelo.Cliente;
+import modelo.OyenteDeCola;
+import modelo.SistemaDeGestion;
+
+/**
+ * Modelo de la tabla de Recepción que lee directamente la cola de espera del
+ * SistemaDeGestion, sin copiarla. La tabla solo pide las filas visibles y
+ * cada una se obtiene en O(log n) con getClienteEnEspera(), así que la
+ * pestaña responde igual con 50.000 clientes en espera que con 5.
+ *
+ * Como OyenteDeCola, recibe la posición exacta de cada cliente que entra o
+ * sale y avisa a la tabla solo esa fila; la cola es la única fuente de
+ * verdad y no hay una segunda copia que pueda desfasarse. Una importación
+ * (o su deshacer) llega como un solo aviso por lote y la tabla se vuelve a
+ * pedir entera.
+ *
+ * @author young
+ */
+public class ModeloTablaEspera extends AbstractTableModel implements OyenteDeCola {
+
+    private static final String[] COLUMNAS = {"ID", "Nombre", "Tipo Solicitud", "Prioridad", "Problema", "Fecha"};
+
+    private final SistemaDeGestion sistema;
+    private final CacheDeProyecciones proyecciones;
+    // La tabla pide las seis columnas de una fila seguidas; se recuerda la
+    // última fila leída para no buscarla seis veces
+    private int filaEnCache;
+    private Cliente clienteEnCache;
+
+    /**
+     * Constructor del modelo. Para recibir los cambios debe registrarse con
+     * agregarOyenteDeCola() del mismo sistema.
+     *
+     * @param sistema el sistema de gestión cuya cola se muestra
+     * @param proyecciones la caché de textos de los clientes
+     */
+    public ModeloTablaEspera(SistemaDeGestion sistema, CacheDeProyecciones proyecciones) {
+        this.sistema = sistema;
+        this.proyecciones = proyecciones;
+        this.filaEnCache = -1;
+    }
+
+    /**
+     * Obtiene la cantidad de clientes en espera.
+     *
+     * @return la cantidad de filas
+     */
+    @Override
+    public int getRowCount() {
+        return sistema.getTotalClientesEnEspera();
+    }
+
+    /**
+     * Obtiene la cantidad de columnas.
+     *
+     * @return la cantidad de columnas
+     */
+    @Override
+    public int getColumnCount() {
+        return COLUMNAS.length;
+    }
+
+    /**
+     * Obtiene el título de una columna.
+     *
+     * @param columna el índice de la columna
+     * @return el título
+     */
+    @Override
+    public String getColumnName(int columna) {
+        return COLUMNAS[columna];
+    }
+
+    /**
+     * Obtiene el valor de una celda a partir del cliente en esa posición de
+     * la cola, usando su proyección.
+     *
+     * @param fila la posición en la cola
+     * @param columna el índice de la columna
+     * @return el valor de la celda
+     */
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        return proyecciones.obtener(getClienteEnFila(fila)).getCelda(columna);
+    }
+
+    /**
+     * Obtiene el cliente que se muestra en una fila.
+     *
+     * @param fila la posición en la cola
+     * @return el cliente en esa posición
+     */
+    public Cliente getClienteEnFila(int fila) {
+        if (fila != filaEnCache) {
+            clienteEnCache = sistema.getClienteEnEspera(fila);
+            filaEnCache = fila;
+        }
+        return clienteEnCache;
+    }
+
+    /**
+     * Avisa a la tabla la fila insertada.
+     *
+     * @param posicion la posición del cliente agregado
+     * @param cliente el cliente agregado
+     */
+    @Override
+    public void clienteAgregado(int posicion, Cliente cliente) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(this::fireTableDataChanged);
+            return;
+        }
+        filaEnCache = -1;
+        fireTableRowsInserted(posicion, posicion);
+    }
+
+    /**
+     * Avisa a la tabla la fila eliminada.
+     *
+     * @param posicion la posición que tenía el cliente quitado
+     * @param cliente el cliente quitado
+     */
+    @Override
+    public void clienteQuitado(int posicion, Cliente cliente) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(this::fireTableDataChanged);
+            return;
+        }
+        filaEnCache = -1;
+        fireTableRowsDeleted(posicion, posicion);
+    }
+
+    /**
+     * Avisa a la tabla que cambiaron muchas filas de una vez.
+     */
+    @Override
+    public void colaCambiada() {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(this::fireTableDataChanged);
+            return;
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * Descarta la fila recordada y avisa a la tabla que todas las filas
+     * pueden haber cambiado. Se usa cuando la cola cambió fuera del hilo de
+     * eventos.
+     */
+    @Override
+    public void fireTableDataChanged() {
+        filaEnCache = -1;
+        super.fireTableDataChanged();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package controlador;
+
+import java.time.format.DateTimeFormatter;
+import modelo.Cliente;
+
+/**
+ * Textos ya calculados para mostrar un Cliente: las celdas de la tabla de
+ * espera, la línea del reporte de atendidos, el bloque del área de
+ * diagnóstico y la etiqueta que usa el reporte de acciones. Es inmutable y
+ * corresponde a una versión del cliente; CacheDeProyecciones la reutiliza
+ * mientras el cliente no cambie.
+ *
+ * @author young
+ */
+public final class ProyeccionDeCliente {
+
+    static final DateTimeFormatter FORMATO_FECHA_HORA
+            = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+    private final Cliente cliente;
+    private final int version;
+    private final Object[] celdas;
+    private final String lineaReporte;
+    private final String detalleAtencion;
+    private final String etiqueta;
+
+    /**
+     * Constructor de la proyección. Calcula todos los textos del cliente en
+     * su versión actual.
+     *
+     * @param cliente el cliente a mostrar
+     */
+    ProyeccionDeCliente(Cliente cliente) {
+        this.cliente = cliente;
+        this.version = cliente.getVersion();
+        String problema = cliente.getProblema() != null ? cliente.getProblema() : "";
+        this.celdas = new Object[]{cliente.getId(), cliente.getNombre(), cliente.getTipoSolicitud(),
+            cliente.getPrioridad(), problema,
+            cliente.getFechaRegistro() != null ? cliente.getFechaRegistro() : ""};
+        this.lineaReporte = armarLineaReporte(cliente);
+        this.detalleAtencion = "Cliente en atención:\n\n"
+                + "ID: " + cliente.getId() + "\n"
+                + "Nombre: " + cliente.getNombre() + "\n"
+                + "Tipo de solicitud: " + cliente.getTipoSolicitud() + "\n"
+                + "Prioridad: " + cliente.getPrioridad() + "\n"
+                + "Problema: " + cliente.getProblema() + "\n";
+        this.etiqueta = cliente.getNombre() + " (ID: " + cliente.getId() + ")";
+    }
+
+    /**
+     * Indica si la proyección sigue correspondiendo al cliente, es decir, si
+     * el cliente no se modificó desde que se calculó.
+     *
+     * @param otro el cliente a comparar
+     * @return true si es el mismo cliente en la misma versión
+     */
+    boolean vigentePara(Cliente otro) {
+        return cliente == otro && version == otro.getVersion();
+    }
+
+    /**
+     * Obtiene una celda de la fila de la tabla de espera.
+     *
+     * @param columna la columna: ID, Nombre, Tipo Solicitud, Prioridad,
+     * Problema o Fecha
+     * @return el valor de la celda
+     */
+    public Object getCelda(int columna) {
+        return celdas[columna];
+    }
+
+    /**
+     * Obtiene la línea del cliente en el reporte de atendidos.
+     *
+     * @return la línea del reporte
+     */
+    public String getLineaReporte() {
+        return lineaReporte;
+    }
+
+    /**
+     * Obtiene el bloque de texto del área de diagnóstico.
+     *
+     * @return el detalle del cliente en atención
+     */
+    public String getDetalleAtencion() {
+        return detalleAtencion;
+    }
+
+    /**
+     * Obtiene la etiqueta corta del cliente: nombre e ID.
+     *
+     * @return la etiqueta del cliente
+     */
+    public String getEtiqueta() {
+        return etiqueta;
+    }
+
+    /**
+     * Arma la línea del reporte de atendidos.
+     *
+     * @param cliente el cliente a mostrar
+     * @return la línea del reporte
+     */
+    private static String armarLineaReporte(Cliente cliente) {
+        StringBuilder sb = new StringBuilder(160);
+        sb.append("ID: ").append(cliente.getId());
+        sb.append(" | ").append(cliente.getNombre());
+        sb.append(" | ").append(cliente.getTipoSolicitud());
+        sb.append(" | ").append(cliente.getPrioridad());
+        if (cliente.getProblema() != null && !cliente.getProblema().isEmpty()) {
+            sb.append(" | Problema: ").append(cliente.getProblema());
+        }
+        if (cliente.getDiagnostico() != null && !cliente.getDiagnostico().isEmpty()) {
+            sb.append(" | Diagnóstico: ").append(cliente.getDiagnostico());
+        }
+        if (cliente.getHoraLlegada() != null) {
+            sb.append(" | Llegada: ").append(cliente.getHoraLlegada().format(FORMATO_FECHA_HORA));
+        }
+        if (cliente.getHoraAtencion() != null) {
+            sb.append(" | Atención: ").append(cliente.getHoraAtencion().format(FORMATO_FECHA_HORA));
+        }
+        return sb.toString();
+    }
+}
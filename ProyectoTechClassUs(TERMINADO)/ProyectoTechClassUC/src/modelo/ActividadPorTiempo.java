@@ -0,0 +1,402 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/**
+ * Contadores de actividad agrupados por minuto y por hora: llegadas,
+ * atenciones, eliminaciones, finalizaciones, tiempo de espera por prioridad
+ * y por tipo de solicitud, y cantidad de clientes en cola. SistemaDeGestion
+ * los actualiza en cada operación y en cada deshacer, así que consultar un
+ * período no recorre el historial.
+ *
+ * Cada escala es un anillo de tamaño fijo: el período p ocupa la casilla
+ * p % tamaño y, cuando el tiempo avanza, la casilla se reinicia para el
+ * período nuevo. Una consulta recorre solo las casillas pedidas. Guarda un
+ * día por minuto y un mes por hora.
+ *
+ * Los períodos se cuentan en hora local, igual que las horas de llegada y
+ * atención de Cliente, para que las horas del informe coincidan con el
+ * reloj.
+ *
+ * @author young
+ */
+final class ActividadPorTiempo {
+
+    static final int MINUTOS_GUARDADOS = 24 * 60;
+    static final int HORAS_GUARDADAS = 30 * 24;
+
+    private static final long MILIS_POR_MINUTO = 60_000L;
+    private static final long MILIS_POR_HORA = 60 * MILIS_POR_MINUTO;
+    private static final int PRIORIDADES = Prioridad.values().length;
+    private static final int TIPOS = TipoSolicitud.values().length;
+    // Grupos de espera por casilla: cada prioridad, cada tipo y los tipos
+    // escritos a mano
+    private static final int GRUPOS = PRIORIDADES + TIPOS + 1;
+
+    private final Anillo porMinuto;
+    private final Anillo porHora;
+    private final Anillo[] anillos;
+    private int enCola;
+
+    /**
+     * Una escala de tiempo: un anillo de casillas de igual ancho, con un
+     * arreglo por contador.
+     */
+    private static final class Anillo {
+
+        private final long ancho;
+        private final long[] periodos;
+        private final int[] llegadas;
+        private final int[] atendidos;
+        private final int[] eliminados;
+        private final int[] finalizados;
+        // -1 si en el período no cambió la cola
+        private final int[] enColaAlInicio;
+        private final int[] enColaAlFinal;
+        private final int[] maximoEnCola;
+        private final long[] sumaEspera;
+        private final int[] cantidadEspera;
+
+        private Anillo(int tamanio, long ancho) {
+            this.ancho = ancho;
+            this.periodos = new long[tamanio];
+            Arrays.fill(periodos, Long.MIN_VALUE);
+            this.llegadas = new int[tamanio];
+            this.atendidos = new int[tamanio];
+            this.eliminados = new int[tamanio];
+            this.finalizados = new int[tamanio];
+            this.enColaAlInicio = new int[tamanio];
+            this.enColaAlFinal = new int[tamanio];
+            this.maximoEnCola = new int[tamanio];
+            this.sumaEspera = new long[tamanio * GRUPOS];
+            this.cantidadEspera = new int[tamanio * GRUPOS];
+        }
+
+        /**
+         * Obtiene la casilla de un período. Si crear es true y la casilla
+         * guarda un período anterior, la reinicia para el nuevo.
+         *
+         * @return la casilla, o -1 si el período ya salió del anillo (o no
+         * tiene casilla y crear es false)
+         */
+        private int casilla(long milis, boolean crear) {
+            long periodo = Math.floorDiv(milis, ancho);
+            int casilla = (int) Math.floorMod(periodo, (long) periodos.length);
+            if (periodos[casilla] == periodo) {
+                return casilla;
+            }
+            if (!crear || periodos[casilla] > periodo) {
+                return -1;
+            }
+            periodos[casilla] = periodo;
+            llegadas[casilla] = 0;
+            atendidos[casilla] = 0;
+            eliminados[casilla] = 0;
+            finalizados[casilla] = 0;
+            enColaAlInicio[casilla] = -1;
+            enColaAlFinal[casilla] = -1;
+            maximoEnCola[casilla] = -1;
+            Arrays.fill(sumaEspera, casilla * GRUPOS, (casilla + 1) * GRUPOS, 0L);
+            Arrays.fill(cantidadEspera, casilla * GRUPOS, (casilla + 1) * GRUPOS, 0);
+            return casilla;
+        }
+
+        private void sumarEspera(int casilla, int grupo, long espera, int signo) {
+            sumaEspera[casilla * GRUPOS + grupo] += signo * espera;
+            cantidadEspera[casilla * GRUPOS + grupo] += signo;
+        }
+
+        private void anotarCola(long milis, int anterior, int actual) {
+            int casilla = casilla(milis, true);
+            if (casilla < 0) {
+                return;
+            }
+            if (enColaAlInicio[casilla] < 0) {
+                enColaAlInicio[casilla] = anterior;
+                maximoEnCola[casilla] = anterior;
+            }
+            enColaAlFinal[casilla] = actual;
+            maximoEnCola[casilla] = Math.max(maximoEnCola[casilla], actual);
+        }
+
+        /**
+         * Copia los últimos períodos hasta el que contiene ahora. Los
+         * períodos sin cambios en la cola toman la cantidad en cola del
+         * siguiente que tuvo, o la actual si no hubo ninguno después.
+         */
+        private SerieDeActividad serie(long ahora, int cantidad, int enColaActual) {
+            cantidad = Math.max(0, Math.min(cantidad, periodos.length));
+            long ultimo = Math.floorDiv(ahora, ancho);
+            int[] llegadasSerie = new int[cantidad];
+            int[] atendidosSerie = new int[cantidad];
+            int[] eliminadosSerie = new int[cantidad];
+            int[] finalizadosSerie = new int[cantidad];
+            int[] enColaSerie = new int[cantidad];
+            int[] maximoSerie = new int[cantidad];
+            long[] sumaSerie = new long[cantidad * GRUPOS];
+            int[] cantidadSerie = new int[cantidad * GRUPOS];
+            int siguiente = enColaActual;
+            for (int i = cantidad - 1; i >= 0; i--) {
+                long periodo = ultimo - (cantidad - 1 - i);
+                int casilla = (int) Math.floorMod(periodo, (long) periodos.length);
+                if (periodos[casilla] != periodo) {
+                    enColaSerie[i] = siguiente;
+                    maximoSerie[i] = siguiente;
+                    continue;
+                }
+                llegadasSerie[i] = llegadas[casilla];
+                atendidosSerie[i] = atendidos[casilla];
+                eliminadosSerie[i] = eliminados[casilla];
+                finalizadosSerie[i] = finalizados[casilla];
+                System.arraycopy(sumaEspera, casilla * GRUPOS, sumaSerie, i * GRUPOS, GRUPOS);
+                System.arraycopy(cantidadEspera, casilla * GRUPOS, cantidadSerie, i * GRUPOS, GRUPOS);
+                if (enColaAlInicio[casilla] < 0) {
+                    enColaSerie[i] = siguiente;
+                    maximoSerie[i] = siguiente;
+                } else {
+                    enColaSerie[i] = enColaAlFinal[casilla];
+                    maximoSerie[i] = maximoEnCola[casilla];
+                    siguiente = enColaAlInicio[casilla];
+                }
+            }
+            return new SerieDeActividad(ultimo - cantidad + 1, ancho, llegadasSerie, atendidosSerie,
+                    eliminadosSerie, finalizadosSerie, enColaSerie, maximoSerie, sumaSerie,
+                    cantidadSerie, PRIORIDADES, TIPOS);
+        }
+    }
+
+    /**
+     * Constructor de la actividad. Crea los anillos vacíos.
+     */
+    ActividadPorTiempo() {
+        this.porMinuto = new Anillo(MINUTOS_GUARDADOS, MILIS_POR_MINUTO);
+        this.porHora = new Anillo(HORAS_GUARDADAS, MILIS_POR_HORA);
+        this.anillos = new Anillo[]{porMinuto, porHora};
+        this.enCola = 0;
+    }
+
+    /**
+     * Cuenta la llegada de un cliente a la cola, en el período de su hora de
+     * llegada.
+     *
+     * @param cliente el cliente agregado
+     * @param instante los milisegundos desde la época de la operación
+     * @param enColaAhora los clientes en cola después de agregarlo
+     */
+    void registrarLlegada(Cliente cliente, long instante, int enColaAhora) {
+        contarLlegada(cliente, 1);
+        anotarCola(instante, enColaAhora);
+    }
+
+    /**
+     * Revierte la llegada de un cliente (deshacer AGREGAR).
+     *
+     * @param cliente el cliente quitado de la cola
+     * @param instante los milisegundos desde la época del deshacer
+     * @param enColaAhora los clientes en cola después de quitarlo
+     */
+    void revertirLlegada(Cliente cliente, long instante, int enColaAhora) {
+        contarLlegada(cliente, -1);
+        anotarCola(instante, enColaAhora);
+    }
+
+    /**
+     * Cuenta la atención de un cliente y su tiempo de espera, en el período
+     * de su hora de atención.
+     *
+     * @param cliente el cliente atendido
+     * @param instante los milisegundos desde la época de la operación
+     * @param enColaAhora los clientes en cola después de atenderlo
+     */
+    void registrarAtencion(Cliente cliente, long instante, int enColaAhora) {
+        contarAtencion(cliente, 1);
+        anotarCola(instante, enColaAhora);
+    }
+
+    /**
+     * Revierte la atención de un cliente (deshacer ATENDER).
+     *
+     * @param cliente el cliente devuelto a la cola, con su hora de atención
+     * @param instante los milisegundos desde la época del deshacer
+     * @param enColaAhora los clientes en cola después de devolverlo
+     */
+    void revertirAtencion(Cliente cliente, long instante, int enColaAhora) {
+        contarAtencion(cliente, -1);
+        anotarCola(instante, enColaAhora);
+    }
+
+    /**
+     * Cuenta la eliminación de un cliente de la cola.
+     *
+     * @param instante los milisegundos desde la época de la operación
+     * @param enColaAhora los clientes en cola después de eliminarlo
+     */
+    void registrarEliminacion(long instante, int enColaAhora) {
+        contar(aLocal(instante), 1, false);
+        anotarCola(instante, enColaAhora);
+    }
+
+    /**
+     * Revierte una eliminación (deshacer ELIMINAR).
+     *
+     * @param original los milisegundos desde la época de la eliminación
+     * @param instante los milisegundos desde la época del deshacer
+     * @param enColaAhora los clientes en cola después de devolverlo
+     */
+    void revertirEliminacion(long original, long instante, int enColaAhora) {
+        contar(aLocal(original), -1, false);
+        anotarCola(instante, enColaAhora);
+    }
+
+    /**
+     * Cuenta la finalización de una atención.
+     *
+     * @param instante los milisegundos desde la época de la operación
+     */
+    void registrarFinalizacion(long instante) {
+        contar(aLocal(instante), 1, true);
+    }
+
+    /**
+     * Revierte una finalización (deshacer FINALIZAR).
+     *
+     * @param original los milisegundos desde la época de la finalización
+     */
+    void revertirFinalizacion(long original) {
+        contar(aLocal(original), -1, true);
+    }
+
+    /**
+     * Cuenta un cliente del historial al restaurar una instantánea: su
+     * llegada, su atención y, si ya no está en atención, su finalización a la
+     * hora de atención. Las eliminaciones anteriores a la instantánea no se
+     * recuperan.
+     *
+     * @param cliente el cliente del historial
+     * @param finalizado true si su atención ya terminó
+     */
+    void restaurarAtendido(Cliente cliente, boolean finalizado) {
+        contarLlegada(cliente, 1);
+        contarAtencion(cliente, 1);
+        if (finalizado) {
+            contar(milisLocales(cliente.getNanosAtencion()), 1, true);
+        }
+    }
+
+    /**
+     * Cuenta un cliente en espera al restaurar una instantánea.
+     *
+     * @param cliente el cliente en la cola
+     */
+    void restaurarEnEspera(Cliente cliente) {
+        contarLlegada(cliente, 1);
+    }
+
+    /**
+     * Fija la cantidad en cola sin anotarla en ningún período, al terminar
+     * de restaurar.
+     *
+     * @param enColaAhora los clientes en cola
+     */
+    void establecerEnCola(int enColaAhora) {
+        this.enCola = enColaAhora;
+    }
+
+    /**
+     * Obtiene los últimos minutos, hasta el que contiene el instante dado.
+     *
+     * @param ahora los milisegundos desde la época
+     * @param cantidad la cantidad de minutos, hasta MINUTOS_GUARDADOS
+     * @return la serie, del minuto más antiguo al actual
+     */
+    SerieDeActividad porMinuto(long ahora, int cantidad) {
+        return porMinuto.serie(aLocal(ahora), cantidad, enCola);
+    }
+
+    /**
+     * Obtiene las últimas horas, hasta la que contiene el instante dado.
+     *
+     * @param ahora los milisegundos desde la época
+     * @param cantidad la cantidad de horas, hasta HORAS_GUARDADAS
+     * @return la serie, de la hora más antigua a la actual
+     */
+    SerieDeActividad porHora(long ahora, int cantidad) {
+        return porHora.serie(aLocal(ahora), cantidad, enCola);
+    }
+
+    /**
+     * Suma o resta una llegada en el período de la hora de llegada. Al
+     * restar no deja contadores negativos: si el período ya salió del anillo
+     * o se reinició, no hay nada que revertir.
+     */
+    private void contarLlegada(Cliente cliente, int signo) {
+        long milis = milisLocales(cliente.getNanosLlegada());
+        for (Anillo anillo : anillos) {
+            int casilla = anillo.casilla(milis, signo > 0);
+            if (casilla >= 0 && (signo > 0 || anillo.llegadas[casilla] > 0)) {
+                anillo.llegadas[casilla] += signo;
+            }
+        }
+    }
+
+    private void contarAtencion(Cliente cliente, int signo) {
+        if (cliente.getNanosAtencion() == Cliente.SIN_HORA) {
+            return;
+        }
+        long milis = milisLocales(cliente.getNanosAtencion());
+        long espera = EstadisticasDeEspera.tiempoDeEspera(cliente);
+        TipoSolicitud tipo = cliente.getTipo();
+        int grupoTipo = PRIORIDADES + (tipo == null ? TIPOS : tipo.ordinal());
+        int grupoPrioridad = cliente.getPrioridad().ordinal();
+        for (Anillo anillo : anillos) {
+            int casilla = anillo.casilla(milis, signo > 0);
+            if (casilla < 0 || (signo < 0 && anillo.atendidos[casilla] == 0)) {
+                continue;
+            }
+            anillo.atendidos[casilla] += signo;
+            anillo.sumarEspera(casilla, grupoPrioridad, espera, signo);
+            anillo.sumarEspera(casilla, grupoTipo, espera, signo);
+        }
+    }
+
+    private void contar(long milis, int signo, boolean finalizacion) {
+        for (Anillo anillo : anillos) {
+            int casilla = anillo.casilla(milis, signo > 0);
+            if (casilla < 0) {
+                continue;
+            }
+            int[] contador = finalizacion ? anillo.finalizados : anillo.eliminados;
+            if (signo > 0 || contador[casilla] > 0) {
+                contador[casilla] += signo;
+            }
+        }
+    }
+
+    private void anotarCola(long instante, int enColaAhora) {
+        long milis = aLocal(instante);
+        for (Anillo anillo : anillos) {
+            anillo.anotarCola(milis, enCola, enColaAhora);
+        }
+        enCola = enColaAhora;
+    }
+
+    /**
+     * Pasa milisegundos desde la época a milisegundos de la hora local, la
+     * misma escala que las horas guardadas en Cliente.
+     */
+    private static long aLocal(long instante) {
+        int desfase = ZoneId.systemDefault().getRules().getOffset(Instant.ofEpochMilli(instante))
+                .getTotalSeconds();
+        return instante + desfase * 1000L;
+    }
+
+    private static long milisLocales(long nanos) {
+        return Math.floorDiv(nanos, 1_000_000L);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.io.IOException;
+
+/**
+ * Filas de clientes guardadas fuera de objetos Cliente, donde
+ * HistorialAtendidos pasa sus clientes más antiguos. Las filas solo se
+ * agregan al final y quitar una la marca como borrada sin mover las demás,
+ * así que el número de fila sirve como posición estable.
+ *
+ * Las lecturas (ocupada, obtener, corresponde y los datos sueltos de una
+ * fila) no cambian el almacén, así que varios hilos pueden leer a la vez
+ * mientras nadie agregue ni borre filas.
+ *
+ * Hay dos implementaciones: ArchivoDeAtendidos, en un archivo mapeado a
+ * memoria fuera del heap, y ColumnasDeClientes, en arreglos del heap, que se
+ * usa si el archivo no se puede crear.
+ *
+ * @author young
+ */
+interface AlmacenDeClientes extends AutoCloseable {
+
+    /**
+     * Obtiene la cantidad de filas, contando las borradas.
+     *
+     * @return la cantidad de filas
+     */
+    int filas();
+
+    /**
+     * Agrega un cliente como fila nueva. Los datos se copian, así que cambiar
+     * el cliente después no cambia la fila.
+     *
+     * @param cliente el cliente a guardar, o null para agregar una fila ya
+     * borrada
+     * @return el número de la fila
+     */
+    int agregar(Cliente cliente);
+
+    /**
+     * Indica si una fila tiene un cliente.
+     *
+     * @param fila el número de la fila
+     * @return false si la fila fue borrada
+     */
+    boolean ocupada(int fila);
+
+    /**
+     * Borra una fila.
+     *
+     * @param fila el número de la fila
+     */
+    void borrar(int fila);
+
+    /**
+     * Reconstruye el cliente de una fila. Cada llamada crea un Cliente nuevo
+     * con los mismos datos.
+     *
+     * @param fila el número de la fila
+     * @return el cliente, o null si la fila fue borrada
+     */
+    Cliente obtener(int fila);
+
+    /**
+     * Indica si una fila guarda a un cliente: mismo ID y mismas horas de
+     * llegada y de atención. No reconstruye el cliente de la fila.
+     *
+     * @param fila el número de la fila
+     * @param cliente el cliente a comparar
+     * @return true si la fila está ocupada y corresponde al cliente
+     */
+    boolean corresponde(int fila, Cliente cliente);
+
+    /**
+     * Obtiene el ID de una fila sin reconstruir el cliente.
+     *
+     * @param fila el número de la fila
+     * @return el ID, o null si la fila fue borrada
+     */
+    String id(int fila);
+
+    /**
+     * Obtiene el tipo de solicitud de una fila sin reconstruir el cliente.
+     *
+     * @param fila el número de una fila ocupada
+     * @return el ordinal del TipoSolicitud, o -1 si el tipo fue escrito a mano
+     */
+    int tipo(int fila);
+
+    /**
+     * Obtiene la prioridad de una fila sin reconstruir el cliente.
+     *
+     * @param fila el número de una fila ocupada
+     * @return el ordinal de la Prioridad
+     */
+    int prioridad(int fila);
+
+    /**
+     * Obtiene la hora de llegada de una fila sin reconstruir el cliente.
+     *
+     * @param fila el número de una fila ocupada
+     * @return la hora de llegada en nanosegundos, como en Cliente
+     */
+    long nanosLlegada(int fila);
+
+    /**
+     * Obtiene la hora de atención de una fila sin reconstruir el cliente.
+     *
+     * @param fila el número de una fila ocupada
+     * @return la hora de atención en nanosegundos, o Cliente.SIN_HORA
+     */
+    long nanosAtencion(int fila);
+
+    /**
+     * Libera los recursos del almacén. Después de cerrarlo no se puede usar.
+     *
+     * @throws IOException si falla el cierre
+     */
+    @Override
+    void close() throws IOException;
+}
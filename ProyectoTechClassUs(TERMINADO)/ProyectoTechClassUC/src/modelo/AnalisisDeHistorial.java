@@ -0,0 +1,320 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Informes sobre todo el historial de atendidos calculados en paralelo. Cada
+ * informe recorre las posiciones del historial con un Spliterator que se
+ * parte en tramos contiguos; un ForkJoinPool reparte los tramos entre sus
+ * hilos, cada tramo llena su propio acumulador y al final los acumuladores
+ * se juntan de a pares. Ningún hilo comparte datos mientras recorre, así que
+ * el tiempo baja casi en proporción a la cantidad de núcleos.
+ *
+ * Los datos de cada posición (tipo, prioridad y horas) se leen sueltos de
+ * las columnas o del archivo de HistorialAtendidos, sin reconstruir objetos
+ * Cliente. Como las posiciones están en orden de atención, un tramo abarca
+ * pocos días seguidos y su acumulador es chico.
+ *
+ * Mientras corre un informe se mantiene tomado el cerrojo de lectura del
+ * historial: las atenciones esperan a que termine.
+ *
+ * Se obtiene con SistemaDeGestion.getAnalisis().
+ *
+ * @author young
+ */
+public class AnalisisDeHistorial {
+
+    // Posiciones mínimas por tramo: menos no compensa el costo de repartir
+    // el tramo ni el de su acumulador
+    private static final int TRAMO_MINIMO = 16_384;
+    private static final long NANOS_POR_DIA = 86_400_000_000_000L;
+    private static final TipoSolicitud[] TIPOS = TipoSolicitud.values();
+
+    private final HistorialAtendidos historial;
+    private final StampedLock cerrojo;
+    private final ForkJoinPool pool;
+
+    /**
+     * Recorre un rango de posiciones del historial, saltando las vacías. Se
+     * parte por la mitad mientras cada mitad tenga al menos el tramo mínimo.
+     */
+    private final class Posiciones implements Spliterator.OfInt {
+
+        private int desde;
+        private final int hasta;
+        private final int tramo;
+
+        private Posiciones(int desde, int hasta, int tramo) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.tramo = tramo;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer accion) {
+            while (desde < hasta) {
+                int posicion = desde++;
+                if (historial.ocupada(posicion)) {
+                    accion.accept(posicion);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer accion) {
+            for (int posicion = desde; posicion < hasta; posicion++) {
+                if (historial.ocupada(posicion)) {
+                    accion.accept(posicion);
+                }
+            }
+            desde = hasta;
+        }
+
+        @Override
+        public Posiciones trySplit() {
+            int resto = hasta - desde;
+            if (resto < 2 * tramo) {
+                return null;
+            }
+            int medio = desde + resto / 2;
+            Posiciones primera = new Posiciones(desde, medio, tramo);
+            desde = medio;
+            return primera;
+        }
+
+        @Override
+        public long estimateSize() {
+            return hasta - desde;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | NONNULL | IMMUTABLE;
+        }
+    }
+
+    /**
+     * Reduce un tramo: si se puede partir, reduce la primera mitad en otra
+     * tarea y la segunda en esta; si no, la recorre con un acumulador nuevo.
+     */
+    private final class Reduccion<R> extends RecursiveTask<R> {
+
+        private final Posiciones posiciones;
+        private final Supplier<R> crear;
+        private final ObjIntConsumer<R> acumular;
+        private final BiConsumer<R, R> combinar;
+
+        private Reduccion(Posiciones posiciones, Supplier<R> crear, ObjIntConsumer<R> acumular,
+                BiConsumer<R, R> combinar) {
+            this.posiciones = posiciones;
+            this.crear = crear;
+            this.acumular = acumular;
+            this.combinar = combinar;
+        }
+
+        @Override
+        protected R compute() {
+            Posiciones primera = posiciones.trySplit();
+            if (primera == null) {
+                R resultado = crear.get();
+                posiciones.forEachRemaining((int posicion) -> acumular.accept(resultado, posicion));
+                return resultado;
+            }
+            Reduccion<R> tareaPrimera = new Reduccion<>(primera, crear, acumular, combinar);
+            tareaPrimera.fork();
+            R segunda = compute();
+            R resultado = tareaPrimera.join();
+            combinar.accept(resultado, segunda);
+            return resultado;
+        }
+    }
+
+    /**
+     * Histogramas por día y tipo de un tramo. Guarda el último día usado
+     * para no buscarlo en el mapa en cada posición.
+     */
+    private static final class EsperaPorDia {
+
+        private final HashMap<Long, HistogramaDeEspera[]> dias = new HashMap<>();
+        private long ultimoDia = Long.MIN_VALUE;
+        private HistogramaDeEspera[] ultimo;
+
+        private HistogramaDeEspera[] del(long dia) {
+            if (dia != ultimoDia) {
+                ultimoDia = dia;
+                ultimo = dias.computeIfAbsent(dia, k -> new HistogramaDeEspera[TIPOS.length]);
+            }
+            return ultimo;
+        }
+
+        private void combinar(EsperaPorDia otra) {
+            for (Map.Entry<Long, HistogramaDeEspera[]> entrada : otra.dias.entrySet()) {
+                HistogramaDeEspera[] propios = dias.get(entrada.getKey());
+                if (propios == null) {
+                    dias.put(entrada.getKey(), entrada.getValue());
+                    continue;
+                }
+                HistogramaDeEspera[] otros = entrada.getValue();
+                for (int i = 0; i < otros.length; i++) {
+                    if (otros[i] == null) {
+                        continue;
+                    }
+                    if (propios[i] == null) {
+                        propios[i] = otros[i];
+                    } else {
+                        propios[i].combinar(otros[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Atendidos y urgentes por semana de un tramo, con la última semana
+     * usada a mano como en EsperaPorDia.
+     */
+    private static final class UrgentesPorSemana {
+
+        private final HashMap<Long, long[]> semanas = new HashMap<>();
+        private long ultimaSemana = Long.MIN_VALUE;
+        private long[] ultima;
+
+        private long[] de(long semana) {
+            if (semana != ultimaSemana) {
+                ultimaSemana = semana;
+                ultima = semanas.computeIfAbsent(semana, k -> new long[2]);
+            }
+            return ultima;
+        }
+
+        private void combinar(UrgentesPorSemana otra) {
+            for (Map.Entry<Long, long[]> entrada : otra.semanas.entrySet()) {
+                long[] propios = semanas.putIfAbsent(entrada.getKey(), entrada.getValue());
+                if (propios != null) {
+                    propios[0] += entrada.getValue()[0];
+                    propios[1] += entrada.getValue()[1];
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructor del análisis.
+     *
+     * @param historial el historial a recorrer
+     * @param cerrojo el cerrojo que protege el historial
+     * @param pool el pool donde corren los recorridos
+     */
+    AnalisisDeHistorial(HistorialAtendidos historial, StampedLock cerrojo, ForkJoinPool pool) {
+        this.historial = historial;
+        this.cerrojo = cerrojo;
+        this.pool = pool;
+    }
+
+    /**
+     * Calcula la distribución del tiempo de espera por día de atención y por
+     * tipo de solicitud. Los clientes con un tipo escrito a mano (fuera de
+     * TipoSolicitud) no se incluyen.
+     *
+     * @return por cada día con atendidos, en orden, el resumen de cada tipo
+     * que tuvo atendidos ese día
+     */
+    public SortedMap<LocalDate, Map<TipoSolicitud, ResumenDeEspera>> getEsperaPorTipoYDia() {
+        EsperaPorDia total = recorrer(EsperaPorDia::new, (acumulado, posicion) -> {
+            int tipo = historial.tipoEn(posicion);
+            long atencion = historial.atencionEn(posicion);
+            if (tipo < 0 || atencion == Cliente.SIN_HORA) {
+                return;
+            }
+            HistogramaDeEspera[] delDia = acumulado.del(Math.floorDiv(atencion, NANOS_POR_DIA));
+            if (delDia[tipo] == null) {
+                delDia[tipo] = new HistogramaDeEspera();
+            }
+            delDia[tipo].registrar(Math.floorDiv(atencion - historial.llegadaEn(posicion), 1_000_000L));
+        }, EsperaPorDia::combinar);
+
+        SortedMap<LocalDate, Map<TipoSolicitud, ResumenDeEspera>> resultado = new TreeMap<>();
+        for (Map.Entry<Long, HistogramaDeEspera[]> entrada : total.dias.entrySet()) {
+            Map<TipoSolicitud, ResumenDeEspera> porTipo = new EnumMap<>(TipoSolicitud.class);
+            HistogramaDeEspera[] histogramas = entrada.getValue();
+            for (int i = 0; i < histogramas.length; i++) {
+                if (histogramas[i] != null) {
+                    porTipo.put(TIPOS[i], new ResumenDeEspera(histogramas[i]));
+                }
+            }
+            resultado.put(LocalDate.ofEpochDay(entrada.getKey()), porTipo);
+        }
+        return resultado;
+    }
+
+    /**
+     * Calcula la proporción de clientes URGENTE entre los atendidos de cada
+     * semana (de lunes a domingo, por día de atención).
+     *
+     * @return por cada semana con atendidos, identificada por su lunes, la
+     * proporción de urgentes entre 0 y 1
+     */
+    public SortedMap<LocalDate, Double> getProporcionUrgentesPorSemana() {
+        int urgente = Prioridad.URGENTE.ordinal();
+        UrgentesPorSemana total = recorrer(UrgentesPorSemana::new, (acumulado, posicion) -> {
+            long atencion = historial.atencionEn(posicion);
+            if (atencion == Cliente.SIN_HORA) {
+                return;
+            }
+            long dia = Math.floorDiv(atencion, NANOS_POR_DIA);
+            // El día 0 de la época fue jueves; se resta lo que pasó desde el lunes
+            long[] contadores = acumulado.de(dia - Math.floorMod(dia + 3, 7));
+            contadores[0]++;
+            if (historial.prioridadEn(posicion) == urgente) {
+                contadores[1]++;
+            }
+        }, UrgentesPorSemana::combinar);
+
+        SortedMap<LocalDate, Double> resultado = new TreeMap<>();
+        for (Map.Entry<Long, long[]> entrada : total.semanas.entrySet()) {
+            long[] contadores = entrada.getValue();
+            resultado.put(LocalDate.ofEpochDay(entrada.getKey()), contadores[1] / (double) contadores[0]);
+        }
+        return resultado;
+    }
+
+    /**
+     * Reduce todas las posiciones ocupadas del historial en el pool. El
+     * tramo se elige para que haya unos cuatro por hilo, así los hilos que
+     * terminan antes pueden robar trabajo a los demás.
+     *
+     * @param crear crea el acumulador de un tramo
+     * @param acumular suma una posición a un acumulador
+     * @param combinar suma al primer acumulador el segundo
+     * @return el acumulador con todas las posiciones
+     */
+    private <R> R recorrer(Supplier<R> crear, ObjIntConsumer<R> acumular, BiConsumer<R, R> combinar) {
+        long stamp = cerrojo.readLock();
+        try {
+            int fin = historial.finDePosiciones();
+            int tramo = Math.max(TRAMO_MINIMO, fin / (4 * pool.getParallelism()));
+            return pool.invoke(new Reduccion<>(new Posiciones(0, fin, tramo), crear, acumular, combinar));
+        } finally {
+            cerrojo.unlockRead(stamp);
+        }
+    }
+}
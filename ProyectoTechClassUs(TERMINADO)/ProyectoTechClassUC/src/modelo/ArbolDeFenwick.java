@@ -0,0 +1,97 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+/**
+ * Árbol de Fenwick (binary indexed tree) de conteos sobre casillas 0 a
+ * capacidad-1. Cada casilla vale 0 o 1 según esté ocupada, y el árbol
+ * responde en O(log n) cuántas casillas ocupadas hay antes de una y cuál es
+ * la k-ésima ocupada. ColaDeEspera lo usa para pasar de un nodo a su fila en
+ * la cola y de una fila a su nodo.
+ *
+ * @author young
+ */
+final class ArbolDeFenwick {
+
+    private final int[] arbol;
+    private final int mascaraMayor;
+
+    /**
+     * Constructor del árbol con las casillas indicadas ocupadas. Se construye
+     * en O(capacidad).
+     *
+     * @param ocupadas una marca por casilla; su largo es la capacidad
+     */
+    ArbolDeFenwick(boolean[] ocupadas) {
+        int capacidad = ocupadas.length;
+        this.arbol = new int[capacidad + 1];
+        for (int i = 1; i <= capacidad; i++) {
+            if (ocupadas[i - 1]) {
+                arbol[i]++;
+            }
+            int padre = i + (i & -i);
+            if (padre <= capacidad) {
+                arbol[padre] += arbol[i];
+            }
+        }
+        this.mascaraMayor = capacidad == 0 ? 0 : Integer.highestOneBit(capacidad);
+    }
+
+    /**
+     * Obtiene la cantidad de casillas.
+     *
+     * @return la capacidad del árbol
+     */
+    int capacidad() {
+        return arbol.length - 1;
+    }
+
+    /**
+     * Suma un valor al conteo de una casilla.
+     *
+     * @param casilla la casilla (0 a capacidad-1)
+     * @param delta 1 al ocuparla, -1 al liberarla
+     */
+    void sumar(int casilla, int delta) {
+        for (int i = casilla + 1; i < arbol.length; i += i & -i) {
+            arbol[i] += delta;
+        }
+    }
+
+    /**
+     * Cuenta las casillas ocupadas antes de una.
+     *
+     * @param casilla la casilla (0 a capacidad)
+     * @return la cantidad de casillas ocupadas en [0, casilla)
+     */
+    int contarAntes(int casilla) {
+        int suma = 0;
+        for (int i = casilla; i > 0; i -= i & -i) {
+            suma += arbol[i];
+        }
+        return suma;
+    }
+
+    /**
+     * Busca la k-ésima casilla ocupada, contando desde 0. Baja por el árbol
+     * en vez de hacer búsqueda binaria sobre contarAntes(), así que es un
+     * solo O(log n).
+     *
+     * @param k cuántas casillas ocupadas hay antes de la buscada
+     * @return la casilla, o capacidad si hay k o menos ocupadas
+     */
+    int buscar(int k) {
+        int posicion = 0;
+        int restantes = k;
+        for (int paso = mascaraMayor; paso > 0; paso >>= 1) {
+            int siguiente = posicion + paso;
+            if (siguiente < arbol.length && arbol[siguiente] <= restantes) {
+                posicion = siguiente;
+                restantes -= arbol[siguiente];
+            }
+        }
+        return posicion;
+    }
+}
@@ -0,0 +1,426 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Archivo de solo anexado, mapeado a memoria, con los clientes más antiguos
+ * del historial. Los datos quedan en la caché de páginas del sistema
+ * operativo y no en el heap, así que el tamaño del heap y las pausas del
+ * recolector no crecen con los clientes atendidos en el día.
+ *
+ * Son dos archivos. El de registros tiene un registro de largo fijo por
+ * fila: - estado (byte): 1 ocupada, 0 borrada - tipo de solicitud (byte):
+ * ordinal de TipoSolicitud, o -1 si es otro texto - prioridad (byte) - un
+ * byte libre - día de registro (int) - llegada y atención (long cada una, en
+ * nanosegundos) - inicio de sus textos (long). El de textos tiene, seguidos,
+ * los textos de cada fila con el formato de CodificadorBinario: ID, nombre,
+ * problema, diagnóstico, y el tipo de solicitud y la fecha de registro solo
+ * si no caben en el registro. Los textos de una fila terminan donde empiezan
+ * los de la siguiente.
+ *
+ * Cada archivo se mapea por segmentos de 16 MB que se agregan a medida que
+ * crece. Leer una fila solo toca su registro y sus textos, sin recorrer ni
+ * decodificar las demás. El archivo no es la copia durable del historial:
+ * esa es la instantánea más el diario, así que se vacía cada vez que se
+ * abre.
+ *
+ * @author young
+ */
+final class ArchivoDeAtendidos implements AlmacenDeClientes {
+
+    private static final int BITS_SEGMENTO = 24;
+    private static final long TAMANIO_SEGMENTO = 1L << BITS_SEGMENTO;
+    private static final int MASCARA_SEGMENTO = (int) TAMANIO_SEGMENTO - 1;
+    private static final int TAMANIO_REGISTRO = 32;
+    private static final String ARCHIVO_REGISTROS = "atendidos-registros.dat";
+    private static final String ARCHIVO_TEXTOS = "atendidos-textos.dat";
+    private static final Prioridad[] PRIORIDADES = Prioridad.values();
+    private static final byte TIPO_LIBRE = -1;
+
+    private static final int ESTADO = 0;
+    private static final int TIPO = 1;
+    private static final int PRIORIDAD = 2;
+    private static final int DIA = 4;
+    private static final int LLEGADA = 8;
+    private static final int ATENCION = 16;
+    private static final int INICIO_TEXTOS = 24;
+
+    private final FileChannel canalRegistros;
+    private final FileChannel canalTextos;
+    private final List<MappedByteBuffer> segmentosRegistros;
+    private final List<MappedByteBuffer> segmentosTextos;
+    private final CodificadorBinario codificador;
+    private int filas;
+    private long tamanioTextos;
+
+    /**
+     * Constructor del archivo con los canales ya abiertos y vacíos.
+     *
+     * @param canalRegistros el canal del archivo de registros
+     * @param canalTextos el canal del archivo de textos
+     */
+    private ArchivoDeAtendidos(FileChannel canalRegistros, FileChannel canalTextos) {
+        this.canalRegistros = canalRegistros;
+        this.canalTextos = canalTextos;
+        this.segmentosRegistros = new ArrayList<>();
+        this.segmentosTextos = new ArrayList<>();
+        this.codificador = new CodificadorBinario(256);
+        this.filas = 0;
+        this.tamanioTextos = 0;
+    }
+
+    /**
+     * Crea el archivo en un directorio de datos, vaciándolo si ya existía.
+     *
+     * @param directorio el directorio de datos
+     * @return el archivo vacío
+     * @throws IOException si no se puede crear
+     */
+    static ArchivoDeAtendidos crear(Path directorio) throws IOException {
+        Files.createDirectories(directorio);
+        return abrir(directorio.resolve(ARCHIVO_REGISTROS), directorio.resolve(ARCHIVO_TEXTOS), false);
+    }
+
+    /**
+     * Crea el archivo en el directorio temporal. Se borra al cerrarlo o al
+     * terminar la máquina virtual.
+     *
+     * @return el archivo vacío
+     * @throws IOException si no se puede crear
+     */
+    static ArchivoDeAtendidos crearTemporal() throws IOException {
+        return abrir(Files.createTempFile("atendidos-registros", ".dat"),
+                Files.createTempFile("atendidos-textos", ".dat"), true);
+    }
+
+    private static ArchivoDeAtendidos abrir(Path registros, Path textos, boolean temporal)
+            throws IOException {
+        FileChannel canalRegistros = abrirCanal(registros, temporal);
+        try {
+            return new ArchivoDeAtendidos(canalRegistros, abrirCanal(textos, temporal));
+        } catch (IOException | RuntimeException e) {
+            canalRegistros.close();
+            throw e;
+        }
+    }
+
+    private static FileChannel abrirCanal(Path archivo, boolean temporal) throws IOException {
+        if (temporal) {
+            return FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.DELETE_ON_CLOSE);
+        }
+        return FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Obtiene la cantidad de filas, contando las borradas.
+     *
+     * @return la cantidad de filas
+     */
+    @Override
+    public int filas() {
+        return filas;
+    }
+
+    /**
+     * Agrega un cliente como fila nueva: escribe sus textos al final del
+     * archivo de textos y su registro al final del de registros.
+     *
+     * @param cliente el cliente a guardar, o null para agregar una fila ya
+     * borrada
+     * @return el número de la fila
+     * @throws UncheckedIOException si no se puede agrandar el archivo
+     */
+    @Override
+    public int agregar(Cliente cliente) {
+        long posicion = (long) filas * TAMANIO_REGISTRO;
+        ByteBuffer segmento = segmento(segmentosRegistros, canalRegistros, posicion);
+        int registro = (int) (posicion & MASCARA_SEGMENTO);
+        segmento.putLong(registro + INICIO_TEXTOS, tamanioTextos);
+        if (cliente == null) {
+            segmento.put(registro + ESTADO, (byte) 0);
+            return filas++;
+        }
+        TipoSolicitud tipo = cliente.getTipo();
+        codificador.reiniciar();
+        codificador.escribirTexto(cliente.getId());
+        codificador.escribirTexto(cliente.getNombre());
+        codificador.escribirTexto(cliente.getProblema());
+        codificador.escribirTexto(cliente.getDiagnostico());
+        if (tipo == null) {
+            codificador.escribirTexto(cliente.getTipoSolicitud());
+        }
+        if (cliente.getDiaRegistro() == Cliente.SIN_DIA) {
+            codificador.escribirTexto(cliente.getFechaRegistroLibre());
+        }
+        escribirTextos(codificador.datos(), codificador.tamanio());
+
+        segmento.put(registro + TIPO, tipo == null ? TIPO_LIBRE : (byte) tipo.ordinal());
+        segmento.put(registro + PRIORIDAD, (byte) cliente.getPrioridad().ordinal());
+        segmento.putInt(registro + DIA, cliente.getDiaRegistro());
+        segmento.putLong(registro + LLEGADA, cliente.getNanosLlegada());
+        segmento.putLong(registro + ATENCION, cliente.getNanosAtencion());
+        segmento.put(registro + ESTADO, (byte) 1);
+        return filas++;
+    }
+
+    /**
+     * Indica si una fila tiene un cliente.
+     *
+     * @param fila el número de la fila
+     * @return false si la fila fue borrada
+     */
+    @Override
+    public boolean ocupada(int fila) {
+        return registro(fila).get(desplazamiento(fila) + ESTADO) != 0;
+    }
+
+    /**
+     * Borra una fila. Sus textos siguen ocupando espacio en el archivo.
+     *
+     * @param fila el número de la fila
+     */
+    @Override
+    public void borrar(int fila) {
+        registro(fila).put(desplazamiento(fila) + ESTADO, (byte) 0);
+    }
+
+    /**
+     * Reconstruye el cliente de una fila leyendo solo su registro y sus
+     * textos.
+     *
+     * @param fila el número de la fila
+     * @return el cliente, o null si la fila fue borrada
+     */
+    @Override
+    public Cliente obtener(int fila) {
+        ByteBuffer segmento = registro(fila);
+        int registro = desplazamiento(fila);
+        if (segmento.get(registro + ESTADO) == 0) {
+            return null;
+        }
+        long inicio = segmento.getLong(registro + INICIO_TEXTOS);
+        long fin = fila + 1 < filas ? inicioTextos(fila + 1) : tamanioTextos;
+        byte[] bytes = new byte[(int) (fin - inicio)];
+        leerTextos(inicio, bytes, bytes.length);
+        ByteBuffer textos = ByteBuffer.wrap(bytes);
+        String id = CodificadorBinario.leerTexto(textos);
+        String nombre = CodificadorBinario.leerTexto(textos);
+        String problema = CodificadorBinario.leerTexto(textos);
+        String diagnostico = CodificadorBinario.leerTexto(textos);
+        byte tipo = segmento.get(registro + TIPO);
+        String tipoSolicitud = tipo == TIPO_LIBRE ? CodificadorBinario.leerTexto(textos)
+                : TipoSolicitud.desdeOrdinal(tipo).getTexto();
+        int dia = segmento.getInt(registro + DIA);
+        String fechaLibre = dia == Cliente.SIN_DIA ? CodificadorBinario.leerTexto(textos) : null;
+
+        Cliente cliente = new Cliente(id, nombre, tipoSolicitud, PRIORIDADES[segmento.get(registro + PRIORIDAD)]);
+        cliente.setProblema(problema);
+        cliente.setDiagnostico(diagnostico);
+        cliente.establecerCompacto(segmento.getLong(registro + LLEGADA), segmento.getLong(registro + ATENCION),
+                dia, fechaLibre);
+        return cliente;
+    }
+
+    /**
+     * Indica si una fila guarda a un cliente: mismo ID y mismas horas de
+     * llegada y de atención. Solo lee el ID de los textos de la fila.
+     *
+     * @param fila el número de la fila
+     * @param cliente el cliente a comparar
+     * @return true si la fila está ocupada y corresponde al cliente
+     */
+    @Override
+    public boolean corresponde(int fila, Cliente cliente) {
+        ByteBuffer segmento = registro(fila);
+        int registro = desplazamiento(fila);
+        if (segmento.get(registro + ESTADO) == 0
+                || segmento.getLong(registro + LLEGADA) != cliente.getNanosLlegada()
+                || segmento.getLong(registro + ATENCION) != cliente.getNanosAtencion()) {
+            return false;
+        }
+        long inicio = segmento.getLong(registro + INICIO_TEXTOS);
+        byte[] id = cliente.getId().getBytes(StandardCharsets.UTF_8);
+        byte[] guardado = new byte[4 + id.length];
+        leerTextos(inicio, guardado, 4);
+        if (ByteBuffer.wrap(guardado).getInt() != id.length) {
+            return false;
+        }
+        leerTextos(inicio, guardado, guardado.length);
+        for (int i = 0; i < id.length; i++) {
+            if (guardado[4 + i] != id[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Obtiene el ID de una fila leyendo solo el primero de sus textos.
+     *
+     * @param fila el número de la fila
+     * @return el ID, o null si la fila fue borrada
+     */
+    @Override
+    public String id(int fila) {
+        ByteBuffer segmento = registro(fila);
+        int registro = desplazamiento(fila);
+        if (segmento.get(registro + ESTADO) == 0) {
+            return null;
+        }
+        long inicio = segmento.getLong(registro + INICIO_TEXTOS);
+        byte[] largo = new byte[4];
+        leerTextos(inicio, largo, 4);
+        byte[] bytes = new byte[ByteBuffer.wrap(largo).getInt()];
+        leerTextos(inicio + 4, bytes, bytes.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Obtiene el tipo de solicitud de una fila sin reconstruir el cliente.
+     *
+     * @param fila el número de una fila ocupada
+     * @return el ordinal del TipoSolicitud, o -1 si el tipo fue escrito a mano
+     */
+    @Override
+    public int tipo(int fila) {
+        return registro(fila).get(desplazamiento(fila) + TIPO);
+    }
+
+    /**
+     * Obtiene la prioridad de una fila sin reconstruir el cliente.
+     *
+     * @param fila el número de una fila ocupada
+     * @return el ordinal de la Prioridad
+     */
+    @Override
+    public int prioridad(int fila) {
+        return registro(fila).get(desplazamiento(fila) + PRIORIDAD);
+    }
+
+    /**
+     * Obtiene la hora de llegada de una fila sin reconstruir el cliente.
+     *
+     * @param fila el número de una fila ocupada
+     * @return la hora de llegada en nanosegundos, como en Cliente
+     */
+    @Override
+    public long nanosLlegada(int fila) {
+        return registro(fila).getLong(desplazamiento(fila) + LLEGADA);
+    }
+
+    /**
+     * Obtiene la hora de atención de una fila sin reconstruir el cliente.
+     *
+     * @param fila el número de una fila ocupada
+     * @return la hora de atención en nanosegundos, o Cliente.SIN_HORA
+     */
+    @Override
+    public long nanosAtencion(int fila) {
+        return registro(fila).getLong(desplazamiento(fila) + ATENCION);
+    }
+
+    /**
+     * Cierra los dos archivos. Si son temporales, se borran.
+     *
+     * @throws IOException si falla el cierre
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            canalRegistros.close();
+        } finally {
+            canalTextos.close();
+        }
+    }
+
+    // ==================== SEGMENTOS ====================
+    private ByteBuffer registro(int fila) {
+        return segmentosRegistros.get((int) (((long) fila * TAMANIO_REGISTRO) >>> BITS_SEGMENTO));
+    }
+
+    private static int desplazamiento(int fila) {
+        return (int) (((long) fila * TAMANIO_REGISTRO) & MASCARA_SEGMENTO);
+    }
+
+    private long inicioTextos(int fila) {
+        return registro(fila).getLong(desplazamiento(fila) + INICIO_TEXTOS);
+    }
+
+    /**
+     * Escribe bytes al final del archivo de textos, pasando de un segmento
+     * al siguiente si hace falta.
+     *
+     * @param datos los bytes a escribir
+     * @param cantidad la cantidad de bytes
+     */
+    private void escribirTextos(byte[] datos, int cantidad) {
+        int escritos = 0;
+        while (escritos < cantidad) {
+            ByteBuffer segmento = segmento(segmentosTextos, canalTextos, tamanioTextos);
+            int desde = (int) (tamanioTextos & MASCARA_SEGMENTO);
+            int parte = Math.min(cantidad - escritos, (int) TAMANIO_SEGMENTO - desde);
+            segmento.put(desde, datos, escritos, parte);
+            escritos += parte;
+            tamanioTextos += parte;
+        }
+    }
+
+    /**
+     * Lee bytes del archivo de textos, pasando de un segmento al siguiente
+     * si hace falta.
+     *
+     * @param posicion la posición en el archivo
+     * @param destino el arreglo de destino
+     * @param cantidad la cantidad de bytes
+     */
+    private void leerTextos(long posicion, byte[] destino, int cantidad) {
+        int leidos = 0;
+        while (leidos < cantidad) {
+            ByteBuffer segmento = segmentosTextos.get((int) (posicion >>> BITS_SEGMENTO));
+            int desde = (int) (posicion & MASCARA_SEGMENTO);
+            int parte = Math.min(cantidad - leidos, (int) TAMANIO_SEGMENTO - desde);
+            segmento.get(desde, destino, leidos, parte);
+            leidos += parte;
+            posicion += parte;
+        }
+    }
+
+    /**
+     * Obtiene el segmento que contiene una posición, mapeando uno nuevo al
+     * final del archivo si la posición todavía no está mapeada.
+     *
+     * @param segmentos los segmentos ya mapeados del archivo
+     * @param canal el canal del archivo
+     * @param posicion la posición en el archivo
+     * @return el segmento
+     * @throws UncheckedIOException si no se puede mapear
+     */
+    private static ByteBuffer segmento(List<MappedByteBuffer> segmentos, FileChannel canal, long posicion) {
+        int numero = (int) (posicion >>> BITS_SEGMENTO);
+        while (segmentos.size() <= numero) {
+            try {
+                segmentos.add(canal.map(FileChannel.MapMode.READ_WRITE,
+                        segmentos.size() * TAMANIO_SEGMENTO, TAMANIO_SEGMENTO));
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo agrandar el archivo de atendidos", e);
+            }
+        }
+        return segmentos.get(numero);
+    }
+}
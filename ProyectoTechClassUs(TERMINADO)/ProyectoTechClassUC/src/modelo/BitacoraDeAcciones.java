@@ -0,0 +1,333 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Bitácora de acciones acotada que reemplaza al Stack de RegistroDeAcciones.
+ * Es un buffer circular de profundidad configurable: cuando se llena, la
+ * acción más antigua se descarta y ya no se puede deshacer, de modo que la
+ * memoria usada no crece durante el turno.
+ *
+ * Cada acción se guarda en arreglos paralelos: el TipoAccion como byte, la
+ * fecha y hora como milisegundos, el cliente y los manejadores necesarios
+ * para deshacerla sin buscar (el nodo de la ColaDeEspera y la posición en el
+ * HistorialAtendidos). Una importación de clientes se guarda como una sola
+ * acción con el arreglo de nodos que agregó. Las acciones de un puesto de
+ * atención guardan además el número del puesto, para que cada técnico pueda
+ * deshacer la suya aunque otros hayan actuado después. Registrar una acción
+ * no crea objetos; los RegistroDeAcciones solo se crean al consultarlos.
+ *
+ * Los índices públicos van de 0 (la acción más reciente) a tamanio() - 1 (la
+ * más antigua conservada).
+ *
+ * @author young
+ */
+public class BitacoraDeAcciones {
+
+    /**
+     * Profundidad por defecto de la bitácora.
+     */
+    public static final int PROFUNDIDAD_POR_DEFECTO = 10_000;
+
+    private final byte[] tipos;
+    private final long[] instantes;
+    private final Cliente[] clientes;
+    private final ColaDeEspera.Nodo[] nodos;
+    private final int[] posiciones;
+    private final ColaDeEspera.Nodo[][] lotes;
+    private final byte[] puestos;
+    private int inicio;
+    private int tamanio;
+    private long descartadas;
+
+    /**
+     * Constructor de la bitácora.
+     *
+     * @param profundidad la cantidad máxima de acciones que se pueden
+     * deshacer
+     */
+    public BitacoraDeAcciones(int profundidad) {
+        if (profundidad <= 0) {
+            throw new IllegalArgumentException("La profundidad debe ser positiva: " + profundidad);
+        }
+        this.tipos = new byte[profundidad];
+        this.instantes = new long[profundidad];
+        this.clientes = new Cliente[profundidad];
+        this.nodos = new ColaDeEspera.Nodo[profundidad];
+        this.posiciones = new int[profundidad];
+        this.lotes = new ColaDeEspera.Nodo[profundidad][];
+        this.puestos = new byte[profundidad];
+        this.inicio = 0;
+        this.tamanio = 0;
+        this.descartadas = 0;
+    }
+
+    /**
+     * Registra una acción en la cima de la bitácora. Si está llena, descarta
+     * la acción más antigua.
+     *
+     * @param tipo el tipo de acción
+     * @param cliente el cliente involucrado
+     * @param nodo el nodo de la cola asociado, o null
+     * @param posicion la posición en el historial asociada, o -1
+     * @param instante los milisegundos desde la época de la acción
+     */
+    void registrar(TipoAccion tipo, Cliente cliente, ColaDeEspera.Nodo nodo, int posicion,
+            long instante) {
+        registrar(tipo, cliente, nodo, posicion, null, instante);
+    }
+
+    /**
+     * Registra una acción con los nodos de la cola que agregó de una vez,
+     * como una importación. Si está llena, descarta la acción más antigua.
+     *
+     * @param tipo el tipo de acción
+     * @param cliente el cliente que representa a la acción
+     * @param nodo el nodo de la cola asociado, o null
+     * @param posicion la posición en el historial asociada, o -1
+     * @param lote los nodos agregados, o null
+     * @param instante los milisegundos desde la época de la acción
+     */
+    void registrar(TipoAccion tipo, Cliente cliente, ColaDeEspera.Nodo nodo, int posicion,
+            ColaDeEspera.Nodo[] lote, long instante) {
+        registrar(tipo, cliente, nodo, posicion, lote, RegistroDeAcciones.SIN_PUESTO, instante);
+    }
+
+    /**
+     * Registra una acción hecha por un puesto de atención. Si está llena,
+     * descarta la acción más antigua.
+     *
+     * @param tipo el tipo de acción
+     * @param cliente el cliente que representa a la acción
+     * @param nodo el nodo de la cola asociado, o null
+     * @param posicion la posición en el historial asociada, o -1
+     * @param lote los nodos agregados, o null
+     * @param puesto el número del puesto, o RegistroDeAcciones.SIN_PUESTO
+     * @param instante los milisegundos desde la época de la acción
+     */
+    void registrar(TipoAccion tipo, Cliente cliente, ColaDeEspera.Nodo nodo, int posicion,
+            ColaDeEspera.Nodo[] lote, int puesto, long instante) {
+        int i;
+        if (tamanio == tipos.length) {
+            i = inicio;
+            inicio = siguiente(inicio);
+            descartadas++;
+        } else {
+            i = fisico(tamanio);
+            tamanio++;
+        }
+        tipos[i] = (byte) tipo.ordinal();
+        instantes[i] = instante;
+        clientes[i] = cliente;
+        nodos[i] = nodo;
+        posiciones[i] = posicion;
+        lotes[i] = lote;
+        puestos[i] = (byte) puesto;
+    }
+
+    /**
+     * Establece la cantidad de acciones descartadas. Se usa al restaurar una
+     * instantánea.
+     *
+     * @param descartadas la cantidad de acciones descartadas
+     */
+    void establecerDescartadas(long descartadas) {
+        this.descartadas = descartadas;
+    }
+
+    /**
+     * Quita la acción de la cima. Antes de llamarlo se deben leer sus datos
+     * con los métodos de consulta usando el índice 0.
+     */
+    void descartarCima() {
+        int i = fisico(tamanio - 1);
+        clientes[i] = null;
+        nodos[i] = null;
+        lotes[i] = null;
+        tamanio--;
+    }
+
+    /**
+     * Quita una acción de cualquier posición; las más recientes que ella
+     * bajan un lugar. Es O(indice), porque solo se mueven las acciones que
+     * están por encima. Antes de llamarlo se deben leer sus datos con los
+     * métodos de consulta.
+     *
+     * @param indice 0 para la más reciente
+     */
+    void quitar(int indice) {
+        if (indice < 0 || indice >= tamanio) {
+            throw new IndexOutOfBoundsException("Índice: " + indice + ", tamaño: " + tamanio);
+        }
+        int logico = tamanio - 1 - indice;
+        for (int l = logico; l < tamanio - 1; l++) {
+            int destino = fisico(l);
+            int origen = fisico(l + 1);
+            tipos[destino] = tipos[origen];
+            instantes[destino] = instantes[origen];
+            clientes[destino] = clientes[origen];
+            nodos[destino] = nodos[origen];
+            posiciones[destino] = posiciones[origen];
+            lotes[destino] = lotes[origen];
+            puestos[destino] = puestos[origen];
+        }
+        descartarCima();
+    }
+
+    /**
+     * Busca la acción más reciente de un puesto de atención.
+     *
+     * @param puesto el número del puesto
+     * @return el índice de la acción (0 para la más reciente), o -1 si el
+     * puesto no tiene acciones en la bitácora
+     */
+    int buscarDePuesto(int puesto) {
+        for (int indice = 0; indice < tamanio; indice++) {
+            if (puestos[fisico(tamanio - 1 - indice)] == puesto) {
+                return indice;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Indica si no hay acciones para deshacer.
+     *
+     * @return true si la bitácora está vacía
+     */
+    public boolean estaVacia() {
+        return tamanio == 0;
+    }
+
+    /**
+     * Obtiene la cantidad de acciones conservadas.
+     *
+     * @return el tamaño de la bitácora
+     */
+    public int tamanio() {
+        return tamanio;
+    }
+
+    /**
+     * Obtiene la profundidad máxima de la bitácora.
+     *
+     * @return la cantidad máxima de acciones conservadas
+     */
+    public int getProfundidad() {
+        return tipos.length;
+    }
+
+    /**
+     * Obtiene cuántas acciones antiguas se descartaron por falta de espacio.
+     *
+     * @return la cantidad de acciones descartadas
+     */
+    public long getDescartadas() {
+        return descartadas;
+    }
+
+    /**
+     * Obtiene el tipo de una acción.
+     *
+     * @param indice 0 para la más reciente
+     * @return el tipo de acción
+     */
+    public TipoAccion getTipo(int indice) {
+        return TipoAccion.desdeOrdinal(tipos[desdeCima(indice)]);
+    }
+
+    /**
+     * Obtiene el cliente de una acción.
+     *
+     * @param indice 0 para la más reciente
+     * @return el cliente involucrado
+     */
+    public Cliente getCliente(int indice) {
+        return clientes[desdeCima(indice)];
+    }
+
+    /**
+     * Obtiene el instante de una acción.
+     *
+     * @param indice 0 para la más reciente
+     * @return los milisegundos desde la época en que se registró
+     */
+    public long getInstante(int indice) {
+        return instantes[desdeCima(indice)];
+    }
+
+    /**
+     * Obtiene el puesto de atención que hizo una acción.
+     *
+     * @param indice 0 para la más reciente
+     * @return el número del puesto, o RegistroDeAcciones.SIN_PUESTO
+     */
+    public int getPuesto(int indice) {
+        return puestos[desdeCima(indice)];
+    }
+
+    /**
+     * Crea el RegistroDeAcciones de una acción para mostrarlo.
+     *
+     * @param indice 0 para la más reciente
+     * @return el registro de la acción
+     */
+    public RegistroDeAcciones getRegistro(int indice) {
+        LocalDateTime fechaHora = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(getInstante(indice)), ZoneId.systemDefault());
+        return new RegistroDeAcciones(getTipo(indice), getCliente(indice), fechaHora,
+                getPuesto(indice));
+    }
+
+    /**
+     * Obtiene el nodo de la cola asociado a una acción.
+     *
+     * @param indice 0 para la más reciente
+     * @return el nodo, o null si la acción no lo tiene
+     */
+    ColaDeEspera.Nodo getNodo(int indice) {
+        return nodos[desdeCima(indice)];
+    }
+
+    /**
+     * Obtiene la posición en el historial asociada a una acción.
+     *
+     * @param indice 0 para la más reciente
+     * @return la posición, o -1 si la acción no la tiene
+     */
+    int getPosicion(int indice) {
+        return posiciones[desdeCima(indice)];
+    }
+
+    /**
+     * Obtiene los nodos agregados por una importación.
+     *
+     * @param indice 0 para la más reciente
+     * @return los nodos, o null si la acción no es una importación
+     */
+    ColaDeEspera.Nodo[] getLote(int indice) {
+        return lotes[desdeCima(indice)];
+    }
+
+    private int desdeCima(int indice) {
+        if (indice < 0 || indice >= tamanio) {
+            throw new IndexOutOfBoundsException("Índice: " + indice + ", tamaño: " + tamanio);
+        }
+        return fisico(tamanio - 1 - indice);
+    }
+
+    private int fisico(int logico) {
+        int i = inicio + logico;
+        return i >= tipos.length ? i - tipos.length : i;
+    }
+
+    private int siguiente(int i) {
+        return i + 1 == tipos.length ? 0 : i + 1;
+    }
+}
@@ -4,26 +4,53 @@
  */
 package modelo;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 /**
  * Representa un cliente del sistema de gestión de TechClassUC. Contiene toda la
  * información relacionada con un cliente, incluyendo sus datos personales, tipo
  * de solicitud, prioridad, problema reportado y diagnóstico dado.
  *
+ * Cada set aumenta una versión, de modo que una vista puede guardar el texto
+ * ya calculado de un cliente y rehacerlo solo cuando el cliente cambió.
+ *
+ * Para que un historial de millones de clientes ocupe poco, los datos se
+ * guardan compactos y los getters los entregan como vistas: las horas como
+ * nanosegundos desde la época (un long cada una, en vez de tres objetos por
+ * LocalDateTime), la fecha de registro "dd/MM/yyyy" como número de día, el
+ * tipo de solicitud con el String compartido de TipoSolicitud y el nombre
+ * internado. Una fecha de registro con otro formato se guarda tal cual.
+ *
  * @author young
  */
 public class Cliente {
 
+    /**
+     * Valor de las horas guardadas cuando no hay hora.
+     */
+    static final long SIN_HORA = Long.MIN_VALUE;
+
+    /**
+     * Valor del día de registro cuando la fecha no es un día "dd/MM/yyyy".
+     */
+    static final int SIN_DIA = Integer.MIN_VALUE;
+
+    private static final long NANOS_POR_SEGUNDO = 1_000_000_000L;
+
     private String id;
     private String nombre;
     private String tipoSolicitud;
     private Prioridad prioridad;
     private String problema;
     private String diagnostico;
-    private String fechaRegistro;
-    private LocalDateTime horaLlegada;
-    private LocalDateTime horaAtencion;
+    private int diaRegistro;
+    // Fecha de registro que no es un día "dd/MM/yyyy" (o null)
+    private String fechaRegistroLibre;
+    private long nanosLlegada;
+    private long nanosAtencion;
+    private int version;
 
     /**
      * Constructor básico de Cliente. Inicializa un cliente con sus datos
@@ -36,11 +63,7 @@ public class Cliente {
      * @param prioridad nivel de prioridad (Normal, Urgente)
      */
     public Cliente(String id, String nombre, String tipoSolicitud, Prioridad prioridad) {
-        this.id = id;
-        this.nombre = nombre;
-        this.tipoSolicitud = tipoSolicitud;
-        this.prioridad = prioridad;
-        this.horaLlegada = LocalDateTime.now();
+        this(id, nombre, tipoSolicitud, prioridad, null, null);
     }
 
     /**
@@ -58,12 +81,13 @@ public class Cliente {
     public Cliente(String id, String nombre, String tipoSolicitud, Prioridad prioridad,
             String problema, String fechaRegistro) {
         this.id = id;
-        this.nombre = nombre;
-        this.tipoSolicitud = tipoSolicitud;
+        this.nombre = internar(nombre);
+        this.tipoSolicitud = canonizarTipo(tipoSolicitud);
         this.prioridad = prioridad;
         this.problema = problema;
-        this.fechaRegistro = fechaRegistro;
-        this.horaLlegada = LocalDateTime.now();
+        guardarFechaRegistro(fechaRegistro);
+        this.nanosLlegada = aNanos(LocalDateTime.now());
+        this.nanosAtencion = SIN_HORA;
     }
 
     /**
@@ -82,6 +106,7 @@ public class Cliente {
      */
     public void setId(String id) {
         this.id = id;
+        version++;
     }
 
     /**
@@ -99,7 +124,8 @@ public class Cliente {
      * @param nombre el nuevo nombre del cliente
      */
     public void setNombre(String nombre) {
-        this.nombre = nombre;
+        this.nombre = internar(nombre);
+        version++;
     }
 
     /**
@@ -117,7 +143,8 @@ public class Cliente {
      * @param tipoSolicitud el nuevo tipo de solicitud
      */
     public void setTipoSolicitud(String tipoSolicitud) {
-        this.tipoSolicitud = tipoSolicitud;
+        this.tipoSolicitud = canonizarTipo(tipoSolicitud);
+        version++;
     }
 
     /**
@@ -136,6 +163,7 @@ public class Cliente {
      */
     public void setPrioridad(Prioridad prioridad) {
         this.prioridad = prioridad;
+        version++;
     }
 
     /**
@@ -144,7 +172,7 @@ public class Cliente {
      * @return la fecha y hora en que el cliente llegó al sistema
      */
     public LocalDateTime getHoraLlegada() {
-        return horaLlegada;
+        return deNanos(nanosLlegada);
     }
 
     /**
@@ -153,7 +181,8 @@ public class Cliente {
      * @param horaLlegada la nueva hora de llegada
      */
     public void setHoraLlegada(LocalDateTime horaLlegada) {
-        this.horaLlegada = horaLlegada;
+        this.nanosLlegada = aNanos(horaLlegada);
+        version++;
     }
 
     /**
@@ -162,7 +191,7 @@ public class Cliente {
      * @return la fecha y hora de atención, null si aún no ha sido atendido
      */
     public LocalDateTime getHoraAtencion() {
-        return horaAtencion;
+        return deNanos(nanosAtencion);
     }
 
     /**
@@ -171,7 +200,8 @@ public class Cliente {
      * @param horaAtencion la hora de atención
      */
     public void setHoraAtencion(LocalDateTime horaAtencion) {
-        this.horaAtencion = horaAtencion;
+        this.nanosAtencion = aNanos(horaAtencion);
+        version++;
     }
 
     /**
@@ -190,6 +220,7 @@ public class Cliente {
      */
     public void setProblema(String problema) {
         this.problema = problema;
+        version++;
     }
 
     /**
@@ -198,7 +229,7 @@ public class Cliente {
      * @return la fecha de registro en formato String
      */
     public String getFechaRegistro() {
-        return fechaRegistro;
+        return diaRegistro == SIN_DIA ? fechaRegistroLibre : formatearDia(diaRegistro);
     }
 
     /**
@@ -207,7 +238,8 @@ public class Cliente {
      * @param fechaRegistro la nueva fecha de registro
      */
     public void setFechaRegistro(String fechaRegistro) {
-        this.fechaRegistro = fechaRegistro;
+        guardarFechaRegistro(fechaRegistro);
+        version++;
     }
 
     /**
@@ -226,6 +258,201 @@ public class Cliente {
      */
     public void setDiagnostico(String diagnostico) {
         this.diagnostico = diagnostico;
+        version++;
+    }
+
+    /**
+     * Obtiene la versión del cliente, que cambia cada vez que se modifica
+     * alguno de sus datos.
+     *
+     * @return la versión actual
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    // ==================== DATOS COMPACTOS ====================
+    /**
+     * Obtiene el tipo de solicitud como enum.
+     *
+     * @return el tipo, o null si el texto no es uno de los conocidos
+     */
+    public TipoSolicitud getTipo() {
+        return TipoSolicitud.desdeTexto(tipoSolicitud);
+    }
+
+    /**
+     * Obtiene la hora de llegada sin crear un LocalDateTime.
+     *
+     * @return los nanosegundos desde la época (UTC), o SIN_HORA
+     */
+    long getNanosLlegada() {
+        return nanosLlegada;
+    }
+
+    /**
+     * Obtiene la hora de atención sin crear un LocalDateTime.
+     *
+     * @return los nanosegundos desde la época (UTC), o SIN_HORA
+     */
+    long getNanosAtencion() {
+        return nanosAtencion;
+    }
+
+    /**
+     * Obtiene el día de registro.
+     *
+     * @return los días desde la época, o SIN_DIA si la fecha no es un día
+     */
+    int getDiaRegistro() {
+        return diaRegistro;
+    }
+
+    /**
+     * Obtiene la fecha de registro que no es un día "dd/MM/yyyy".
+     *
+     * @return la fecha tal como se registró, o null
+     */
+    String getFechaRegistroLibre() {
+        return fechaRegistroLibre;
+    }
+
+    /**
+     * Establece los datos compactos de golpe, sin pasar por los getters. Lo
+     * usan las ColumnasDeClientes al reconstruir un cliente.
+     *
+     * @param nanosLlegada la hora de llegada en nanosegundos, o SIN_HORA
+     * @param nanosAtencion la hora de atención en nanosegundos, o SIN_HORA
+     * @param diaRegistro el día de registro, o SIN_DIA
+     * @param fechaRegistroLibre la fecha de registro si no es un día
+     */
+    void establecerCompacto(long nanosLlegada, long nanosAtencion, int diaRegistro,
+            String fechaRegistroLibre) {
+        this.nanosLlegada = nanosLlegada;
+        this.nanosAtencion = nanosAtencion;
+        this.diaRegistro = diaRegistro;
+        this.fechaRegistroLibre = fechaRegistroLibre;
+        version++;
+    }
+
+    /**
+     * Convierte una fecha y hora a nanosegundos desde la época, tomándola
+     * como UTC (la misma convención que el diario). Un long alcanza para
+     * los años 1678 a 2261.
+     *
+     * @param fechaHora la fecha y hora, o null
+     * @return los nanosegundos, o SIN_HORA si es null
+     * @throws ArithmeticException si la fecha está fuera de ese rango
+     */
+    static long aNanos(LocalDateTime fechaHora) {
+        if (fechaHora == null) {
+            return SIN_HORA;
+        }
+        return Math.addExact(Math.multiplyExact(fechaHora.toEpochSecond(ZoneOffset.UTC), NANOS_POR_SEGUNDO),
+                fechaHora.getNano());
+    }
+
+    /**
+     * Convierte nanosegundos desde la época a fecha y hora.
+     *
+     * @param nanos los nanosegundos, o SIN_HORA
+     * @return la fecha y hora, o null si es SIN_HORA
+     */
+    static LocalDateTime deNanos(long nanos) {
+        if (nanos == SIN_HORA) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, NANOS_POR_SEGUNDO),
+                (int) Math.floorMod(nanos, NANOS_POR_SEGUNDO), ZoneOffset.UTC);
+    }
+
+    /**
+     * Guarda la fecha de registro como número de día si tiene exactamente el
+     * formato "dd/MM/yyyy" y es una fecha válida; si no, la guarda tal cual.
+     *
+     * @param fecha la fecha de registro
+     */
+    private void guardarFechaRegistro(String fecha) {
+        int dia = leerDia(fecha);
+        this.diaRegistro = dia;
+        this.fechaRegistroLibre = dia == SIN_DIA ? fecha : null;
+    }
+
+    /**
+     * Lee una fecha "dd/MM/yyyy" sin expresiones regulares ni formateadores.
+     *
+     * @param fecha el texto a leer
+     * @return los días desde la época, o SIN_DIA si no tiene ese formato
+     */
+    static int leerDia(String fecha) {
+        if (fecha == null || fecha.length() != 10 || fecha.charAt(2) != '/' || fecha.charAt(5) != '/') {
+            return SIN_DIA;
+        }
+        int dia = leerNumero(fecha, 0, 2);
+        int mes = leerNumero(fecha, 3, 5);
+        int anio = leerNumero(fecha, 6, 10);
+        if (dia < 1 || mes < 1 || mes > 12 || anio < 0 || dia > LocalDate.of(anio, mes, 1).lengthOfMonth()) {
+            return SIN_DIA;
+        }
+        return (int) LocalDate.of(anio, mes, dia).toEpochDay();
+    }
+
+    /**
+     * Escribe un número de día como "dd/MM/yyyy".
+     *
+     * @param dia los días desde la época
+     * @return la fecha en texto
+     */
+    static String formatearDia(int dia) {
+        LocalDate fecha = LocalDate.ofEpochDay(dia);
+        char[] texto = new char[10];
+        escribirNumero(texto, 0, 2, fecha.getDayOfMonth());
+        texto[2] = '/';
+        escribirNumero(texto, 3, 5, fecha.getMonthValue());
+        texto[5] = '/';
+        escribirNumero(texto, 6, 10, fecha.getYear());
+        return new String(texto);
+    }
+
+    private static int leerNumero(String texto, int desde, int hasta) {
+        int numero = 0;
+        for (int i = desde; i < hasta; i++) {
+            char c = texto.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            numero = numero * 10 + (c - '0');
+        }
+        return numero;
+    }
+
+    private static void escribirNumero(char[] texto, int desde, int hasta, int numero) {
+        for (int i = hasta - 1; i >= desde; i--) {
+            texto[i] = (char) ('0' + numero % 10);
+            numero /= 10;
+        }
+    }
+
+    /**
+     * Usa el String compartido del tipo de solicitud si es uno conocido.
+     *
+     * @param tipo el tipo de solicitud
+     * @return el mismo texto, compartido si es posible
+     */
+    private static String canonizarTipo(String tipo) {
+        TipoSolicitud conocido = TipoSolicitud.desdeTexto(tipo);
+        return conocido != null ? conocido.getTexto() : tipo;
+    }
+
+    /**
+     * Interna un nombre para que los clientes con el mismo nombre compartan
+     * un solo String.
+     *
+     * @param nombre el nombre, o null
+     * @return el nombre internado
+     */
+    static String internar(String nombre) {
+        return nombre == null ? null : nombre.intern();
     }
 
     /**
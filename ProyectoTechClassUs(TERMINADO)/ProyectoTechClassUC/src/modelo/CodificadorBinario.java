@@ -0,0 +1,233 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Buffer binario creciente para los registros del diario. Escribe enteros en
+ * orden big-endian (el mismo que ByteBuffer) y textos en UTF-8 precedidos de
+ * su largo, con -1 para null. Los métodos estáticos leen los mismos formatos
+ * desde un ByteBuffer.
+ *
+ * Se reutiliza entre registros con reiniciar(), así que escribir una
+ * operación no crea arreglos nuevos una vez que el buffer alcanzó su tamaño.
+ *
+ * @author young
+ */
+final class CodificadorBinario {
+
+    private byte[] datos;
+    private int tamanio;
+
+    /**
+     * Constructor del codificador.
+     *
+     * @param capacidad la capacidad inicial en bytes
+     */
+    CodificadorBinario(int capacidad) {
+        this.datos = new byte[Math.max(16, capacidad)];
+        this.tamanio = 0;
+    }
+
+    /**
+     * Vacía el buffer conservando su capacidad.
+     */
+    void reiniciar() {
+        tamanio = 0;
+    }
+
+    /**
+     * Obtiene la cantidad de bytes escritos.
+     *
+     * @return el tamaño del contenido
+     */
+    int tamanio() {
+        return tamanio;
+    }
+
+    /**
+     * Obtiene el arreglo interno. Solo son válidos los primeros tamanio()
+     * bytes.
+     *
+     * @return el arreglo interno
+     */
+    byte[] datos() {
+        return datos;
+    }
+
+    /**
+     * Escribe un byte.
+     *
+     * @param valor el valor, se conservan los 8 bits bajos
+     */
+    void escribirByte(int valor) {
+        asegurar(1);
+        datos[tamanio++] = (byte) valor;
+    }
+
+    /**
+     * Escribe un entero de 4 bytes.
+     *
+     * @param valor el valor a escribir
+     */
+    void escribirInt(int valor) {
+        asegurar(4);
+        datos[tamanio++] = (byte) (valor >>> 24);
+        datos[tamanio++] = (byte) (valor >>> 16);
+        datos[tamanio++] = (byte) (valor >>> 8);
+        datos[tamanio++] = (byte) valor;
+    }
+
+    /**
+     * Escribe un entero de 8 bytes.
+     *
+     * @param valor el valor a escribir
+     */
+    void escribirLong(long valor) {
+        escribirInt((int) (valor >>> 32));
+        escribirInt((int) valor);
+    }
+
+    /**
+     * Escribe un texto en UTF-8 precedido de su largo en bytes.
+     *
+     * @param texto el texto, puede ser null
+     */
+    void escribirTexto(String texto) {
+        if (texto == null) {
+            escribirInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        escribirInt(bytes.length);
+        escribirBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Escribe una fecha y hora local como segundos y nanosegundos, sin zona.
+     *
+     * @param fechaHora la fecha y hora, puede ser null
+     */
+    void escribirFecha(LocalDateTime fechaHora) {
+        if (fechaHora == null) {
+            escribirByte(0);
+            return;
+        }
+        escribirByte(1);
+        escribirLong(fechaHora.toEpochSecond(ZoneOffset.UTC));
+        escribirInt(fechaHora.getNano());
+    }
+
+    /**
+     * Escribe todos los datos de un cliente.
+     *
+     * @param cliente el cliente a escribir
+     */
+    void escribirCliente(Cliente cliente) {
+        escribirTexto(cliente.getId());
+        escribirTexto(cliente.getNombre());
+        escribirTexto(cliente.getTipoSolicitud());
+        escribirByte(cliente.getPrioridad().ordinal());
+        escribirTexto(cliente.getProblema());
+        escribirTexto(cliente.getDiagnostico());
+        escribirTexto(cliente.getFechaRegistro());
+        escribirFecha(cliente.getHoraLlegada());
+        escribirFecha(cliente.getHoraAtencion());
+    }
+
+    /**
+     * Copia bytes de un arreglo.
+     *
+     * @param origen el arreglo de origen
+     * @param desde la posición inicial en el origen
+     * @param cantidad la cantidad de bytes a copiar
+     */
+    void escribirBytes(byte[] origen, int desde, int cantidad) {
+        asegurar(cantidad);
+        System.arraycopy(origen, desde, datos, tamanio, cantidad);
+        tamanio += cantidad;
+    }
+
+    /**
+     * Escribe una parte del contenido en un canal.
+     *
+     * @param canal el canal de destino
+     * @param desde la posición inicial en el contenido
+     * @param hasta la posición final (exclusiva) en el contenido
+     * @throws IOException si falla la escritura
+     */
+    void volcar(FileChannel canal, int desde, int hasta) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(datos, desde, hasta - desde);
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+    }
+
+    private void asegurar(int adicional) {
+        if (tamanio + adicional > datos.length) {
+            datos = Arrays.copyOf(datos, Math.max(datos.length * 2, tamanio + adicional));
+        }
+    }
+
+    // ==================== LECTURA ====================
+    /**
+     * Lee un texto escrito con escribirTexto().
+     *
+     * @param buffer un buffer con arreglo accesible
+     * @return el texto, o null
+     */
+    static String leerTexto(ByteBuffer buffer) {
+        int largo = buffer.getInt();
+        if (largo < 0) {
+            return null;
+        }
+        String texto = new String(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                largo, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + largo);
+        return texto;
+    }
+
+    /**
+     * Lee una fecha y hora escrita con escribirFecha().
+     *
+     * @param buffer el buffer de origen
+     * @return la fecha y hora, o null
+     */
+    static LocalDateTime leerFecha(ByteBuffer buffer) {
+        if (buffer.get() == 0) {
+            return null;
+        }
+        long segundos = buffer.getLong();
+        int nanos = buffer.getInt();
+        return LocalDateTime.ofEpochSecond(segundos, nanos, ZoneOffset.UTC);
+    }
+
+    /**
+     * Lee un cliente escrito con escribirCliente().
+     *
+     * @param buffer el buffer posicionado al inicio del cliente
+     * @return un cliente nuevo con todos sus datos
+     */
+    static Cliente leerCliente(ByteBuffer buffer) {
+        String id = leerTexto(buffer);
+        String nombre = leerTexto(buffer);
+        String tipoSolicitud = leerTexto(buffer);
+        Prioridad prioridad = Prioridad.values()[buffer.get()];
+        Cliente cliente = new Cliente(id, nombre, tipoSolicitud, prioridad,
+                leerTexto(buffer), null);
+        cliente.setDiagnostico(leerTexto(buffer));
+        cliente.setFechaRegistro(leerTexto(buffer));
+        cliente.setHoraLlegada(leerFecha(buffer));
+        cliente.setHoraAtencion(leerFecha(buffer));
+        return cliente;
+    }
+}
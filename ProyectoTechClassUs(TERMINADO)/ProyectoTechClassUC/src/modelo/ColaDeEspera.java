@@ -0,0 +1,832 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Cola de espera de TechClassUC implementada como una lista doblemente
+ * enlazada intrusiva con un índice HashMap de ID a nodo.
+ *
+ * Cada nodo está enlazado tres veces: en la lista general (orden de llegada),
+ * en la lista de su Prioridad y en la de su tipo de solicitud. Así el
+ * siguiente cliente general, el primero de una prioridad o de un tipo, la
+ * inserción al final, la reinserción al inicio (offerFirst) y la eliminación
+ * por ID son todas O(1), y las políticas de atención eligen al siguiente sin
+ * recorrer la cola. El recorrido devuelve los clientes en el mismo orden que
+ * tendría un único ArrayDeque.
+ *
+ * Para mostrar la cola en una tabla también hay acceso por posición: cada
+ * nodo ocupa una casilla numerada en orden de llegada y un ArbolDeFenwick
+ * cuenta las casillas ocupadas, así que get(fila) e indexOf(id) son
+ * O(log n). Las casillas se asignan hacia adelante al final y hacia atrás al
+ * inicio; cuando se acaban de un lado se renumeran todos los nodos dejando
+ * espacio libre a ambos lados, lo que cuesta O(n) cada Ω(n) inserciones.
+ *
+ * Opcionalmente la cola envejece a los clientes: con umbrales de espera por
+ * nivel de prioridad (setUmbralesDeEnvejecimiento()), un cliente que lleva
+ * esperando desde su hora de llegada más que el umbral de su nivel sube al
+ * nivel siguiente, al final de esa lista, hasta llegar a URGENTE. Cada nodo
+ * con un umbral por delante está programado en una RuedaDeTemporizadores
+ * para el segundo en que lo cruza, así que envejecer() solo toca a los que
+ * vencieron: O(1) por cliente y por umbral, sin recorrer la cola.
+ *
+ * No se admiten dos clientes en espera con el mismo ID.
+ *
+ * @author young
+ */
+public class ColaDeEspera implements Iterable<Cliente> {
+
+    /**
+     * Cantidad de listas por tipo de solicitud: una por cada TipoSolicitud y
+     * una más para los tipos escritos a mano.
+     */
+    static final int GRUPOS_DE_TIPO = TipoSolicitud.values().length + 1;
+
+    private static final Prioridad[] PRIORIDADES = Prioridad.values();
+    private static final int CAPACIDAD_MINIMA = 16;
+    private static final long NANOS_POR_SEGUNDO = 1_000_000_000L;
+    // Los que suben en un mismo avance van al final de su nuevo nivel por
+    // orden de llegada, para que el resultado no dependa de la rueda
+    private static final Comparator<Nodo> POR_LLEGADA = Comparator.comparingInt(nodo -> nodo.secuencia);
+
+    private final HashMap<String, Nodo> indicePorId;
+    private final Nodo[] primerosPorPrioridad;
+    private final Nodo[] ultimosPorPrioridad;
+    private final Nodo[] primerosPorTipo;
+    private final Nodo[] ultimosPorTipo;
+    private Nodo primero;
+    private Nodo ultimo;
+    private int siguienteSecuencia;
+    private int primeraSecuencia;
+    private Nodo[] porSecuencia;
+    private ArbolDeFenwick posiciones;
+    private int tamanio;
+    // Segundos de espera a partir de los que sube cada nivel (0: no sube), o
+    // null sin envejecimiento
+    private long[] umbrales;
+    private RuedaDeTemporizadores rueda;
+    private final ArrayList<Nodo> vencidos;
+
+    /**
+     * Constructor de la cola de espera. Crea una lista vacía por cada
+     * prioridad y por cada tipo de solicitud, y el índice por ID.
+     */
+    public ColaDeEspera() {
+        this.indicePorId = new HashMap<>();
+        this.primerosPorPrioridad = new Nodo[PRIORIDADES.length];
+        this.ultimosPorPrioridad = new Nodo[PRIORIDADES.length];
+        this.primerosPorTipo = new Nodo[GRUPOS_DE_TIPO];
+        this.ultimosPorTipo = new Nodo[GRUPOS_DE_TIPO];
+        this.primero = null;
+        this.ultimo = null;
+        this.porSecuencia = new Nodo[CAPACIDAD_MINIMA];
+        this.posiciones = new ArbolDeFenwick(new boolean[CAPACIDAD_MINIMA]);
+        this.siguienteSecuencia = CAPACIDAD_MINIMA / 2;
+        this.primeraSecuencia = CAPACIDAD_MINIMA / 2;
+        this.tamanio = 0;
+        this.umbrales = null;
+        this.rueda = null;
+        this.vencidos = new ArrayList<>();
+    }
+
+    /**
+     * Agrega un cliente al final de la cola general y de su prioridad.
+     *
+     * @param cliente el cliente a agregar
+     * @throws IllegalArgumentException si ya hay un cliente en espera con el
+     * mismo ID
+     */
+    public void offer(Cliente cliente) {
+        ofrecer(cliente);
+    }
+
+    /**
+     * Agrega un cliente al inicio de la cola general y de su prioridad. Se usa
+     * al deshacer una atención.
+     *
+     * @param cliente el cliente a reinsertar
+     * @throws IllegalArgumentException si ya hay un cliente en espera con el
+     * mismo ID
+     */
+    public void offerFirst(Cliente cliente) {
+        reinsertarAlInicio(new Nodo(cliente));
+    }
+
+    /**
+     * Extrae el primer cliente en orden de llegada, sin importar su prioridad.
+     *
+     * @return el primer cliente, o null si la cola está vacía
+     */
+    public Cliente poll() {
+        Nodo nodo = extraer();
+        return nodo == null ? null : nodo.cliente;
+    }
+
+    /**
+     * Extrae el primer cliente de una prioridad específica.
+     *
+     * @param prioridad la prioridad buscada
+     * @return el primer cliente con esa prioridad, o null si no hay
+     */
+    public Cliente poll(Prioridad prioridad) {
+        Nodo nodo = extraer(prioridad);
+        return nodo == null ? null : nodo.cliente;
+    }
+
+    /**
+     * Quita un cliente específico de la cola usando el índice por ID.
+     *
+     * @param cliente el cliente a quitar
+     * @return true si estaba en la cola
+     */
+    public boolean remove(Cliente cliente) {
+        Nodo nodo = nodoDe(cliente);
+        return nodo != null && quitar(nodo);
+    }
+
+    /**
+     * Quita el cliente con el ID indicado usando el índice por ID.
+     *
+     * @param id el identificador del cliente
+     * @return el cliente quitado, o null si no se encontró
+     */
+    public Cliente removeById(String id) {
+        Nodo nodo = extraerPorId(id);
+        return nodo == null ? null : nodo.cliente;
+    }
+
+    /**
+     * Indica si hay un cliente en espera con el ID indicado.
+     *
+     * @param id el identificador a buscar
+     * @return true si el ID está en la cola
+     */
+    public boolean contains(String id) {
+        return indicePorId.containsKey(id);
+    }
+
+    /**
+     * Obtiene el cliente en una posición de la cola general, en orden de
+     * llegada. Es O(log n).
+     *
+     * @param indice la posición, desde 0
+     * @return el cliente en esa posición
+     * @throws IndexOutOfBoundsException si la posición no existe
+     */
+    public Cliente get(int indice) {
+        if (indice < 0 || indice >= tamanio) {
+            throw new IndexOutOfBoundsException("Posición " + indice + " fuera de la cola de " + tamanio);
+        }
+        return porSecuencia[posiciones.buscar(indice)].cliente;
+    }
+
+    /**
+     * Obtiene la posición en la cola general del cliente con el ID indicado.
+     * Es O(log n).
+     *
+     * @param id el identificador del cliente
+     * @return la posición desde 0, o -1 si no está en la cola
+     */
+    public int indexOf(String id) {
+        Nodo nodo = indicePorId.get(id);
+        return nodo == null ? -1 : posicion(nodo);
+    }
+
+    /**
+     * Indica si la cola está vacía.
+     *
+     * @return true si no hay clientes en espera
+     */
+    public boolean isEmpty() {
+        return tamanio == 0;
+    }
+
+    /**
+     * Obtiene la cantidad de clientes en espera.
+     *
+     * @return el tamaño de la cola
+     */
+    public int size() {
+        return tamanio;
+    }
+
+    /**
+     * Recorre la cola general en orden de llegada.
+     *
+     * @return un iterador en el mismo orden que la cola FIFO original
+     */
+    @Override
+    public Iterator<Cliente> iterator() {
+        return new Iterator<Cliente>() {
+            private Nodo actual = primero;
+
+            @Override
+            public boolean hasNext() {
+                return actual != null;
+            }
+
+            @Override
+            public Cliente next() {
+                if (actual == null) {
+                    throw new NoSuchElementException();
+                }
+                Cliente cliente = actual.cliente;
+                actual = actual.siguiente;
+                return cliente;
+            }
+        };
+    }
+
+    // ==================== ENVEJECIMIENTO ====================
+    /**
+     * Cambia los umbrales de envejecimiento y vuelve a programar a todos los
+     * clientes en espera, lo que es O(n). Los que ya pasaron su umbral suben
+     * en el próximo envejecer().
+     *
+     * @param segundos la espera desde la llegada, en segundos, a partir de la
+     * cual un cliente de cada nivel sube al siguiente, indexada por nivel
+     * (BAJA, NORMAL y PREFERENTE); 0 para que ese nivel no suba, y null o
+     * todos 0 para no envejecer
+     */
+    void setUmbralesDeEnvejecimiento(long[] segundos) {
+        boolean alguno = false;
+        if (segundos != null) {
+            for (long umbral : segundos) {
+                alguno |= umbral > 0;
+            }
+        }
+        if (rueda != null) {
+            rueda.limpiar();
+        }
+        if (!alguno) {
+            umbrales = null;
+            rueda = null;
+            return;
+        }
+        umbrales = segundos.clone();
+        if (rueda == null) {
+            rueda = new RuedaDeTemporizadores();
+        }
+        for (Nodo nodo = primero; nodo != null; nodo = nodo.siguiente) {
+            programarEnvejecimiento(nodo);
+        }
+    }
+
+    /**
+     * Obtiene los umbrales de envejecimiento.
+     *
+     * @return una copia de los segundos por nivel, o null si la cola no
+     * envejece
+     */
+    long[] getUmbralesDeEnvejecimiento() {
+        return umbrales == null ? null : umbrales.clone();
+    }
+
+    /**
+     * Sube de nivel a los clientes que a la hora indicada esperaron más que
+     * el umbral de su nivel, repitiendo mientras crucen también el del nivel
+     * nuevo. Solo visita a los que vencen, no a toda la cola.
+     *
+     * @param nanosAhora la hora, en la misma escala que las horas de llegada
+     * de los clientes
+     * @return la cantidad de subidas de nivel
+     */
+    int envejecer(long nanosAhora) {
+        if (rueda == null) {
+            return 0;
+        }
+        long hasta = Math.floorDiv(nanosAhora, NANOS_POR_SEGUNDO);
+        int subidas = 0;
+        rueda.avanzar(hasta, vencidos);
+        while (!vencidos.isEmpty()) {
+            vencidos.sort(POR_LLEGADA);
+            for (Nodo nodo : vencidos) {
+                subirDeNivel(nodo);
+                programarEnvejecimiento(nodo);
+            }
+            subidas += vencidos.size();
+            vencidos.clear();
+            // Los que ya cruzaron también el umbral del nivel nuevo
+            rueda.avanzar(hasta, vencidos);
+        }
+        return subidas;
+    }
+
+    /**
+     * Programa el nodo para el segundo en que su espera cruza el umbral de
+     * su nivel, o lo saca de la rueda si su nivel no sube.
+     *
+     * @param nodo un nodo enlazado
+     */
+    private void programarEnvejecimiento(Nodo nodo) {
+        int nivel = PRIORIDADES[nodo.prioridad].getNivel();
+        long llegada = nodo.cliente.getNanosLlegada();
+        if (nivel >= umbrales.length || umbrales[nivel] <= 0 || llegada == Cliente.SIN_HORA) {
+            rueda.cancelar(nodo);
+            return;
+        }
+        // El primer segundo entero en que la espera alcanza el umbral
+        long vencimiento = Math.floorDiv(llegada, NANOS_POR_SEGUNDO) + umbrales[nivel]
+                + (Math.floorMod(llegada, NANOS_POR_SEGUNDO) == 0 ? 0 : 1);
+        rueda.programar(nodo, vencimiento);
+    }
+
+    /**
+     * Pasa un nodo al final de la lista del nivel de prioridad siguiente y
+     * actualiza la prioridad del cliente. No cambia su lugar en la cola
+     * general ni en la de su tipo.
+     *
+     * @param nodo un nodo enlazado que no es URGENTE
+     */
+    private void subirDeNivel(Nodo nodo) {
+        Prioridad nueva = Prioridad.desdeNivel(PRIORIDADES[nodo.prioridad].getNivel() + 1);
+        desenlazarDePrioridad(nodo);
+        nodo.cliente.setPrioridad(nueva);
+        enlazarAlFinalDePrioridad(nodo, nueva.ordinal());
+    }
+
+    // ==================== OPERACIONES SOBRE NODOS ====================
+    /**
+     * Obtiene el cliente en espera con el ID indicado sin quitarlo.
+     *
+     * @param id el identificador del cliente
+     * @return el cliente, o null si no está en la cola
+     */
+    Cliente obtener(String id) {
+        Nodo nodo = indicePorId.get(id);
+        return nodo == null ? null : nodo.cliente;
+    }
+
+    /**
+     * Copia los nodos en espera en orden de llegada.
+     *
+     * @return un arreglo con los nodos de la cola general
+     */
+    Nodo[] nodos() {
+        Nodo[] nodos = new Nodo[tamanio];
+        int i = 0;
+        for (Nodo nodo = primero; nodo != null; nodo = nodo.siguiente) {
+            nodos[i++] = nodo;
+        }
+        return nodos;
+    }
+
+    /**
+     * Copia los nodos en espera agrupados por prioridad, cada grupo en el
+     * orden de su lista. Con el envejecimiento ese orden puede diferir del
+     * de llegada, porque los que suben de nivel van al final.
+     *
+     * @return un arreglo por ordinal de Prioridad con los nodos de su lista
+     */
+    Nodo[][] nodosPorPrioridad() {
+        int[] cantidades = new int[PRIORIDADES.length];
+        for (Nodo nodo = primero; nodo != null; nodo = nodo.siguiente) {
+            cantidades[nodo.prioridad]++;
+        }
+        Nodo[][] grupos = new Nodo[PRIORIDADES.length][];
+        for (int p = 0; p < PRIORIDADES.length; p++) {
+            grupos[p] = new Nodo[cantidades[p]];
+            int i = 0;
+            for (Nodo nodo = primerosPorPrioridad[p]; nodo != null; nodo = nodo.siguienteEnPrioridad) {
+                grupos[p][i++] = nodo;
+            }
+        }
+        return grupos;
+    }
+
+    /**
+     * Vuelve a enlazar las listas por prioridad en el orden indicado. Se usa
+     * al restaurar una instantánea, después de enlazar todos los nodos.
+     *
+     * @param grupos los nodos de cada lista por ordinal de Prioridad, como
+     * los devuelve nodosPorPrioridad(); deben ser todos los nodos en espera y
+     * cada uno con la prioridad de su grupo
+     */
+    void ordenarPrioridades(Nodo[][] grupos) {
+        for (int p = 0; p < PRIORIDADES.length; p++) {
+            primerosPorPrioridad[p] = null;
+            ultimosPorPrioridad[p] = null;
+            for (Nodo nodo : grupos[p]) {
+                nodo.anteriorEnPrioridad = null;
+                nodo.siguienteEnPrioridad = null;
+                enlazarAlFinalDePrioridad(nodo, p);
+            }
+        }
+    }
+
+    /**
+     * Obtiene el nodo en espera de un cliente.
+     *
+     * @param cliente el cliente buscado
+     * @return el nodo, o null si ese mismo cliente no está en la cola
+     */
+    Nodo nodoDe(Cliente cliente) {
+        Nodo nodo = indicePorId.get(cliente.getId());
+        return nodo == null || nodo.cliente != cliente ? null : nodo;
+    }
+
+    /**
+     * Obtiene la posición de un nodo en la cola general. Si el nodo se acaba
+     * de quitar devuelve la posición que tenía, mientras no se haya enlazado
+     * otro nodo después.
+     *
+     * @param nodo el nodo en la cola o recién quitado
+     * @return la cantidad de nodos en espera antes del nodo
+     */
+    int posicion(Nodo nodo) {
+        return posiciones.contarAntes(nodo.secuencia);
+    }
+
+    /**
+     * Crea un nodo desenlazado para un cliente. Se usa al restaurar una
+     * instantánea.
+     *
+     * @param cliente el cliente del nodo
+     * @return el nodo nuevo
+     */
+    static Nodo crearNodo(Cliente cliente) {
+        return new Nodo(cliente);
+    }
+
+    /**
+     * Obtiene el primer nodo en orden de llegada sin quitarlo.
+     *
+     * @return el primer nodo, o null si la cola está vacía
+     */
+    Nodo primero() {
+        return primero;
+    }
+
+    /**
+     * Obtiene el primer nodo de una prioridad sin quitarlo.
+     *
+     * @param prioridad la prioridad buscada
+     * @return el primer nodo con esa prioridad, o null si no hay
+     */
+    Nodo primero(Prioridad prioridad) {
+        return primerosPorPrioridad[prioridad.ordinal()];
+    }
+
+    /**
+     * Obtiene el primer nodo de la prioridad más urgente que tenga clientes
+     * en espera, sin quitarlo. Recorre solo los niveles de prioridad.
+     *
+     * @return el nodo, o null si la cola está vacía
+     */
+    Nodo primeroMasUrgente() {
+        for (int nivel = PRIORIDADES.length - 1; nivel >= 0; nivel--) {
+            Nodo nodo = primerosPorPrioridad[Prioridad.desdeNivel(nivel).ordinal()];
+            if (nodo != null) {
+                return nodo;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Obtiene el primer nodo de un tipo de solicitud sin quitarlo.
+     *
+     * @param grupo el grupo de tipo, como lo devuelve grupoDeTipo()
+     * @return el primer nodo de ese tipo, o null si no hay
+     */
+    Nodo primeroDeTipo(int grupo) {
+        return primerosPorTipo[grupo];
+    }
+
+    /**
+     * Obtiene la lista por tipo que le corresponde a un cliente: el ordinal
+     * de su TipoSolicitud, o la última lista si el tipo fue escrito a mano.
+     *
+     * @param cliente el cliente
+     * @return el grupo de tipo, desde 0 hasta GRUPOS_DE_TIPO - 1
+     */
+    static int grupoDeTipo(Cliente cliente) {
+        TipoSolicitud tipo = cliente.getTipo();
+        return tipo == null ? GRUPOS_DE_TIPO - 1 : tipo.ordinal();
+    }
+
+    /**
+     * Desenlaza y devuelve el primer nodo en orden de llegada.
+     *
+     * @return el primer nodo, o null si la cola está vacía
+     */
+    Nodo extraer() {
+        Nodo nodo = primero;
+        if (nodo != null) {
+            quitar(nodo);
+        }
+        return nodo;
+    }
+
+    /**
+     * Desenlaza y devuelve el primer nodo de una prioridad.
+     *
+     * @param prioridad la prioridad buscada
+     * @return el primer nodo con esa prioridad, o null si no hay
+     */
+    Nodo extraer(Prioridad prioridad) {
+        Nodo nodo = primerosPorPrioridad[prioridad.ordinal()];
+        if (nodo != null) {
+            quitar(nodo);
+        }
+        return nodo;
+    }
+
+    /**
+     * Desenlaza y devuelve el nodo con el ID indicado.
+     *
+     * @param id el identificador del cliente
+     * @return el nodo quitado, o null si no se encontró
+     */
+    Nodo extraerPorId(String id) {
+        Nodo nodo = indicePorId.get(id);
+        if (nodo != null) {
+            quitar(nodo);
+        }
+        return nodo;
+    }
+
+    /**
+     * Crea un nodo para el cliente y lo enlaza al final.
+     *
+     * @param cliente el cliente a agregar
+     * @return el nodo creado
+     */
+    Nodo ofrecer(Cliente cliente) {
+        Nodo nodo = new Nodo(cliente);
+        reinsertarAlFinal(nodo);
+        return nodo;
+    }
+
+    /**
+     * Enlaza un nodo desenlazado al final de la cola general y de su
+     * prioridad.
+     *
+     * @param nodo el nodo a enlazar
+     */
+    void reinsertarAlFinal(Nodo nodo) {
+        indexar(nodo);
+        nodo.enCola = true;
+        int p = nodo.cliente.getPrioridad().ordinal();
+        nodo.anterior = ultimo;
+        if (ultimo == null) {
+            primero = nodo;
+        } else {
+            ultimo.siguiente = nodo;
+        }
+        ultimo = nodo;
+        enlazarAlFinalDePrioridad(nodo, p);
+        int t = grupoDeTipo(nodo.cliente);
+        nodo.grupoDeTipo = t;
+        nodo.anteriorEnTipo = ultimosPorTipo[t];
+        if (ultimosPorTipo[t] == null) {
+            primerosPorTipo[t] = nodo;
+        } else {
+            ultimosPorTipo[t].siguienteEnTipo = nodo;
+        }
+        ultimosPorTipo[t] = nodo;
+        tamanio++;
+        if (siguienteSecuencia == porSecuencia.length) {
+            renumerar();
+        } else {
+            ocupar(nodo, siguienteSecuencia++);
+        }
+        if (rueda != null) {
+            programarEnvejecimiento(nodo);
+        }
+    }
+
+    /**
+     * Enlaza un nodo desenlazado al inicio de la cola general y de su
+     * prioridad.
+     *
+     * @param nodo el nodo a enlazar
+     */
+    void reinsertarAlInicio(Nodo nodo) {
+        indexar(nodo);
+        nodo.enCola = true;
+        int p = nodo.cliente.getPrioridad().ordinal();
+        nodo.prioridad = p;
+        nodo.siguiente = primero;
+        if (primero == null) {
+            ultimo = nodo;
+        } else {
+            primero.anterior = nodo;
+        }
+        primero = nodo;
+        nodo.siguienteEnPrioridad = primerosPorPrioridad[p];
+        if (primerosPorPrioridad[p] == null) {
+            ultimosPorPrioridad[p] = nodo;
+        } else {
+            primerosPorPrioridad[p].anteriorEnPrioridad = nodo;
+        }
+        primerosPorPrioridad[p] = nodo;
+        int t = grupoDeTipo(nodo.cliente);
+        nodo.grupoDeTipo = t;
+        nodo.siguienteEnTipo = primerosPorTipo[t];
+        if (primerosPorTipo[t] == null) {
+            ultimosPorTipo[t] = nodo;
+        } else {
+            primerosPorTipo[t].anteriorEnTipo = nodo;
+        }
+        primerosPorTipo[t] = nodo;
+        tamanio++;
+        if (primeraSecuencia == 0) {
+            renumerar();
+        } else {
+            ocupar(nodo, --primeraSecuencia);
+        }
+        if (rueda != null) {
+            programarEnvejecimiento(nodo);
+        }
+    }
+
+    /**
+     * Desenlaza un nodo de ambas listas y lo saca del índice. El nodo queda
+     * listo para volver a enlazarse. Si el nodo no está en la cola no hace
+     * nada.
+     *
+     * @param nodo el nodo a quitar
+     * @return true si el nodo estaba en la cola
+     */
+    boolean quitar(Nodo nodo) {
+        if (!nodo.enCola) {
+            return false;
+        }
+        nodo.enCola = false;
+        if (rueda != null) {
+            rueda.cancelar(nodo);
+        }
+        if (nodo.anterior == null) {
+            primero = nodo.siguiente;
+        } else {
+            nodo.anterior.siguiente = nodo.siguiente;
+        }
+        if (nodo.siguiente == null) {
+            ultimo = nodo.anterior;
+        } else {
+            nodo.siguiente.anterior = nodo.anterior;
+        }
+        desenlazarDePrioridad(nodo);
+        // El grupo se guardó al enlazar, por si el tipo del cliente cambió
+        int t = nodo.grupoDeTipo;
+        if (nodo.anteriorEnTipo == null) {
+            primerosPorTipo[t] = nodo.siguienteEnTipo;
+        } else {
+            nodo.anteriorEnTipo.siguienteEnTipo = nodo.siguienteEnTipo;
+        }
+        if (nodo.siguienteEnTipo == null) {
+            ultimosPorTipo[t] = nodo.anteriorEnTipo;
+        } else {
+            nodo.siguienteEnTipo.anteriorEnTipo = nodo.anteriorEnTipo;
+        }
+        nodo.anterior = null;
+        nodo.siguiente = null;
+        nodo.anteriorEnTipo = null;
+        nodo.siguienteEnTipo = null;
+        indicePorId.remove(nodo.cliente.getId());
+        tamanio--;
+        // El nodo conserva su secuencia para que posicion() siga valiendo
+        porSecuencia[nodo.secuencia] = null;
+        posiciones.sumar(nodo.secuencia, -1);
+        if (tamanio == 0) {
+            primeraSecuencia = porSecuencia.length / 2;
+            siguienteSecuencia = primeraSecuencia;
+        }
+        return true;
+    }
+
+    /**
+     * Enlaza un nodo al final de la lista de una prioridad.
+     *
+     * @param nodo el nodo
+     * @param p el ordinal de la prioridad
+     */
+    private void enlazarAlFinalDePrioridad(Nodo nodo, int p) {
+        nodo.prioridad = p;
+        nodo.anteriorEnPrioridad = ultimosPorPrioridad[p];
+        if (ultimosPorPrioridad[p] == null) {
+            primerosPorPrioridad[p] = nodo;
+        } else {
+            ultimosPorPrioridad[p].siguienteEnPrioridad = nodo;
+        }
+        ultimosPorPrioridad[p] = nodo;
+    }
+
+    /**
+     * Desenlaza un nodo de la lista de su prioridad.
+     *
+     * @param nodo el nodo
+     */
+    private void desenlazarDePrioridad(Nodo nodo) {
+        // La prioridad se guardó al enlazar, como el grupo de tipo
+        int p = nodo.prioridad;
+        if (nodo.anteriorEnPrioridad == null) {
+            primerosPorPrioridad[p] = nodo.siguienteEnPrioridad;
+        } else {
+            nodo.anteriorEnPrioridad.siguienteEnPrioridad = nodo.siguienteEnPrioridad;
+        }
+        if (nodo.siguienteEnPrioridad == null) {
+            ultimosPorPrioridad[p] = nodo.anteriorEnPrioridad;
+        } else {
+            nodo.siguienteEnPrioridad.anteriorEnPrioridad = nodo.anteriorEnPrioridad;
+        }
+        nodo.anteriorEnPrioridad = null;
+        nodo.siguienteEnPrioridad = null;
+    }
+
+    /**
+     * Asigna una casilla libre a un nodo recién enlazado.
+     *
+     * @param nodo el nodo
+     * @param secuencia la casilla
+     */
+    private void ocupar(Nodo nodo, int secuencia) {
+        nodo.secuencia = secuencia;
+        porSecuencia[secuencia] = nodo;
+        posiciones.sumar(secuencia, 1);
+    }
+
+    /**
+     * Vuelve a numerar todos los nodos en orden de llegada, centrados en una
+     * capacidad de al menos el doble del tamaño, y reconstruye el árbol de
+     * posiciones.
+     */
+    private void renumerar() {
+        int capacidad = Math.max(CAPACIDAD_MINIMA, Integer.highestOneBit(tamanio) << 2);
+        int margen = (capacidad - tamanio) / 2;
+        Nodo[] nuevas = new Nodo[capacidad];
+        boolean[] ocupadas = new boolean[capacidad];
+        int secuencia = margen;
+        for (Nodo nodo = primero; nodo != null; nodo = nodo.siguiente) {
+            nodo.secuencia = secuencia;
+            nuevas[secuencia] = nodo;
+            ocupadas[secuencia] = true;
+            secuencia++;
+        }
+        porSecuencia = nuevas;
+        posiciones = new ArbolDeFenwick(ocupadas);
+        primeraSecuencia = margen;
+        siguienteSecuencia = secuencia;
+    }
+
+    /**
+     * Registra el nodo en el índice por ID, rechazando IDs repetidos.
+     *
+     * @param nodo el nodo a indexar
+     */
+    private void indexar(Nodo nodo) {
+        String id = nodo.cliente.getId();
+        if (indicePorId.putIfAbsent(id, nodo) != null) {
+            throw new IllegalArgumentException("Ya hay un cliente en espera con ID: " + id);
+        }
+    }
+
+    /**
+     * Nodo intrusivo de la cola: guarda el cliente, su casilla en el orden
+     * de llegada y los enlaces de la lista general, de la lista de su
+     * prioridad y de la lista de su tipo. Los campos de la
+     * RuedaDeTemporizadores son del paquete para que la rueda los enlace.
+     */
+    static final class Nodo {
+
+        private final Cliente cliente;
+        private int secuencia;
+        private boolean enCola;
+        private Nodo anterior;
+        private Nodo siguiente;
+        private int prioridad;
+        private Nodo anteriorEnPrioridad;
+        private Nodo siguienteEnPrioridad;
+        private int grupoDeTipo;
+        private Nodo anteriorEnTipo;
+        private Nodo siguienteEnTipo;
+        // Segundo en que cruza el umbral de su nivel y casilla de la rueda,
+        // o -1 si no está programado
+        long vencimiento;
+        int casillaEnRueda;
+        Nodo anteriorEnRueda;
+        Nodo siguienteEnRueda;
+
+        private Nodo(Cliente cliente) {
+            this.cliente = cliente;
+            this.casillaEnRueda = -1;
+        }
+
+        /**
+         * Obtiene el cliente del nodo.
+         *
+         * @return el cliente en espera
+         */
+        Cliente getCliente() {
+            return cliente;
+        }
+    }
+}
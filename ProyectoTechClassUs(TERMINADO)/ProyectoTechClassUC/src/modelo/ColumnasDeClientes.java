@@ -0,0 +1,287 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Clientes guardados por columnas (struct of arrays): un arreglo primitivo
+ * por dato en vez de un objeto Cliente por fila. El tipo de solicitud y la
+ * prioridad ocupan un byte cada uno, la fecha de registro un int, las horas
+ * un long cada una, y los textos van seguidos en un solo arreglo de bytes
+ * UTF-8. Una fila ocupa así unos 30 bytes más sus textos, contra varios
+ * cientos de un Cliente con sus Strings y LocalDateTime.
+ *
+ * Es el AlmacenDeClientes en el heap: HistorialAtendidos lo usa para sus
+ * clientes más antiguos cuando no puede crear un ArchivoDeAtendidos.
+ *
+ * @author young
+ */
+final class ColumnasDeClientes implements AlmacenDeClientes {
+
+    private static final Prioridad[] PRIORIDADES = Prioridad.values();
+    private static final byte BORRADA = -1;
+    private static final byte TIPO_LIBRE = -1;
+
+    private byte[] tipos;
+    private byte[] prioridades;
+    private int[] diasRegistro;
+    private long[] llegadas;
+    private long[] atenciones;
+    private int[] inicioTextos;
+    private byte[] textos;
+    private int tamanioTextos;
+    private int filas;
+
+    /**
+     * Constructor de las columnas. Reserva espacio para unas pocas filas.
+     */
+    ColumnasDeClientes() {
+        this.tipos = new byte[16];
+        this.prioridades = new byte[16];
+        this.diasRegistro = new int[16];
+        this.llegadas = new long[16];
+        this.atenciones = new long[16];
+        this.inicioTextos = new int[16];
+        this.textos = new byte[1024];
+        this.tamanioTextos = 0;
+        this.filas = 0;
+    }
+
+    /**
+     * Obtiene la cantidad de filas, contando las borradas.
+     *
+     * @return la cantidad de filas
+     */
+    @Override
+    public int filas() {
+        return filas;
+    }
+
+    /**
+     * Agrega un cliente como fila nueva. Los datos se copian, así que cambiar
+     * el cliente después no cambia la fila.
+     *
+     * @param cliente el cliente a guardar, o null para agregar una fila ya
+     * borrada
+     * @return el número de la fila
+     */
+    @Override
+    public int agregar(Cliente cliente) {
+        if (filas == tipos.length) {
+            int capacidad = filas * 2;
+            tipos = Arrays.copyOf(tipos, capacidad);
+            prioridades = Arrays.copyOf(prioridades, capacidad);
+            diasRegistro = Arrays.copyOf(diasRegistro, capacidad);
+            llegadas = Arrays.copyOf(llegadas, capacidad);
+            atenciones = Arrays.copyOf(atenciones, capacidad);
+            inicioTextos = Arrays.copyOf(inicioTextos, capacidad);
+        }
+        int fila = filas++;
+        inicioTextos[fila] = tamanioTextos;
+        if (cliente == null) {
+            prioridades[fila] = BORRADA;
+            return fila;
+        }
+        TipoSolicitud tipo = cliente.getTipo();
+        tipos[fila] = tipo == null ? TIPO_LIBRE : (byte) tipo.ordinal();
+        prioridades[fila] = (byte) cliente.getPrioridad().ordinal();
+        diasRegistro[fila] = cliente.getDiaRegistro();
+        llegadas[fila] = cliente.getNanosLlegada();
+        atenciones[fila] = cliente.getNanosAtencion();
+        escribirTexto(cliente.getId());
+        escribirTexto(cliente.getNombre());
+        escribirTexto(cliente.getProblema());
+        escribirTexto(cliente.getDiagnostico());
+        if (tipo == null) {
+            escribirTexto(cliente.getTipoSolicitud());
+        }
+        if (cliente.getDiaRegistro() == Cliente.SIN_DIA) {
+            escribirTexto(cliente.getFechaRegistroLibre());
+        }
+        return fila;
+    }
+
+    /**
+     * Indica si una fila tiene un cliente.
+     *
+     * @param fila el número de la fila
+     * @return false si la fila fue borrada
+     */
+    @Override
+    public boolean ocupada(int fila) {
+        return prioridades[fila] != BORRADA;
+    }
+
+    /**
+     * Borra una fila. Sus textos siguen ocupando espacio hasta que se
+     * descarten las columnas.
+     *
+     * @param fila el número de la fila
+     */
+    @Override
+    public void borrar(int fila) {
+        prioridades[fila] = BORRADA;
+    }
+
+    /**
+     * Reconstruye el cliente de una fila. Cada llamada crea un Cliente nuevo
+     * con los mismos datos.
+     *
+     * @param fila el número de la fila
+     * @return el cliente, o null si la fila fue borrada
+     */
+    @Override
+    public Cliente obtener(int fila) {
+        if (!ocupada(fila)) {
+            return null;
+        }
+        int[] cursor = {inicioTextos[fila]};
+        String id = leerTexto(cursor);
+        String nombre = leerTexto(cursor);
+        String problema = leerTexto(cursor);
+        String diagnostico = leerTexto(cursor);
+        String tipo = tipos[fila] == TIPO_LIBRE ? leerTexto(cursor)
+                : TipoSolicitud.desdeOrdinal(tipos[fila]).getTexto();
+        String fechaLibre = diasRegistro[fila] == Cliente.SIN_DIA ? leerTexto(cursor) : null;
+        Cliente cliente = new Cliente(id, nombre, tipo, PRIORIDADES[prioridades[fila]]);
+        cliente.setProblema(problema);
+        cliente.setDiagnostico(diagnostico);
+        cliente.establecerCompacto(llegadas[fila], atenciones[fila], diasRegistro[fila], fechaLibre);
+        return cliente;
+    }
+
+    /**
+     * Indica si una fila guarda a un cliente: mismo ID y mismas horas de
+     * llegada y de atención. Compara los bytes del ID sin crear el cliente.
+     *
+     * @param fila el número de la fila
+     * @param cliente el cliente a comparar
+     * @return true si la fila está ocupada y corresponde al cliente
+     */
+    @Override
+    public boolean corresponde(int fila, Cliente cliente) {
+        if (!ocupada(fila) || llegadas[fila] != cliente.getNanosLlegada()
+                || atenciones[fila] != cliente.getNanosAtencion()) {
+            return false;
+        }
+        byte[] id = cliente.getId().getBytes(StandardCharsets.UTF_8);
+        int inicio = inicioTextos[fila];
+        int largo = leerLargo(inicio) - 1;
+        return largo == id.length && Arrays.equals(textos, inicio + 4, inicio + 4 + largo, id, 0, id.length);
+    }
+
+    /**
+     * Obtiene el ID de una fila sin reconstruir el cliente.
+     *
+     * @param fila el número de la fila
+     * @return el ID, o null si la fila fue borrada
+     */
+    @Override
+    public String id(int fila) {
+        return ocupada(fila) ? leerTexto(new int[]{inicioTextos[fila]}) : null;
+    }
+
+    /**
+     * Obtiene el tipo de solicitud de una fila sin reconstruir el cliente.
+     *
+     * @param fila el número de una fila ocupada
+     * @return el ordinal del TipoSolicitud, o -1 si el tipo fue escrito a mano
+     */
+    @Override
+    public int tipo(int fila) {
+        return tipos[fila];
+    }
+
+    /**
+     * Obtiene la prioridad de una fila sin reconstruir el cliente.
+     *
+     * @param fila el número de una fila ocupada
+     * @return el ordinal de la Prioridad
+     */
+    @Override
+    public int prioridad(int fila) {
+        return prioridades[fila];
+    }
+
+    /**
+     * Obtiene la hora de llegada de una fila sin reconstruir el cliente.
+     *
+     * @param fila el número de una fila ocupada
+     * @return la hora de llegada en nanosegundos, como en Cliente
+     */
+    @Override
+    public long nanosLlegada(int fila) {
+        return llegadas[fila];
+    }
+
+    /**
+     * Obtiene la hora de atención de una fila sin reconstruir el cliente.
+     *
+     * @param fila el número de una fila ocupada
+     * @return la hora de atención en nanosegundos, o Cliente.SIN_HORA
+     */
+    @Override
+    public long nanosAtencion(int fila) {
+        return atenciones[fila];
+    }
+
+    /**
+     * No hace nada: las columnas no guardan recursos fuera del heap.
+     */
+    @Override
+    public void close() {
+        // Nada que liberar
+    }
+
+    /**
+     * Escribe un texto como su largo más uno (0 para null) y sus bytes.
+     */
+    private void escribirTexto(String texto) {
+        byte[] bytes = texto == null ? null : texto.getBytes(StandardCharsets.UTF_8);
+        int largo = bytes == null ? 0 : bytes.length;
+        if (textos.length - tamanioTextos < largo + 4) {
+            long necesaria = (long) tamanioTextos + largo + 4;
+            if (necesaria > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Las columnas superan el tamaño máximo de texto");
+            }
+            long capacidad = Math.min(Math.max((long) textos.length * 2, necesaria), Integer.MAX_VALUE - 8);
+            textos = Arrays.copyOf(textos, (int) capacidad);
+        }
+        int valor = bytes == null ? 0 : largo + 1;
+        textos[tamanioTextos] = (byte) (valor >>> 24);
+        textos[tamanioTextos + 1] = (byte) (valor >>> 16);
+        textos[tamanioTextos + 2] = (byte) (valor >>> 8);
+        textos[tamanioTextos + 3] = (byte) valor;
+        tamanioTextos += 4;
+        if (bytes != null) {
+            System.arraycopy(bytes, 0, textos, tamanioTextos, largo);
+            tamanioTextos += largo;
+        }
+    }
+
+    /**
+     * Lee un texto escrito con escribirTexto() y avanza el cursor.
+     */
+    private String leerTexto(int[] cursor) {
+        int inicio = cursor[0];
+        int valor = leerLargo(inicio);
+        if (valor == 0) {
+            cursor[0] = inicio + 4;
+            return null;
+        }
+        cursor[0] = inicio + 4 + valor - 1;
+        return new String(textos, inicio + 4, valor - 1, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lee el largo guardado al inicio de un texto.
+     */
+    private int leerLargo(int inicio) {
+        return (textos[inicio] & 0xFF) << 24 | (textos[inicio + 1] & 0xFF) << 16
+                | (textos[inicio + 2] & 0xFF) << 8 | (textos[inicio + 3] & 0xFF);
+    }
+}
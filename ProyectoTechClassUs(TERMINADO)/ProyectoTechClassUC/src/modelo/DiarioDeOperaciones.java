@@ -0,0 +1,675 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Diario de operaciones de solo anexado (write-ahead log). Cada modificación
+ * del SistemaDeGestion se guarda como un registro binario antes de confirmar
+ * la operación a quien la pidió, de modo que al reiniciar el estado se
+ * reconstruye reaplicando los registros en orden.
+ *
+ * El diario se divide en segmentos diario-NNNNNN.log dentro de un
+ * directorio. Cada registro tiene un número de secuencia implícito (1, 2, 3,
+ * ... a lo largo de todo el diario). Cada segmento empieza con una cabecera
+ * (número mágico, versión y secuencia de su primer registro) y cada registro
+ * tiene la forma: - largo (int): bytes de operación,
+ * instante y datos - operación (byte) - instante (long): milisegundos desde
+ * la época - datos de la operación - CRC32 (int) de los bytes anteriores sin
+ * el largo. Un registro incompleto o con CRC inválido al final del último
+ * segmento (escritura cortada por una caída) se descarta al abrir.
+ *
+ * Para las instantáneas, cortar() marca el punto del diario que corresponde
+ * al estado capturado: los registros siguientes empiezan un segmento nuevo,
+ * de modo que al recuperar solo se leen los segmentos posteriores y los
+ * anteriores se pueden borrar.
+ *
+ * Commit agrupado: anexar() solo copia el registro a un buffer en memoria y
+ * devuelve su número de secuencia. En confirmar() el primer hilo que
+ * encuentra el canal libre se vuelve líder: toma todo lo pendiente, lo
+ * escribe y según la PoliticaDeSincronizacion hace fsync, mientras los demás
+ * esperan en la condición del cerrojo del diario y siguen anexando en un
+ * segundo buffer. Al terminar, el líder despierta a todos a la vez; los que
+ * quedaron cubiertos retornan y el resto forma el lote siguiente. Se usa un
+ * ReentrantLock y no el monitor del objeto porque en Java 22 un hilo virtual
+ * que espera dentro de synchronized retiene su hilo portador, y el servidor
+ * HTTP atiende cada petición en un hilo virtual.
+ *
+ * @author young
+ */
+final class DiarioDeOperaciones implements AutoCloseable {
+
+    /**
+     * Tamaño a partir del cual se empieza un segmento nuevo.
+     */
+    static final long TAMANIO_SEGMENTO = 64L << 20;
+
+    /**
+     * Cada cuánto se hace fsync con la política PERIODICA.
+     */
+    static final long INTERVALO_PERIODICO_MS = 100;
+
+    private static final int MAGICO = 0x54435543;
+    private static final int VERSION = 2;
+    private static final int TAMANIO_CABECERA = 16;
+    private static final int TAMANIO_FIJO = 1 + 8;
+    private static final String PREFIJO = "diario-";
+    private static final String EXTENSION = ".log";
+
+    /**
+     * Recibe los registros leídos al abrir el diario.
+     */
+    interface Aplicador {
+
+        /**
+         * Aplica un registro.
+         *
+         * @param operacion el código de la operación
+         * @param instante los milisegundos desde la época en que se registró
+         * @param datos los datos de la operación
+         * @throws IOException si el registro no se puede aplicar
+         */
+        void aplicar(byte operacion, long instante, ByteBuffer datos) throws IOException;
+    }
+
+    private final Path directorio;
+    private final PoliticaDeSincronizacion politica;
+    private final CRC32 crc;
+    private final ReentrantLock cerrojo;
+    private final Condition cambio;
+    private final ScheduledExecutorService sincronizador;
+    private CodificadorBinario pendiente;
+    private CodificadorBinario enEscritura;
+    private long anexados;
+    private volatile long escritos;
+    private volatile long forzados;
+    private FileChannel canal;
+    private int numeroSegmento;
+    private int corte;
+    private long secuenciaCorte;
+    private IOException falla;
+    private boolean escribiendo;
+    private boolean cerrado;
+    private long registrosReaplicados;
+    private int segmentosLeidos;
+    private long bytesLeidos;
+
+    private DiarioDeOperaciones(Path directorio, PoliticaDeSincronizacion politica,
+            int numeroSegmento, FileChannel canal, long ultimaSecuencia) {
+        this.directorio = directorio;
+        this.politica = politica;
+        this.crc = new CRC32();
+        this.cerrojo = new ReentrantLock();
+        this.cambio = cerrojo.newCondition();
+        this.pendiente = new CodificadorBinario(4096);
+        this.enEscritura = new CodificadorBinario(4096);
+        this.anexados = ultimaSecuencia;
+        this.escritos = ultimaSecuencia;
+        this.forzados = ultimaSecuencia;
+        this.corte = -1;
+        this.numeroSegmento = numeroSegmento;
+        this.canal = canal;
+        if (politica == PoliticaDeSincronizacion.PERIODICA) {
+            this.sincronizador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread hilo = new Thread(r, "diario-fsync");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            this.sincronizador.scheduleWithFixedDelay(this::forzarPeriodicamente,
+                    INTERVALO_PERIODICO_MS, INTERVALO_PERIODICO_MS, TimeUnit.MILLISECONDS);
+        } else {
+            this.sincronizador = null;
+        }
+    }
+
+    /**
+     * Abre el diario de un directorio: reaplica en orden los registros
+     * posteriores a una secuencia, descarta un registro cortado al final y
+     * deja el último segmento listo para seguir anexando. Los segmentos que
+     * solo tienen registros anteriores no se leen. Si el directorio no existe
+     * lo crea.
+     *
+     * @param directorio el directorio de los segmentos
+     * @param politica la política de sincronización con el disco
+     * @param desdeSecuencia la última secuencia ya incluida en el estado (0
+     * para reaplicar todo)
+     * @param aplicador recibe cada registro posterior a desdeSecuencia
+     * @return el diario abierto
+     * @throws IOException si no se puede leer, falta una parte del diario o
+     * un segmento intermedio está dañado
+     */
+    static DiarioDeOperaciones abrir(Path directorio, PoliticaDeSincronizacion politica,
+            long desdeSecuencia, Aplicador aplicador) throws IOException {
+        Files.createDirectories(directorio);
+        List<Integer> segmentos = listarSegmentos(directorio);
+        long[] primeras = new long[segmentos.size()];
+        for (int i = 0; i < segmentos.size(); i++) {
+            primeras[i] = leerPrimeraSecuencia(rutaSegmento(directorio, segmentos.get(i)));
+        }
+        if (!segmentos.isEmpty() && primeras[segmentos.size() - 1] == Long.MAX_VALUE) {
+            // Segmento creado justo antes de una caída, sin cabecera completa
+            Files.delete(rutaSegmento(directorio, segmentos.remove(segmentos.size() - 1)));
+        }
+        // Primer segmento a leer: el último que empieza antes de lo que falta
+        int primero = 0;
+        for (int i = 0; i < segmentos.size(); i++) {
+            if (primeras[i] <= desdeSecuencia + 1) {
+                primero = i;
+            }
+        }
+        if (!segmentos.isEmpty() && primeras[primero] > desdeSecuencia + 1) {
+            throw new IOException("Falta el diario desde la secuencia " + (desdeSecuencia + 1));
+        }
+        long ultimaSecuencia = segmentos.isEmpty() ? desdeSecuencia : primeras[primero] - 1;
+        long reaplicados = 0;
+        long bytes = 0;
+        for (int i = primero; i < segmentos.size(); i++) {
+            boolean ultimo = i == segmentos.size() - 1;
+            Path archivo = rutaSegmento(directorio, segmentos.get(i));
+            if (primeras[i] != ultimaSecuencia + 1) {
+                throw new IOException("Secuencia discontinua en el diario: " + archivo);
+            }
+            long[] lectura = leerSegmento(archivo, primeras[i], desdeSecuencia, aplicador);
+            long validos = lectura[0];
+            ultimaSecuencia = lectura[1];
+            reaplicados += lectura[2];
+            bytes += validos;
+            if (validos < Files.size(archivo)) {
+                if (!ultimo) {
+                    throw new IOException("Segmento dañado en medio del diario: " + archivo);
+                }
+                try (FileChannel c = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+                    c.truncate(validos);
+                    c.force(true);
+                }
+            }
+        }
+        int numero = segmentos.isEmpty() ? 1 : segmentos.get(segmentos.size() - 1);
+        if (ultimaSecuencia < desdeSecuencia) {
+            // La instantánea incluye registros que no llegaron al disco antes
+            // de una caída; se sigue en un segmento nuevo después de ella
+            if (!segmentos.isEmpty()) {
+                numero++;
+            }
+            ultimaSecuencia = desdeSecuencia;
+        }
+        DiarioDeOperaciones diario = new DiarioDeOperaciones(directorio, politica, numero,
+                abrirSegmento(directorio, numero, ultimaSecuencia + 1), ultimaSecuencia);
+        diario.registrosReaplicados = reaplicados;
+        diario.segmentosLeidos = segmentos.size() - primero;
+        diario.bytesLeidos = bytes;
+        return diario;
+    }
+
+    /**
+     * Anexa un registro al buffer pendiente. No hace E/S; el registro llega
+     * al archivo con confirmar().
+     *
+     * @param operacion el código de la operación
+     * @param instante los milisegundos desde la época
+     * @param datos los datos de la operación
+     * @return el número de secuencia del registro
+     */
+    long anexar(byte operacion, long instante, CodificadorBinario datos) {
+        cerrojo.lock();
+        try {
+            int inicio = pendiente.tamanio();
+            pendiente.escribirInt(TAMANIO_FIJO + datos.tamanio());
+            pendiente.escribirByte(operacion);
+            pendiente.escribirLong(instante);
+            pendiente.escribirBytes(datos.datos(), 0, datos.tamanio());
+            crc.reset();
+            crc.update(pendiente.datos(), inicio + 4, pendiente.tamanio() - inicio - 4);
+            pendiente.escribirInt((int) crc.getValue());
+            return ++anexados;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Marca el final del estado capturado por una instantánea. No hace E/S:
+     * el siguiente lote escribe lo anexado hasta ahora en el segmento actual
+     * y empieza uno nuevo para lo que siga. Se llama con el mismo cerrojo que
+     * protege a anexar(), para que nada se anexe entre la captura y el corte.
+     *
+     * @return la secuencia del último registro incluido en la captura
+     */
+    long cortar() {
+        cerrojo.lock();
+        try {
+            corte = pendiente.tamanio();
+            secuenciaCorte = anexados;
+            return anexados;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Borra los segmentos cuyos registros son todos anteriores o iguales a
+     * una secuencia, porque una instantánea ya los incluye.
+     *
+     * @param secuencia la secuencia de la instantánea más antigua que se
+     * conserva
+     * @throws IOException si no se puede listar o borrar
+     */
+    void borrarSegmentosHasta(long secuencia) throws IOException {
+        int actual;
+        cerrojo.lock();
+        try {
+            actual = numeroSegmento;
+        } finally {
+            cerrojo.unlock();
+        }
+        List<Integer> segmentos = listarSegmentos(directorio);
+        for (int i = 0; i + 1 < segmentos.size() && segmentos.get(i + 1) <= actual; i++) {
+            long siguiente = leerPrimeraSecuencia(rutaSegmento(directorio, segmentos.get(i + 1)));
+            if (siguiente > secuencia + 1) {
+                break;
+            }
+            Files.deleteIfExists(rutaSegmento(directorio, segmentos.get(i)));
+        }
+    }
+
+    /**
+     * Obtiene la secuencia del último registro anexado.
+     *
+     * @return la última secuencia
+     */
+    long getUltimaSecuencia() {
+        cerrojo.lock();
+        try {
+            return anexados;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Obtiene cuántos registros se reaplicaron al abrir.
+     *
+     * @return la cantidad de registros reaplicados
+     */
+    long getRegistrosReaplicados() {
+        return registrosReaplicados;
+    }
+
+    /**
+     * Obtiene cuántos segmentos se leyeron al abrir.
+     *
+     * @return la cantidad de segmentos leídos
+     */
+    int getSegmentosLeidos() {
+        return segmentosLeidos;
+    }
+
+    /**
+     * Obtiene cuántos bytes del diario se leyeron al abrir.
+     *
+     * @return los bytes leídos
+     */
+    long getBytesLeidos() {
+        return bytesLeidos;
+    }
+
+    /**
+     * Espera a que un registro quede escrito según la política: en disco con
+     * SIEMPRE, en el sistema operativo con PERIODICA y NUNCA.
+     *
+     * @param secuencia el número devuelto por anexar()
+     * @throws IOException si el diario no pudo escribir o está cerrado
+     */
+    void confirmar(long secuencia) throws IOException {
+        if (estaConfirmado(secuencia)) {
+            return;
+        }
+        CodificadorBinario lote;
+        long hasta;
+        int corteLote;
+        long secuenciaCorteLote;
+        cerrojo.lock();
+        try {
+            while (true) {
+                verificarDisponible();
+                if (estaConfirmado(secuencia)) {
+                    return;
+                }
+                if (!escribiendo) {
+                    break;
+                }
+                esperar();
+            }
+            escribiendo = true;
+            lote = pendiente;
+            pendiente = enEscritura;
+            enEscritura = lote;
+            hasta = anexados;
+            corteLote = corte;
+            secuenciaCorteLote = secuenciaCorte;
+            corte = -1;
+        } finally {
+            cerrojo.unlock();
+        }
+        IOException error = null;
+        boolean forzado = false;
+        try {
+            if (corteLote >= 0) {
+                lote.volcar(canal, 0, corteLote);
+                forzado = rotar(secuenciaCorteLote + 1) && secuenciaCorteLote == hasta;
+                lote.volcar(canal, corteLote, lote.tamanio());
+            } else {
+                lote.volcar(canal, 0, lote.tamanio());
+            }
+            lote.reiniciar();
+            if (politica == PoliticaDeSincronizacion.SIEMPRE) {
+                canal.force(false);
+                forzado = true;
+            }
+            if (canal.position() >= TAMANIO_SEGMENTO) {
+                forzado |= rotar(hasta + 1);
+            }
+        } catch (IOException e) {
+            error = e;
+        }
+        cerrojo.lock();
+        try {
+            escribiendo = false;
+            if (error == null) {
+                escritos = hasta;
+                if (forzado) {
+                    forzados = hasta;
+                }
+            } else {
+                falla = error;
+            }
+            cambio.signalAll();
+        } finally {
+            cerrojo.unlock();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Escribe lo pendiente, hace fsync y cierra el segmento actual.
+     *
+     * @throws IOException si falla la escritura
+     */
+    @Override
+    public void close() throws IOException {
+        if (sincronizador != null) {
+            sincronizador.shutdown();
+        }
+        long hasta;
+        cerrojo.lock();
+        try {
+            if (cerrado) {
+                return;
+            }
+            hasta = anexados;
+        } finally {
+            cerrojo.unlock();
+        }
+        try {
+            confirmar(hasta);
+        } finally {
+            cerrojo.lock();
+            try {
+                while (escribiendo) {
+                    esperar();
+                }
+                escribiendo = true;
+            } finally {
+                cerrojo.unlock();
+            }
+            try {
+                if (falla == null) {
+                    canal.force(false);
+                }
+            } finally {
+                canal.close();
+                cerrojo.lock();
+                try {
+                    escribiendo = false;
+                    cerrado = true;
+                    cambio.signalAll();
+                } finally {
+                    cerrojo.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtiene el directorio del diario.
+     *
+     * @return la ruta del directorio
+     */
+    Path getDirectorio() {
+        return directorio;
+    }
+
+    /**
+     * Obtiene la política de sincronización del diario.
+     *
+     * @return la política
+     */
+    PoliticaDeSincronizacion getPolitica() {
+        return politica;
+    }
+
+    private boolean estaConfirmado(long secuencia) {
+        return secuencia <= (politica == PoliticaDeSincronizacion.SIEMPRE ? forzados : escritos);
+    }
+
+    private void verificarDisponible() throws IOException {
+        if (falla != null) {
+            throw new IOException("El diario quedó inutilizable por un error anterior", falla);
+        }
+        if (cerrado) {
+            throw new IOException("El diario está cerrado");
+        }
+    }
+
+    private void esperar() throws InterruptedIOException {
+        try {
+            cambio.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrumpido esperando al diario");
+        }
+    }
+
+    /**
+     * Cierra el segmento actual y abre el siguiente. Lo llama solo el hilo
+     * que está escribiendo.
+     *
+     * @param primeraSecuencia la secuencia del primer registro del segmento
+     * nuevo
+     * @return true si se hizo fsync del segmento cerrado
+     */
+    private boolean rotar(long primeraSecuencia) throws IOException {
+        boolean forzado = politica != PoliticaDeSincronizacion.NUNCA;
+        if (forzado) {
+            canal.force(false);
+        }
+        canal.close();
+        int numero;
+        cerrojo.lock();
+        try {
+            numero = ++numeroSegmento;
+        } finally {
+            cerrojo.unlock();
+        }
+        canal = abrirSegmento(directorio, numero, primeraSecuencia);
+        return forzado;
+    }
+
+    private void forzarPeriodicamente() {
+        long hasta;
+        cerrojo.lock();
+        try {
+            if (escribiendo || cerrado || falla != null || forzados >= escritos) {
+                return;
+            }
+            escribiendo = true;
+            hasta = escritos;
+        } finally {
+            cerrojo.unlock();
+        }
+        IOException error = null;
+        try {
+            canal.force(false);
+        } catch (IOException e) {
+            error = e;
+        }
+        cerrojo.lock();
+        try {
+            escribiendo = false;
+            if (error == null) {
+                forzados = Math.max(forzados, hasta);
+            } else {
+                falla = error;
+            }
+            cambio.signalAll();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    // ==================== SEGMENTOS ====================
+    private static Path rutaSegmento(Path directorio, int numero) {
+        return directorio.resolve(String.format("%s%06d%s", PREFIJO, numero, EXTENSION));
+    }
+
+    private static List<Integer> listarSegmentos(Path directorio) throws IOException {
+        List<Integer> numeros = new ArrayList<>();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio,
+                PREFIJO + "*" + EXTENSION)) {
+            for (Path archivo : archivos) {
+                String nombre = archivo.getFileName().toString();
+                String numero = nombre.substring(PREFIJO.length(), nombre.length() - EXTENSION.length());
+                try {
+                    numeros.add(Integer.valueOf(numero));
+                } catch (NumberFormatException e) {
+                    // No es un segmento del diario
+                }
+            }
+        }
+        Collections.sort(numeros);
+        return numeros;
+    }
+
+    /**
+     * Abre un segmento para anexar, escribiendo su cabecera si es nuevo.
+     */
+    private static FileChannel abrirSegmento(Path directorio, int numero, long primeraSecuencia)
+            throws IOException {
+        FileChannel canal = FileChannel.open(rutaSegmento(directorio, numero),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (canal.size() < TAMANIO_CABECERA) {
+            canal.truncate(0);
+            ByteBuffer cabecera = ByteBuffer.allocate(TAMANIO_CABECERA);
+            cabecera.putInt(MAGICO).putInt(VERSION).putLong(primeraSecuencia).flip();
+            while (cabecera.hasRemaining()) {
+                canal.write(cabecera);
+            }
+            canal.force(true);
+        }
+        canal.position(canal.size());
+        return canal;
+    }
+
+    /**
+     * Lee la secuencia del primer registro de un segmento desde su cabecera.
+     * Un segmento sin cabecera completa (creado justo antes de una caída) se
+     * considera vacío y se le asigna una secuencia muy grande.
+     */
+    private static long leerPrimeraSecuencia(Path archivo) throws IOException {
+        try (FileChannel c = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            ByteBuffer cabecera = ByteBuffer.allocate(TAMANIO_CABECERA);
+            while (cabecera.hasRemaining() && c.read(cabecera) >= 0) {
+                // Lee hasta completar la cabecera
+            }
+            if (cabecera.hasRemaining()) {
+                return Long.MAX_VALUE;
+            }
+            cabecera.flip();
+            if (cabecera.getInt() != MAGICO || cabecera.getInt() != VERSION) {
+                throw new IOException("No es un segmento del diario: " + archivo);
+            }
+            return cabecera.getLong();
+        }
+    }
+
+    /**
+     * Lee un segmento completo y aplica sus registros válidos posteriores a
+     * una secuencia.
+     *
+     * @return los bytes válidos desde el inicio del archivo, la secuencia del
+     * último registro válido y la cantidad de registros aplicados
+     */
+    private static long[] leerSegmento(Path archivo, long primeraSecuencia, long desdeSecuencia,
+            Aplicador aplicador) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel c = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamanio = c.size();
+            if (tamanio > Integer.MAX_VALUE) {
+                throw new IOException("Segmento demasiado grande: " + archivo);
+            }
+            buffer = ByteBuffer.allocate((int) tamanio);
+            while (buffer.hasRemaining() && c.read(buffer) >= 0) {
+                // Lee hasta llenar el buffer
+            }
+            buffer.flip();
+        }
+        buffer.position(TAMANIO_CABECERA);
+        long secuencia = primeraSecuencia - 1;
+        long aplicados = 0;
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= 4) {
+            int inicio = buffer.position();
+            int largo = buffer.getInt();
+            if (largo < TAMANIO_FIJO || largo > buffer.remaining() - 4) {
+                return new long[]{inicio, secuencia, aplicados};
+            }
+            crc.reset();
+            crc.update(buffer.array(), buffer.position(), largo);
+            int fin = buffer.position() + largo;
+            if ((int) crc.getValue() != buffer.getInt(fin)) {
+                return new long[]{inicio, secuencia, aplicados};
+            }
+            secuencia++;
+            if (secuencia > desdeSecuencia) {
+                byte operacion = buffer.get();
+                long instante = buffer.getLong();
+                ByteBuffer datos = buffer.slice(buffer.position(), fin - buffer.position());
+                aplicador.aplicar(operacion, instante, datos);
+                aplicados++;
+            }
+            buffer.position(fin + 4);
+        }
+        return new long[]{buffer.position(), secuencia, aplicados};
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * Estadísticas incrementales de tiempo de espera de los clientes atendidos.
+ * Se actualizan cada vez que un cliente entra o sale del historial, en lugar
+ * de recorrer el historial completo en cada consulta.
+ *
+ * Lleva un HistogramaDeEspera general, uno por Prioridad y uno por tipo de
+ * solicitud. Cada histograma ocupa memoria fija, así que consultar el
+ * promedio, los extremos o los percentiles no depende de cuántos clientes se
+ * hayan atendido en el día. Después de deshacer la atención que tenía el
+ * mínimo o el máximo, ese extremo queda acotado por el error de las cubetas
+ * hasta que se recalcula desde el historial al abrir el sistema.
+ *
+ * @author young
+ */
+public class EstadisticasDeEspera {
+
+    private final HistogramaDeEspera general;
+    private final HistogramaDeEspera[] porPrioridad;
+    private final HashMap<String, HistogramaDeEspera> porTipo;
+
+    /**
+     * Constructor de las estadísticas. Crea los histogramas vacíos.
+     */
+    public EstadisticasDeEspera() {
+        this.general = new HistogramaDeEspera();
+        this.porPrioridad = new HistogramaDeEspera[Prioridad.values().length];
+        for (int i = 0; i < porPrioridad.length; i++) {
+            porPrioridad[i] = new HistogramaDeEspera();
+        }
+        this.porTipo = new HashMap<>();
+    }
+
+    /**
+     * Registra el tiempo de espera de un cliente que entra al historial.
+     *
+     * @param cliente el cliente atendido
+     */
+    void registrar(Cliente cliente) {
+        if (cliente.getNanosAtencion() == Cliente.SIN_HORA) {
+            return;
+        }
+        long espera = tiempoDeEspera(cliente);
+        general.registrar(espera);
+        porPrioridad[cliente.getPrioridad().ordinal()].registrar(espera);
+        porTipo.computeIfAbsent(claveDeTipo(cliente.getTipoSolicitud()),
+                k -> new HistogramaDeEspera()).registrar(espera);
+    }
+
+    /**
+     * Revierte el registro de un cliente que sale del historial (deshacer).
+     *
+     * @param cliente el cliente que se quita del historial
+     */
+    void revertir(Cliente cliente) {
+        if (cliente.getNanosAtencion() == Cliente.SIN_HORA) {
+            return;
+        }
+        long espera = tiempoDeEspera(cliente);
+        general.quitar(espera);
+        porPrioridad[cliente.getPrioridad().ordinal()].quitar(espera);
+        HistogramaDeEspera histograma = porTipo.get(claveDeTipo(cliente.getTipoSolicitud()));
+        if (histograma != null) {
+            histograma.quitar(espera);
+        }
+    }
+
+    /**
+     * Obtiene el resumen de todos los clientes atendidos.
+     *
+     * @return el resumen general
+     */
+    public ResumenDeEspera getResumen() {
+        return new ResumenDeEspera(general);
+    }
+
+    /**
+     * Obtiene el resumen de los clientes atendidos con una prioridad.
+     *
+     * @param prioridad la prioridad a consultar
+     * @return el resumen de esa prioridad
+     */
+    public ResumenDeEspera getResumen(Prioridad prioridad) {
+        return new ResumenDeEspera(porPrioridad[prioridad.ordinal()]);
+    }
+
+    /**
+     * Obtiene el resumen de los clientes atendidos con un tipo de solicitud.
+     * La comparación no distingue mayúsculas de minúsculas.
+     *
+     * @param tipo el tipo de solicitud (Soporte, Mantenimiento, Reclamo)
+     * @return el resumen de ese tipo
+     */
+    public ResumenDeEspera getResumen(String tipo) {
+        HistogramaDeEspera histograma = porTipo.get(claveDeTipo(tipo));
+        return new ResumenDeEspera(histograma != null ? histograma : new HistogramaDeEspera());
+    }
+
+    /**
+     * Obtiene el tiempo de espera promedio general sin crear un resumen.
+     *
+     * @return el promedio en minutos, o 0.0 si no hay datos
+     */
+    public double getPromedioMinutos() {
+        long cantidad = general.getCantidad();
+        return cantidad == 0 ? 0.0 : general.getSuma() / (double) cantidad / 60_000.0;
+    }
+
+    /**
+     * Calcula el tiempo entre la llegada y la atención de un cliente. Resta
+     * las horas guardadas como nanosegundos, sin crear objetos de fecha.
+     *
+     * @param cliente el cliente atendido
+     * @return la espera en milisegundos
+     */
+    static long tiempoDeEspera(Cliente cliente) {
+        return Math.floorDiv(cliente.getNanosAtencion() - cliente.getNanosLlegada(), 1_000_000L);
+    }
+
+    private static String claveDeTipo(String tipo) {
+        return tipo == null ? "" : tipo.toLowerCase(Locale.ROOT);
+    }
+}
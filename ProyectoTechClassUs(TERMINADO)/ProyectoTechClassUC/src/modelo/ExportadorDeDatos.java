@@ -0,0 +1,455 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Escribe el historial de atendidos y la bitácora de acciones en un archivo
+ * CSV o NDJSON, fila por fila, a través de una SalidaDeTexto: no se arma
+ * ningún String con todo el contenido y la memoria usada no depende del
+ * tamaño del historial.
+ *
+ * La exportación parte de un corte tomado con los cerrojos del sistema, así
+ * que el archivo muestra el estado de un único instante aunque las demás
+ * operaciones sigan mientras se escribe:
+ *
+ * - CorteDeHistorial guarda el fin de las posiciones y una copia codificada
+ * de los clientes que están en memoria (a lo sumo unos pocos bloques), que
+ * son los que todavía pueden cambiar. Las posiciones archivadas no cambian,
+ * así que se leen después, de a TRAMO con el cerrojo de lectura del
+ * historial, y el archivo se escribe sin cerrojo. La única diferencia
+ * posible con el corte es una atención archivada que se deshace durante la
+ * exportación: esa fila se omite.
+ *
+ * - CorteDeBitacora copia los datos de cada acción conservada; son a lo
+ * sumo la profundidad de la bitácora.
+ *
+ * Lo usan SistemaDeGestion.exportarHistorial() y exportarAcciones().
+ *
+ * @author young
+ */
+final class ExportadorDeDatos implements Closeable {
+
+    /**
+     * Posiciones archivadas que se leen con cada toma del cerrojo del
+     * historial.
+     */
+    static final int TRAMO = 1024;
+
+    private static final String[] COLUMNAS_HISTORIAL = {"id", "nombre", "tipo", "prioridad",
+        "problema", "fecha_registro", "diagnostico", "llegada", "atencion"};
+    private static final String[] COLUMNAS_ACCIONES = {"fecha_hora", "accion", "id", "nombre",
+        "tipo", "prioridad", "clientes", "puesto"};
+
+    private final SalidaDeTexto salida;
+    private final FormatoDeExportacion formato;
+    private final String[] columnas;
+    private int columna;
+    private long filas;
+
+    /**
+     * Clientes del historial en el instante del corte.
+     */
+    static final class CorteDeHistorial {
+
+        private final int archivados;
+        private final int fin;
+        // Por cada posición en memoria: 0 si está vacía, o 1 y el cliente
+        private final byte[] recientes;
+        private final int largoRecientes;
+
+        private CorteDeHistorial(int archivados, int fin, CodificadorBinario recientes) {
+            this.archivados = archivados;
+            this.fin = fin;
+            this.recientes = recientes.datos();
+            this.largoRecientes = recientes.tamanio();
+        }
+
+        /**
+         * Toma el corte. Se llama con cerrojoCola y el cerrojo del historial
+         * tomados: ninguna operación puede cambiar los clientes mientras se
+         * copian.
+         *
+         * @param historial el historial de atendidos
+         * @return el corte
+         */
+        static CorteDeHistorial tomar(HistorialAtendidos historial) {
+            int archivados = historial.primeraReciente();
+            int fin = historial.finDePosiciones();
+            CodificadorBinario recientes = new CodificadorBinario(256 * (fin - archivados));
+            for (int posicion = archivados; posicion < fin; posicion++) {
+                Cliente cliente = historial.obtener(posicion);
+                if (cliente == null) {
+                    recientes.escribirByte(0);
+                } else {
+                    recientes.escribirByte(1);
+                    recientes.escribirCliente(cliente);
+                }
+            }
+            return new CorteDeHistorial(archivados, fin, recientes);
+        }
+
+        /**
+         * Escribe los clientes del corte en orden de atención: primero los
+         * archivados, leídos de a tramos, y después los copiados.
+         *
+         * @param historial el historial de atendidos
+         * @param cerrojo el cerrojo que protege el historial
+         * @param archivo el archivo de destino
+         * @param formato el formato del archivo
+         * @return la cantidad de clientes escritos
+         * @throws IOException si falla la escritura
+         */
+        long escribir(HistorialAtendidos historial, StampedLock cerrojo, Path archivo,
+                FormatoDeExportacion formato) throws IOException {
+            try (ExportadorDeDatos exportador = new ExportadorDeDatos(archivo, formato,
+                    COLUMNAS_HISTORIAL)) {
+                Cliente[] tramo = new Cliente[TRAMO];
+                for (int desde = 0; desde < archivados; desde += TRAMO) {
+                    int cantidad = Math.min(TRAMO, archivados - desde);
+                    long stamp = cerrojo.readLock();
+                    try {
+                        for (int i = 0; i < cantidad; i++) {
+                            tramo[i] = historial.obtener(desde + i);
+                        }
+                    } finally {
+                        cerrojo.unlockRead(stamp);
+                    }
+                    for (int i = 0; i < cantidad; i++) {
+                        if (tramo[i] != null) {
+                            exportador.escribirCliente(tramo[i]);
+                        }
+                    }
+                }
+                ByteBuffer copia = ByteBuffer.wrap(recientes, 0, largoRecientes);
+                for (int posicion = archivados; posicion < fin; posicion++) {
+                    if (copia.get() != 0) {
+                        exportador.escribirCliente(CodificadorBinario.leerCliente(copia));
+                    }
+                }
+                return exportador.terminar();
+            }
+        }
+    }
+
+    /**
+     * Acciones de la bitácora en el instante del corte, de la más antigua a
+     * la más reciente.
+     */
+    static final class CorteDeBitacora {
+
+        private final TipoAccion[] tipos;
+        private final long[] instantes;
+        private final String[] ids;
+        private final String[] nombres;
+        private final String[] tiposSolicitud;
+        private final Prioridad[] prioridades;
+        private final int[] cantidades;
+        private final int[] puestos;
+
+        private CorteDeBitacora(int acciones) {
+            this.tipos = new TipoAccion[acciones];
+            this.instantes = new long[acciones];
+            this.ids = new String[acciones];
+            this.nombres = new String[acciones];
+            this.tiposSolicitud = new String[acciones];
+            this.prioridades = new Prioridad[acciones];
+            this.cantidades = new int[acciones];
+            this.puestos = new int[acciones];
+        }
+
+        /**
+         * Toma el corte. Se llama con cerrojoCola tomado.
+         *
+         * @param bitacora la bitácora de acciones
+         * @return el corte
+         */
+        static CorteDeBitacora tomar(BitacoraDeAcciones bitacora) {
+            int acciones = bitacora.tamanio();
+            CorteDeBitacora corte = new CorteDeBitacora(acciones);
+            for (int i = 0; i < acciones; i++) {
+                int desdeCima = acciones - 1 - i;
+                Cliente cliente = bitacora.getCliente(desdeCima);
+                ColaDeEspera.Nodo[] lote = bitacora.getLote(desdeCima);
+                corte.tipos[i] = bitacora.getTipo(desdeCima);
+                corte.instantes[i] = bitacora.getInstante(desdeCima);
+                corte.ids[i] = cliente.getId();
+                corte.nombres[i] = cliente.getNombre();
+                corte.tiposSolicitud[i] = cliente.getTipoSolicitud();
+                corte.prioridades[i] = cliente.getPrioridad();
+                corte.cantidades[i] = lote != null ? lote.length : 1;
+                corte.puestos[i] = bitacora.getPuesto(desdeCima);
+            }
+            return corte;
+        }
+
+        /**
+         * Escribe las acciones del corte. En una importación, el cliente es
+         * el primero importado y la columna clientes tiene cuántos fueron.
+         * La columna puesto numera los puestos desde 1, como la ventana, y
+         * queda vacía en las acciones de la recepción.
+         *
+         * @param archivo el archivo de destino
+         * @param formato el formato del archivo
+         * @return la cantidad de acciones escritas
+         * @throws IOException si falla la escritura
+         */
+        long escribir(Path archivo, FormatoDeExportacion formato) throws IOException {
+            ZoneId zona = ZoneId.systemDefault();
+            try (ExportadorDeDatos exportador = new ExportadorDeDatos(archivo, formato,
+                    COLUMNAS_ACCIONES)) {
+                for (int i = 0; i < tipos.length; i++) {
+                    exportador.iniciarFila();
+                    exportador.fecha(LocalDateTime.ofInstant(Instant.ofEpochMilli(instantes[i]), zona));
+                    exportador.texto(tipos[i].toString());
+                    exportador.texto(ids[i]);
+                    exportador.texto(nombres[i]);
+                    exportador.texto(tiposSolicitud[i]);
+                    exportador.texto(prioridades[i].name());
+                    exportador.entero(cantidades[i]);
+                    if (puestos[i] == RegistroDeAcciones.SIN_PUESTO) {
+                        exportador.texto(null);
+                    } else {
+                        exportador.entero(puestos[i] + 1);
+                    }
+                    exportador.terminarFila();
+                }
+                return exportador.terminar();
+            }
+        }
+    }
+
+    /**
+     * Crea el archivo y, en CSV, escribe el encabezado.
+     *
+     * @param archivo el archivo de destino
+     * @param formato el formato del archivo
+     * @param columnas los nombres de las columnas (las claves en NDJSON)
+     * @throws IOException si no se puede crear el archivo
+     */
+    private ExportadorDeDatos(Path archivo, FormatoDeExportacion formato, String[] columnas)
+            throws IOException {
+        this.salida = new SalidaDeTexto(archivo);
+        this.formato = formato;
+        this.columnas = columnas;
+        this.columna = 0;
+        this.filas = 0;
+        if (formato == FormatoDeExportacion.CSV) {
+            for (int i = 0; i < columnas.length; i++) {
+                if (i > 0) {
+                    salida.append(',');
+                }
+                salida.append(columnas[i]);
+            }
+            salida.append('\n');
+        }
+    }
+
+    /**
+     * Escribe un cliente del historial como una fila.
+     *
+     * @param cliente el cliente
+     * @throws IOException si falla la escritura
+     */
+    private void escribirCliente(Cliente cliente) throws IOException {
+        iniciarFila();
+        texto(cliente.getId());
+        texto(cliente.getNombre());
+        texto(cliente.getTipoSolicitud());
+        texto(cliente.getPrioridad().name());
+        texto(cliente.getProblema());
+        texto(cliente.getFechaRegistro());
+        texto(cliente.getDiagnostico());
+        fecha(cliente.getHoraLlegada());
+        fecha(cliente.getHoraAtencion());
+        terminarFila();
+    }
+
+    private void iniciarFila() throws IOException {
+        columna = 0;
+        if (formato == FormatoDeExportacion.NDJSON) {
+            salida.append('{');
+        }
+    }
+
+    private void terminarFila() throws IOException {
+        if (formato == FormatoDeExportacion.NDJSON) {
+            salida.append('}');
+        }
+        salida.append('\n');
+        filas++;
+    }
+
+    /**
+     * Escribe el separador y, en NDJSON, la clave de la columna siguiente.
+     */
+    private void siguienteColumna() throws IOException {
+        if (columna > 0) {
+            salida.append(',');
+        }
+        if (formato == FormatoDeExportacion.NDJSON) {
+            salida.append('"').append(columnas[columna]).append("\":");
+        }
+        columna++;
+    }
+
+    /**
+     * Escribe un campo de texto. En CSV se encierra entre comillas solo si
+     * hace falta, y null queda vacío; en NDJSON se escapa y null queda null.
+     */
+    private void texto(String valor) throws IOException {
+        siguienteColumna();
+        if (formato == FormatoDeExportacion.CSV) {
+            if (valor != null) {
+                textoCsv(valor);
+            }
+        } else if (valor == null) {
+            salida.append("null");
+        } else {
+            textoJson(valor);
+        }
+    }
+
+    private void entero(long valor) throws IOException {
+        siguienteColumna();
+        salida.escribirEntero(valor);
+    }
+
+    /**
+     * Escribe una fecha y hora en formato ISO (2025-03-14T09:30:00.250),
+     * con la fracción de segundo solo si no es cero.
+     */
+    private void fecha(LocalDateTime valor) throws IOException {
+        siguienteColumna();
+        if (valor == null) {
+            if (formato == FormatoDeExportacion.NDJSON) {
+                salida.append("null");
+            }
+            return;
+        }
+        if (formato == FormatoDeExportacion.NDJSON) {
+            salida.append('"');
+        }
+        salida.escribirEntero(valor.getYear(), 4).append('-');
+        salida.escribirEntero(valor.getMonthValue(), 2).append('-');
+        salida.escribirEntero(valor.getDayOfMonth(), 2).append('T');
+        salida.escribirEntero(valor.getHour(), 2).append(':');
+        salida.escribirEntero(valor.getMinute(), 2).append(':');
+        salida.escribirEntero(valor.getSecond(), 2);
+        int nanos = valor.getNano();
+        if (nanos != 0) {
+            salida.append('.');
+            if (nanos % 1_000_000 == 0) {
+                salida.escribirEntero(nanos / 1_000_000, 3);
+            } else if (nanos % 1000 == 0) {
+                salida.escribirEntero(nanos / 1000, 6);
+            } else {
+                salida.escribirEntero(nanos, 9);
+            }
+        }
+        if (formato == FormatoDeExportacion.NDJSON) {
+            salida.append('"');
+        }
+    }
+
+    /**
+     * Escribe un texto CSV, entre comillas si tiene separadores, comillas o
+     * saltos de línea, o si empieza o termina con espacios (que al leerlo se
+     * recortarían).
+     */
+    private void textoCsv(String valor) throws IOException {
+        boolean comillas = !valor.isEmpty() && (esEspacio(valor.charAt(0))
+                || esEspacio(valor.charAt(valor.length() - 1)));
+        for (int i = 0; i < valor.length() && !comillas; i++) {
+            char c = valor.charAt(i);
+            comillas = c == ',' || c == ';' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!comillas) {
+            salida.append(valor);
+            return;
+        }
+        salida.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                salida.append('"');
+            }
+            salida.append(c);
+        }
+        salida.append('"');
+    }
+
+    private static boolean esEspacio(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    /**
+     * Escribe un texto JSON entre comillas. Los tramos sin caracteres que
+     * escapar se copian de una vez.
+     */
+    private void textoJson(String valor) throws IOException {
+        salida.append('"');
+        int desde = 0;
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c != '"' && c != '\\' && c >= 0x20) {
+                continue;
+            }
+            salida.append(valor, desde, i);
+            desde = i + 1;
+            switch (c) {
+                case '"':
+                    salida.append("\\\"");
+                    break;
+                case '\\':
+                    salida.append("\\\\");
+                    break;
+                case '\n':
+                    salida.append("\\n");
+                    break;
+                case '\r':
+                    salida.append("\\r");
+                    break;
+                case '\t':
+                    salida.append("\\t");
+                    break;
+                default:
+                    salida.append("\\u00").append(Character.forDigit(c >> 4, 16))
+                            .append(Character.forDigit(c & 0xF, 16));
+            }
+        }
+        salida.append(valor, desde, valor.length());
+        salida.append('"');
+    }
+
+    /**
+     * Termina el archivo y lo deja en su destino.
+     *
+     * @return la cantidad de filas escritas
+     * @throws IOException si falla la escritura
+     */
+    private long terminar() throws IOException {
+        salida.terminar();
+        return filas;
+    }
+
+    /**
+     * Cierra el archivo; si no se terminó, lo descarta.
+     *
+     * @throws IOException si falla el cierre
+     */
+    @Override
+    public void close() throws IOException {
+        salida.close();
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Enumeración que define los formatos en que se exportan el historial de
+ * atendidos y la bitácora de acciones. CSV escribe una línea de encabezado y
+ * una fila por registro, separadas por comas; NDJSON escribe un objeto JSON
+ * por línea. Cada formato tiene la extensión de archivo que lo identifica.
+ *
+ * @author young
+ */
+public enum FormatoDeExportacion {
+    CSV("csv"),
+    NDJSON("ndjson");
+
+    private final String extension;
+
+    /**
+     * Constructor del enum FormatoDeExportacion.
+     *
+     * @param extension la extensión de archivo, sin el punto
+     */
+    FormatoDeExportacion(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Obtiene la extensión de archivo del formato.
+     *
+     * @return la extensión, sin el punto
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Elige el formato según la extensión de un archivo: .ndjson o .jsonl
+     * para NDJSON y cualquier otra para CSV.
+     *
+     * @param archivo el archivo de destino
+     * @return el formato correspondiente
+     */
+    public static FormatoDeExportacion desdeArchivo(Path archivo) {
+        String nombre = archivo.getFileName().toString().toLowerCase(Locale.ROOT);
+        return nombre.endsWith(".ndjson") || nombre.endsWith(".jsonl") ? NDJSON : CSV;
+    }
+}
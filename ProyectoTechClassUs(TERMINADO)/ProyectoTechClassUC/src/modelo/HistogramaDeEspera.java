@@ -0,0 +1,220 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+/**
+ * Histograma de memoria fija para tiempos de espera en milisegundos. Usa
+ * cubetas log-lineales: los valores menores a 32 ms tienen cubeta propia y
+ * cada potencia de dos superior se divide en 32 cubetas, con un error
+ * relativo máximo cercano al 3%.
+ *
+ * Además de las cubetas lleva la cantidad, la suma, el mínimo y el máximo, de
+ * modo que el promedio es exacto y los percentiles se leen recorriendo una
+ * cantidad fija de cubetas sin importar cuántos valores se registraron.
+ *
+ * Los valores se pueden quitar para revertir un registro (deshacer). Como el
+ * histograma no guarda los valores, al quitar el mínimo o el máximo el nuevo
+ * extremo se toma del límite de la cubeta más baja o más alta con datos,
+ * acotado por el extremo anterior. Es una cota de los valores que quedan,
+ * con el mismo error que las cubetas: exacta por debajo de 32 ms y a menos
+ * del 3% por encima. El extremo vuelve a ser exacto en cuanto se registra un
+ * valor que lo supera, o al recalcular las estadísticas desde el historial.
+ *
+ * @author young
+ */
+final class HistogramaDeEspera {
+
+    private static final int BITS_SUBCUBETA = 5;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+    private static final int MAX_EXPONENTE = 42;
+    private static final int TOTAL_CUBETAS = (MAX_EXPONENTE - BITS_SUBCUBETA + 2) * SUBCUBETAS;
+    private static final long MAX_VALOR = (1L << (MAX_EXPONENTE + 1)) - 1;
+
+    private final long[] cubetas;
+    private long cantidad;
+    private long suma;
+    private long minimo;
+    private long maximo;
+
+    /**
+     * Constructor del histograma. Todas las cubetas inician en cero.
+     */
+    HistogramaDeEspera() {
+        this.cubetas = new long[TOTAL_CUBETAS];
+        reiniciarExtremos();
+    }
+
+    /**
+     * Registra un valor.
+     *
+     * @param valor el tiempo de espera en milisegundos
+     */
+    void registrar(long valor) {
+        valor = acotar(valor);
+        cubetas[indiceDe(valor)]++;
+        cantidad++;
+        suma += valor;
+        minimo = Math.min(minimo, valor);
+        maximo = Math.max(maximo, valor);
+    }
+
+    /**
+     * Quita un valor registrado antes. Si era el mínimo o el máximo, el nuevo
+     * extremo se toma de la cubeta más baja o más alta con datos, sin pasar
+     * del extremo anterior, así que queda acotado por el error de la cubeta.
+     * Si la cubeta del valor está vacía no hace nada.
+     *
+     * @param valor el tiempo de espera en milisegundos
+     */
+    void quitar(long valor) {
+        valor = acotar(valor);
+        int indice = indiceDe(valor);
+        if (cubetas[indice] == 0) {
+            return;
+        }
+        cubetas[indice]--;
+        cantidad--;
+        suma -= valor;
+        if (cantidad == 0) {
+            reiniciarExtremos();
+            return;
+        }
+        // Los valores que quedan siguen entre los extremos anteriores. Un
+        // extremo ya acotado puede no ser un valor registrado, así que se
+        // compara por cubeta
+        if (indice <= indiceDe(minimo)) {
+            int i = 0;
+            while (cubetas[i] == 0) {
+                i++;
+            }
+            minimo = Math.max(minimo, limiteInferior(i));
+        }
+        if (indice >= indiceDe(maximo)) {
+            int i = TOTAL_CUBETAS - 1;
+            while (cubetas[i] == 0) {
+                i--;
+            }
+            maximo = Math.min(maximo, limiteInferior(i + 1) - 1);
+        }
+    }
+
+    /**
+     * Suma a este histograma los valores de otro, como si se hubieran
+     * registrado aquí. Sirve para juntar histogramas llenados por separado.
+     *
+     * @param otro el histograma a sumar, que no cambia
+     */
+    void combinar(HistogramaDeEspera otro) {
+        if (otro.cantidad == 0) {
+            return;
+        }
+        for (int i = 0; i < TOTAL_CUBETAS; i++) {
+            cubetas[i] += otro.cubetas[i];
+        }
+        cantidad += otro.cantidad;
+        suma += otro.suma;
+        minimo = Math.min(minimo, otro.minimo);
+        maximo = Math.max(maximo, otro.maximo);
+    }
+
+    /**
+     * Obtiene la cantidad de valores registrados.
+     *
+     * @return la cantidad de valores
+     */
+    long getCantidad() {
+        return cantidad;
+    }
+
+    /**
+     * Obtiene la suma de los valores registrados.
+     *
+     * @return la suma en milisegundos
+     */
+    long getSuma() {
+        return suma;
+    }
+
+    /**
+     * Obtiene el menor valor registrado.
+     *
+     * @return el mínimo en milisegundos, o 0 si no hay datos
+     */
+    long getMinimo() {
+        return cantidad == 0 ? 0 : minimo;
+    }
+
+    /**
+     * Obtiene el mayor valor registrado.
+     *
+     * @return el máximo en milisegundos, o 0 si no hay datos
+     */
+    long getMaximo() {
+        return cantidad == 0 ? 0 : maximo;
+    }
+
+    /**
+     * Calcula un percentil recorriendo las cubetas acumuladas. El valor
+     * devuelto es el punto medio de la cubeta, acotado entre mínimo y máximo.
+     *
+     * @param percentil el percentil buscado, entre 0 y 100
+     * @return el valor del percentil en milisegundos, o 0 si no hay datos
+     */
+    long getPercentil(double percentil) {
+        if (cantidad == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(cantidad * percentil / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < TOTAL_CUBETAS; i++) {
+            acumulado += cubetas[i];
+            if (acumulado >= objetivo) {
+                long inferior = limiteInferior(i);
+                long medio = inferior + (limiteInferior(i + 1) - inferior) / 2;
+                return Math.max(getMinimo(), Math.min(getMaximo(), medio));
+            }
+        }
+        return getMaximo();
+    }
+
+    /**
+     * Calcula la cubeta de un valor.
+     *
+     * @param valor el valor ya acotado
+     * @return el índice de la cubeta
+     */
+    private static int indiceDe(long valor) {
+        if (valor < SUBCUBETAS) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        int mantisa = (int) (valor >>> (exponente - BITS_SUBCUBETA)) & (SUBCUBETAS - 1);
+        return (exponente - BITS_SUBCUBETA + 1) * SUBCUBETAS + mantisa;
+    }
+
+    /**
+     * Calcula el menor valor que cae en una cubeta.
+     *
+     * @param indice el índice de la cubeta
+     * @return el límite inferior de la cubeta
+     */
+    private static long limiteInferior(int indice) {
+        if (indice < SUBCUBETAS) {
+            return indice;
+        }
+        int exponente = indice / SUBCUBETAS + BITS_SUBCUBETA - 1;
+        long mantisa = indice % SUBCUBETAS;
+        return (SUBCUBETAS + mantisa) << (exponente - BITS_SUBCUBETA);
+    }
+
+    private static long acotar(long valor) {
+        return Math.max(0, Math.min(MAX_VALOR, valor));
+    }
+
+    private void reiniciarExtremos() {
+        minimo = Long.MAX_VALUE;
+        maximo = Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,702 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Historial de clientes atendidos con índices de búsqueda. Los clientes se
+ * guardan en un arreglo en orden de atención; cada uno ocupa una posición que
+ * nunca se reutiliza, y al quitarlo su posición queda vacía.
+ *
+ * Mantiene dos índices actualizados en cada cambio: - Índice primario por ID:
+ * un IndiceDeIds con la posición más reciente de cada ID y una cadena hacia
+ * las visitas anteriores del mismo ID - Índice secundario por tipo de
+ * solicitud: HashMap con la lista de posiciones de cada tipo, en orden de
+ * atención
+ *
+ * Buscar por ID es O(1) y filtrar por tipo cuesta lo mismo que el tamaño del
+ * resultado. El IndiceDeIds también tiene los IDs ordenados para buscar por
+ * prefijo mientras se escribe: cuesta una búsqueda binaria por cada corrida
+ * de IDs ordenados más la cantidad de resultados pedidos, aunque el prefijo
+ * coincida con todo el historial.
+ *
+ * Para mostrarlo por páginas sin copiarlo entero, obtenerPagina() entrega
+ * solo los clientes pedidos: un ArbolDeFenwick sobre las posiciones ocupadas
+ * ubica al k-ésimo cliente en O(log n) aunque haya posiciones vacías, y en un
+ * filtro por tipo el k-ésimo es directamente la k-ésima posición del índice.
+ *
+ * Solo los clientes más recientes se guardan como objetos Cliente. Cuando
+ * hay más de dos bloques de ellos, el bloque más antiguo se pasa a un
+ * ArchivoDeAtendidos mapeado a memoria, fuera del heap, y esos clientes se
+ * reconstruyen al pedirlos; si el archivo no se puede crear se usan unas
+ * ColumnasDeClientes en el heap. Un cliente reconstruido es un objeto nuevo
+ * con los mismos datos, así que para los clientes archivados quitar() y
+ * contains() comparan el ID y las horas en vez de la identidad.
+ *
+ * Los índices no guardan IDs ni objetos por cliente, solo enteros: el
+ * IndiceDeIds lee los IDs del archivo cuando los necesita. Aun así crecen
+ * con el historial mientras dura el proceso, a unos 16 bytes por cliente
+ * atendido (la cadena de visitas, el ArbolDeFenwick, el índice por tipo y
+ * los IDs ordenados, 4 bytes cada uno) más entre 16 y 32 bytes por ID
+ * distinto: con un millón de atendidos de IDs distintos son unos 50 MB del
+ * heap. Lo que el archivo saca del heap son los clientes mismos.
+ *
+ * @author young
+ */
+public class HistorialAtendidos extends AbstractCollection<Cliente> {
+
+    // Cantidad de clientes recientes que se archivan juntos
+    private static final int BLOQUE = 4096;
+
+    // Las posiciones menores a archivados están en el archivo; las demás
+    // están en recientes, desde la posición archivados
+    private final Path directorioArchivo;
+    private AlmacenDeClientes archivo;
+    // Último error al crear el archivo o al archivar un bloque; se borra
+    // cuando el archivo mapeado vuelve a aceptar un bloque completo
+    private Exception falloDeArchivo;
+    private int archivados;
+    private Cliente[] recientes;
+    private int[] anteriorMismoId;
+    private int siguientePosicion;
+    private int tamanio;
+    private final IndiceDeIds indicePorId;
+    private final HashMap<String, ListaDeEnteros> posicionesPorTipo;
+    private ArbolDeFenwick ocupadas;
+    // Posiciones vacías que quedaron en medio de algún índice por tipo
+    private int vaciasEnIndicePorTipo;
+
+    /**
+     * Constructor del historial. Inicializa el arreglo y los índices vacíos.
+     * Los clientes antiguos se archivan en el directorio temporal.
+     */
+    public HistorialAtendidos() {
+        this(null);
+    }
+
+    /**
+     * Constructor del historial que archiva los clientes antiguos en un
+     * directorio de datos. El archivo se crea recién al archivar el primer
+     * bloque.
+     *
+     * @param directorioArchivo el directorio del archivo, o null para usar
+     * el directorio temporal
+     */
+    HistorialAtendidos(Path directorioArchivo) {
+        this.directorioArchivo = directorioArchivo;
+        this.archivo = null;
+        this.falloDeArchivo = null;
+        this.archivados = 0;
+        this.recientes = new Cliente[16];
+        this.anteriorMismoId = new int[16];
+        this.siguientePosicion = 0;
+        this.tamanio = 0;
+        this.indicePorId = new IndiceDeIds(this::idEn);
+        this.posicionesPorTipo = new HashMap<>();
+        this.ocupadas = new ArbolDeFenwick(new boolean[16]);
+        this.vaciasEnIndicePorTipo = 0;
+    }
+
+    /**
+     * Agrega un cliente al final del historial y lo registra en ambos índices.
+     *
+     * @param cliente el cliente atendido
+     * @return siempre true
+     */
+    @Override
+    public boolean add(Cliente cliente) {
+        agregar(cliente);
+        return true;
+    }
+
+    /**
+     * Quita un cliente del historial. Solo recorre las visitas anteriores del
+     * mismo ID, no todo el historial.
+     *
+     * @param o el cliente a quitar
+     * @return true si estaba en el historial
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Cliente)) {
+            return false;
+        }
+        int posicion = posicionDe((Cliente) o);
+        if (posicion < 0) {
+            return false;
+        }
+        quitar(posicion);
+        return true;
+    }
+
+    /**
+     * Indica si un cliente está en el historial usando el índice por ID.
+     *
+     * @param o el cliente a buscar
+     * @return true si el cliente está en el historial
+     */
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Cliente && posicionDe((Cliente) o) >= 0;
+    }
+
+    /**
+     * Busca un cliente por su ID usando el índice primario. Si el ID fue
+     * atendido varias veces, devuelve la visita más antigua.
+     *
+     * @param id el identificador del cliente
+     * @return el cliente encontrado, o null si no existe
+     */
+    public Cliente buscarPorId(String id) {
+        int posicion = indicePorId.ultima(id);
+        if (posicion < 0) {
+            return null;
+        }
+        while (anteriorMismoId[posicion] >= 0) {
+            posicion = anteriorMismoId[posicion];
+        }
+        return cliente(posicion);
+    }
+
+    /**
+     * Busca los clientes cuyo ID empieza con un prefijo, en orden de ID. De
+     * cada ID devuelve la visita más antigua, igual que buscarPorId().
+     *
+     * @param prefijo el comienzo del ID
+     * @param limite la cantidad máxima de clientes a devolver
+     * @return los clientes encontrados, a lo sumo limite
+     */
+    public List<Cliente> buscarPorPrefijoDeId(String prefijo, int limite) {
+        List<Cliente> resultado = new ArrayList<>();
+        for (String id : indicePorId.buscarPorPrefijo(prefijo, limite)) {
+            resultado.add(buscarPorId(id));
+        }
+        return resultado;
+    }
+
+    /**
+     * Busca los clientes de un tipo de solicitud usando el índice secundario.
+     * La comparación no distingue mayúsculas de minúsculas.
+     *
+     * @param tipo el tipo de solicitud (Soporte, Mantenimiento, Reclamo)
+     * @return una LinkedList con los clientes de ese tipo en orden de atención
+     */
+    public LinkedList<Cliente> buscarPorTipoSolicitud(String tipo) {
+        LinkedList<Cliente> resultado = new LinkedList<>();
+        ListaDeEnteros posiciones = posicionesPorTipo.get(claveDeTipo(tipo));
+        if (posiciones == null) {
+            return resultado;
+        }
+        int conservadas = 0;
+        for (int i = 0; i < posiciones.tamanio(); i++) {
+            int posicion = posiciones.obtener(i);
+            Cliente cliente = cliente(posicion);
+            if (cliente != null) {
+                resultado.add(cliente);
+                posiciones.establecer(conservadas++, posicion);
+            }
+        }
+        // Compacta de paso las posiciones vacías que quedaron por quitar()
+        posiciones.recortar(conservadas);
+        return resultado;
+    }
+
+    /**
+     * Cuenta los clientes de un filtro.
+     *
+     * @param tipo el tipo de solicitud, o null para todos
+     * @return la cantidad de clientes que cumplen el filtro
+     */
+    public int contar(String tipo) {
+        if (tipo == null) {
+            return tamanio;
+        }
+        compactarIndicePorTipo();
+        ListaDeEnteros posiciones = posicionesPorTipo.get(claveDeTipo(tipo));
+        return posiciones == null ? 0 : posiciones.tamanio();
+    }
+
+    /**
+     * Obtiene una página de los clientes de un filtro, en orden de atención.
+     * Cuesta O(log n) más el tamaño de la página, sin importar en qué parte
+     * del historial esté.
+     *
+     * @param tipo el tipo de solicitud, o null para todos
+     * @param desde cuántos clientes del filtro saltar
+     * @param cantidad la cantidad máxima de clientes a devolver
+     * @return los clientes de la página; menos de cantidad al final
+     */
+    public List<Cliente> obtenerPagina(String tipo, int desde, int cantidad) {
+        List<Cliente> pagina = new ArrayList<>(Math.max(0, Math.min(cantidad, tamanio - desde)));
+        if (tipo == null) {
+            for (int posicion = ocupadas.buscar(desde);
+                    posicion < siguientePosicion && pagina.size() < cantidad; posicion++) {
+                Cliente cliente = cliente(posicion);
+                if (cliente != null) {
+                    pagina.add(cliente);
+                }
+            }
+            return pagina;
+        }
+        compactarIndicePorTipo();
+        ListaDeEnteros posiciones = posicionesPorTipo.get(claveDeTipo(tipo));
+        if (posiciones == null) {
+            return pagina;
+        }
+        int hasta = Math.min(posiciones.tamanio(), desde + cantidad);
+        for (int i = desde; i < hasta; i++) {
+            pagina.add(cliente(posiciones.obtener(i)));
+        }
+        return pagina;
+    }
+
+    /**
+     * Indica si obtenerPagina() o contar() con un tipo van a compactar el
+     * índice por tipo, y por lo tanto modificar el historial.
+     *
+     * @return true si quedan posiciones vacías en el índice por tipo
+     */
+    boolean necesitaCompactar() {
+        return vaciasEnIndicePorTipo > 0;
+    }
+
+    /**
+     * Obtiene la cantidad de clientes en el historial.
+     *
+     * @return el tamaño del historial
+     */
+    @Override
+    public int size() {
+        return tamanio;
+    }
+
+    /**
+     * Recorre el historial en orden de atención, saltando posiciones vacías.
+     *
+     * @return un iterador sobre los clientes atendidos
+     */
+    @Override
+    public Iterator<Cliente> iterator() {
+        return new Iterator<Cliente>() {
+            private int posicion = avanzar(0);
+            private int ultimaDevuelta = -1;
+
+            private int avanzar(int desde) {
+                while (desde < siguientePosicion && !ocupada(desde)) {
+                    desde++;
+                }
+                return desde;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return posicion < siguientePosicion;
+            }
+
+            @Override
+            public Cliente next() {
+                if (posicion >= siguientePosicion) {
+                    throw new NoSuchElementException();
+                }
+                ultimaDevuelta = posicion;
+                Cliente cliente = cliente(posicion);
+                posicion = avanzar(posicion + 1);
+                return cliente;
+            }
+
+            @Override
+            public void remove() {
+                if (ultimaDevuelta < 0) {
+                    throw new IllegalStateException();
+                }
+                quitar(ultimaDevuelta);
+                ultimaDevuelta = -1;
+            }
+        };
+    }
+
+    // ==================== OPERACIONES POR POSICIÓN ====================
+    /**
+     * Agrega un cliente al final del historial.
+     *
+     * @param cliente el cliente atendido
+     * @return la posición asignada
+     */
+    int agregar(Cliente cliente) {
+        if (siguientePosicion == anteriorMismoId.length) {
+            anteriorMismoId = Arrays.copyOf(anteriorMismoId, siguientePosicion * 2);
+            boolean[] marcas = new boolean[anteriorMismoId.length];
+            for (int i = 0; i < siguientePosicion; i++) {
+                marcas[i] = ocupada(i);
+            }
+            ocupadas = new ArbolDeFenwick(marcas);
+        }
+        int recientesUsados = siguientePosicion - archivados;
+        if (recientesUsados == recientes.length
+                && (recientesUsados < 2 * BLOQUE || !archivarBloque())) {
+            recientes = Arrays.copyOf(recientes, recientes.length * 2);
+        }
+        int posicion = siguientePosicion++;
+        recientes[posicion - archivados] = cliente;
+        ocupadas.sumar(posicion, 1);
+        anteriorMismoId[posicion] = indicePorId.poner(cliente.getId(), posicion);
+        indicePorId.registrar(posicion);
+        posicionesPorTipo.computeIfAbsent(claveDeTipo(cliente.getTipoSolicitud()),
+                k -> new ListaDeEnteros()).agregar(posicion);
+        tamanio++;
+        return posicion;
+    }
+
+    /**
+     * Busca la visita más reciente de un ID.
+     *
+     * @param id el identificador del cliente
+     * @return el cliente, o null si no está en el historial
+     */
+    Cliente buscarUltimoPorId(String id) {
+        int ultima = indicePorId.ultima(id);
+        return ultima < 0 ? null : cliente(ultima);
+    }
+
+    /**
+     * Copia todas las posiciones usadas, incluidas las vacías (null). Los
+     * clientes archivados se reconstruyen.
+     *
+     * @return un arreglo indexado por posición
+     */
+    Cliente[] copiarPosiciones() {
+        Cliente[] copia = new Cliente[siguientePosicion];
+        for (int i = 0; i < archivados; i++) {
+            copia[i] = archivo.obtener(i);
+        }
+        System.arraycopy(recientes, 0, copia, archivados, siguientePosicion - archivados);
+        return copia;
+    }
+
+    /**
+     * Obtiene el cliente de una posición.
+     *
+     * @param posicion la posición en el historial
+     * @return el cliente, o null si la posición está vacía
+     */
+    Cliente obtener(int posicion) {
+        return posicion >= 0 && posicion < siguientePosicion ? cliente(posicion) : null;
+    }
+
+    /**
+     * Obtiene la primera posición sin usar: las posiciones del historial van
+     * de 0 a esta menos uno, contando las vacías.
+     *
+     * @return la cantidad de posiciones usadas
+     */
+    int finDePosiciones() {
+        return siguientePosicion;
+    }
+
+    /**
+     * Obtiene la primera posición que todavía está en memoria: las
+     * anteriores están en el archivo de atendidos y solo cambian si se
+     * quitan.
+     *
+     * @return la cantidad de posiciones archivadas
+     */
+    int primeraReciente() {
+        return archivados;
+    }
+
+    /**
+     * Obtiene el tipo de solicitud de una posición ocupada sin reconstruir
+     * el cliente.
+     *
+     * @param posicion la posición en el historial
+     * @return el ordinal del TipoSolicitud, o -1 si el tipo fue escrito a mano
+     */
+    int tipoEn(int posicion) {
+        if (posicion < archivados) {
+            return archivo.tipo(posicion);
+        }
+        TipoSolicitud tipo = recientes[posicion - archivados].getTipo();
+        return tipo == null ? -1 : tipo.ordinal();
+    }
+
+    /**
+     * Obtiene la prioridad de una posición ocupada sin reconstruir el
+     * cliente.
+     *
+     * @param posicion la posición en el historial
+     * @return el ordinal de la Prioridad
+     */
+    int prioridadEn(int posicion) {
+        return posicion < archivados ? archivo.prioridad(posicion)
+                : recientes[posicion - archivados].getPrioridad().ordinal();
+    }
+
+    /**
+     * Obtiene la hora de llegada de una posición ocupada sin reconstruir el
+     * cliente.
+     *
+     * @param posicion la posición en el historial
+     * @return la hora de llegada en nanosegundos, como en Cliente
+     */
+    long llegadaEn(int posicion) {
+        return posicion < archivados ? archivo.nanosLlegada(posicion)
+                : recientes[posicion - archivados].getNanosLlegada();
+    }
+
+    /**
+     * Obtiene la hora de atención de una posición ocupada sin reconstruir el
+     * cliente.
+     *
+     * @param posicion la posición en el historial
+     * @return la hora de atención en nanosegundos, o Cliente.SIN_HORA
+     */
+    long atencionEn(int posicion) {
+        return posicion < archivados ? archivo.nanosAtencion(posicion)
+                : recientes[posicion - archivados].getNanosAtencion();
+    }
+
+    /**
+     * Quita un cliente usando la posición guardada al agregarlo. Si la
+     * posición ya no corresponde a ese cliente, lo busca por su ID.
+     *
+     * @param posicion la posición conocida del cliente, o -1
+     * @param cliente el cliente a quitar
+     * @return la posición que tenía el cliente, o -1 si no estaba en el
+     * historial
+     */
+    int quitar(int posicion, Cliente cliente) {
+        if (posicion < 0 || posicion >= siguientePosicion || !esCliente(posicion, cliente)) {
+            posicion = posicionDe(cliente);
+            if (posicion < 0) {
+                return -1;
+            }
+        }
+        quitar(posicion);
+        return posicion;
+    }
+
+    /**
+     * Quita el cliente de una posición y lo desenlaza de ambos índices.
+     *
+     * @param posicion la posición a vaciar
+     */
+    void quitar(int posicion) {
+        Cliente cliente = cliente(posicion);
+        if (cliente == null) {
+            return;
+        }
+        String id = cliente.getId();
+        int ultima = indicePorId.ultima(id);
+        if (ultima == posicion) {
+            if (anteriorMismoId[posicion] >= 0) {
+                indicePorId.poner(id, anteriorMismoId[posicion]);
+            } else {
+                indicePorId.quitar(id);
+            }
+        } else {
+            int actual = ultima;
+            while (anteriorMismoId[actual] != posicion) {
+                actual = anteriorMismoId[actual];
+            }
+            anteriorMismoId[actual] = anteriorMismoId[posicion];
+        }
+        ListaDeEnteros posiciones = posicionesPorTipo.get(claveDeTipo(cliente.getTipoSolicitud()));
+        if (posiciones.ultimo() == posicion) {
+            posiciones.quitarUltimo();
+        } else {
+            vaciasEnIndicePorTipo++;
+        }
+        if (posicion < archivados) {
+            archivo.borrar(posicion);
+        } else {
+            recientes[posicion - archivados] = null;
+        }
+        ocupadas.sumar(posicion, -1);
+        tamanio--;
+    }
+
+    /**
+     * Quita del índice por tipo las posiciones vacías que dejó quitar(), para
+     * que la k-ésima posición de cada tipo sea su k-ésimo cliente. Solo
+     * recorre los índices si quedó alguna vacía, lo que pasa únicamente al
+     * deshacer una atención que no era la última de su tipo.
+     */
+    private void compactarIndicePorTipo() {
+        if (vaciasEnIndicePorTipo == 0) {
+            return;
+        }
+        for (ListaDeEnteros posiciones : posicionesPorTipo.values()) {
+            int conservadas = 0;
+            for (int i = 0; i < posiciones.tamanio(); i++) {
+                int posicion = posiciones.obtener(i);
+                if (ocupada(posicion)) {
+                    posiciones.establecer(conservadas++, posicion);
+                }
+            }
+            posiciones.recortar(conservadas);
+        }
+        vaciasEnIndicePorTipo = 0;
+    }
+
+    /**
+     * Busca la posición de un cliente concreto recorriendo solo la cadena de
+     * visitas de su ID.
+     *
+     * @param cliente el cliente a buscar
+     * @return la posición del cliente, o -1 si no está
+     */
+    int posicionDe(Cliente cliente) {
+        int posicion = indicePorId.ultima(cliente.getId());
+        while (posicion >= 0 && !esCliente(posicion, cliente)) {
+            posicion = anteriorMismoId[posicion];
+        }
+        return posicion;
+    }
+
+    /**
+     * Cierra el archivo de clientes antiguos. Si estaba en el directorio
+     * temporal, se borra.
+     *
+     * @throws IOException si falla el cierre
+     */
+    void cerrar() throws IOException {
+        if (archivo != null) {
+            archivo.close();
+        }
+    }
+
+    /**
+     * Obtiene el último error al crear el archivo de clientes antiguos o al
+     * pasarle un bloque. Los clientes que no se pudieron archivar siguen en
+     * el heap, así que no se pierde ninguno. Si el archivo mapeado vuelve a
+     * aceptar un bloque completo el error se borra; si no se pudo crear, los
+     * antiguos quedan en columnas en el heap y el error no se borra.
+     *
+     * @return el error, o null si el archivo funciona
+     */
+    Exception getFalloDeArchivo() {
+        return falloDeArchivo;
+    }
+
+    // ==================== ARCHIVO ====================
+    /**
+     * Pasa al archivo el bloque de clientes recientes más antiguo y corre
+     * los demás al inicio del arreglo. Las posiciones no cambian, así que los
+     * índices siguen valiendo. Si el archivo no puede crecer (por ejemplo,
+     * con el disco lleno), los clientes que faltan siguen en el heap.
+     *
+     * @return true si se archivó el bloque completo
+     */
+    private boolean archivarBloque() {
+        if (archivo == null) {
+            archivo = crearArchivo();
+        }
+        int pasados = 0;
+        try {
+            while (pasados < BLOQUE) {
+                archivo.agregar(recientes[pasados]);
+                pasados++;
+            }
+            if (archivo instanceof ArchivoDeAtendidos) {
+                falloDeArchivo = null;
+            }
+            return true;
+        } catch (UncheckedIOException e) {
+            falloDeArchivo = e;
+            return false;
+        } finally {
+            archivados += pasados;
+            int quedan = siguientePosicion - archivados;
+            System.arraycopy(recientes, pasados, recientes, 0, quedan);
+            Arrays.fill(recientes, quedan, recientes.length, null);
+        }
+    }
+
+    /**
+     * Crea el archivo de clientes antiguos. Si no se puede, guarda el error
+     * para getFalloDeArchivo() y guarda esos clientes en columnas en el heap.
+     *
+     * @return el almacén para los clientes antiguos
+     */
+    private AlmacenDeClientes crearArchivo() {
+        try {
+            return directorioArchivo == null ? ArchivoDeAtendidos.crearTemporal()
+                    : ArchivoDeAtendidos.crear(directorioArchivo);
+        } catch (IOException | UncheckedIOException e) {
+            falloDeArchivo = e;
+            return new ColumnasDeClientes();
+        }
+    }
+
+    /**
+     * Obtiene el cliente de una posición, reconstruyéndolo si está en el
+     * archivo.
+     *
+     * @param posicion la posición en el historial
+     * @return el cliente, o null si la posición está vacía
+     */
+    private Cliente cliente(int posicion) {
+        return posicion < archivados ? archivo.obtener(posicion) : recientes[posicion - archivados];
+    }
+
+    /**
+     * Obtiene el ID de una posición sin reconstruir el cliente.
+     *
+     * @param posicion la posición en el historial
+     * @return el ID, o null si la posición está vacía
+     */
+    private String idEn(int posicion) {
+        if (posicion < archivados) {
+            return archivo.id(posicion);
+        }
+        Cliente cliente = recientes[posicion - archivados];
+        return cliente == null ? null : cliente.getId();
+    }
+
+    /**
+     * Indica si una posición tiene un cliente, sin reconstruirlo.
+     *
+     * @param posicion la posición en el historial
+     * @return true si la posición no está vacía
+     */
+    boolean ocupada(int posicion) {
+        return posicion < archivados ? archivo.ocupada(posicion) : recientes[posicion - archivados] != null;
+    }
+
+    /**
+     * Indica si una posición guarda a un cliente concreto: por identidad si
+     * es reciente, por ID y horas si está en el archivo.
+     *
+     * @param posicion la posición en el historial
+     * @param cliente el cliente a comparar
+     * @return true si la posición corresponde al cliente
+     */
+    private boolean esCliente(int posicion, Cliente cliente) {
+        return posicion < archivados ? archivo.corresponde(posicion, cliente)
+                : recientes[posicion - archivados] == cliente;
+    }
+
+    /**
+     * Normaliza el tipo de solicitud para usarlo como clave del índice.
+     *
+     * @param tipo el tipo de solicitud
+     * @return el tipo en minúsculas
+     */
+    private static String claveDeTipo(String tipo) {
+        return tipo == null ? "" : tipo.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Convierte las líneas de un CSV de clientes registrados con anticipación
+ * en objetos Cliente, de a lotes. Cada línea tiene los campos: id, nombre,
+ * tipo de solicitud, prioridad, problema y, opcionalmente, fecha de
+ * registro (dd/MM/yyyy). Si la primera línea empieza con "id" se toma como
+ * encabezado y se salta.
+ *
+ * Valida lo mismo que el formulario de recepción: id, nombre y problema no
+ * vacíos, un tipo de solicitud conocido y una prioridad, sin importar
+ * mayúsculas: cualquier nivel de Prioridad (Baja, Normal, Preferente o
+ * Urgente), o Alta, que se toma como Urgente. Las líneas inválidas se
+ * cuentan y las primeras se describen en el informe; los IDs repetidos los
+ * descarta SistemaDeGestion al insertar, comparando con la cola.
+ *
+ * Lo usa SistemaDeGestion.importarClientes().
+ *
+ * @author young
+ */
+final class ImportadorDeClientes implements Closeable {
+
+    /**
+     * Cantidad máxima de errores descritos en el informe.
+     */
+    static final int ERRORES_DESCRITOS = 20;
+
+    private static final int CAMPOS = 6;
+    private static final int CAMPOS_OBLIGATORIOS = 5;
+    private static final TipoSolicitud[] TIPOS = TipoSolicitud.values();
+    private static final Prioridad[] PRIORIDADES = Prioridad.values();
+
+    private final LectorDeCsv lector;
+    private final long inicio;
+    private boolean primeraLinea;
+    private long lineasLeidas;
+    private int rechazados;
+    private int duplicados;
+    private final List<String> errores;
+
+    /**
+     * Abre el archivo a importar.
+     *
+     * @param archivo el archivo CSV
+     * @throws IOException si no se puede abrir
+     */
+    ImportadorDeClientes(Path archivo) throws IOException {
+        this.lector = new LectorDeCsv(archivo, CAMPOS);
+        this.inicio = System.nanoTime();
+        this.primeraLinea = true;
+        this.lineasLeidas = 0;
+        this.rechazados = 0;
+        this.duplicados = 0;
+        this.errores = new ArrayList<>();
+    }
+
+    /**
+     * Lee clientes válidos hasta llenar el lote o terminar el archivo.
+     *
+     * @param lote el arreglo a llenar desde la posición 0
+     * @return la cantidad de clientes leídos; menos que el largo del lote
+     * solo al final del archivo
+     * @throws IOException si falla la lectura
+     */
+    int leerLote(Cliente[] lote) throws IOException {
+        int leidos = 0;
+        while (leidos < lote.length && lector.leer()) {
+            boolean encabezado = primeraLinea && lector.getError() == null
+                    && lector.getCampo(0).equalsIgnoreCase("id");
+            primeraLinea = false;
+            if (encabezado) {
+                continue;
+            }
+            lineasLeidas++;
+            if (lector.getError() != null) {
+                rechazar(lector.getError());
+                continue;
+            }
+            Cliente cliente = convertir();
+            if (cliente != null) {
+                lote[leidos++] = cliente;
+            }
+        }
+        return leidos;
+    }
+
+    /**
+     * Anota un cliente descartado porque su ID ya estaba en la cola, sea de
+     * antes o de una línea anterior del archivo.
+     *
+     * @param id el ID repetido
+     */
+    void rechazarDuplicado(String id) {
+        duplicados++;
+        if (errores.size() < ERRORES_DESCRITOS) {
+            errores.add("ID repetido o ya en espera: " + id);
+        }
+    }
+
+    /**
+     * Arma el informe de la importación.
+     *
+     * @param importados los clientes agregados a la cola
+     * @return el informe
+     */
+    InformeDeImportacion informe(int importados) {
+        return new InformeDeImportacion(lineasLeidas, importados, duplicados, rechazados,
+                errores, System.nanoTime() - inicio);
+    }
+
+    /**
+     * Cierra el archivo.
+     *
+     * @throws IOException si falla el cierre
+     */
+    @Override
+    public void close() throws IOException {
+        lector.close();
+    }
+
+    /**
+     * Crea el cliente de la línea leída.
+     *
+     * @return el cliente, o null si la línea no es válida
+     */
+    private Cliente convertir() {
+        if (lector.getCantidadCampos() < CAMPOS_OBLIGATORIOS) {
+            return rechazar("faltan campos (se esperan id, nombre, tipo, prioridad y problema)");
+        }
+        if (lector.getCantidadCampos() > CAMPOS) {
+            return rechazar("sobran campos");
+        }
+        String id = lector.getCampo(0);
+        String nombre = lector.getCampo(1);
+        String problema = lector.getCampo(4);
+        if (id.isEmpty() || nombre.isEmpty() || problema.isEmpty()) {
+            return rechazar("id, nombre y problema son obligatorios");
+        }
+        TipoSolicitud tipo = tipoDe(lector.getCampo(2));
+        if (tipo == null) {
+            return rechazar("tipo de solicitud desconocido: " + lector.getCampo(2));
+        }
+        Prioridad prioridad = prioridadDe(lector.getCampo(3));
+        if (prioridad == null) {
+            return rechazar("prioridad desconocida: " + lector.getCampo(3));
+        }
+        String fecha = lector.getCampo(5);
+        return new Cliente(id, nombre, tipo.getTexto(), prioridad, problema,
+                fecha.isEmpty() ? null : fecha);
+    }
+
+    private Cliente rechazar(String motivo) {
+        rechazados++;
+        if (errores.size() < ERRORES_DESCRITOS) {
+            errores.add("Línea " + lector.getNumeroDeLinea() + ": " + motivo);
+        }
+        return null;
+    }
+
+    private static TipoSolicitud tipoDe(String texto) {
+        for (TipoSolicitud tipo : TIPOS) {
+            if (tipo.getTexto().equalsIgnoreCase(texto)) {
+                return tipo;
+            }
+        }
+        return null;
+    }
+
+    private static Prioridad prioridadDe(String texto) {
+        if (texto.equalsIgnoreCase("Alta")) {
+            return Prioridad.URGENTE;
+        }
+        for (Prioridad prioridad : PRIORIDADES) {
+            if (prioridad.name().equalsIgnoreCase(texto)) {
+                return prioridad;
+            }
+        }
+        return null;
+    }
+}
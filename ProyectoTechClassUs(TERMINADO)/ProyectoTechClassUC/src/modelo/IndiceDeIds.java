@@ -0,0 +1,351 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.IntFunction;
+
+/**
+ * Índice por ID de HistorialAtendidos guardado solo en arreglos de enteros.
+ * No guarda los IDs: guarda posiciones del historial y lee el ID de cada
+ * una cuando lo necesita, así que los IDs de los clientes archivados se
+ * quedan en el archivo mapeado.
+ *
+ * Tiene dos partes: - Última posición de cada ID: tabla hash de
+ * direccionamiento abierto con la posición y el hashCode del ID, para no
+ * leer el ID al agrandarla - IDs en orden: corridas de posiciones ordenadas
+ * por ID. Las posiciones nuevas se juntan sin orden hasta completar una
+ * corrida, que se mezcla con las anteriores de su tamaño
+ *
+ * Cada ID distinto cuesta entre 16 y 32 bytes en la tabla, y cada visita 4
+ * bytes en las corridas. Las corridas dejan de mezclarse al llegar a
+ * CORRIDA_MAXIMA posiciones, para que ningún cliente atendido espere una
+ * mezcla larga, así que buscar por prefijo hace una búsqueda binaria por
+ * corrida: unas 16 con un millón de visitas.
+ *
+ * Las búsquedas no cambian el índice, así que varios hilos pueden buscar a
+ * la vez mientras nadie lo modifique.
+ *
+ * @author young
+ */
+final class IndiceDeIds {
+
+    private static final int LIBRE = -1;
+    // Posiciones nuevas que se ordenan juntas en una corrida
+    private static final int NUEVAS_POR_CORRIDA = 4096;
+    // Largo desde el que una corrida ya no se mezcla con las siguientes
+    private static final int CORRIDA_MAXIMA = 16 * NUEVAS_POR_CORRIDA;
+
+    private final IntFunction<String> idEn;
+    private int[] posiciones;
+    private int[] hashes;
+    private int cantidad;
+    private final List<int[]> corridas;
+    private final int[] nuevas;
+    private int cantidadNuevas;
+
+    /**
+     * Constructor del índice vacío.
+     *
+     * @param idEn lee el ID de una posición del historial, o null si la
+     * posición está vacía
+     */
+    IndiceDeIds(IntFunction<String> idEn) {
+        this.idEn = idEn;
+        this.posiciones = new int[16];
+        this.hashes = new int[16];
+        Arrays.fill(posiciones, LIBRE);
+        this.cantidad = 0;
+        this.corridas = new ArrayList<>();
+        this.nuevas = new int[NUEVAS_POR_CORRIDA];
+        this.cantidadNuevas = 0;
+    }
+
+    // ==================== ÚLTIMA POSICIÓN POR ID ====================
+    /**
+     * Obtiene la última posición de un ID.
+     *
+     * @param id el identificador
+     * @return la posición, o -1 si el ID no está
+     */
+    int ultima(String id) {
+        int casilla = casillaDe(id);
+        return casilla < 0 ? -1 : posiciones[casilla];
+    }
+
+    /**
+     * Cambia la última posición de un ID, agregándolo si no estaba.
+     *
+     * @param id el identificador
+     * @param posicion la nueva última posición; el historial ya tiene que
+     * devolver el ID en ella
+     * @return la última posición anterior, o -1 si el ID no estaba
+     */
+    int poner(String id, int posicion) {
+        int casilla = casillaDe(id);
+        if (casilla >= 0) {
+            int anterior = posiciones[casilla];
+            posiciones[casilla] = posicion;
+            return anterior;
+        }
+        if (2 * (cantidad + 1) > posiciones.length) {
+            agrandar();
+        }
+        ubicar(posicion, id.hashCode());
+        cantidad++;
+        return -1;
+    }
+
+    /**
+     * Quita un ID de la tabla. Corre las casillas siguientes hacia atrás en
+     * vez de dejar una marca, así que la tabla no se degrada con el uso.
+     *
+     * @param id el identificador; su última posición todavía tiene que
+     * devolverlo
+     */
+    void quitar(String id) {
+        int hueco = casillaDe(id);
+        if (hueco < 0) {
+            return;
+        }
+        int mascara = posiciones.length - 1;
+        for (int i = (hueco + 1) & mascara; posiciones[i] != LIBRE; i = (i + 1) & mascara) {
+            int propia = dispersar(hashes[i]) & mascara;
+            // La casilla i puede ir al hueco si este no queda antes de la
+            // casilla donde empieza a buscarse
+            if (((i - propia) & mascara) >= ((i - hueco) & mascara)) {
+                posiciones[hueco] = posiciones[i];
+                hashes[hueco] = hashes[i];
+                hueco = i;
+            }
+        }
+        posiciones[hueco] = LIBRE;
+        cantidad--;
+    }
+
+    private int casillaDe(String id) {
+        int hash = id.hashCode();
+        int mascara = posiciones.length - 1;
+        for (int i = dispersar(hash) & mascara; posiciones[i] != LIBRE; i = (i + 1) & mascara) {
+            if (hashes[i] == hash && id.equals(idEn.apply(posiciones[i]))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void ubicar(int posicion, int hash) {
+        int mascara = posiciones.length - 1;
+        int i = dispersar(hash) & mascara;
+        while (posiciones[i] != LIBRE) {
+            i = (i + 1) & mascara;
+        }
+        posiciones[i] = posicion;
+        hashes[i] = hash;
+    }
+
+    private void agrandar() {
+        int[] viejasPosiciones = posiciones;
+        int[] viejosHashes = hashes;
+        posiciones = new int[viejasPosiciones.length * 2];
+        hashes = new int[posiciones.length];
+        Arrays.fill(posiciones, LIBRE);
+        for (int i = 0; i < viejasPosiciones.length; i++) {
+            if (viejasPosiciones[i] != LIBRE) {
+                ubicar(viejasPosiciones[i], viejosHashes[i]);
+            }
+        }
+    }
+
+    /**
+     * Reparte el hashCode por toda la tabla. Los IDs parecidos tienen
+     * hashCode seguidos, y sin mezclarlos ocuparían casillas seguidas que
+     * el sondeo lineal recorre enteras.
+     */
+    private static int dispersar(int hash) {
+        int mezcla = (hash ^ (hash >>> 16)) * 0x85EBCA6B;
+        mezcla = (mezcla ^ (mezcla >>> 13)) * 0xC2B2AE35;
+        return mezcla ^ (mezcla >>> 16);
+    }
+
+    // ==================== IDS EN ORDEN ====================
+    /**
+     * Registra una posición nueva para las búsquedas por prefijo. Cada
+     * visita se registra, no solo la primera de su ID, para que el ID se
+     * siga encontrando si se quita alguna.
+     *
+     * @param posicion la posición agregada al historial
+     */
+    void registrar(int posicion) {
+        nuevas[cantidadNuevas++] = posicion;
+        if (cantidadNuevas < NUEVAS_POR_CORRIDA) {
+            return;
+        }
+        int[] corrida = ordenar(nuevas, cantidadNuevas);
+        cantidadNuevas = 0;
+        while (!corridas.isEmpty()) {
+            int[] anterior = corridas.get(corridas.size() - 1);
+            if (anterior.length >= CORRIDA_MAXIMA || anterior.length > corrida.length) {
+                break;
+            }
+            corridas.remove(corridas.size() - 1);
+            corrida = mezclar(anterior, corrida);
+        }
+        corridas.add(corrida);
+    }
+
+    /**
+     * Busca los IDs que empiezan con un prefijo, en orden y sin repetir.
+     *
+     * @param prefijo el comienzo del ID
+     * @param limite la cantidad máxima de IDs a devolver
+     * @return los IDs encontrados, a lo sumo limite
+     */
+    List<String> buscarPorPrefijo(String prefijo, int limite) {
+        List<String> resultado = new ArrayList<>();
+        if (limite <= 0) {
+            return resultado;
+        }
+        PriorityQueue<Cursor> cursores = new PriorityQueue<>();
+        for (int[] corrida : corridas) {
+            agregarCursor(cursores, corrida, prefijo);
+        }
+        agregarCursor(cursores, ordenar(nuevas, cantidadNuevas), prefijo);
+        String anterior = null;
+        while (resultado.size() < limite && !cursores.isEmpty()) {
+            Cursor cursor = cursores.poll();
+            if (!cursor.id.startsWith(prefijo)) {
+                break;
+            }
+            if (!cursor.id.equals(anterior)) {
+                resultado.add(cursor.id);
+                anterior = cursor.id;
+            }
+            if (cursor.avanzar()) {
+                cursores.add(cursor);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Agrega un cursor parado en la primera posición de una corrida cuyo ID
+     * no es menor que el prefijo. La búsqueda binaria salta las posiciones
+     * vacías hacia adelante; solo las deja deshacer, así que son pocas.
+     */
+    private void agregarCursor(PriorityQueue<Cursor> cursores, int[] corrida, String prefijo) {
+        int desde = 0;
+        int hasta = corrida.length;
+        while (desde < hasta) {
+            int medio = (desde + hasta) >>> 1;
+            int ocupada = medio;
+            String id = null;
+            while (ocupada < hasta && (id = idEn.apply(corrida[ocupada])) == null) {
+                ocupada++;
+            }
+            if (ocupada == hasta) {
+                hasta = medio;
+            } else if (id.compareTo(prefijo) < 0) {
+                desde = ocupada + 1;
+            } else {
+                hasta = medio;
+            }
+        }
+        Cursor cursor = new Cursor(corrida, desde - 1, null);
+        if (cursor.avanzar()) {
+            cursores.add(cursor);
+        }
+    }
+
+    /**
+     * Ordena posiciones por ID y, con el mismo ID, por posición. Descarta
+     * las vacías.
+     */
+    private int[] ordenar(int[] posicionesSinOrden, int cantidadSinOrden) {
+        List<Cursor> ocupadas = new ArrayList<>(cantidadSinOrden);
+        for (int i = 0; i < cantidadSinOrden; i++) {
+            String id = idEn.apply(posicionesSinOrden[i]);
+            if (id != null) {
+                ocupadas.add(new Cursor(posicionesSinOrden, i, id));
+            }
+        }
+        ocupadas.sort(null);
+        int[] ordenadas = new int[ocupadas.size()];
+        for (int i = 0; i < ordenadas.length; i++) {
+            ordenadas[i] = ocupadas.get(i).posicion();
+        }
+        return ordenadas;
+    }
+
+    /**
+     * Mezcla dos corridas ordenadas en una sola. Descarta las posiciones que
+     * quedaron vacías desde que se ordenaron.
+     */
+    private int[] mezclar(int[] primera, int[] segunda) {
+        int[] mezcla = new int[primera.length + segunda.length];
+        int tamanio = 0;
+        Cursor a = new Cursor(primera, -1, null);
+        Cursor b = new Cursor(segunda, -1, null);
+        boolean quedanA = a.avanzar();
+        boolean quedanB = b.avanzar();
+        while (quedanA || quedanB) {
+            if (quedanA && (!quedanB || a.compareTo(b) <= 0)) {
+                mezcla[tamanio++] = a.posicion();
+                quedanA = a.avanzar();
+            } else {
+                mezcla[tamanio++] = b.posicion();
+                quedanB = b.avanzar();
+            }
+        }
+        return tamanio == mezcla.length ? mezcla : Arrays.copyOf(mezcla, tamanio);
+    }
+
+    /**
+     * Recorre una corrida guardando el ID de la posición actual, para leerlo
+     * una sola vez aunque se compare muchas.
+     */
+    private final class Cursor implements Comparable<Cursor> {
+
+        private final int[] corrida;
+        private int indice;
+        private String id;
+
+        Cursor(int[] corrida, int indice, String id) {
+            this.corrida = corrida;
+            this.indice = indice;
+            this.id = id;
+        }
+
+        /**
+         * Pasa a la siguiente posición ocupada de la corrida.
+         *
+         * @return false si la corrida terminó
+         */
+        boolean avanzar() {
+            do {
+                indice++;
+                if (indice >= corrida.length) {
+                    id = null;
+                    return false;
+                }
+                id = idEn.apply(corrida[indice]);
+            } while (id == null);
+            return true;
+        }
+
+        int posicion() {
+            return corrida[indice];
+        }
+
+        @Override
+        public int compareTo(Cursor otro) {
+            int comparacion = id.compareTo(otro.id);
+            return comparacion != 0 ? comparacion : Integer.compare(posicion(), otro.posicion());
+        }
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * Índice invertido de texto libre sobre los casos del historial: para cada
+ * palabra guarda la lista de posiciones del historial donde aparece
+ * (postings) con las veces que aparece en cada una. Las posiciones se agregan
+ * en orden creciente, así que cada lista se guarda como diferencias con la
+ * anterior codificadas en bytes de largo variable: la mayoría de las
+ * entradas ocupa dos bytes.
+ *
+ * Las palabras se pasan a minúsculas y sin tildes, así que "Batería" y
+ * "bateria" son la misma palabra. Quitar una posición la marca como borrada
+ * sin tocar las listas; la búsqueda la salta.
+ *
+ * La búsqueda recorre a la vez las listas de las palabras consultadas, en
+ * orden de posición, y puntúa cada caso con BM25: pesan más las palabras
+ * raras y las que se repiten en un texto corto. Solo guarda los mejores
+ * resultados en un montículo, así que no reserva memoria por caso, y poda
+ * con MaxScore los casos que ya no pueden entrar entre los mejores.
+ *
+ * @author young
+ */
+final class IndiceDeTexto {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int LARGO_MINIMO = 2;
+    private static final int BLOQUE = 128;
+    private static final int SIN_POSICION = Integer.MAX_VALUE;
+
+    /**
+     * Lista de postings de una palabra. Cada BLOQUE postings se anota un
+     * salto (la posición anterior al bloque y dónde empieza en los bytes)
+     * para poder pasar de largo un bloque entero sin decodificarlo.
+     */
+    private static final class Postings {
+
+        private byte[] datos = new byte[8];
+        private int tamanio;
+        private int ultimaPosicion = -1;
+        private int cantidad;
+        private int[] saltos = new int[0];
+        // Casos vigentes que contienen la palabra
+        private int documentos;
+
+        private void agregar(int posicion, int frecuencia) {
+            if (cantidad % BLOQUE == 0) {
+                int bloque = cantidad / BLOQUE;
+                if (2 * bloque == saltos.length) {
+                    saltos = Arrays.copyOf(saltos, Math.max(2, saltos.length * 2));
+                }
+                saltos[2 * bloque] = ultimaPosicion;
+                saltos[2 * bloque + 1] = tamanio;
+            }
+            if (datos.length - tamanio < 10) {
+                datos = Arrays.copyOf(datos, datos.length * 2);
+            }
+            escribirVariable(posicion - ultimaPosicion);
+            escribirVariable(frecuencia);
+            ultimaPosicion = posicion;
+            cantidad++;
+            documentos++;
+        }
+
+        private void escribirVariable(int valor) {
+            while ((valor & ~0x7F) != 0) {
+                datos[tamanio++] = (byte) ((valor & 0x7F) | 0x80);
+                valor >>>= 7;
+            }
+            datos[tamanio++] = (byte) valor;
+        }
+    }
+
+    /**
+     * Recorre una lista de postings durante una búsqueda.
+     */
+    private static final class Cursor {
+
+        private final Postings postings;
+        private final double idf;
+        // El mayor puntaje que puede aportar la palabra a un caso
+        private final double cota;
+        private final int bloques;
+        private int leido;
+        private int leidos;
+        private int posicion = -1;
+        private int frecuencia;
+
+        private Cursor(Postings postings, double idf) {
+            this.postings = postings;
+            this.idf = idf;
+            this.cota = idf * (K1 + 1);
+            this.bloques = (postings.cantidad + BLOQUE - 1) / BLOQUE;
+            avanzar();
+        }
+
+        private void avanzar() {
+            if (leidos == postings.cantidad) {
+                posicion = SIN_POSICION;
+                return;
+            }
+            posicion += leerVariable();
+            frecuencia = leerVariable();
+            leidos++;
+        }
+
+        /**
+         * Avanza hasta la primera posición mayor o igual a la indicada,
+         * saltando los bloques que terminan antes.
+         */
+        private void avanzarHasta(int objetivo) {
+            if (posicion >= objetivo) {
+                return;
+            }
+            int bloque = leidos / BLOQUE + 1;
+            if (bloque < bloques && postings.saltos[2 * bloque] < objetivo) {
+                while (bloque + 1 < bloques && postings.saltos[2 * (bloque + 1)] < objetivo) {
+                    bloque++;
+                }
+                posicion = postings.saltos[2 * bloque];
+                leido = postings.saltos[2 * bloque + 1];
+                leidos = bloque * BLOQUE;
+            }
+            do {
+                avanzar();
+            } while (posicion < objetivo);
+        }
+
+        private int leerVariable() {
+            byte[] datos = postings.datos;
+            int valor = 0;
+            int desplazamiento = 0;
+            byte b;
+            do {
+                b = datos[leido++];
+                valor |= (b & 0x7F) << desplazamiento;
+                desplazamiento += 7;
+            } while (b < 0);
+            return valor;
+        }
+    }
+
+    private final HashMap<String, Postings> postings;
+    // Palabras de cada posición indexada; 0 si no está indexada o se quitó
+    private int[] largos;
+    private int documentos;
+    private long totalPalabras;
+
+    /**
+     * Constructor del índice vacío.
+     */
+    IndiceDeTexto() {
+        this.postings = new HashMap<>();
+        this.largos = new int[16];
+        this.documentos = 0;
+        this.totalPalabras = 0;
+    }
+
+    /**
+     * Indexa los textos de una posición. Las posiciones se deben agregar en
+     * orden creciente y no se pueden volver a agregar.
+     *
+     * @param posicion la posición del caso en el historial
+     * @param textos los textos del caso; se ignoran los null
+     */
+    void agregar(int posicion, String... textos) {
+        HashMap<String, Integer> frecuencias = contarPalabras(textos);
+        if (frecuencias.isEmpty()) {
+            return;
+        }
+        if (posicion >= largos.length) {
+            largos = Arrays.copyOf(largos, Math.max(largos.length * 2, posicion + 1));
+        }
+        int largo = 0;
+        for (var entrada : frecuencias.entrySet()) {
+            postings.computeIfAbsent(entrada.getKey(), k -> new Postings())
+                    .agregar(posicion, entrada.getValue());
+            largo += entrada.getValue();
+        }
+        largos[posicion] = largo;
+        documentos++;
+        totalPalabras += largo;
+    }
+
+    /**
+     * Quita una posición del índice. Los textos deben ser los mismos con que
+     * se agregó, para descontar sus palabras.
+     *
+     * @param posicion la posición del caso en el historial
+     * @param textos los textos del caso
+     */
+    void quitar(int posicion, String... textos) {
+        if (posicion < 0 || posicion >= largos.length || largos[posicion] == 0) {
+            return;
+        }
+        for (String palabra : contarPalabras(textos).keySet()) {
+            Postings lista = postings.get(palabra);
+            if (lista != null) {
+                lista.documentos--;
+            }
+        }
+        totalPalabras -= largos[posicion];
+        largos[posicion] = 0;
+        documentos--;
+    }
+
+    /**
+     * Busca los casos más parecidos a una consulta de una o más palabras. Un
+     * caso no necesita tener todas las palabras, pero cuantas más tenga y
+     * más raras sean, mejor puntúa. A igual puntaje gana el caso más
+     * reciente.
+     *
+     * Usa MaxScore: una vez que hay limite resultados, las palabras cuyo
+     * aporte máximo sumado no alcanza al peor de ellos dejan de proponer
+     * candidatos y solo se consultan (saltando bloques) para los casos que
+     * proponen las demás. Así una palabra que está en casi todos los casos
+     * no obliga a puntuarlos a todos.
+     *
+     * @param consulta las palabras a buscar
+     * @param limite la cantidad máxima de resultados
+     * @return las posiciones encontradas, de la mejor a la peor
+     */
+    int[] buscar(String consulta, int limite) {
+        List<Cursor> lista = new ArrayList<>();
+        for (String palabra : new LinkedHashSet<>(palabras(consulta))) {
+            Postings encontrada = postings.get(palabra);
+            if (encontrada != null && encontrada.documentos > 0) {
+                double idf = Math.log(1 + (documentos - encontrada.documentos + 0.5)
+                        / (encontrada.documentos + 0.5));
+                lista.add(new Cursor(encontrada, idf));
+            }
+        }
+        if (lista.isEmpty() || limite <= 0) {
+            return new int[0];
+        }
+        // De la palabra que menos puede aportar a la que más
+        lista.sort((a, b) -> Double.compare(a.cota, b.cota));
+        Cursor[] cursores = lista.toArray(new Cursor[0]);
+        double[] cotaAcumulada = new double[cursores.length];
+        double suma = 0;
+        for (int i = 0; i < cursores.length; i++) {
+            suma += cursores[i].cota;
+            cotaAcumulada[i] = suma;
+        }
+
+        double largoPromedio = documentos == 0 ? 1 : (double) totalPalabras / documentos;
+        // Montículo de mínimos con los mejores resultados hasta ahora; a igual
+        // puntaje sale primero el más antiguo
+        PriorityQueue<double[]> mejores = new PriorityQueue<>(limite + 1,
+                (a, b) -> a[0] != b[0] ? Double.compare(a[0], b[0]) : Double.compare(a[1], b[1]));
+        double umbral = 0;
+        // Las palabras desde primeraEsencial proponen candidatos
+        int primeraEsencial = 0;
+        while (primeraEsencial < cursores.length) {
+            int posicion = SIN_POSICION;
+            for (int i = primeraEsencial; i < cursores.length; i++) {
+                posicion = Math.min(posicion, cursores[i].posicion);
+            }
+            if (posicion == SIN_POSICION) {
+                break;
+            }
+            int largo = largos[posicion];
+            double normal = K1 * (1 - B + B * largo / largoPromedio);
+            double puntaje = 0;
+            for (int i = primeraEsencial; i < cursores.length; i++) {
+                Cursor cursor = cursores[i];
+                if (cursor.posicion == posicion) {
+                    puntaje += cursor.idf * cursor.frecuencia * (K1 + 1) / (cursor.frecuencia + normal);
+                    cursor.avanzar();
+                }
+            }
+            // Un largo 0 es un caso quitado
+            if (largo == 0) {
+                continue;
+            }
+            boolean lleno = mejores.size() == limite;
+            for (int i = primeraEsencial - 1; i >= 0; i--) {
+                if (lleno && puntaje + cotaAcumulada[i] < umbral) {
+                    break;
+                }
+                Cursor cursor = cursores[i];
+                cursor.avanzarHasta(posicion);
+                if (cursor.posicion == posicion) {
+                    puntaje += cursor.idf * cursor.frecuencia * (K1 + 1) / (cursor.frecuencia + normal);
+                }
+            }
+            if (!lleno || puntaje >= umbral) {
+                mejores.add(new double[]{puntaje, posicion});
+                if (mejores.size() > limite) {
+                    mejores.poll();
+                }
+                if (mejores.size() == limite) {
+                    umbral = mejores.peek()[0];
+                    while (primeraEsencial < cursores.length && cotaAcumulada[primeraEsencial] < umbral) {
+                        primeraEsencial++;
+                    }
+                }
+            }
+        }
+        int[] resultado = new int[mejores.size()];
+        for (int i = resultado.length - 1; i >= 0; i--) {
+            resultado[i] = (int) mejores.poll()[1];
+        }
+        return resultado;
+    }
+
+    /**
+     * Separa un texto en palabras: minúsculas, sin tildes, y sin las de una
+     * sola letra.
+     *
+     * @param texto el texto, o null
+     * @return las palabras en orden, con repeticiones
+     */
+    static List<String> palabras(String texto) {
+        List<String> palabras = new ArrayList<>();
+        if (texto == null) {
+            return palabras;
+        }
+        String normalizado = Normalizer.normalize(texto, Normalizer.Form.NFD).toLowerCase(Locale.ROOT);
+        StringBuilder palabra = new StringBuilder();
+        for (int i = 0; i <= normalizado.length(); i++) {
+            char c = i < normalizado.length() ? normalizado.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                palabra.append(c);
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                if (palabra.length() >= LARGO_MINIMO) {
+                    palabras.add(palabra.toString());
+                }
+                palabra.setLength(0);
+            }
+        }
+        return palabras;
+    }
+
+    private static HashMap<String, Integer> contarPalabras(String... textos) {
+        HashMap<String, Integer> frecuencias = new HashMap<>();
+        for (String texto : textos) {
+            for (String palabra : palabras(texto)) {
+                frecuencias.merge(palabra, 1, Integer::sum);
+            }
+        }
+        return frecuencias;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Informe inmutable de una importación de clientes desde un archivo CSV:
+ * cuántas líneas se leyeron, cuántos clientes entraron a la cola, cuántos se
+ * descartaron por ID repetido o por datos inválidos, y la descripción de los
+ * primeros problemas encontrados.
+ *
+ * Lo devuelve SistemaDeGestion.importarClientes().
+ *
+ * @author young
+ */
+public class InformeDeImportacion {
+
+    private static final double NANOS_POR_MILI = 1_000_000.0;
+
+    private final long lineasLeidas;
+    private final int importados;
+    private final int duplicados;
+    private final int rechazados;
+    private final List<String> errores;
+    private final long nanos;
+
+    /**
+     * Constructor del informe.
+     *
+     * @param lineasLeidas las líneas con datos leídas, sin el encabezado
+     * @param importados los clientes agregados a la cola
+     * @param duplicados los clientes descartados por ID repetido
+     * @param rechazados las líneas descartadas por datos inválidos
+     * @param errores la descripción de los primeros problemas
+     * @param nanos lo que tardó la importación
+     */
+    InformeDeImportacion(long lineasLeidas, int importados, int duplicados, int rechazados,
+            List<String> errores, long nanos) {
+        this.lineasLeidas = lineasLeidas;
+        this.importados = importados;
+        this.duplicados = duplicados;
+        this.rechazados = rechazados;
+        this.errores = Collections.unmodifiableList(new ArrayList<>(errores));
+        this.nanos = nanos;
+    }
+
+    /**
+     * Obtiene cuántas líneas con datos se leyeron, sin contar el encabezado
+     * ni las líneas vacías.
+     *
+     * @return la cantidad de líneas
+     */
+    public long getLineasLeidas() {
+        return lineasLeidas;
+    }
+
+    /**
+     * Obtiene cuántos clientes entraron a la cola.
+     *
+     * @return la cantidad de importados
+     */
+    public int getImportados() {
+        return importados;
+    }
+
+    /**
+     * Obtiene cuántos clientes se descartaron porque su ID ya estaba en
+     * espera o se repetía en el archivo.
+     *
+     * @return la cantidad de duplicados
+     */
+    public int getDuplicados() {
+        return duplicados;
+    }
+
+    /**
+     * Obtiene cuántas líneas se descartaron por datos inválidos.
+     *
+     * @return la cantidad de líneas rechazadas
+     */
+    public int getRechazados() {
+        return rechazados;
+    }
+
+    /**
+     * Obtiene la descripción de los primeros problemas encontrados. Los IDs
+     * repetidos se anotan al insertar cada lote, después de las líneas
+     * inválidas de ese lote.
+     *
+     * @return una lista de solo lectura con los problemas
+     */
+    public List<String> getErrores() {
+        return errores;
+    }
+
+    /**
+     * Obtiene lo que tardó la importación.
+     *
+     * @return el tiempo en milisegundos
+     */
+    public double getMilis() {
+        return nanos / NANOS_POR_MILI;
+    }
+
+    /**
+     * Devuelve el informe en texto, con los totales en la primera línea y
+     * después los problemas descritos.
+     *
+     * @return representación en texto del objeto InformeDeImportacion
+     */
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder(String.format(
+                "%d clientes importados de %d líneas en %.1f ms (%d duplicados, %d inválidos)",
+                importados, lineasLeidas, getMilis(), duplicados, rechazados));
+        for (String error : errores) {
+            texto.append(System.lineSeparator()).append("  ").append(error);
+        }
+        int sinDescribir = duplicados + rechazados - errores.size();
+        if (sinDescribir > 0) {
+            texto.append(System.lineSeparator()).append("  ... y ").append(sinDescribir).append(" más");
+        }
+        return texto.toString();
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+/**
+ * Informe inmutable de cuánto tardó en recuperarse un SistemaDeGestion al
+ * abrirlo: la carga de la instantánea y la reaplicación de la cola del
+ * diario escrita después de ella.
+ *
+ * @author young
+ */
+public class InformeDeRecuperacion {
+
+    private static final double NANOS_POR_MILI = 1_000_000.0;
+
+    private final long secuenciaInstantanea;
+    private final int clientesEnInstantanea;
+    private final long nanosInstantanea;
+    private final long registrosReaplicados;
+    private final int segmentosLeidos;
+    private final long bytesLeidos;
+    private final long nanosDiario;
+
+    /**
+     * Constructor del informe.
+     *
+     * @param secuenciaInstantanea la secuencia de la instantánea cargada, o 0
+     * @param clientesEnInstantanea los clientes en espera y atendidos que
+     * traía la instantánea
+     * @param nanosInstantanea lo que tardó leer y restaurar la instantánea
+     * @param registrosReaplicados los registros del diario reaplicados
+     * @param segmentosLeidos los segmentos del diario leídos
+     * @param bytesLeidos los bytes del diario leídos
+     * @param nanosDiario lo que tardó leer y reaplicar el diario
+     */
+    InformeDeRecuperacion(long secuenciaInstantanea, int clientesEnInstantanea,
+            long nanosInstantanea, long registrosReaplicados, int segmentosLeidos,
+            long bytesLeidos, long nanosDiario) {
+        this.secuenciaInstantanea = secuenciaInstantanea;
+        this.clientesEnInstantanea = clientesEnInstantanea;
+        this.nanosInstantanea = nanosInstantanea;
+        this.registrosReaplicados = registrosReaplicados;
+        this.segmentosLeidos = segmentosLeidos;
+        this.bytesLeidos = bytesLeidos;
+        this.nanosDiario = nanosDiario;
+    }
+
+    /**
+     * Obtiene la secuencia del diario incluida en la instantánea cargada.
+     *
+     * @return la secuencia, o 0 si no había instantánea
+     */
+    public long getSecuenciaInstantanea() {
+        return secuenciaInstantanea;
+    }
+
+    /**
+     * Obtiene cuántos clientes traía la instantánea.
+     *
+     * @return los clientes en espera y atendidos de la instantánea
+     */
+    public int getClientesEnInstantanea() {
+        return clientesEnInstantanea;
+    }
+
+    /**
+     * Obtiene lo que tardó cargar la instantánea.
+     *
+     * @return el tiempo en milisegundos
+     */
+    public double getMilisInstantanea() {
+        return nanosInstantanea / NANOS_POR_MILI;
+    }
+
+    /**
+     * Obtiene cuántos registros del diario se reaplicaron.
+     *
+     * @return la cantidad de registros
+     */
+    public long getRegistrosReaplicados() {
+        return registrosReaplicados;
+    }
+
+    /**
+     * Obtiene cuántos segmentos del diario se leyeron.
+     *
+     * @return la cantidad de segmentos
+     */
+    public int getSegmentosLeidos() {
+        return segmentosLeidos;
+    }
+
+    /**
+     * Obtiene cuántos bytes del diario se leyeron.
+     *
+     * @return la cantidad de bytes
+     */
+    public long getBytesLeidos() {
+        return bytesLeidos;
+    }
+
+    /**
+     * Obtiene lo que tardó reaplicar el diario.
+     *
+     * @return el tiempo en milisegundos
+     */
+    public double getMilisDiario() {
+        return nanosDiario / NANOS_POR_MILI;
+    }
+
+    /**
+     * Obtiene lo que tardó la recuperación completa.
+     *
+     * @return el tiempo en milisegundos
+     */
+    public double getMilisTotal() {
+        return (nanosInstantanea + nanosDiario) / NANOS_POR_MILI;
+    }
+
+    /**
+     * Devuelve el informe en texto, una línea por etapa.
+     *
+     * @return representación en texto del objeto InformeDeRecuperacion
+     */
+    @Override
+    public String toString() {
+        return String.format("Recuperación en %.1f ms%n"
+                + "  Instantánea: %s, %d clientes, %.1f ms%n"
+                + "  Diario: %d registros en %d segmento(s), %d bytes, %.1f ms",
+                getMilisTotal(),
+                secuenciaInstantanea == 0 ? "ninguna" : "secuencia " + secuenciaInstantanea,
+                clientesEnInstantanea, getMilisInstantanea(),
+                registrosReaplicados, segmentosLeidos, bytesLeidos, getMilisDiario());
+    }
+}
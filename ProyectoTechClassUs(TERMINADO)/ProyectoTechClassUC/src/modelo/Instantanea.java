@@ -0,0 +1,488 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Instantánea del estado completo del SistemaDeGestion: cola, historial,
+ * puestos de atención, política de atención con el estado de su
+ * planificador, umbrales de envejecimiento y bitácora, junto con la
+ * secuencia del último registro del diario que incluye.
+ *
+ * Se captura copiando solo referencias con el cerrojo tomado; la codificación
+ * y la escritura al disco se hacen después, fuera del cerrojo. Los clientes
+ * se guardan una sola vez aunque aparezcan en varias estructuras, y los nodos
+ * de la cola que la bitácora usa para deshacer conservan su identidad, así
+ * que al restaurar se puede deshacer igual que antes. El historial se guarda
+ * compactado (sin posiciones vacías) y las posiciones de la bitácora se
+ * traducen a la numeración nueva. Una importación de la bitácora guarda
+ * todos sus nodos, con la misma identidad que en la cola.
+ *
+ * Cada archivo instantanea-NNNN.snap lleva número mágico, versión, secuencia,
+ * el contenido y un CRC32 final. Se siguen pudiendo cargar las de la versión
+ * 1, anteriores a las importaciones, y las de la versión 2, anteriores a los
+ * puestos de atención: su cliente en atención queda en el puesto 0, sin
+ * contadores, y sus acciones ATENDER y FINALIZAR se asignan a ese puesto.
+ * Las anteriores a la versión 4 solo guardan el contador de la regla 2:1,
+ * que era la única política, y las anteriores a la versión 5 no tienen
+ * envejecimiento: sus listas por prioridad siguen el orden de llegada.
+ * Desde la versión 5 se guarda el orden de cada lista por prioridad, que
+ * cambia cuando un cliente sube de nivel, y con él la prioridad que tenía
+ * cada cliente en espera al capturar.
+ * Se escribe en un archivo temporal y se
+ * renombra, de modo que nunca queda una instantánea a medias con el nombre
+ * definitivo.
+ *
+ * @author young
+ */
+final class Instantanea {
+
+    private static final int MAGICO = 0x54435553;
+    private static final int VERSION = 5;
+    private static final int VERSION_SIN_ENVEJECIMIENTO = 4;
+    private static final int VERSION_SIN_POLITICAS = 3;
+    private static final int VERSION_SIN_PUESTOS = 2;
+    private static final int VERSION_SIN_LOTES = 1;
+    private static final String PREFIJO = "instantanea-";
+    private static final String EXTENSION = ".snap";
+    private static final Prioridad[] PRIORIDADES = Prioridad.values();
+
+    final long secuencia;
+    final ColaDeEspera.Nodo[] cola;
+    // Los mismos nodos por ordinal de Prioridad, o null si la versión no
+    // los guarda
+    final ColaDeEspera.Nodo[][] colaPorPrioridad;
+    final Cliente[] historial;
+    final PuestoDeAtencion[] puestos;
+    final PoliticaDeAtencion politica;
+    final long[] estadoDelPlanificador;
+    final int[] umbralesDeEnvejecimiento;
+    final long descartadas;
+    final byte[] tipos;
+    final long[] instantes;
+    final Cliente[] clientes;
+    final ColaDeEspera.Nodo[] nodos;
+    final int[] posiciones;
+    final ColaDeEspera.Nodo[][] lotes;
+    final byte[] puestosDeAcciones;
+
+    /**
+     * Constructor de la instantánea. Los puestos y el estado del
+     * planificador son copias que la instantánea no comparte con el sistema.
+     * Los nodos por prioridad fijan la prioridad de cada cliente en espera,
+     * que el envejecimiento puede cambiar mientras se codifica. Las acciones
+     * de la bitácora van de la más antigua a la más reciente.
+     */
+    Instantanea(long secuencia, ColaDeEspera.Nodo[] cola, ColaDeEspera.Nodo[][] colaPorPrioridad,
+            Cliente[] historial, PuestoDeAtencion[] puestos, PoliticaDeAtencion politica,
+            long[] estadoDelPlanificador, int[] umbralesDeEnvejecimiento, long descartadas,
+            byte[] tipos, long[] instantes, Cliente[] clientes, ColaDeEspera.Nodo[] nodos,
+            int[] posiciones, ColaDeEspera.Nodo[][] lotes, byte[] puestosDeAcciones) {
+        this.secuencia = secuencia;
+        this.cola = cola;
+        this.colaPorPrioridad = colaPorPrioridad;
+        this.historial = historial;
+        this.puestos = puestos;
+        this.politica = politica;
+        this.estadoDelPlanificador = estadoDelPlanificador;
+        this.umbralesDeEnvejecimiento = umbralesDeEnvejecimiento;
+        this.descartadas = descartadas;
+        this.tipos = tipos;
+        this.instantes = instantes;
+        this.clientes = clientes;
+        this.nodos = nodos;
+        this.posiciones = posiciones;
+        this.lotes = lotes;
+        this.puestosDeAcciones = puestosDeAcciones;
+    }
+
+    /**
+     * Obtiene la cantidad de clientes en espera y atendidos.
+     *
+     * @return el total de clientes de la instantánea
+     */
+    int getCantidadClientes() {
+        int atendidos = 0;
+        for (Cliente cliente : historial) {
+            if (cliente != null) {
+                atendidos++;
+            }
+        }
+        return cola.length + atendidos;
+    }
+
+    // ==================== ARCHIVOS ====================
+    /**
+     * Codifica la instantánea y la guarda en el directorio con fsync.
+     *
+     * @param directorio el directorio de datos
+     * @throws IOException si falla la escritura
+     */
+    void guardar(Path directorio) throws IOException {
+        CodificadorBinario salida = new CodificadorBinario(1 << 16);
+        salida.escribirInt(MAGICO);
+        salida.escribirInt(VERSION);
+        salida.escribirLong(secuencia);
+        codificar(salida);
+        CRC32 crc = new CRC32();
+        crc.update(salida.datos(), 0, salida.tamanio());
+        salida.escribirInt((int) crc.getValue());
+
+        Path definitivo = ruta(directorio, secuencia);
+        Path temporal = definitivo.resolveSibling(definitivo.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            salida.volcar(canal, 0, salida.tamanio());
+            canal.force(true);
+        }
+        Files.move(temporal, definitivo, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Carga la instantánea válida más reciente del directorio. Si la más
+     * reciente está dañada se usa la anterior.
+     *
+     * @param directorio el directorio de datos
+     * @return la instantánea, o null si no hay ninguna válida
+     * @throws IOException si no se puede leer el directorio
+     */
+    static Instantanea cargarUltima(Path directorio) throws IOException {
+        if (!Files.isDirectory(directorio)) {
+            return null;
+        }
+        List<Long> secuencias = listar(directorio);
+        for (int i = secuencias.size() - 1; i >= 0; i--) {
+            Instantanea instantanea = cargar(ruta(directorio, secuencias.get(i)));
+            if (instantanea != null) {
+                return instantanea;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Borra las instantáneas más antiguas, conservando las más recientes.
+     *
+     * @param directorio el directorio de datos
+     * @param conservar cuántas instantáneas conservar
+     * @return la secuencia de la instantánea más antigua conservada, o 0 si
+     * no hay ninguna
+     * @throws IOException si no se puede listar o borrar
+     */
+    static long borrarAntiguas(Path directorio, int conservar) throws IOException {
+        List<Long> secuencias = listar(directorio);
+        int borrar = Math.max(0, secuencias.size() - conservar);
+        for (int i = 0; i < borrar; i++) {
+            Files.deleteIfExists(ruta(directorio, secuencias.get(i)));
+        }
+        return secuencias.size() > borrar ? secuencias.get(borrar) : 0;
+    }
+
+    private static Instantanea cargar(Path archivo) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(archivo));
+        if (buffer.remaining() < 20) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.limit() - 4);
+        if ((int) crc.getValue() != buffer.getInt(buffer.limit() - 4)
+                || buffer.getInt() != MAGICO) {
+            return null;
+        }
+        int version = buffer.getInt();
+        if (version < VERSION_SIN_LOTES || version > VERSION) {
+            return null;
+        }
+        long secuencia = buffer.getLong();
+        buffer.limit(buffer.limit() - 4);
+        return decodificar(secuencia, buffer, version);
+    }
+
+    private static Path ruta(Path directorio, long secuencia) {
+        return directorio.resolve(String.format("%s%020d%s", PREFIJO, secuencia, EXTENSION));
+    }
+
+    private static List<Long> listar(Path directorio) throws IOException {
+        List<Long> secuencias = new ArrayList<>();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio,
+                PREFIJO + "*" + EXTENSION)) {
+            for (Path archivo : archivos) {
+                String nombre = archivo.getFileName().toString();
+                try {
+                    secuencias.add(Long.valueOf(nombre.substring(PREFIJO.length(),
+                            nombre.length() - EXTENSION.length())));
+                } catch (NumberFormatException e) {
+                    // No es una instantánea
+                }
+            }
+        }
+        Collections.sort(secuencias);
+        return secuencias;
+    }
+
+    // ==================== FORMATO ====================
+    /**
+     * Escribe el contenido: primero la tabla de clientes y después cada
+     * estructura con referencias a esa tabla.
+     */
+    private void codificar(CodificadorBinario salida) {
+        IdentityHashMap<Cliente, Integer> indices = new IdentityHashMap<>();
+        List<Cliente> tabla = new ArrayList<>();
+        for (ColaDeEspera.Nodo nodo : cola) {
+            indexar(nodo.getCliente(), indices, tabla);
+        }
+        for (Cliente cliente : historial) {
+            indexar(cliente, indices, tabla);
+        }
+        for (PuestoDeAtencion puesto : puestos) {
+            indexar(puesto.getClienteEnAtencion(), indices, tabla);
+        }
+        for (Cliente cliente : clientes) {
+            indexar(cliente, indices, tabla);
+        }
+        for (ColaDeEspera.Nodo[] lote : lotes) {
+            if (lote != null) {
+                for (ColaDeEspera.Nodo nodo : lote) {
+                    indexar(nodo.getCliente(), indices, tabla);
+                }
+            }
+        }
+        salida.escribirInt(tabla.size());
+        for (Cliente cliente : tabla) {
+            salida.escribirCliente(cliente);
+        }
+
+        // Cola: los nodos en espera son las primeras referencias de nodo
+        IdentityHashMap<ColaDeEspera.Nodo, Integer> indicesNodo = new IdentityHashMap<>();
+        salida.escribirInt(cola.length);
+        for (ColaDeEspera.Nodo nodo : cola) {
+            indicesNodo.put(nodo, indicesNodo.size());
+            salida.escribirInt(indices.get(nodo.getCliente()));
+        }
+        // Orden de cada lista por prioridad, con índices de nodo
+        for (ColaDeEspera.Nodo[] grupo : colaPorPrioridad) {
+            salida.escribirInt(grupo.length);
+            for (ColaDeEspera.Nodo nodo : grupo) {
+                salida.escribirInt(indicesNodo.get(nodo));
+            }
+        }
+
+        // Historial compactado
+        int[] posicionNueva = new int[historial.length];
+        int vivos = 0;
+        for (int i = 0; i < historial.length; i++) {
+            posicionNueva[i] = historial[i] == null ? -1 : vivos++;
+        }
+        salida.escribirInt(vivos);
+        for (Cliente cliente : historial) {
+            if (cliente != null) {
+                salida.escribirInt(indices.get(cliente));
+            }
+        }
+
+        // Puestos: cliente en atención, su posición y los contadores
+        salida.escribirInt(puestos.length);
+        for (PuestoDeAtencion puesto : puestos) {
+            Cliente enAtencion = puesto.getClienteEnAtencion();
+            salida.escribirInt(enAtencion == null ? -1 : indices.get(enAtencion));
+            salida.escribirInt(traducir(puesto.getPosicionEnAtencion(), posicionNueva));
+            salida.escribirLong(puesto.getAtendidos());
+            salida.escribirLong(puesto.getFinalizados());
+            salida.escribirLong(puesto.getMilisDeServicio());
+        }
+
+        // Política y estado de su planificador
+        politica.escribir(salida);
+        salida.escribirInt(estadoDelPlanificador.length);
+        for (long valor : estadoDelPlanificador) {
+            salida.escribirLong(valor);
+        }
+
+        // Umbrales de envejecimiento, en minutos
+        salida.escribirInt(umbralesDeEnvejecimiento.length);
+        for (int umbral : umbralesDeEnvejecimiento) {
+            salida.escribirInt(umbral);
+        }
+
+        // Bitácora, de la acción más antigua a la más reciente
+        salida.escribirLong(descartadas);
+        salida.escribirInt(tipos.length);
+        for (int i = 0; i < tipos.length; i++) {
+            salida.escribirByte(tipos[i]);
+            salida.escribirByte(puestosDeAcciones[i]);
+            salida.escribirLong(instantes[i]);
+            salida.escribirInt(indices.get(clientes[i]));
+            salida.escribirInt(indiceDeNodo(nodos[i], indicesNodo));
+            salida.escribirInt(traducir(posiciones[i], posicionNueva));
+            // Nodos de una importación: índice de nodo y de cliente, porque
+            // los que ya salieron de la cola se vuelven a crear al cargar
+            ColaDeEspera.Nodo[] lote = lotes[i];
+            salida.escribirInt(lote == null ? -1 : lote.length);
+            if (lote != null) {
+                for (ColaDeEspera.Nodo nodo : lote) {
+                    salida.escribirInt(indiceDeNodo(nodo, indicesNodo));
+                    salida.escribirInt(indices.get(nodo.getCliente()));
+                }
+            }
+        }
+    }
+
+    private static int indiceDeNodo(ColaDeEspera.Nodo nodo,
+            IdentityHashMap<ColaDeEspera.Nodo, Integer> indicesNodo) {
+        if (nodo == null) {
+            return -1;
+        }
+        Integer indice = indicesNodo.get(nodo);
+        if (indice == null) {
+            indice = indicesNodo.size();
+            indicesNodo.put(nodo, indice);
+        }
+        return indice;
+    }
+
+    private static Instantanea decodificar(long secuencia, ByteBuffer entrada, int version) {
+        boolean conLotes = version >= VERSION_SIN_PUESTOS;
+        boolean conPuestos = version >= VERSION_SIN_POLITICAS;
+        boolean conPoliticas = version >= VERSION_SIN_ENVEJECIMIENTO;
+        boolean conEnvejecimiento = version >= VERSION;
+        Cliente[] tabla = new Cliente[entrada.getInt()];
+        for (int i = 0; i < tabla.length; i++) {
+            tabla[i] = CodificadorBinario.leerCliente(entrada);
+        }
+
+        ColaDeEspera.Nodo[] cola = new ColaDeEspera.Nodo[entrada.getInt()];
+        for (int i = 0; i < cola.length; i++) {
+            cola[i] = ColaDeEspera.crearNodo(tabla[entrada.getInt()]);
+        }
+        ColaDeEspera.Nodo[][] colaPorPrioridad = null;
+        if (conEnvejecimiento) {
+            colaPorPrioridad = new ColaDeEspera.Nodo[PRIORIDADES.length][];
+            for (int p = 0; p < PRIORIDADES.length; p++) {
+                colaPorPrioridad[p] = new ColaDeEspera.Nodo[entrada.getInt()];
+                for (int i = 0; i < colaPorPrioridad[p].length; i++) {
+                    ColaDeEspera.Nodo nodo = cola[entrada.getInt()];
+                    // La prioridad al capturar, aunque el cliente haya
+                    // subido antes de codificarse
+                    nodo.getCliente().setPrioridad(PRIORIDADES[p]);
+                    colaPorPrioridad[p][i] = nodo;
+                }
+            }
+        }
+
+        Cliente[] historial = new Cliente[entrada.getInt()];
+        for (int i = 0; i < historial.length; i++) {
+            historial[i] = tabla[entrada.getInt()];
+        }
+
+        PuestoDeAtencion[] puestos = new PuestoDeAtencion[conPuestos ? entrada.getInt() : 1];
+        for (int i = 0; i < puestos.length; i++) {
+            int indiceEnAtencion = entrada.getInt();
+            Cliente enAtencion = indiceEnAtencion < 0 ? null : tabla[indiceEnAtencion];
+            int posicionEnAtencion = entrada.getInt();
+            if (conPuestos) {
+                puestos[i] = new PuestoDeAtencion(i, enAtencion, posicionEnAtencion,
+                        entrada.getLong(), entrada.getLong(), entrada.getLong());
+            } else {
+                puestos[i] = new PuestoDeAtencion(i, enAtencion, posicionEnAtencion, 0, 0, 0);
+            }
+        }
+        PoliticaDeAtencion politica;
+        long[] estadoDelPlanificador;
+        if (conPoliticas) {
+            politica = PoliticaDeAtencion.leer(entrada);
+            estadoDelPlanificador = new long[entrada.getInt()];
+            for (int i = 0; i < estadoDelPlanificador.length; i++) {
+                estadoDelPlanificador[i] = entrada.getLong();
+            }
+        } else {
+            politica = PoliticaDeAtencion.reglaDosAUno();
+            estadoDelPlanificador = new long[]{entrada.getInt()};
+        }
+        int[] umbralesDeEnvejecimiento = new int[conEnvejecimiento ? entrada.getInt() : 0];
+        for (int i = 0; i < umbralesDeEnvejecimiento.length; i++) {
+            umbralesDeEnvejecimiento[i] = entrada.getInt();
+        }
+
+        long descartadas = entrada.getLong();
+        int acciones = entrada.getInt();
+        byte[] tipos = new byte[acciones];
+        long[] instantes = new long[acciones];
+        Cliente[] clientes = new Cliente[acciones];
+        ColaDeEspera.Nodo[] nodos = new ColaDeEspera.Nodo[acciones];
+        int[] posiciones = new int[acciones];
+        ColaDeEspera.Nodo[][] lotes = new ColaDeEspera.Nodo[acciones][];
+        byte[] puestosDeAcciones = new byte[acciones];
+        HashMap<Integer, ColaDeEspera.Nodo> fueraDeCola = new HashMap<>();
+        for (int i = 0; i < acciones; i++) {
+            tipos[i] = entrada.get();
+            puestosDeAcciones[i] = conPuestos ? entrada.get() : puestoAnterior(tipos[i]);
+            instantes[i] = entrada.getLong();
+            clientes[i] = tabla[entrada.getInt()];
+            nodos[i] = nodoDe(entrada.getInt(), clientes[i], cola, fueraDeCola);
+            posiciones[i] = entrada.getInt();
+            int enLote = conLotes ? entrada.getInt() : -1;
+            if (enLote >= 0) {
+                lotes[i] = new ColaDeEspera.Nodo[enLote];
+                for (int j = 0; j < enLote; j++) {
+                    int indiceNodo = entrada.getInt();
+                    lotes[i][j] = nodoDe(indiceNodo, tabla[entrada.getInt()], cola, fueraDeCola);
+                }
+            }
+        }
+        return new Instantanea(secuencia, cola, colaPorPrioridad, historial, puestos, politica,
+                estadoDelPlanificador, umbralesDeEnvejecimiento, descartadas, tipos, instantes, clientes,
+                nodos, posiciones, lotes, puestosDeAcciones);
+    }
+
+    /**
+     * Asigna un puesto a una acción de una instantánea anterior a los
+     * puestos, cuando había un único puesto de atención.
+     */
+    private static byte puestoAnterior(byte tipo) {
+        TipoAccion tipoAccion = TipoAccion.desdeOrdinal(tipo);
+        return tipoAccion == TipoAccion.ATENDER || tipoAccion == TipoAccion.FINALIZAR
+                ? 0 : (byte) RegistroDeAcciones.SIN_PUESTO;
+    }
+
+    /**
+     * Resuelve un índice de nodo de la bitácora: los primeros son los nodos
+     * en espera y los siguientes, nodos fuera de la cola que se crean una
+     * sola vez aunque varias acciones los compartan.
+     */
+    private static ColaDeEspera.Nodo nodoDe(int indiceNodo, Cliente cliente,
+            ColaDeEspera.Nodo[] cola, HashMap<Integer, ColaDeEspera.Nodo> fueraDeCola) {
+        if (indiceNodo >= cola.length) {
+            return fueraDeCola.computeIfAbsent(indiceNodo, k -> ColaDeEspera.crearNodo(cliente));
+        }
+        return indiceNodo >= 0 ? cola[indiceNodo] : null;
+    }
+
+    private static void indexar(Cliente cliente, IdentityHashMap<Cliente, Integer> indices,
+            List<Cliente> tabla) {
+        if (cliente != null && !indices.containsKey(cliente)) {
+            indices.put(cliente, tabla.size());
+            tabla.add(cliente);
+        }
+    }
+
+    private static int traducir(int posicion, int[] posicionNueva) {
+        return posicion >= 0 && posicion < posicionNueva.length ? posicionNueva[posicion] : -1;
+    }
+}
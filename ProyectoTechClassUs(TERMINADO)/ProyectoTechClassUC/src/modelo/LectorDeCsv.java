@@ -0,0 +1,297 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lector de archivos CSV de a una línea, con un buffer fijo. Lee el archivo
+ * por un FileChannel en bloques de TAMANIO_BUFFER bytes y separa los campos
+ * recorriendo los bytes de la línea, sin expresiones regulares ni copias
+ * intermedias: cada campo se decodifica como UTF-8 directamente desde el
+ * buffer. La memoria usada no depende del tamaño del archivo.
+ *
+ * Acepta campos entre comillas dobles (con "" para una comilla dentro del
+ * campo), fines de línea \n o \r\n y una marca BOM al inicio. El separador
+ * es la coma o el punto y coma, según cuál aparezca primero fuera de
+ * comillas en la primera línea. Un campo entre comillas no puede contener
+ * saltos de línea, y una línea más larga que el buffer se descarta con un
+ * error.
+ *
+ * @author young
+ */
+final class LectorDeCsv implements Closeable {
+
+    /**
+     * Tamaño del buffer de lectura; también es el largo máximo de una línea.
+     */
+    static final int TAMANIO_BUFFER = 1 << 16;
+
+    private static final byte COMILLA = '"';
+
+    private final FileChannel canal;
+    private final ByteBuffer buffer;
+    private final byte[] bytes;
+    // Campo entre comillas sin las comillas dobladas
+    private final byte[] campoSinEscapes;
+    private final String[] campos;
+    private int cantidadCampos;
+    private long numeroDeLinea;
+    private byte separador;
+    private boolean finDeArchivo;
+    private String error;
+
+    /**
+     * Abre el archivo para leerlo.
+     *
+     * @param archivo el archivo CSV
+     * @param maximoCampos la cantidad de campos que se guardan por línea; los
+     * demás solo se cuentan
+     * @throws IOException si no se puede abrir
+     */
+    LectorDeCsv(Path archivo, int maximoCampos) throws IOException {
+        this.canal = FileChannel.open(archivo, StandardOpenOption.READ);
+        this.buffer = ByteBuffer.allocate(TAMANIO_BUFFER);
+        this.bytes = buffer.array();
+        this.campoSinEscapes = new byte[TAMANIO_BUFFER];
+        this.campos = new String[maximoCampos];
+        this.cantidadCampos = 0;
+        this.numeroDeLinea = 0;
+        this.separador = 0;
+        this.finDeArchivo = false;
+        this.error = null;
+        buffer.limit(0);
+    }
+
+    /**
+     * Avanza a la siguiente línea que no esté vacía y separa sus campos. Si
+     * la línea está mal formada, getError() describe el problema y los
+     * campos no se deben usar.
+     *
+     * @return false si se llegó al final del archivo
+     * @throws IOException si falla la lectura
+     */
+    boolean leer() throws IOException {
+        while (true) {
+            int fin = buscarFinDeLinea();
+            if (fin < 0) {
+                return false;
+            }
+            numeroDeLinea++;
+            int inicio = buffer.position();
+            buffer.position(Math.min(fin + 1, buffer.limit()));
+            if (error != null) {
+                return true;
+            }
+            if (numeroDeLinea == 1 && fin - inicio >= 3 && (bytes[inicio] & 0xFF) == 0xEF
+                    && (bytes[inicio + 1] & 0xFF) == 0xBB && (bytes[inicio + 2] & 0xFF) == 0xBF) {
+                inicio += 3;
+            }
+            if (fin > inicio && bytes[fin - 1] == '\r') {
+                fin--;
+            }
+            if (fin == inicio) {
+                continue;
+            }
+            if (separador == 0) {
+                separador = detectarSeparador(inicio, fin);
+            }
+            separar(inicio, fin);
+            return true;
+        }
+    }
+
+    /**
+     * Obtiene el número de la línea leída, desde 1.
+     *
+     * @return el número de línea
+     */
+    long getNumeroDeLinea() {
+        return numeroDeLinea;
+    }
+
+    /**
+     * Obtiene el problema de la línea leída.
+     *
+     * @return la descripción del problema, o null si la línea es válida
+     */
+    String getError() {
+        return error;
+    }
+
+    /**
+     * Obtiene cuántos campos tiene la línea leída, incluidos los que no se
+     * guardaron por pasar del máximo.
+     *
+     * @return la cantidad de campos
+     */
+    int getCantidadCampos() {
+        return cantidadCampos;
+    }
+
+    /**
+     * Obtiene un campo de la línea leída, sin espacios al inicio ni al final.
+     *
+     * @param indice el campo, desde 0
+     * @return el texto del campo, o "" si la línea no lo tiene
+     */
+    String getCampo(int indice) {
+        return indice < Math.min(cantidadCampos, campos.length) ? campos[indice] : "";
+    }
+
+    /**
+     * Cierra el archivo.
+     *
+     * @throws IOException si falla el cierre
+     */
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    /**
+     * Busca el fin de la línea que empieza en la posición del buffer,
+     * leyendo más del archivo si hace falta. Si la línea no cabe en el
+     * buffer la descarta hasta su fin y deja el error anotado.
+     *
+     * @return el índice del \n (o el límite del buffer si el archivo termina
+     * sin él), o -1 si no quedan líneas
+     */
+    private int buscarFinDeLinea() throws IOException {
+        error = null;
+        int revisado = buffer.position();
+        while (true) {
+            for (int i = revisado; i < buffer.limit(); i++) {
+                if (bytes[i] == '\n') {
+                    return i;
+                }
+            }
+            if (finDeArchivo) {
+                return buffer.hasRemaining() ? buffer.limit() : -1;
+            }
+            if (buffer.position() == 0 && buffer.limit() == buffer.capacity()) {
+                // La línea ocupa todo el buffer: se salta el resto
+                error = "la línea supera los " + TAMANIO_BUFFER + " bytes";
+                buffer.clear();
+                buffer.limit(0);
+                int fin = saltarHastaFinDeLinea();
+                if (fin < 0) {
+                    return buffer.limit();
+                }
+                return fin;
+            }
+            revisado = buffer.limit() - buffer.position();
+            buffer.compact();
+            finDeArchivo = canal.read(buffer) < 0;
+            buffer.flip();
+        }
+    }
+
+    /**
+     * Descarta bytes del archivo hasta el siguiente \n.
+     *
+     * @return el índice del \n en el buffer, o -1 si el archivo terminó
+     */
+    private int saltarHastaFinDeLinea() throws IOException {
+        while (!finDeArchivo) {
+            buffer.clear();
+            finDeArchivo = canal.read(buffer) < 0;
+            buffer.flip();
+            for (int i = 0; i < buffer.limit(); i++) {
+                if (bytes[i] == '\n') {
+                    return i;
+                }
+            }
+        }
+        buffer.limit(0);
+        return -1;
+    }
+
+    private byte detectarSeparador(int inicio, int fin) {
+        boolean entreComillas = false;
+        for (int i = inicio; i < fin; i++) {
+            byte b = bytes[i];
+            if (b == COMILLA) {
+                entreComillas = !entreComillas;
+            } else if (!entreComillas && (b == ',' || b == ';')) {
+                return b;
+            }
+        }
+        return ',';
+    }
+
+    /**
+     * Separa los campos de bytes[inicio, fin).
+     */
+    private void separar(int inicio, int fin) {
+        cantidadCampos = 0;
+        int i = inicio;
+        while (true) {
+            while (i < fin && (bytes[i] == ' ' || bytes[i] == '\t')) {
+                i++;
+            }
+            int siguiente;
+            String campo;
+            if (i < fin && bytes[i] == COMILLA) {
+                int largo = 0;
+                int j = i + 1;
+                while (true) {
+                    if (j >= fin) {
+                        error = "falta cerrar las comillas";
+                        return;
+                    }
+                    if (bytes[j] == COMILLA) {
+                        if (j + 1 < fin && bytes[j + 1] == COMILLA) {
+                            campoSinEscapes[largo++] = COMILLA;
+                            j += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    campoSinEscapes[largo++] = bytes[j++];
+                }
+                campo = recortar(campoSinEscapes, 0, largo);
+                siguiente = j + 1;
+                while (siguiente < fin && bytes[siguiente] != separador) {
+                    if (bytes[siguiente] != ' ' && bytes[siguiente] != '\t') {
+                        error = "hay texto después de las comillas";
+                        return;
+                    }
+                    siguiente++;
+                }
+            } else {
+                siguiente = i;
+                while (siguiente < fin && bytes[siguiente] != separador) {
+                    siguiente++;
+                }
+                campo = recortar(bytes, i, siguiente);
+            }
+            if (cantidadCampos < campos.length) {
+                campos[cantidadCampos] = campo;
+            }
+            cantidadCampos++;
+            if (siguiente >= fin) {
+                return;
+            }
+            i = siguiente + 1;
+        }
+    }
+
+    private static String recortar(byte[] origen, int desde, int hasta) {
+        while (desde < hasta && (origen[desde] == ' ' || origen[desde] == '\t')) {
+            desde++;
+        }
+        while (hasta > desde && (origen[hasta - 1] == ' ' || origen[hasta - 1] == '\t')) {
+            hasta--;
+        }
+        return desde == hasta ? "" : new String(origen, desde, hasta - desde, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.util.Arrays;
+
+/**
+ * Lista creciente de enteros primitivos. Evita el costo de un Integer por
+ * elemento en los índices del historial.
+ *
+ * @author young
+ */
+final class ListaDeEnteros {
+
+    private int[] valores;
+    private int tamanio;
+
+    /**
+     * Constructor de la lista. Reserva espacio para unos pocos elementos.
+     */
+    ListaDeEnteros() {
+        this.valores = new int[8];
+        this.tamanio = 0;
+    }
+
+    /**
+     * Agrega un valor al final de la lista.
+     *
+     * @param valor el valor a agregar
+     */
+    void agregar(int valor) {
+        if (tamanio == valores.length) {
+            valores = Arrays.copyOf(valores, tamanio * 2);
+        }
+        valores[tamanio++] = valor;
+    }
+
+    /**
+     * Obtiene el valor en una posición.
+     *
+     * @param indice la posición, entre 0 y tamanio() - 1
+     * @return el valor guardado
+     */
+    int obtener(int indice) {
+        return valores[indice];
+    }
+
+    /**
+     * Obtiene el último valor de la lista.
+     *
+     * @return el último valor, o -1 si la lista está vacía
+     */
+    int ultimo() {
+        return tamanio == 0 ? -1 : valores[tamanio - 1];
+    }
+
+    /**
+     * Quita el último valor de la lista.
+     */
+    void quitarUltimo() {
+        tamanio--;
+    }
+
+    /**
+     * Reemplaza un valor en una posición.
+     *
+     * @param indice la posición a modificar
+     * @param valor el nuevo valor
+     */
+    void establecer(int indice, int valor) {
+        valores[indice] = valor;
+    }
+
+    /**
+     * Recorta la lista a un nuevo tamaño menor.
+     *
+     * @param nuevoTamanio la cantidad de elementos a conservar
+     */
+    void recortar(int nuevoTamanio) {
+        tamanio = nuevoTamanio;
+    }
+
+    /**
+     * Obtiene la cantidad de valores en la lista.
+     *
+     * @return el tamaño de la lista
+     */
+    int tamanio() {
+        return tamanio;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+/**
+ * Recibe los cambios de la bitácora de acciones de un SistemaDeGestion. Las
+ * acciones se indexan desde la cima, así que una acción registrada siempre
+ * queda en la posición 0 y deshacer la última acción quita la posición 0;
+ * deshacer la última acción de un puesto de atención puede quitar una
+ * posición más abajo. Con eso una vista puede mostrar la bitácora leyendo
+ * con getAccion() sin rehacerla.
+ *
+ * Los avisos llegan en el hilo que hizo la operación, después de soltar el
+ * cerrojo, así que el oyente puede volver a consultar el sistema.
+ *
+ * @author young
+ */
+public interface OyenteDeBitacora {
+
+    /**
+     * Avisa que se registró una acción, que ahora está en la posición 0.
+     *
+     * @param registro la acción registrada
+     * @param descartoLaMasAntigua true si la bitácora estaba llena y se
+     * descartó la acción más antigua (la última posición)
+     */
+    void accionRegistrada(RegistroDeAcciones registro, boolean descartoLaMasAntigua);
+
+    /**
+     * Avisa que se deshizo una acción; las más recientes que ella bajaron
+     * una posición.
+     *
+     * @param indice la posición que tenía la acción (0 para la más reciente)
+     * @param registro la acción deshecha
+     */
+    void accionDeshecha(int indice, RegistroDeAcciones registro);
+}
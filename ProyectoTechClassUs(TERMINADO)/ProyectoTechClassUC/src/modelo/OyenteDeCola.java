@@ -0,0 +1,43 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+/**
+ * Recibe los cambios de la cola de espera de un SistemaDeGestion, con la
+ * posición exacta del cliente en orden de llegada. Sirve para que una vista
+ * (por ejemplo un TableModel) lea directamente de la cola y solo actualice la
+ * fila que cambió.
+ *
+ * Los avisos llegan en el hilo que hizo la operación, después de soltar el
+ * cerrojo de la cola, así que el oyente puede volver a consultar el sistema.
+ *
+ * @author young
+ */
+public interface OyenteDeCola {
+
+    /**
+     * Avisa que un cliente entró a la cola.
+     *
+     * @param posicion la posición que ocupa ahora, desde 0
+     * @param cliente el cliente agregado
+     */
+    void clienteAgregado(int posicion, Cliente cliente);
+
+    /**
+     * Avisa que un cliente salió de la cola.
+     *
+     * @param posicion la posición que ocupaba, desde 0
+     * @param cliente el cliente quitado
+     */
+    void clienteQuitado(int posicion, Cliente cliente);
+
+    /**
+     * Avisa que entraron o salieron muchos clientes de una vez (una
+     * importación o su deshacer), en lugar de avisar cada uno. Las
+     * posiciones anteriores ya no valen. Por defecto no hace nada.
+     */
+    default void colaCambiada() {
+    }
+}
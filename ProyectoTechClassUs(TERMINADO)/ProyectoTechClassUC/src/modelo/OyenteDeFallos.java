@@ -0,0 +1,30 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+/**
+ * Recibe los errores de lo que un SistemaDeGestion guarda por su cuenta, sin
+ * que una operación lo pida: las instantáneas de fondo y el archivo de
+ * clientes atendidos antiguos. Esos errores no hacen fallar ninguna
+ * operación ni se pierden datos, pero hasta que se resuelvan el diario crece
+ * o los atendidos se quedan en el heap, así que alguien tiene que enterarse.
+ *
+ * El aviso llega en el hilo que encontró el error, que puede ser un hilo de
+ * fondo o una operación que todavía tiene los cerrojos del sistema tomados:
+ * el oyente no debe consultar el sistema en ese hilo. Una ventana debe
+ * pasarlo al EDT antes de mostrarlo.
+ *
+ * @author young
+ */
+public interface OyenteDeFallos {
+
+    /**
+     * Avisa que no se pudo guardar algo.
+     *
+     * @param descripcion qué no se pudo guardar
+     * @param error el error encontrado
+     */
+    void falloAlGuardar(String descripcion, Exception error);
+}
@@ -0,0 +1,75 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+/**
+ * Estrategia con que el SistemaDeGestion elige al siguiente cliente de la
+ * ColaDeEspera. Cada implementación aplica una PoliticaDeAtencion y guarda
+ * el estado que necesita entre una decisión y otra (contadores, créditos),
+ * nunca una copia de la cola: elige mirando solo el primer nodo de las
+ * listas por prioridad o por tipo, así que cada decisión cuesta lo mismo con
+ * diez clientes que con un millón. Cambiar de planificador no toca la cola.
+ *
+ * Las decisiones tienen que ser deterministas a partir del estado, porque al
+ * reaplicar el diario se vuelven a tomar y deben elegir a los mismos
+ * clientes. Por lo mismo, el estado completo se puede leer y restaurar como
+ * un arreglo de long para guardarlo en una Instantanea.
+ *
+ * No es seguro para varios hilos; el SistemaDeGestion lo usa con cerrojoCola
+ * tomado.
+ *
+ * Hay cuatro implementaciones: PlanificadorDosAUno (la regla 2:1, por
+ * defecto), PlanificadorPonderado, PlanificadorEstricto y
+ * PlanificadorPorDeficit.
+ *
+ * @author young
+ */
+interface Planificador {
+
+    /**
+     * Elige al siguiente cliente, lo quita de la cola y actualiza el estado.
+     *
+     * @param cola la cola de espera
+     * @return el nodo quitado, o null si la cola está vacía
+     */
+    ColaDeEspera.Nodo extraer(ColaDeEspera cola);
+
+    /**
+     * Revierte el efecto de haber atendido a un cliente que vuelve al inicio
+     * de la cola al deshacer su atención.
+     *
+     * @param cliente el cliente devuelto a la cola
+     */
+    void revertir(Cliente cliente);
+
+    /**
+     * Vuelve el estado al inicial, como si no se hubiera atendido a nadie.
+     */
+    void reiniciar();
+
+    /**
+     * Obtiene la política que aplica el planificador.
+     *
+     * @return la política
+     */
+    PoliticaDeAtencion getPolitica();
+
+    /**
+     * Copia el estado del planificador.
+     *
+     * @return los valores del estado, en el orden que espera setEstado()
+     */
+    long[] getEstado();
+
+    /**
+     * Restaura un estado copiado con getEstado() de un planificador con la
+     * misma política.
+     *
+     * @param estado los valores del estado
+     * @throws IllegalArgumentException si el estado no corresponde a la
+     * política
+     */
+    void setEstado(long[] estado);
+}
@@ -0,0 +1,131 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+/**
+ * Planificador de la regla 2:1: atiende por orden de llegada, pero después
+ * de dos clientes seguidos que no son URGENTE pasa el primer URGENTE en
+ * espera, y el contador vuelve a 0. Si no hay ninguno sigue el orden de
+ * llegada: PREFERENTE no se adelanta a NORMAL ni a BAJA, así que ningún
+ * nivel se queda sin atender aunque siempre haya clientes PREFERENTE. Con
+ * clientes NORMAL y URGENTE nada más, elige exactamente lo mismo que la
+ * regla original, así que los diarios anteriores se reaplican igual.
+ *
+ * Cada decisión mira la cabeza de la cola y la de los URGENTE: O(1).
+ *
+ * @author young
+ */
+final class PlanificadorDosAUno implements Planificador {
+
+    // Clientes que no son URGENTE que se atienden antes de forzar el más
+    // urgente en espera
+    private static final int SEGUIDOS = 2;
+
+    private final PoliticaDeAtencion politica;
+    private int contadorNormalesAtendidos;
+
+    /**
+     * Crea el planificador con el contador en 0.
+     *
+     * @param politica la política que aplica
+     */
+    PlanificadorDosAUno(PoliticaDeAtencion politica) {
+        this.politica = politica;
+        this.contadorNormalesAtendidos = 0;
+    }
+
+    /**
+     * Quita la cabeza de la cola, o el primer URGENTE en espera si ya pasaron
+     * dos clientes que no son URGENTE.
+     *
+     * @param cola la cola de espera
+     * @return el nodo quitado, o null si la cola está vacía
+     */
+    @Override
+    public ColaDeEspera.Nodo extraer(ColaDeEspera cola) {
+        ColaDeEspera.Nodo nodo = null;
+        boolean forzado = false;
+        if (contadorNormalesAtendidos >= SEGUIDOS) {
+            nodo = cola.primero(Prioridad.URGENTE);
+            forzado = nodo != null;
+        }
+        if (nodo == null) {
+            nodo = cola.primero();
+        }
+        if (nodo == null) {
+            return null;
+        }
+        cola.quitar(nodo);
+        if (nodo.getCliente().getPrioridad() != Prioridad.URGENTE) {
+            contadorNormalesAtendidos++;
+        } else if (forzado) {
+            contadorNormalesAtendidos = 0;
+        }
+        return nodo;
+    }
+
+    /**
+     * Descuenta al cliente del contador si no era URGENTE.
+     *
+     * @param cliente el cliente devuelto a la cola
+     */
+    @Override
+    public void revertir(Cliente cliente) {
+        if (cliente.getPrioridad() != Prioridad.URGENTE) {
+            contadorNormalesAtendidos = Math.max(0, contadorNormalesAtendidos - 1);
+        }
+    }
+
+    /**
+     * Pone el contador en 0.
+     */
+    @Override
+    public void reiniciar() {
+        contadorNormalesAtendidos = 0;
+    }
+
+    /**
+     * Obtiene la política que aplica el planificador.
+     *
+     * @return la regla 2:1
+     */
+    @Override
+    public PoliticaDeAtencion getPolitica() {
+        return politica;
+    }
+
+    /**
+     * Copia el estado: solo el contador.
+     *
+     * @return el contador en un arreglo de un elemento
+     */
+    @Override
+    public long[] getEstado() {
+        return new long[]{contadorNormalesAtendidos};
+    }
+
+    /**
+     * Restaura el contador.
+     *
+     * @param estado el contador en un arreglo de un elemento
+     */
+    @Override
+    public void setEstado(long[] estado) {
+        if (estado.length != 1) {
+            throw new IllegalArgumentException("Estado inválido para la regla 2:1");
+        }
+        contadorNormalesAtendidos = (int) estado[0];
+    }
+
+    /**
+     * Obtiene cuántos clientes que no son URGENTE se atendieron desde el
+     * último URGENTE forzado.
+     *
+     * @return el contador
+     */
+    int getContadorNormalesAtendidos() {
+        return contadorNormalesAtendidos;
+    }
+}
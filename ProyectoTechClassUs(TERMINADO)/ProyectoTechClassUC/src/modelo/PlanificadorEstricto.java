@@ -0,0 +1,89 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+/**
+ * Planificador de prioridad estricta: siempre atiende al primero del nivel
+ * más urgente que tenga clientes en espera. No guarda estado, y cada
+ * decisión mira solo la cabeza de cada nivel: O(1).
+ *
+ * @author young
+ */
+final class PlanificadorEstricto implements Planificador {
+
+    private final PoliticaDeAtencion politica;
+
+    /**
+     * Crea el planificador.
+     *
+     * @param politica la política que aplica
+     */
+    PlanificadorEstricto(PoliticaDeAtencion politica) {
+        this.politica = politica;
+    }
+
+    /**
+     * Quita al primero del nivel más urgente con clientes en espera.
+     *
+     * @param cola la cola de espera
+     * @return el nodo quitado, o null si la cola está vacía
+     */
+    @Override
+    public ColaDeEspera.Nodo extraer(ColaDeEspera cola) {
+        ColaDeEspera.Nodo nodo = cola.primeroMasUrgente();
+        if (nodo != null) {
+            cola.quitar(nodo);
+        }
+        return nodo;
+    }
+
+    /**
+     * No hace nada: la decisión no depende de las anteriores.
+     *
+     * @param cliente el cliente devuelto a la cola
+     */
+    @Override
+    public void revertir(Cliente cliente) {
+    }
+
+    /**
+     * No hace nada: no hay estado.
+     */
+    @Override
+    public void reiniciar() {
+    }
+
+    /**
+     * Obtiene la política que aplica el planificador.
+     *
+     * @return la prioridad estricta
+     */
+    @Override
+    public PoliticaDeAtencion getPolitica() {
+        return politica;
+    }
+
+    /**
+     * Copia el estado, que está vacío.
+     *
+     * @return un arreglo vacío
+     */
+    @Override
+    public long[] getEstado() {
+        return new long[0];
+    }
+
+    /**
+     * Restaura el estado, que está vacío.
+     *
+     * @param estado un arreglo vacío
+     */
+    @Override
+    public void setEstado(long[] estado) {
+        if (estado.length != 0) {
+            throw new IllegalArgumentException("Estado inválido para la prioridad estricta");
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+/**
+ * Planificador de turno ponderado (weighted round robin) entre los niveles
+ * de prioridad. Recorre los niveles del más urgente al menos urgente; el
+ * nivel de turno atiende hasta su peso en clientes, por orden de llegada, y
+ * después pasa el turno al siguiente. Un nivel sin clientes cede el turno y
+ * pierde lo que le quedaba, así que ningún puesto espera mientras haya
+ * alguien en la cola.
+ *
+ * El estado es el nivel de turno y cuántos clientes le quedan. Cada decisión
+ * avanza como mucho una vuelta por los niveles: O(1).
+ *
+ * @author young
+ */
+final class PlanificadorPonderado implements Planificador {
+
+    private static final int NIVELES = Prioridad.values().length;
+
+    private final PoliticaDeAtencion politica;
+    // Peso de cada turno; el turno 0 es el nivel más urgente
+    private final int[] pesos;
+    private int turno;
+    private int restantes;
+
+    /**
+     * Crea el planificador con el turno en el nivel más urgente.
+     *
+     * @param politica la política que aplica
+     * @param pesos el peso de cada nivel, del más urgente al menos urgente
+     */
+    PlanificadorPonderado(PoliticaDeAtencion politica, int[] pesos) {
+        this.politica = politica;
+        this.pesos = pesos;
+        reiniciar();
+    }
+
+    /**
+     * Quita al primero del nivel de turno, pasando el turno a los niveles
+     * siguientes mientras el actual esté vacío o haya agotado su peso.
+     *
+     * @param cola la cola de espera
+     * @return el nodo quitado, o null si la cola está vacía
+     */
+    @Override
+    public ColaDeEspera.Nodo extraer(ColaDeEspera cola) {
+        if (cola.isEmpty()) {
+            return null;
+        }
+        while (true) {
+            ColaDeEspera.Nodo nodo = restantes > 0 ? cola.primero(prioridadDe(turno)) : null;
+            if (nodo != null) {
+                restantes--;
+                cola.quitar(nodo);
+                return nodo;
+            }
+            turno = (turno + 1) % NIVELES;
+            restantes = pesos[turno];
+        }
+    }
+
+    /**
+     * Devuelve el lugar al nivel de turno si el cliente era de ese nivel.
+     *
+     * @param cliente el cliente devuelto a la cola
+     */
+    @Override
+    public void revertir(Cliente cliente) {
+        if (prioridadDe(turno) == cliente.getPrioridad() && restantes < pesos[turno]) {
+            restantes++;
+        }
+    }
+
+    /**
+     * Pone el turno en el nivel más urgente, con todo su peso.
+     */
+    @Override
+    public void reiniciar() {
+        turno = 0;
+        restantes = pesos[0];
+    }
+
+    /**
+     * Obtiene la política que aplica el planificador.
+     *
+     * @return el turno ponderado con sus pesos
+     */
+    @Override
+    public PoliticaDeAtencion getPolitica() {
+        return politica;
+    }
+
+    /**
+     * Copia el estado: el turno y los clientes que le quedan.
+     *
+     * @return el turno y los restantes
+     */
+    @Override
+    public long[] getEstado() {
+        return new long[]{turno, restantes};
+    }
+
+    /**
+     * Restaura el turno y los clientes que le quedan.
+     *
+     * @param estado el turno y los restantes
+     */
+    @Override
+    public void setEstado(long[] estado) {
+        if (estado.length != 2 || estado[0] < 0 || estado[0] >= NIVELES) {
+            throw new IllegalArgumentException("Estado inválido para el turno ponderado");
+        }
+        turno = (int) estado[0];
+        restantes = (int) Math.min(estado[1], pesos[turno]);
+    }
+
+    private static Prioridad prioridadDe(int turno) {
+        return Prioridad.desdeNivel(NIVELES - 1 - turno);
+    }
+}
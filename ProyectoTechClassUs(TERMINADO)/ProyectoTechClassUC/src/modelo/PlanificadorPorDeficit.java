@@ -0,0 +1,147 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+/**
+ * Planificador deficit round robin entre los tipos de solicitud. Los tipos
+ * se turnan; al tomar el turno, un tipo suma a su crédito el mismo cuanto
+ * que los demás y atiende por orden de llegada mientras el crédito alcance
+ * para el costo estimado de su siguiente cliente. Lo que sobra queda para la
+ * próxima vuelta, salvo que el tipo se quede sin clientes, en cuyo caso el
+ * crédito vuelve a 0 para que no acumule mientras no espera nadie.
+ *
+ * El cuanto es el mayor de los costos, así que cualquier tipo con clientes
+ * atiende al menos uno cuando le toca, y cada decisión da como mucho una
+ * vuelta por los tipos: O(1).
+ *
+ * @author young
+ */
+final class PlanificadorPorDeficit implements Planificador {
+
+    private static final int GRUPOS = ColaDeEspera.GRUPOS_DE_TIPO;
+
+    private final PoliticaDeAtencion politica;
+    private final int[] costos;
+    private final int cuanto;
+    private final long[] creditos;
+    private int turno;
+    // Si el tipo de turno ya sumó el cuanto de esta vuelta
+    private boolean recargado;
+
+    /**
+     * Crea el planificador con el turno en el primer tipo y sin crédito.
+     *
+     * @param politica la política que aplica
+     * @param costos el costo de un cliente de cada grupo de tipo
+     */
+    PlanificadorPorDeficit(PoliticaDeAtencion politica, int[] costos) {
+        this.politica = politica;
+        this.costos = costos;
+        int mayor = 0;
+        for (int costo : costos) {
+            mayor = Math.max(mayor, costo);
+        }
+        this.cuanto = mayor;
+        this.creditos = new long[GRUPOS];
+        reiniciar();
+    }
+
+    /**
+     * Quita al primero del tipo de turno si su crédito alcanza, o pasa el
+     * turno al siguiente tipo con clientes.
+     *
+     * @param cola la cola de espera
+     * @return el nodo quitado, o null si la cola está vacía
+     */
+    @Override
+    public ColaDeEspera.Nodo extraer(ColaDeEspera cola) {
+        if (cola.isEmpty()) {
+            return null;
+        }
+        while (true) {
+            ColaDeEspera.Nodo nodo = cola.primeroDeTipo(turno);
+            if (nodo == null) {
+                creditos[turno] = 0;
+            } else {
+                if (!recargado) {
+                    creditos[turno] += cuanto;
+                    recargado = true;
+                }
+                if (creditos[turno] >= costos[turno]) {
+                    creditos[turno] -= costos[turno];
+                    cola.quitar(nodo);
+                    return nodo;
+                }
+            }
+            turno = (turno + 1) % GRUPOS;
+            recargado = false;
+        }
+    }
+
+    /**
+     * Devuelve el costo del cliente al crédito de su tipo si ese tipo sigue
+     * de turno.
+     *
+     * @param cliente el cliente devuelto a la cola
+     */
+    @Override
+    public void revertir(Cliente cliente) {
+        int grupo = ColaDeEspera.grupoDeTipo(cliente);
+        if (grupo == turno && recargado) {
+            creditos[grupo] += costos[grupo];
+        }
+    }
+
+    /**
+     * Pone el turno en el primer tipo y todos los créditos en 0.
+     */
+    @Override
+    public void reiniciar() {
+        turno = 0;
+        recargado = false;
+        for (int i = 0; i < GRUPOS; i++) {
+            creditos[i] = 0;
+        }
+    }
+
+    /**
+     * Obtiene la política que aplica el planificador.
+     *
+     * @return el deficit round robin con sus costos
+     */
+    @Override
+    public PoliticaDeAtencion getPolitica() {
+        return politica;
+    }
+
+    /**
+     * Copia el estado: el turno, si ya recargó, y el crédito de cada tipo.
+     *
+     * @return el turno, 1 o 0 según si recargó, y los créditos
+     */
+    @Override
+    public long[] getEstado() {
+        long[] estado = new long[2 + GRUPOS];
+        estado[0] = turno;
+        estado[1] = recargado ? 1 : 0;
+        System.arraycopy(creditos, 0, estado, 2, GRUPOS);
+        return estado;
+    }
+
+    /**
+     * Restaura el turno, si ya recargó, y el crédito de cada tipo.
+     *
+     * @param estado el turno, 1 o 0 según si recargó, y los créditos
+     */
+    @Override
+    public void setEstado(long[] estado) {
+        if (estado.length != 2 + GRUPOS || estado[0] < 0 || estado[0] >= GRUPOS) {
+            throw new IllegalArgumentException("Estado inválido para el deficit round robin");
+        }
+        turno = (int) estado[0];
+        recargado = estado[1] != 0;
+        System.arraycopy(estado, 2, creditos, 0, GRUPOS);
+    }
+}
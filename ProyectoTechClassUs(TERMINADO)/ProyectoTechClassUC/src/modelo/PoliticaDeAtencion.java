@@ -0,0 +1,291 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Política con que los puestos de atención toman al siguiente cliente de la
+ * cola. Es un valor inmutable; SistemaDeGestion.setPoliticaDeAtencion() la
+ * cambia en cualquier momento sin reconstruir la cola.
+ *
+ * - reglaDosAUno(): la regla de siempre, por defecto. Se atiende por orden de
+ * llegada, pero después de dos clientes que no son URGENTE pasa el primer
+ * URGENTE en espera. - roundRobinPonderado(pesos): turno ponderado entre los
+ * niveles de prioridad; en cada vuelta cada nivel atiende hasta su peso en
+ * clientes, saltando los niveles vacíos. - prioridadEstricta(): siempre el
+ * más urgente en espera; los niveles bajos solo pasan si los altos están
+ * vacíos. - deficitPorTipo(costos): deficit round robin entre los tipos de
+ * solicitud; cada tipo recibe en cada vuelta el mismo crédito en minutos y
+ * gasta el costo estimado de cada cliente, así que los tipos de atención
+ * corta pasan más clientes y el tiempo de los técnicos se reparte parejo.
+ *
+ * Como texto (toString() y desdeTexto()) se escribe el nombre y, si tiene, los
+ * parámetros separados por comas: "dos-a-uno", "ponderada:4,2,1,1",
+ * "estricta" o "deficit:10,20,30,15".
+ *
+ * @author young
+ */
+public class PoliticaDeAtencion {
+
+    private static final byte DOS_A_UNO = 0;
+    private static final byte PONDERADA = 1;
+    private static final byte ESTRICTA = 2;
+    private static final byte DEFICIT = 3;
+    private static final String[] NOMBRES = {"dos-a-uno", "ponderada", "estricta", "deficit"};
+    private static final int PRIORIDADES = Prioridad.values().length;
+
+    private static final PoliticaDeAtencion REGLA_DOS_A_UNO
+            = new PoliticaDeAtencion(DOS_A_UNO, new int[0]);
+    private static final PoliticaDeAtencion PRIORIDAD_ESTRICTA
+            = new PoliticaDeAtencion(ESTRICTA, new int[0]);
+
+    private final byte clase;
+    private final int[] parametros;
+
+    private PoliticaDeAtencion(byte clase, int[] parametros) {
+        this.clase = clase;
+        this.parametros = parametros;
+    }
+
+    /**
+     * Obtiene la regla 2:1, la política por defecto.
+     *
+     * @return la política
+     */
+    public static PoliticaDeAtencion reglaDosAUno() {
+        return REGLA_DOS_A_UNO;
+    }
+
+    /**
+     * Crea un turno ponderado entre los niveles de prioridad.
+     *
+     * @param pesos cuántos clientes atiende cada nivel por vuelta, uno por
+     * nivel y del más urgente al menos urgente (URGENTE, PREFERENTE, NORMAL y
+     * BAJA)
+     * @return la política
+     * @throws IllegalArgumentException si falta un peso o alguno es menor que
+     * 1
+     */
+    public static PoliticaDeAtencion roundRobinPonderado(int... pesos) {
+        return new PoliticaDeAtencion(PONDERADA, validar(pesos, PRIORIDADES, "peso"));
+    }
+
+    /**
+     * Obtiene la prioridad estricta.
+     *
+     * @return la política
+     */
+    public static PoliticaDeAtencion prioridadEstricta() {
+        return PRIORIDAD_ESTRICTA;
+    }
+
+    /**
+     * Crea un deficit round robin entre los tipos de solicitud. El crédito
+     * que recibe cada tipo por vuelta es el mayor de los costos, así que
+     * todos atienden al menos un cliente por vuelta.
+     *
+     * @param costos los minutos estimados de atención de un cliente de cada
+     * tipo: SOPORTE, MANTENIMIENTO, RECLAMO y, al final, los tipos escritos a
+     * mano
+     * @return la política
+     * @throws IllegalArgumentException si falta un costo o alguno es menor
+     * que 1
+     */
+    public static PoliticaDeAtencion deficitPorTipo(int... costos) {
+        return new PoliticaDeAtencion(DEFICIT,
+                validar(costos, ColaDeEspera.GRUPOS_DE_TIPO, "costo"));
+    }
+
+    /**
+     * Interpreta una política escrita como la devuelve toString(), sin
+     * distinguir mayúsculas.
+     *
+     * @param texto el nombre y los parámetros, por ejemplo "ponderada:4,2,1,1"
+     * @return la política
+     * @throws IllegalArgumentException si el nombre no existe o los
+     * parámetros no son válidos
+     */
+    public static PoliticaDeAtencion desdeTexto(String texto) {
+        String limpio = texto.trim().toLowerCase(Locale.ROOT);
+        int separador = limpio.indexOf(':');
+        String nombre = separador < 0 ? limpio : limpio.substring(0, separador).trim();
+        int[] valores = separador < 0 ? new int[0] : enteros(limpio.substring(separador + 1));
+        switch (nombre) {
+            case "dos-a-uno":
+                return sinParametros(REGLA_DOS_A_UNO, valores);
+            case "ponderada":
+                return roundRobinPonderado(valores);
+            case "estricta":
+                return sinParametros(PRIORIDAD_ESTRICTA, valores);
+            case "deficit":
+                return deficitPorTipo(valores);
+            default:
+                throw new IllegalArgumentException("Política de atención desconocida: " + texto);
+        }
+    }
+
+    /**
+     * Obtiene el nombre de la política, sin los parámetros.
+     *
+     * @return "dos-a-uno", "ponderada", "estricta" o "deficit"
+     */
+    public String getNombre() {
+        return NOMBRES[clase];
+    }
+
+    /**
+     * Obtiene los parámetros de la política: los pesos por nivel o los costos
+     * por tipo.
+     *
+     * @return una copia de los parámetros, vacía si la política no tiene
+     */
+    public int[] getParametros() {
+        return parametros.clone();
+    }
+
+    /**
+     * Crea un planificador nuevo, en su estado inicial, que aplica esta
+     * política.
+     *
+     * @return el planificador
+     */
+    Planificador crearPlanificador() {
+        switch (clase) {
+            case PONDERADA:
+                return new PlanificadorPonderado(this, parametros);
+            case ESTRICTA:
+                return new PlanificadorEstricto(this);
+            case DEFICIT:
+                return new PlanificadorPorDeficit(this, parametros);
+            default:
+                return new PlanificadorDosAUno(this);
+        }
+    }
+
+    /**
+     * Escribe la política para el diario o una instantánea: la clase y los
+     * parámetros.
+     *
+     * @param salida el codificador
+     */
+    void escribir(CodificadorBinario salida) {
+        salida.escribirByte(clase);
+        salida.escribirInt(parametros.length);
+        for (int parametro : parametros) {
+            salida.escribirInt(parametro);
+        }
+    }
+
+    /**
+     * Lee una política escrita con escribir().
+     *
+     * @param entrada el buffer
+     * @return la política
+     * @throws IllegalArgumentException si los datos no son una política
+     * válida
+     */
+    static PoliticaDeAtencion leer(ByteBuffer entrada) {
+        byte clase = entrada.get();
+        int[] valores = new int[entrada.getInt()];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = entrada.getInt();
+        }
+        switch (clase) {
+            case DOS_A_UNO:
+                return REGLA_DOS_A_UNO;
+            case PONDERADA:
+                return roundRobinPonderado(valores);
+            case ESTRICTA:
+                return PRIORIDAD_ESTRICTA;
+            case DEFICIT:
+                return deficitPorTipo(valores);
+            default:
+                throw new IllegalArgumentException("Política de atención desconocida: " + clase);
+        }
+    }
+
+    /**
+     * Indica si otra política es la misma, con los mismos parámetros.
+     *
+     * @param otro el objeto a comparar
+     * @return true si es la misma política
+     */
+    @Override
+    public boolean equals(Object otro) {
+        if (this == otro) {
+            return true;
+        }
+        if (!(otro instanceof PoliticaDeAtencion)) {
+            return false;
+        }
+        PoliticaDeAtencion politica = (PoliticaDeAtencion) otro;
+        return clase == politica.clase && Arrays.equals(parametros, politica.parametros);
+    }
+
+    /**
+     * Calcula el hash a partir de la clase y los parámetros.
+     *
+     * @return el código hash
+     */
+    @Override
+    public int hashCode() {
+        return 31 * clase + Arrays.hashCode(parametros);
+    }
+
+    /**
+     * Devuelve la política como texto, en el formato de desdeTexto().
+     *
+     * @return el nombre y los parámetros
+     */
+    @Override
+    public String toString() {
+        if (parametros.length == 0) {
+            return NOMBRES[clase];
+        }
+        StringBuilder sb = new StringBuilder(NOMBRES[clase]).append(':');
+        for (int i = 0; i < parametros.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(parametros[i]);
+        }
+        return sb.toString();
+    }
+
+    private static int[] validar(int[] valores, int cantidad, String nombre) {
+        if (valores == null || valores.length != cantidad) {
+            throw new IllegalArgumentException("Se esperaban " + cantidad + " valores de " + nombre);
+        }
+        for (int valor : valores) {
+            if (valor < 1) {
+                throw new IllegalArgumentException("Cada " + nombre + " debe ser al menos 1: " + valor);
+            }
+        }
+        return valores.clone();
+    }
+
+    private static int[] enteros(String texto) {
+        String[] partes = texto.split(",");
+        int[] valores = new int[partes.length];
+        for (int i = 0; i < partes.length; i++) {
+            try {
+                valores[i] = Integer.parseInt(partes[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Parámetro inválido: " + partes[i].trim());
+            }
+        }
+        return valores;
+    }
+
+    private static PoliticaDeAtencion sinParametros(PoliticaDeAtencion politica, int[] valores) {
+        if (valores.length > 0) {
+            throw new IllegalArgumentException("La política " + politica + " no lleva parámetros");
+        }
+        return politica;
+    }
+}
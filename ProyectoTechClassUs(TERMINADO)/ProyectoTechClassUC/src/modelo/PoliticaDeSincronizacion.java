@@ -0,0 +1,73 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.util.Locale;
+
+/**
+ * Enumeración que define cuándo el diario de operaciones fuerza sus datos al
+ * disco (fsync). En todas las políticas cada operación se escribe al sistema
+ * operativo antes de devolver el control, así que un cierre abrupto de la
+ * aplicación no pierde nada; la diferencia está en un corte de energía o una
+ * caída del sistema operativo.
+ *
+ * @author young
+ */
+public enum PoliticaDeSincronizacion {
+    /**
+     * Cada operación espera a que su registro esté en disco. Las operaciones
+     * que llegan mientras se hace un fsync se confirman juntas en el
+     * siguiente (commit agrupado), así que el ritmo de ingreso no queda
+     * limitado a un fsync por operación.
+     */
+    SIEMPRE("siempre"),
+    /**
+     * Un hilo de fondo hace fsync cada cierto intervalo. Una caída del
+     * sistema puede perder las operaciones de ese último intervalo.
+     */
+    PERIODICA("periodica"),
+    /**
+     * Nunca se fuerza el disco; el sistema operativo decide cuándo escribir.
+     */
+    NUNCA("nunca");
+
+    private final String displayName;
+
+    /**
+     * Constructor del enum PoliticaDeSincronizacion.
+     *
+     * @param displayName el nombre usado en la configuración
+     */
+    PoliticaDeSincronizacion(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * Obtiene la política a partir de su nombre de configuración.
+     *
+     * @param nombre el nombre (siempre, periodica o nunca), sin distinguir
+     * mayúsculas
+     * @return la política correspondiente
+     * @throws IllegalArgumentException si el nombre no corresponde a ninguna
+     */
+    public static PoliticaDeSincronizacion desdeNombre(String nombre) {
+        for (PoliticaDeSincronizacion politica : values()) {
+            if (politica.displayName.equals(nombre.trim().toLowerCase(Locale.ROOT))) {
+                return politica;
+            }
+        }
+        throw new IllegalArgumentException("Política de sincronización desconocida: " + nombre);
+    }
+
+    /**
+     * Devuelve el nombre de configuración de la política.
+     *
+     * @return el nombre legible de la política
+     */
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
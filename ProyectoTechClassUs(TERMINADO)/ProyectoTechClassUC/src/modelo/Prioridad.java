@@ -13,18 +13,54 @@ package modelo;
 /* Utiliza un displayName para mostrar valores legibles en la interfaz gráfica.
  */
 public enum Prioridad {
-    NORMAL("Normal"),
-    URGENTE("Urgente");
+    // Los archivos y el diario guardan el ordinal, así que los niveles nuevos
+    // se agregan al final; el orden de urgencia lo da el nivel
+    NORMAL("Normal", 1),
+    URGENTE("Urgente", 3),
+    BAJA("Baja", 0),
+    PREFERENTE("Preferente", 2);
+
+    private static final Prioridad[] POR_NIVEL = new Prioridad[values().length];
+
+    static {
+        for (Prioridad prioridad : values()) {
+            POR_NIVEL[prioridad.nivel] = prioridad;
+        }
+    }
 
     private final String displayName;
+    private final int nivel;
 
     /**
      * Constructor del enum Prioridad.
      *
      * @param displayName el nombre a mostrar en la interfaz
+     * @param nivel el nivel de urgencia, desde 0 para la menos urgente
      */
-    Prioridad(String displayName) {
+    Prioridad(String displayName, int nivel) {
         this.displayName = displayName;
+        this.nivel = nivel;
+    }
+
+    /**
+     * Obtiene el nivel de urgencia: BAJA 0, NORMAL 1, PREFERENTE 2 y URGENTE
+     * 3. Las políticas de atención comparan prioridades por nivel, no por
+     * ordinal.
+     *
+     * @return el nivel, desde 0
+     */
+    public int getNivel() {
+        return nivel;
+    }
+
+    /**
+     * Obtiene la prioridad de un nivel de urgencia.
+     *
+     * @param nivel el nivel, desde 0 hasta la cantidad de prioridades menos 1
+     * @return la prioridad con ese nivel
+     */
+    public static Prioridad desdeNivel(int nivel) {
+        return POR_NIVEL[nivel];
     }
 
     /**
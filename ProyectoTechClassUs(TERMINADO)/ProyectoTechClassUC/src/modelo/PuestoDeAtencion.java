@@ -0,0 +1,216 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Puesto de atención de un técnico: el cliente que tiene en diagnóstico, su
+ * posición en el HistorialAtendidos y los contadores propios del puesto
+ * (clientes que pasó a atención, clientes que finalizó y el tiempo total de
+ * servicio de estos últimos). No es seguro para varios hilos; el
+ * SistemaDeGestion lo modifica con cerrojoCola tomado.
+ *
+ * @author young
+ */
+final class PuestoDeAtencion {
+
+    private final int numero;
+    private Cliente clienteEnAtencion;
+    private int posicionEnAtencion;
+    private long atendidos;
+    private long finalizados;
+    private long milisDeServicio;
+
+    /**
+     * Crea un puesto libre y sin actividad.
+     *
+     * @param numero el número del puesto, desde 0
+     */
+    PuestoDeAtencion(int numero) {
+        this(numero, null, -1, 0, 0, 0);
+    }
+
+    /**
+     * Crea un puesto con un estado conocido. Se usa al copiarlo y al cargar
+     * una instantánea.
+     *
+     * @param numero el número del puesto, desde 0
+     * @param clienteEnAtencion el cliente en atención, o null
+     * @param posicionEnAtencion su posición en el historial, o -1
+     * @param atendidos los clientes que pasó a atención
+     * @param finalizados los clientes que finalizó
+     * @param milisDeServicio el tiempo de servicio de los finalizados
+     */
+    PuestoDeAtencion(int numero, Cliente clienteEnAtencion, int posicionEnAtencion,
+            long atendidos, long finalizados, long milisDeServicio) {
+        this.numero = numero;
+        this.clienteEnAtencion = clienteEnAtencion;
+        this.posicionEnAtencion = posicionEnAtencion;
+        this.atendidos = atendidos;
+        this.finalizados = finalizados;
+        this.milisDeServicio = milisDeServicio;
+    }
+
+    /**
+     * Pasa un cliente a atención en el puesto y lo cuenta como atendido.
+     *
+     * @param cliente el cliente
+     * @param posicion su posición en el historial
+     */
+    void atender(Cliente cliente, int posicion) {
+        clienteEnAtencion = cliente;
+        posicionEnAtencion = posicion;
+        atendidos++;
+    }
+
+    /**
+     * Revierte atender(): libera el puesto si el cliente sigue en él y lo
+     * descuenta.
+     *
+     * @param cliente el cliente que se había atendido
+     */
+    void revertirAtencion(Cliente cliente) {
+        if (clienteEnAtencion == cliente) {
+            liberar();
+        }
+        atendidos = Math.max(0, atendidos - 1);
+    }
+
+    /**
+     * Cuenta la finalización del cliente en atención con su tiempo de
+     * servicio y libera el puesto.
+     *
+     * @param instante los milisegundos desde la época de la finalización
+     */
+    void finalizar(long instante) {
+        finalizados++;
+        milisDeServicio += milisDeServicio(clienteEnAtencion, instante);
+        liberar();
+    }
+
+    /**
+     * Revierte finalizar(): vuelve a poner al cliente en atención, fuera del
+     * historial, y descuenta su tiempo de servicio.
+     *
+     * @param cliente el cliente finalizado
+     * @param instante los milisegundos desde la época de la finalización
+     */
+    void revertirFinalizacion(Cliente cliente, long instante) {
+        clienteEnAtencion = cliente;
+        posicionEnAtencion = -1;
+        finalizados = Math.max(0, finalizados - 1);
+        milisDeServicio = Math.max(0, milisDeServicio - milisDeServicio(cliente, instante));
+    }
+
+    /**
+     * Deja el puesto sin cliente en atención.
+     */
+    void liberar() {
+        clienteEnAtencion = null;
+        posicionEnAtencion = -1;
+    }
+
+    /**
+     * Cambia la posición en el historial del cliente en atención, por
+     * ejemplo al volver a agregarlo tras deshacer su finalización.
+     *
+     * @param posicion la nueva posición, o -1
+     */
+    void setPosicionEnAtencion(int posicion) {
+        posicionEnAtencion = posicion;
+    }
+
+    /**
+     * Obtiene el número del puesto.
+     *
+     * @return el número, desde 0
+     */
+    int getNumero() {
+        return numero;
+    }
+
+    /**
+     * Obtiene el cliente en atención en el puesto.
+     *
+     * @return el cliente, o null si el puesto está libre
+     */
+    Cliente getClienteEnAtencion() {
+        return clienteEnAtencion;
+    }
+
+    /**
+     * Obtiene la posición en el historial del cliente en atención.
+     *
+     * @return la posición, o -1 si no está en el historial
+     */
+    int getPosicionEnAtencion() {
+        return posicionEnAtencion;
+    }
+
+    /**
+     * Obtiene cuántos clientes pasó el puesto a atención.
+     *
+     * @return la cantidad de atendidos
+     */
+    long getAtendidos() {
+        return atendidos;
+    }
+
+    /**
+     * Obtiene cuántos clientes finalizó el puesto.
+     *
+     * @return la cantidad de finalizados
+     */
+    long getFinalizados() {
+        return finalizados;
+    }
+
+    /**
+     * Obtiene el tiempo total de servicio de los clientes finalizados.
+     *
+     * @return los milisegundos de servicio
+     */
+    long getMilisDeServicio() {
+        return milisDeServicio;
+    }
+
+    /**
+     * Copia el estado del puesto, para una instantánea.
+     *
+     * @return un puesto independiente con los mismos datos
+     */
+    PuestoDeAtencion copiar() {
+        return new PuestoDeAtencion(numero, clienteEnAtencion, posicionEnAtencion, atendidos,
+                finalizados, milisDeServicio);
+    }
+
+    /**
+     * Crea el resumen público del puesto.
+     *
+     * @return el resumen con el estado actual
+     */
+    ResumenDePuesto resumir() {
+        return new ResumenDePuesto(numero, clienteEnAtencion, atendidos, finalizados,
+                milisDeServicio);
+    }
+
+    /**
+     * Calcula el tiempo entre la hora de atención de un cliente y su
+     * finalización. La hora de atención es local, así que se lleva a la
+     * época con la zona del sistema, igual que las fechas de la bitácora.
+     * Al deshacer se usa el mismo instante de la finalización, por lo que se
+     * descuenta exactamente lo que se sumó.
+     */
+    private static long milisDeServicio(Cliente cliente, long instante) {
+        LocalDateTime horaAtencion = cliente == null ? null : cliente.getHoraAtencion();
+        if (horaAtencion == null) {
+            return 0;
+        }
+        long inicio = horaAtencion.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return Math.max(0, instante - inicio);
+    }
+}
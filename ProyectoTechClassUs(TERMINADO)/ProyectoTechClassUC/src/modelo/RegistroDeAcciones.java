@@ -7,21 +7,28 @@ package modelo;
 import java.time.LocalDateTime;
 
 /**
- * Representa un registro de una acción realizada en el sistema. Se utiliza para
- * guardar el historial de acciones en un Stack (pila), permitiendo implementar
- * la funcionalidad de deshacer.
+ * Representa un registro de una acción realizada en el sistema. La
+ * BitacoraDeAcciones guarda las acciones en forma compacta y crea estos
+ * registros solo cuando se consultan para mostrarlos o deshacerlos.
  *
  * Cada registro contiene: - El tipo de acción realizada (agregar, eliminar,
  * atender, finalizar) - El cliente involucrado en la acción - La fecha y hora
- * en que se realizó la acción
+ * en que se realizó la acción - El puesto de atención que la hizo, para
+ * ATENDER y FINALIZAR (SIN_PUESTO para las de la recepción)
  *
  * @author young
  */
 public class RegistroDeAcciones {
 
-    private String tipoAccion;
+    /**
+     * Puesto de las acciones que no hace un puesto de atención.
+     */
+    public static final int SIN_PUESTO = -1;
+
+    private TipoAccion tipoAccion;
     private Cliente cliente;
     private LocalDateTime fechaHora;
+    private int puesto;
 
     /**
      * Constructor de RegistroDeAcciones. Crea un nuevo registro con el tipo de
@@ -32,10 +39,36 @@ public class RegistroDeAcciones {
      * atender, finalizar)
      * @param cliente el cliente involucrado en la acción
      */
-    public RegistroDeAcciones(String tipoAccion, Cliente cliente) {
+    public RegistroDeAcciones(TipoAccion tipoAccion, Cliente cliente) {
+        this(tipoAccion, cliente, LocalDateTime.now());
+    }
+
+    /**
+     * Constructor de RegistroDeAcciones con fecha y hora conocidas. Lo usa la
+     * BitacoraDeAcciones al reconstruir un registro guardado.
+     *
+     * @param tipoAccion el tipo de acción realizada
+     * @param cliente el cliente involucrado en la acción
+     * @param fechaHora la fecha y hora en que se realizó la acción
+     */
+    public RegistroDeAcciones(TipoAccion tipoAccion, Cliente cliente, LocalDateTime fechaHora) {
+        this(tipoAccion, cliente, fechaHora, SIN_PUESTO);
+    }
+
+    /**
+     * Constructor de RegistroDeAcciones con fecha, hora y puesto conocidos.
+     *
+     * @param tipoAccion el tipo de acción realizada
+     * @param cliente el cliente involucrado en la acción
+     * @param fechaHora la fecha y hora en que se realizó la acción
+     * @param puesto el puesto de atención que la hizo, o SIN_PUESTO
+     */
+    public RegistroDeAcciones(TipoAccion tipoAccion, Cliente cliente, LocalDateTime fechaHora,
+            int puesto) {
         this.tipoAccion = tipoAccion;
         this.cliente = cliente;
-        this.fechaHora = LocalDateTime.now();
+        this.fechaHora = fechaHora;
+        this.puesto = puesto;
     }
 
     /**
@@ -43,7 +76,7 @@ public class RegistroDeAcciones {
      *
      * @return el tipo de acción (agregar, eliminar, atender, finalizar)
      */
-    public String getTipoAccion() {
+    public TipoAccion getTipoAccion() {
         return tipoAccion;
     }
 
@@ -52,7 +85,7 @@ public class RegistroDeAcciones {
      *
      * @param tipoAccion el nuevo tipo de acción
      */
-    public void setTipoAccion(String tipoAccion) {
+    public void setTipoAccion(TipoAccion tipoAccion) {
         this.tipoAccion = tipoAccion;
     }
 
@@ -92,6 +125,15 @@ public class RegistroDeAcciones {
         this.fechaHora = fechaHora;
     }
 
+    /**
+     * Obtiene el puesto de atención que hizo la acción.
+     *
+     * @return el número del puesto, desde 0, o SIN_PUESTO
+     */
+    public int getPuesto() {
+        return puesto;
+    }
+
     /**
      * Devuelve una representación en String del registro de acción. Incluye el
      * tipo de acción, el cliente y la fecha/hora.
@@ -104,6 +146,7 @@ public class RegistroDeAcciones {
                 + "tipoAccion='" + tipoAccion + '\''
                 + ", cliente=" + cliente
                 + ", fechaHora=" + fechaHora
+                + ", puesto=" + puesto
                 + '}';
     }
 }
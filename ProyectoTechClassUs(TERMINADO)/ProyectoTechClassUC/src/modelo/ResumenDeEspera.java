@@ -0,0 +1,121 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+/**
+ * Resumen inmutable de los tiempos de espera de un grupo de clientes
+ * atendidos (todos, una prioridad o un tipo de solicitud). Los tiempos se
+ * expresan en minutos con decimales.
+ *
+ * @author young
+ */
+public class ResumenDeEspera {
+
+    private static final double MILIS_POR_MINUTO = 60_000.0;
+
+    private final long cantidad;
+    private final double promedio;
+    private final double minimo;
+    private final double maximo;
+    private final double p50;
+    private final double p90;
+    private final double p99;
+
+    /**
+     * Constructor del resumen a partir de un histograma.
+     *
+     * @param histograma el histograma con los tiempos en milisegundos
+     */
+    ResumenDeEspera(HistogramaDeEspera histograma) {
+        this.cantidad = histograma.getCantidad();
+        this.promedio = cantidad == 0 ? 0.0 : histograma.getSuma() / (double) cantidad / MILIS_POR_MINUTO;
+        this.minimo = histograma.getMinimo() / MILIS_POR_MINUTO;
+        this.maximo = histograma.getMaximo() / MILIS_POR_MINUTO;
+        this.p50 = histograma.getPercentil(50) / MILIS_POR_MINUTO;
+        this.p90 = histograma.getPercentil(90) / MILIS_POR_MINUTO;
+        this.p99 = histograma.getPercentil(99) / MILIS_POR_MINUTO;
+    }
+
+    /**
+     * Obtiene la cantidad de clientes incluidos en el resumen.
+     *
+     * @return la cantidad de clientes
+     */
+    public long getCantidad() {
+        return cantidad;
+    }
+
+    /**
+     * Obtiene el tiempo de espera promedio.
+     *
+     * @return el promedio en minutos, o 0.0 si no hay datos
+     */
+    public double getPromedio() {
+        return promedio;
+    }
+
+    /**
+     * Obtiene el menor tiempo de espera.
+     *
+     * @return el mínimo en minutos
+     */
+    public double getMinimo() {
+        return minimo;
+    }
+
+    /**
+     * Obtiene el mayor tiempo de espera.
+     *
+     * @return el máximo en minutos
+     */
+    public double getMaximo() {
+        return maximo;
+    }
+
+    /**
+     * Obtiene la mediana del tiempo de espera.
+     *
+     * @return el percentil 50 en minutos
+     */
+    public double getP50() {
+        return p50;
+    }
+
+    /**
+     * Obtiene el percentil 90 del tiempo de espera.
+     *
+     * @return el percentil 90 en minutos
+     */
+    public double getP90() {
+        return p90;
+    }
+
+    /**
+     * Obtiene el percentil 99 del tiempo de espera.
+     *
+     * @return el percentil 99 en minutos
+     */
+    public double getP99() {
+        return p99;
+    }
+
+    /**
+     * Devuelve una representación en String del resumen.
+     *
+     * @return representación en texto del objeto ResumenDeEspera
+     */
+    @Override
+    public String toString() {
+        return "Resumen{"
+                + "cantidad=" + cantidad
+                + ", promedio=" + promedio
+                + ", minimo=" + minimo
+                + ", maximo=" + maximo
+                + ", p50=" + p50
+                + ", p90=" + p90
+                + ", p99=" + p99
+                + '}';
+    }
+}
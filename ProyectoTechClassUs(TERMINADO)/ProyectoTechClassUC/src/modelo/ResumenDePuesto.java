@@ -0,0 +1,111 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+/**
+ * Resumen inmutable de un puesto de atención: el cliente que tiene en
+ * diagnóstico y su actividad desde que se abrió el sistema (clientes que pasó
+ * a atención, clientes que finalizó y el tiempo promedio de servicio de
+ * estos, en minutos con decimales).
+ *
+ * @author young
+ */
+public class ResumenDePuesto {
+
+    private static final double MILIS_POR_MINUTO = 60_000.0;
+
+    private final int numero;
+    private final Cliente clienteEnAtencion;
+    private final long atendidos;
+    private final long finalizados;
+    private final double promedioServicio;
+
+    /**
+     * Constructor del resumen.
+     *
+     * @param numero el número del puesto, desde 0
+     * @param clienteEnAtencion el cliente en atención, o null
+     * @param atendidos los clientes que pasó a atención
+     * @param finalizados los clientes que finalizó
+     * @param milisDeServicio el tiempo total de servicio de los finalizados
+     */
+    ResumenDePuesto(int numero, Cliente clienteEnAtencion, long atendidos, long finalizados,
+            long milisDeServicio) {
+        this.numero = numero;
+        this.clienteEnAtencion = clienteEnAtencion;
+        this.atendidos = atendidos;
+        this.finalizados = finalizados;
+        this.promedioServicio = finalizados == 0 ? 0.0
+                : milisDeServicio / (double) finalizados / MILIS_POR_MINUTO;
+    }
+
+    /**
+     * Obtiene el número del puesto.
+     *
+     * @return el número, desde 0
+     */
+    public int getNumero() {
+        return numero;
+    }
+
+    /**
+     * Obtiene el cliente que el puesto tenía en atención.
+     *
+     * @return el cliente, o null si el puesto estaba libre
+     */
+    public Cliente getClienteEnAtencion() {
+        return clienteEnAtencion;
+    }
+
+    /**
+     * Indica si el puesto estaba libre.
+     *
+     * @return true si no tenía un cliente en atención
+     */
+    public boolean estaLibre() {
+        return clienteEnAtencion == null;
+    }
+
+    /**
+     * Obtiene cuántos clientes pasó el puesto a atención.
+     *
+     * @return la cantidad de atendidos
+     */
+    public long getAtendidos() {
+        return atendidos;
+    }
+
+    /**
+     * Obtiene cuántos clientes finalizó el puesto.
+     *
+     * @return la cantidad de finalizados
+     */
+    public long getFinalizados() {
+        return finalizados;
+    }
+
+    /**
+     * Obtiene el tiempo promedio entre la atención y la finalización de los
+     * clientes que finalizó el puesto.
+     *
+     * @return el promedio en minutos, o 0.0 si no hay datos
+     */
+    public double getPromedioServicio() {
+        return promedioServicio;
+    }
+
+    /**
+     * Devuelve el resumen en una línea, con el puesto numerado desde 1 como
+     * se muestra en la ventana.
+     *
+     * @return representación en texto del resumen
+     */
+    @Override
+    public String toString() {
+        return String.format("PUESTO %d - %s - atendidos: %d, finalizados: %d, servicio promedio: %.1f min",
+                numero + 1, clienteEnAtencion == null ? "libre" : "en atención: " + clienteEnAtencion.getId(),
+                atendidos, finalizados, promedioServicio);
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.util.List;
+
+/**
+ * Rueda de temporizadores jerárquica para el envejecimiento de la
+ * ColaDeEspera. Guarda nodos de la cola con un vencimiento en segundos y
+ * entrega los que vencieron cuando el reloj avanza, sin recorrer a los que
+ * todavía esperan.
+ *
+ * Tiene NIVELES ruedas de CASILLAS casillas. Un nodo que vence dentro de los
+ * próximos 64 segundos va a la casilla de su segundo en el nivel 0; uno que
+ * vence más lejos va al nivel cuya casilla abarca su vencimiento (64
+ * segundos en el nivel 1, 64² en el 2, 64³ en el 3). Cada vez que el nivel 0
+ * da una vuelta, la casilla que sigue del nivel 1 se reparte entre las de
+ * abajo, y así hacia arriba (cascada). Los vencimientos más allá de 64⁴
+ * segundos (unos 194 días) se guardan en la última casilla alcanzable y se
+ * vuelven a ubicar al bajar. Programar y cancelar son O(1), y cada nodo baja
+ * como mucho una vez por nivel antes de vencer.
+ *
+ * Las casillas son listas doblemente enlazadas intrusivas: los enlaces están
+ * en el mismo ColaDeEspera.Nodo, así que la rueda no crea objetos. Además de
+ * las casillas hay dos listas: la de vencidos, con los nodos programados
+ * para un segundo que ya pasó, y la de pendientes, con los programados antes
+ * del primer avance, cuando la rueda todavía no sabe qué hora es.
+ *
+ * El orden en que se entregan los nodos vencidos en un mismo avance no está
+ * definido. No es segura para varios hilos; la ColaDeEspera la usa con
+ * cerrojoCola tomado.
+ *
+ * @author young
+ */
+final class RuedaDeTemporizadores {
+
+    private static final int BITS = 6;
+    private static final int CASILLAS = 1 << BITS;
+    private static final int MASCARA = CASILLAS - 1;
+    private static final int NIVELES = 4;
+    // Distancia máxima que se puede ubicar sin recortar, en segundos
+    private static final long ALCANCE = 1L << (BITS * NIVELES);
+    private static final int VENCIDOS = NIVELES * CASILLAS;
+    private static final int PENDIENTES = VENCIDOS + 1;
+    private static final long SIN_INICIAR = Long.MIN_VALUE;
+
+    private final ColaDeEspera.Nodo[] casillas;
+    // Próximo segundo a revisar
+    private long actual;
+    // Nodos en las casillas de los niveles, sin contar vencidos y pendientes
+    private int enNiveles;
+    private int tamanio;
+
+    /**
+     * Constructor de la rueda vacía, sin iniciar.
+     */
+    RuedaDeTemporizadores() {
+        this.casillas = new ColaDeEspera.Nodo[PENDIENTES + 1];
+        this.actual = SIN_INICIAR;
+        this.enNiveles = 0;
+        this.tamanio = 0;
+    }
+
+    /**
+     * Programa un nodo para que venza en un segundo dado. Si el nodo ya
+     * estaba programado, se reemplaza su vencimiento. Es O(1).
+     *
+     * @param nodo el nodo
+     * @param vencimiento el segundo en que vence, en la misma escala que
+     * avanzar()
+     */
+    void programar(ColaDeEspera.Nodo nodo, long vencimiento) {
+        cancelar(nodo);
+        nodo.vencimiento = vencimiento;
+        ubicar(nodo);
+        tamanio++;
+    }
+
+    /**
+     * Quita un nodo de la rueda. Si no estaba programado no hace nada. Es
+     * O(1).
+     *
+     * @param nodo el nodo
+     */
+    void cancelar(ColaDeEspera.Nodo nodo) {
+        int casilla = nodo.casillaEnRueda;
+        if (casilla < 0) {
+            return;
+        }
+        desenlazar(nodo);
+        if (casilla < VENCIDOS) {
+            enNiveles--;
+        }
+        tamanio--;
+    }
+
+    /**
+     * Avanza el reloj hasta un segundo, inclusive, y pasa a una lista todos
+     * los nodos cuyo vencimiento no es posterior. Los nodos entregados quedan
+     * fuera de la rueda. Si el segundo es anterior al último avance solo se
+     * entregan los vencidos que se programaron desde entonces. Cuando no
+     * queda ningún nodo por vencer el reloj salta directamente al final.
+     *
+     * @param hasta el segundo hasta el que se avanza
+     * @param vencidos la lista donde se agregan los nodos vencidos
+     */
+    void avanzar(long hasta, List<ColaDeEspera.Nodo> vencidos) {
+        if (actual == SIN_INICIAR) {
+            actual = hasta;
+            ColaDeEspera.Nodo nodo = casillas[PENDIENTES];
+            casillas[PENDIENTES] = null;
+            while (nodo != null) {
+                ColaDeEspera.Nodo siguiente = nodo.siguienteEnRueda;
+                soltar(nodo);
+                ubicar(nodo);
+                nodo = siguiente;
+            }
+        }
+        vaciar(VENCIDOS, vencidos);
+        while (actual <= hasta) {
+            if (enNiveles == 0) {
+                actual = hasta + 1;
+                break;
+            }
+            int indice = (int) (actual & MASCARA);
+            if (indice == 0) {
+                bajar();
+            }
+            vaciar(indice, vencidos);
+            actual++;
+        }
+    }
+
+    /**
+     * Quita todos los nodos de la rueda. Es O(n).
+     */
+    void limpiar() {
+        for (int casilla = 0; casilla < casillas.length; casilla++) {
+            ColaDeEspera.Nodo nodo = casillas[casilla];
+            casillas[casilla] = null;
+            while (nodo != null) {
+                ColaDeEspera.Nodo siguiente = nodo.siguienteEnRueda;
+                soltar(nodo);
+                nodo = siguiente;
+            }
+        }
+        enNiveles = 0;
+        tamanio = 0;
+    }
+
+    /**
+     * Obtiene la cantidad de nodos programados.
+     *
+     * @return los nodos en la rueda
+     */
+    int size() {
+        return tamanio;
+    }
+
+    /**
+     * Reparte entre los niveles de abajo la casilla que empieza ahora en
+     * cada nivel, del 1 hacia arriba mientras el nivel también empiece una
+     * vuelta.
+     */
+    private void bajar() {
+        for (int nivel = 1; nivel < NIVELES; nivel++) {
+            int indice = (int) ((actual >> (BITS * nivel)) & MASCARA);
+            int casilla = nivel * CASILLAS + indice;
+            ColaDeEspera.Nodo nodo = casillas[casilla];
+            casillas[casilla] = null;
+            while (nodo != null) {
+                ColaDeEspera.Nodo siguiente = nodo.siguienteEnRueda;
+                soltar(nodo);
+                enNiveles--;
+                ubicar(nodo);
+                nodo = siguiente;
+            }
+            if (indice != 0) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Enlaza un nodo suelto en la casilla que le corresponde según su
+     * vencimiento y el reloj.
+     */
+    private void ubicar(ColaDeEspera.Nodo nodo) {
+        int casilla;
+        if (actual == SIN_INICIAR) {
+            casilla = PENDIENTES;
+        } else if (nodo.vencimiento < actual) {
+            casilla = VENCIDOS;
+        } else {
+            long distancia = nodo.vencimiento - actual;
+            long vencimiento = nodo.vencimiento;
+            if (distancia >= ALCANCE) {
+                distancia = ALCANCE - 1;
+                vencimiento = actual + distancia;
+            }
+            int nivel = 0;
+            while (distancia >= 1L << (BITS * (nivel + 1))) {
+                nivel++;
+            }
+            casilla = nivel * CASILLAS + (int) ((vencimiento >> (BITS * nivel)) & MASCARA);
+            enNiveles++;
+        }
+        ColaDeEspera.Nodo cabeza = casillas[casilla];
+        nodo.casillaEnRueda = casilla;
+        nodo.anteriorEnRueda = null;
+        nodo.siguienteEnRueda = cabeza;
+        if (cabeza != null) {
+            cabeza.anteriorEnRueda = nodo;
+        }
+        casillas[casilla] = nodo;
+    }
+
+    /**
+     * Pasa a la lista todos los nodos de una casilla y los saca de la rueda.
+     */
+    private void vaciar(int casilla, List<ColaDeEspera.Nodo> vencidos) {
+        ColaDeEspera.Nodo nodo = casillas[casilla];
+        casillas[casilla] = null;
+        while (nodo != null) {
+            ColaDeEspera.Nodo siguiente = nodo.siguienteEnRueda;
+            soltar(nodo);
+            if (casilla < VENCIDOS) {
+                enNiveles--;
+            }
+            tamanio--;
+            vencidos.add(nodo);
+            nodo = siguiente;
+        }
+    }
+
+    private void desenlazar(ColaDeEspera.Nodo nodo) {
+        if (nodo.anteriorEnRueda == null) {
+            casillas[nodo.casillaEnRueda] = nodo.siguienteEnRueda;
+        } else {
+            nodo.anteriorEnRueda.siguienteEnRueda = nodo.siguienteEnRueda;
+        }
+        if (nodo.siguienteEnRueda != null) {
+            nodo.siguienteEnRueda.anteriorEnRueda = nodo.anteriorEnRueda;
+        }
+        soltar(nodo);
+    }
+
+    private static void soltar(ColaDeEspera.Nodo nodo) {
+        nodo.casillaEnRueda = -1;
+        nodo.anteriorEnRueda = null;
+        nodo.siguienteEnRueda = null;
+    }
+}
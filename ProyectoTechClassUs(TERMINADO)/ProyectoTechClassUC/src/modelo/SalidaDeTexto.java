@@ -0,0 +1,257 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Escritor de texto UTF-8 a un archivo por un FileChannel, con un buffer
+ * fijo de TAMANIO_BUFFER bytes. Los caracteres se codifican a mano
+ * directamente en el buffer, sin crear Strings ni arreglos intermedios, y
+ * los números enteros se escriben dígito a dígito; la memoria usada no
+ * depende de cuánto se escriba.
+ *
+ * El texto se escribe en un archivo temporal junto al destino y recién
+ * terminar() lo mueve al destino, igual que las instantáneas: si la
+ * escritura falla a la mitad, el destino queda como estaba. Cerrar sin
+ * terminar borra el temporal.
+ *
+ * @author young
+ */
+final class SalidaDeTexto implements Appendable, Closeable {
+
+    /**
+     * Tamaño del buffer de escritura.
+     */
+    static final int TAMANIO_BUFFER = 1 << 16;
+
+    // Bytes que ocupa como máximo un carácter (un par sustituto)
+    private static final int MAXIMO_POR_CARACTER = 4;
+
+    private final Path destino;
+    private final Path temporal;
+    private final FileChannel canal;
+    private final ByteBuffer buffer;
+    private final byte[] bytes;
+    private int usados;
+    private final byte[] digitos;
+    private char sustitutoAlto;
+    private boolean terminada;
+    private boolean cerrada;
+
+    /**
+     * Crea el archivo temporal donde se escribe.
+     *
+     * @param destino el archivo que se crea o reemplaza al terminar
+     * @throws IOException si no se puede crear el temporal
+     */
+    SalidaDeTexto(Path destino) throws IOException {
+        this.destino = destino;
+        this.temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+        this.canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.buffer = ByteBuffer.allocate(TAMANIO_BUFFER);
+        this.bytes = buffer.array();
+        this.usados = 0;
+        this.digitos = new byte[20];
+        this.sustitutoAlto = 0;
+        this.terminada = false;
+        this.cerrada = false;
+    }
+
+    /**
+     * Escribe un carácter en UTF-8. Los pares sustitutos se juntan en un
+     * solo punto de código; un sustituto suelto se escribe como '?'.
+     *
+     * @param c el carácter
+     * @return esta salida
+     * @throws IOException si falla la escritura
+     */
+    @Override
+    public SalidaDeTexto append(char c) throws IOException {
+        if (bytes.length - usados < MAXIMO_POR_CARACTER) {
+            vaciar();
+        }
+        if (sustitutoAlto != 0) {
+            char alto = sustitutoAlto;
+            sustitutoAlto = 0;
+            if (Character.isLowSurrogate(c)) {
+                int punto = Character.toCodePoint(alto, c);
+                bytes[usados++] = (byte) (0xF0 | (punto >> 18));
+                bytes[usados++] = (byte) (0x80 | ((punto >> 12) & 0x3F));
+                bytes[usados++] = (byte) (0x80 | ((punto >> 6) & 0x3F));
+                bytes[usados++] = (byte) (0x80 | (punto & 0x3F));
+                return this;
+            }
+            bytes[usados++] = '?';
+            return append(c);
+        }
+        if (c < 0x80) {
+            bytes[usados++] = (byte) c;
+        } else if (c < 0x800) {
+            bytes[usados++] = (byte) (0xC0 | (c >> 6));
+            bytes[usados++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            sustitutoAlto = c;
+        } else if (Character.isLowSurrogate(c)) {
+            bytes[usados++] = '?';
+        } else {
+            bytes[usados++] = (byte) (0xE0 | (c >> 12));
+            bytes[usados++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            bytes[usados++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return this;
+    }
+
+    /**
+     * Escribe un texto en UTF-8.
+     *
+     * @param texto el texto; null se escribe como "null"
+     * @return esta salida
+     * @throws IOException si falla la escritura
+     */
+    @Override
+    public SalidaDeTexto append(CharSequence texto) throws IOException {
+        if (texto == null) {
+            texto = "null";
+        }
+        return append(texto, 0, texto.length());
+    }
+
+    /**
+     * Escribe una parte de un texto en UTF-8.
+     *
+     * @param texto el texto; null se toma como "null"
+     * @param desde el primer carácter
+     * @param hasta el carácter siguiente al último
+     * @return esta salida
+     * @throws IOException si falla la escritura
+     */
+    @Override
+    public SalidaDeTexto append(CharSequence texto, int desde, int hasta) throws IOException {
+        if (texto == null) {
+            texto = "null";
+        }
+        int i = desde;
+        while (i < hasta) {
+            // Los tramos ASCII se copian sin pasar por append(char)
+            int limite = Math.min(hasta, i + bytes.length - usados);
+            while (i < limite && sustitutoAlto == 0) {
+                char c = texto.charAt(i);
+                if (c >= 0x80) {
+                    break;
+                }
+                bytes[usados++] = (byte) c;
+                i++;
+            }
+            if (i < hasta) {
+                append(texto.charAt(i++));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Escribe un número entero en decimal.
+     *
+     * @param valor el número
+     * @return esta salida
+     * @throws IOException si falla la escritura
+     */
+    SalidaDeTexto escribirEntero(long valor) throws IOException {
+        return escribirEntero(valor, 1);
+    }
+
+    /**
+     * Escribe un número entero en decimal, completando con ceros a la
+     * izquierda hasta una cantidad de dígitos.
+     *
+     * @param valor el número
+     * @param digitosMinimos la cantidad mínima de dígitos, hasta 19
+     * @return esta salida
+     * @throws IOException si falla la escritura
+     */
+    SalidaDeTexto escribirEntero(long valor, int digitosMinimos) throws IOException {
+        if (valor == Long.MIN_VALUE) {
+            return append(Long.toString(valor));
+        }
+        if (bytes.length - usados < digitos.length + 1) {
+            vaciar();
+        }
+        if (valor < 0) {
+            bytes[usados++] = '-';
+            valor = -valor;
+        }
+        int cantidad = 0;
+        do {
+            digitos[cantidad++] = (byte) ('0' + valor % 10);
+            valor /= 10;
+        } while (valor != 0);
+        while (cantidad < digitosMinimos) {
+            digitos[cantidad++] = '0';
+        }
+        while (cantidad > 0) {
+            bytes[usados++] = digitos[--cantidad];
+        }
+        return this;
+    }
+
+    /**
+     * Escribe lo que queda en el buffer, fuerza el archivo al disco y lo
+     * mueve al destino, reemplazando el anterior.
+     *
+     * @throws IOException si falla la escritura o el movimiento
+     */
+    void terminar() throws IOException {
+        if (sustitutoAlto != 0) {
+            sustitutoAlto = 0;
+            append('?');
+        }
+        vaciar();
+        canal.force(true);
+        canal.close();
+        cerrada = true;
+        Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        terminada = true;
+    }
+
+    /**
+     * Cierra el archivo. Si no se llamó a terminar(), borra el temporal y el
+     * destino no cambia.
+     *
+     * @throws IOException si falla el cierre
+     */
+    @Override
+    public void close() throws IOException {
+        if (terminada) {
+            return;
+        }
+        try {
+            if (!cerrada) {
+                canal.close();
+                cerrada = true;
+            }
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    private void vaciar() throws IOException {
+        buffer.limit(usados).position(0);
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+        usados = 0;
+    }
+}
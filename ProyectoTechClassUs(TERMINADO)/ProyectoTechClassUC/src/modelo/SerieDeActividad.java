@@ -0,0 +1,294 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+import java.time.LocalDateTime;
+
+/**
+ * Serie inmutable de la actividad de varios períodos seguidos (minutos u
+ * horas), del más antiguo al actual. Por período tiene las llegadas, las
+ * atenciones, las eliminaciones, las finalizaciones, la cantidad en cola y
+ * el tiempo de espera por prioridad y por tipo de solicitud. Los tiempos se
+ * expresan en minutos con decimales, como en ResumenDeEspera.
+ *
+ * Se obtiene con SistemaDeGestion.getActividadPorMinuto() o
+ * getActividadPorHora().
+ *
+ * @author young
+ */
+public class SerieDeActividad {
+
+    private static final double MILIS_POR_MINUTO = 60_000.0;
+
+    private final long primerPeriodo;
+    private final long ancho;
+    private final int[] llegadas;
+    private final int[] atendidos;
+    private final int[] eliminados;
+    private final int[] finalizados;
+    private final int[] enCola;
+    private final int[] maximoEnCola;
+    // Por período, un grupo por prioridad, uno por tipo y uno para los tipos
+    // escritos a mano
+    private final long[] sumaEspera;
+    private final int[] cantidadEspera;
+    private final int prioridades;
+    private final int grupos;
+
+    /**
+     * Constructor de la serie. Los arreglos pasan a la serie sin copiarse.
+     *
+     * @param primerPeriodo el número del primer período (milisegundos
+     * locales / ancho)
+     * @param ancho el largo de cada período en milisegundos
+     * @param llegadas las llegadas por período
+     * @param atendidos las atenciones por período
+     * @param eliminados las eliminaciones por período
+     * @param finalizados las finalizaciones por período
+     * @param enCola los clientes en cola al final de cada período
+     * @param maximoEnCola el máximo en cola de cada período
+     * @param sumaEspera la suma de esperas en milisegundos por período y grupo
+     * @param cantidadEspera la cantidad de esperas por período y grupo
+     * @param prioridades la cantidad de prioridades
+     * @param tipos la cantidad de tipos de solicitud conocidos
+     */
+    SerieDeActividad(long primerPeriodo, long ancho, int[] llegadas, int[] atendidos,
+            int[] eliminados, int[] finalizados, int[] enCola, int[] maximoEnCola,
+            long[] sumaEspera, int[] cantidadEspera, int prioridades, int tipos) {
+        this.primerPeriodo = primerPeriodo;
+        this.ancho = ancho;
+        this.llegadas = llegadas;
+        this.atendidos = atendidos;
+        this.eliminados = eliminados;
+        this.finalizados = finalizados;
+        this.enCola = enCola;
+        this.maximoEnCola = maximoEnCola;
+        this.sumaEspera = sumaEspera;
+        this.cantidadEspera = cantidadEspera;
+        this.prioridades = prioridades;
+        this.grupos = prioridades + tipos + 1;
+    }
+
+    /**
+     * Obtiene la cantidad de períodos de la serie.
+     *
+     * @return la cantidad de períodos
+     */
+    public int getPeriodos() {
+        return llegadas.length;
+    }
+
+    /**
+     * Obtiene la hora local en que empieza un período.
+     *
+     * @param periodo el período, desde 0 (el más antiguo)
+     * @return el inicio del período
+     */
+    public LocalDateTime getInicio(int periodo) {
+        return Cliente.deNanos((primerPeriodo + periodo) * ancho * 1_000_000L);
+    }
+
+    /**
+     * Obtiene los clientes que llegaron a la cola en un período.
+     *
+     * @param periodo el período, desde 0 (el más antiguo)
+     * @return la cantidad de llegadas
+     */
+    public int getLlegadas(int periodo) {
+        return llegadas[periodo];
+    }
+
+    /**
+     * Obtiene los clientes que pasaron a atención en un período.
+     *
+     * @param periodo el período, desde 0 (el más antiguo)
+     * @return la cantidad de atendidos
+     */
+    public int getAtendidos(int periodo) {
+        return atendidos[periodo];
+    }
+
+    /**
+     * Obtiene los clientes eliminados de la cola en un período.
+     *
+     * @param periodo el período, desde 0 (el más antiguo)
+     * @return la cantidad de eliminados
+     */
+    public int getEliminados(int periodo) {
+        return eliminados[periodo];
+    }
+
+    /**
+     * Obtiene las atenciones finalizadas en un período.
+     *
+     * @param periodo el período, desde 0 (el más antiguo)
+     * @return la cantidad de finalizaciones
+     */
+    public int getFinalizados(int periodo) {
+        return finalizados[periodo];
+    }
+
+    /**
+     * Obtiene los clientes en cola al final de un período.
+     *
+     * @param periodo el período, desde 0 (el más antiguo)
+     * @return la cantidad en cola
+     */
+    public int getEnCola(int periodo) {
+        return enCola[periodo];
+    }
+
+    /**
+     * Obtiene la mayor cantidad de clientes en cola durante un período.
+     *
+     * @param periodo el período, desde 0 (el más antiguo)
+     * @return el máximo en cola
+     */
+    public int getMaximoEnCola(int periodo) {
+        return maximoEnCola[periodo];
+    }
+
+    /**
+     * Obtiene la espera promedio de los atendidos en un período.
+     *
+     * @param periodo el período, desde 0 (el más antiguo)
+     * @return el promedio en minutos, o 0.0 si no hubo atendidos
+     */
+    public double getEsperaPromedio(int periodo) {
+        return promedio(periodo, periodo + 1, 0, prioridades);
+    }
+
+    /**
+     * Obtiene la espera promedio de los atendidos de una prioridad en un
+     * período.
+     *
+     * @param periodo el período, desde 0 (el más antiguo)
+     * @param prioridad la prioridad a consultar
+     * @return el promedio en minutos, o 0.0 si no hubo atendidos
+     */
+    public double getEsperaPromedio(int periodo, Prioridad prioridad) {
+        int grupo = prioridad.ordinal();
+        return promedio(periodo, periodo + 1, grupo, grupo + 1);
+    }
+
+    /**
+     * Obtiene la espera promedio de los atendidos de un tipo de solicitud en
+     * un período.
+     *
+     * @param periodo el período, desde 0 (el más antiguo)
+     * @param tipo el tipo de solicitud a consultar
+     * @return el promedio en minutos, o 0.0 si no hubo atendidos
+     */
+    public double getEsperaPromedio(int periodo, TipoSolicitud tipo) {
+        int grupo = prioridades + tipo.ordinal();
+        return promedio(periodo, periodo + 1, grupo, grupo + 1);
+    }
+
+    /**
+     * Obtiene el total de llegadas de la serie.
+     *
+     * @return la suma de las llegadas de todos los períodos
+     */
+    public int getTotalLlegadas() {
+        return sumar(llegadas);
+    }
+
+    /**
+     * Obtiene el total de atendidos de la serie.
+     *
+     * @return la suma de los atendidos de todos los períodos
+     */
+    public int getTotalAtendidos() {
+        return sumar(atendidos);
+    }
+
+    /**
+     * Obtiene el total de eliminados de la serie.
+     *
+     * @return la suma de los eliminados de todos los períodos
+     */
+    public int getTotalEliminados() {
+        return sumar(eliminados);
+    }
+
+    /**
+     * Obtiene el total de finalizaciones de la serie.
+     *
+     * @return la suma de las finalizaciones de todos los períodos
+     */
+    public int getTotalFinalizados() {
+        return sumar(finalizados);
+    }
+
+    /**
+     * Obtiene la mayor cantidad en cola de toda la serie.
+     *
+     * @return el máximo en cola
+     */
+    public int getMaximoEnCola() {
+        int maximo = 0;
+        for (int valor : maximoEnCola) {
+            maximo = Math.max(maximo, valor);
+        }
+        return maximo;
+    }
+
+    /**
+     * Obtiene la espera promedio de todos los atendidos de la serie.
+     *
+     * @return el promedio en minutos, o 0.0 si no hubo atendidos
+     */
+    public double getEsperaPromedio() {
+        return promedio(0, getPeriodos(), 0, prioridades);
+    }
+
+    /**
+     * Obtiene la espera promedio de los atendidos de una prioridad en toda
+     * la serie.
+     *
+     * @param prioridad la prioridad a consultar
+     * @return el promedio en minutos, o 0.0 si no hubo atendidos
+     */
+    public double getEsperaPromedio(Prioridad prioridad) {
+        int grupo = prioridad.ordinal();
+        return promedio(0, getPeriodos(), grupo, grupo + 1);
+    }
+
+    /**
+     * Obtiene la espera promedio de los atendidos de un tipo de solicitud en
+     * toda la serie.
+     *
+     * @param tipo el tipo de solicitud a consultar
+     * @return el promedio en minutos, o 0.0 si no hubo atendidos
+     */
+    public double getEsperaPromedio(TipoSolicitud tipo) {
+        int grupo = prioridades + tipo.ordinal();
+        return promedio(0, getPeriodos(), grupo, grupo + 1);
+    }
+
+    /**
+     * Promedia las esperas de los períodos [desde, hasta) y los grupos
+     * [primerGrupo, finGrupo).
+     */
+    private double promedio(int desde, int hasta, int primerGrupo, int finGrupo) {
+        long suma = 0;
+        long cantidad = 0;
+        for (int periodo = desde; periodo < hasta; periodo++) {
+            for (int grupo = primerGrupo; grupo < finGrupo; grupo++) {
+                suma += sumaEspera[periodo * grupos + grupo];
+                cantidad += cantidadEspera[periodo * grupos + grupo];
+            }
+        }
+        return cantidad == 0 ? 0.0 : suma / (double) cantidad / MILIS_POR_MINUTO;
+    }
+
+    private static int sumar(int[] valores) {
+        int suma = 0;
+        for (int valor : valores) {
+            suma += valor;
+        }
+        return suma;
+    }
+}
@@ -4,361 +4,2557 @@
  */
 package modelo;
 
-import java.time.Duration;
-import java.util.ArrayDeque;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Stack;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * Sistema de gestión de clientes para TechClassUC. Administra la cola de
  * espera, el historial de atendidos y el registro de acciones.
  *
- * Utiliza tres estructuras de datos principales: - ArrayDeque: Cola FIFO para
- * clientes en espera - LinkedList: Lista para historial de clientes atendidos -
- * Stack: Pila LIFO para registro de acciones (permite deshacer)
+ * Utiliza tres estructuras de datos principales: - ColaDeEspera: Cola FIFO
+ * con una sub-cola por prioridad para clientes en espera -
+ * HistorialAtendidos: Historial de clientes atendidos con índices por ID y
+ * por tipo de solicitud - BitacoraDeAcciones: Pila LIFO acotada para registro
+ * de acciones (permite deshacer)
+ *
+ * Es seguro usarlo desde varios hilos (varias recepciones y técnicos sobre
+ * una misma instancia). El estado se protege con dos StampedLock: -
+ * cerrojoCola: cola, puestos de atención, contador de prioridad y bitácora -
+ * cerrojoHistorial: historial y estadísticas. Toda modificación toma
+ * cerrojoCola, así que las operaciones y el deshacer quedan en un único orden
+ * total; las que además tocan el historial toman cerrojoHistorial después
+ * (siempre en ese orden). Las búsquedas en el historial solo usan
+ * cerrojoHistorial, por lo que no compiten con la recepción de clientes, y
+ * los contadores y estadísticas se leen con lecturas optimistas.
+ *
+ * Los métodos getColaClientes(), getHistorialAtendidos() y getBitacora()
+ * entregan las estructuras internas sin sincronizar; desde varios hilos se
+ * deben usar las copias de getClientesEnEspera(), getClientesAtendidos() y
+ * getAccionesEnOrdenInverso().
+ *
+ * Si se crea con abrir(), cada modificación se guarda además en un
+ * DiarioDeOperaciones en disco y al abrir de nuevo el mismo directorio el
+ * estado se reconstruye reaplicando el diario. El registro se anexa con
+ * cerrojoCola tomado, así que el orden del diario es el mismo orden total de
+ * las operaciones, y la espera por el disco ocurre después de soltarlo, de
+ * modo que las recepciones que operan a la vez comparten un mismo fsync. Una
+ * operación solo se da por hecha (el método retorna) cuando su registro está
+ * escrito según la PoliticaDeSincronizacion.
+ *
+ * Para que reiniciar no obligue a reaplicar el diario de todo el día, cada
+ * REGISTROS_POR_INSTANTANEA operaciones se guarda en segundo plano una
+ * Instantanea del estado completo. Capturarla solo copia referencias con
+ * cerrojoCola tomado (una pausa breve); codificarla y escribirla ocurre fuera
+ * del cerrojo mientras las recepciones siguen operando. Al abrir se carga la
+ * instantánea más reciente y se reaplica solo el diario posterior; el
+ * resultado queda en getInformeDeRecuperacion(). Si una instantánea de fondo
+ * falla, el error queda en getFalloDeInstantanea() y se avisa a los
+ * OyenteDeFallos; se vuelve a intentar REGISTROS_POR_INSTANTANEA operaciones
+ * después.
+ *
+ * Una vista puede mostrar la cola sin copiarla: getClienteEnEspera(posicion)
+ * y getPosicionEnEspera(id) son O(log n), y un OyenteDeCola registrado recibe
+ * la posición exacta de cada cliente que entra o sale. Lo mismo vale para la
+ * bitácora con getAccion(indice) y OyenteDeBitacora.
+ *
+ * importarClientes() agrega a la cola los clientes de un archivo CSV de a
+ * lotes de LOTE_DE_IMPORTACION: cada lote toma cerrojoCola una sola vez y
+ * se guarda en el diario como un único registro, así que las recepciones y
+ * los técnicos pueden operar entre un lote y otro. Toda la importación queda
+ * en la bitácora como una sola acción IMPORTAR que se deshace de una vez, y
+ * los oyentes de la cola reciben un aviso por lote en lugar de uno por
+ * cliente.
+ *
+ * Varios técnicos atienden a la vez, cada uno en su PuestoDeAtencion
+ * (numerados desde 0, hasta MAXIMO_PUESTOS). Todos sacan de la misma cola
+ * con la misma política de atención, porque el planificador es uno solo, y
+ * el orden en que lo hacen es el de cerrojoCola: pasar un cliente a atención
+ * solo desenlaza un nodo y ocupa el puesto, y la espera por el disco ocurre
+ * fuera del cerrojo, así que muchos puestos pidiendo el siguiente a la vez
+ * se turnan en secciones muy cortas y comparten el fsync. Cada puesto lleva
+ * sus contadores (ver ResumenDePuesto) y puede deshacer su última acción
+ * con deshacerUltimaAccion(puesto) aunque otros puestos hayan actuado
+ * después. Los métodos sin número de puesto usan el puesto 0.
+ *
+ * Quién pasa a atención lo decide un Planificador que aplica la
+ * PoliticaDeAtencion vigente: la regla 2:1 por defecto, un turno ponderado
+ * entre niveles de prioridad, prioridad estricta o deficit round robin por
+ * tipo de solicitud. Todos eligen mirando solo la cabeza de las listas por
+ * prioridad o por tipo de la ColaDeEspera, en O(1).
+ * setPoliticaDeAtencion() cambia de política en cualquier momento sin tocar
+ * la cola; el cambio se guarda en el diario y el estado del planificador en
+ * las instantáneas, así que al abrir se eligen los mismos clientes.
+ *
+ * Para que ningún cliente espere indefinidamente detrás de los más urgentes,
+ * setUmbralesDeEnvejecimiento() configura cuántos minutos desde la llegada
+ * tiene que esperar un cliente de cada nivel para subir al siguiente. La
+ * ColaDeEspera programa cada umbral en una rueda de temporizadores, y cada
+ * atención primero sube a los que vencieron hasta su hora de atención, así
+ * que el planificador siempre decide con las prioridades al día y al
+ * reaplicar el diario suben los mismos clientes. envejecerCola() hace lo
+ * mismo con la hora actual para que una vista muestre las subidas sin
+ * esperar a la próxima atención. Por defecto no hay envejecimiento.
+ *
+ * exportarHistorial() y exportarAcciones() escriben el historial y la
+ * bitácora en CSV o NDJSON directamente desde el modelo. Parten de un corte
+ * tomado con los cerrojos, así que el archivo corresponde a un único
+ * instante, y escriben sin cerrojo, de modo que pueden correr en segundo
+ * plano mientras se sigue operando.
  *
  * @author young
  */
 public class SistemaDeGestion {
 
-    private ArrayDeque<Cliente> colaClientes;
-    private LinkedList<Cliente> historialAtendidos;
-    private Stack<RegistroDeAcciones> pilaAcciones;
-    private Cliente clienteEnAtencion;
-    private int contadorNormalesAtendidos;
+    /**
+     * Cantidad de operaciones del diario entre instantáneas automáticas.
+     */
+    public static final long REGISTROS_POR_INSTANTANEA = 50_000;
+
+    /**
+     * Cantidad máxima de puestos de atención.
+     */
+    public static final int MAXIMO_PUESTOS = 64;
+
+    private static final int INSTANTANEAS_CONSERVADAS = 2;
+
+    // Códigos de operación del diario
+    private static final byte OP_AGREGAR = 1;
+    private static final byte OP_ATENDER = 2;
+    private static final byte OP_ELIMINAR = 3;
+    private static final byte OP_FINALIZAR = 4;
+    private static final byte OP_LIBERAR_ATENCION = 5;
+    private static final byte OP_REGISTRAR = 6;
+    private static final byte OP_DESHACER = 7;
+    private static final byte OP_REINICIAR_CONTADOR = 8;
+    private static final byte OP_IMPORTAR_LOTE = 9;
+    private static final byte OP_IMPORTAR_FIN = 10;
+    private static final byte OP_CAMBIAR_POLITICA = 11;
+    private static final byte OP_CAMBIAR_ENVEJECIMIENTO = 12;
+    private static final byte OP_ENVEJECER = 13;
+    // Niveles de prioridad que pueden subir: todos menos URGENTE
+    private static final int NIVELES_QUE_ENVEJECEN = Prioridad.values().length - 1;
+    // Clientes de un archivo CSV agregados con cada toma de cerrojoCola
+    private static final int LOTE_DE_IMPORTACION = 4096;
+
+    private final StampedLock cerrojoCola;
+    private final StampedLock cerrojoHistorial;
+    private ColaDeEspera colaClientes;
+    private HistorialAtendidos historialAtendidos;
+    private EstadisticasDeEspera estadisticas;
+    private IndiceDeTexto indiceDeCasos;
+    private ActividadPorTiempo actividad;
+    private BitacoraDeAcciones bitacora;
+    // Se agregan puestos a medida que se usan; el arreglo se reemplaza
+    // entero, así que se puede leer con una lectura optimista
+    private PuestoDeAtencion[] puestos;
+    // Se reemplaza entero al cambiar de política, igual que los puestos
+    private Planificador planificador;
+    private final CodificadorBinario registroDiario;
+    private DiarioDeOperaciones diario;
+    private final Object cerrojoInstantanea;
+    private final AtomicBoolean instantaneaProgramada;
+    private volatile long secuenciaUltimaInstantanea;
+    // Secuencia con que se pidió la última instantánea de fondo: si falla,
+    // se reintenta recién REGISTROS_POR_INSTANTANEA registros después
+    private volatile long secuenciaUltimoIntento;
+    // Último error de una instantánea de fondo; se borra con la siguiente
+    // instantánea que se guarde bien
+    private volatile Exception falloDeInstantanea;
+    private ExecutorService hiloDeInstantaneas;
+    private InformeDeRecuperacion informeDeRecuperacion;
+    private final List<OyenteDeCola> oyentesDeCola;
+    private final List<OyenteDeBitacora> oyentesDeBitacora;
+    private final List<OyenteDeFallos> oyentesDeFallos;
+    // Nodo que agregó o quitó de la cola la última operación interna; se
+    // lee con cerrojoCola tomado justo después de ella
+    private ColaDeEspera.Nodo nodoCambiado;
+    private boolean nodoCambiadoAgregado;
+    private boolean colaCambiadaEnBloque;
+    // Nodos agregados por la importación en curso, hasta registrarla en la
+    // bitácora
+    private ArrayList<ColaDeEspera.Nodo> importacionEnCurso;
+    // Cambio que la última operación interna hizo en la bitácora, leído de la
+    // misma forma
+    private boolean accionRegistrada;
+    private boolean accionDescartada;
+    private RegistroDeAcciones accionDeshecha;
+    private int accionDeshechaEn;
+
+    /**
+     * Cambios de la cola y de la bitácora pendientes de avisar a los oyentes.
+     */
+    private static final class Aviso {
+
+        // Cliente que entró o salió de la cola, o null si la cola no cambió
+        private Cliente cliente;
+        private boolean agregado;
+        private int posicion;
+        // Entraron o salieron muchos clientes de una vez
+        private boolean enBloque;
+        private RegistroDeAcciones registrada;
+        private boolean descartada;
+        private RegistroDeAcciones deshecha;
+        private int deshechaEn;
+    }
+
+    /**
+     * Constructor del sistema de gestión. Inicializa las tres estructuras de
+     * datos vacías: - ColaDeEspera para la cola de clientes -
+     * HistorialAtendidos para el historial de atendidos - BitacoraDeAcciones
+     * para el registro de acciones, con la profundidad por defecto
+     */
+    public SistemaDeGestion() {
+        this(BitacoraDeAcciones.PROFUNDIDAD_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor del sistema de gestión con una profundidad de deshacer
+     * específica.
+     *
+     * @param profundidadDeshacer la cantidad máxima de acciones que se pueden
+     * deshacer
+     */
+    public SistemaDeGestion(int profundidadDeshacer) {
+        this(profundidadDeshacer, null);
+    }
+
+    /**
+     * Constructor del sistema de gestión que archiva los clientes atendidos
+     * antiguos en un directorio.
+     *
+     * @param profundidadDeshacer la cantidad máxima de acciones que se pueden
+     * deshacer
+     * @param directorioArchivo el directorio del archivo de atendidos, o null
+     * para usar el directorio temporal
+     */
+    private SistemaDeGestion(int profundidadDeshacer, Path directorioArchivo) {
+        this.cerrojoCola = new StampedLock();
+        this.cerrojoHistorial = new StampedLock();
+        this.colaClientes = new ColaDeEspera();
+        this.historialAtendidos = new HistorialAtendidos(directorioArchivo);
+        this.estadisticas = new EstadisticasDeEspera();
+        this.indiceDeCasos = new IndiceDeTexto();
+        this.actividad = new ActividadPorTiempo();
+        this.bitacora = new BitacoraDeAcciones(profundidadDeshacer);
+        this.puestos = new PuestoDeAtencion[]{new PuestoDeAtencion(0)};
+        this.planificador = PoliticaDeAtencion.reglaDosAUno().crearPlanificador();
+        this.registroDiario = new CodificadorBinario(256);
+        this.diario = null;
+        this.cerrojoInstantanea = new Object();
+        this.instantaneaProgramada = new AtomicBoolean(false);
+        this.secuenciaUltimaInstantanea = 0;
+        this.secuenciaUltimoIntento = 0;
+        this.falloDeInstantanea = null;
+        this.hiloDeInstantaneas = null;
+        this.informeDeRecuperacion = null;
+        this.oyentesDeCola = new CopyOnWriteArrayList<>();
+        this.oyentesDeBitacora = new CopyOnWriteArrayList<>();
+        this.oyentesDeFallos = new CopyOnWriteArrayList<>();
+        this.nodoCambiado = null;
+        this.colaCambiadaEnBloque = false;
+        this.importacionEnCurso = null;
+        this.accionRegistrada = false;
+        this.accionDescartada = false;
+        this.accionDeshecha = null;
+        this.accionDeshechaEn = 0;
+    }
+
+    /**
+     * Abre un sistema de gestión persistente en un directorio. Reconstruye el
+     * estado con la instantánea más reciente y el diario escrito después de
+     * ella, y guarda ahí cada modificación posterior.
+     *
+     * @param directorio el directorio de datos
+     * @param politica cuándo forzar el diario al disco
+     * @return el sistema con el estado recuperado
+     * @throws IOException si el diario no se puede leer o está dañado
+     */
+    public static SistemaDeGestion abrir(Path directorio, PoliticaDeSincronizacion politica)
+            throws IOException {
+        return abrir(directorio, politica, BitacoraDeAcciones.PROFUNDIDAD_POR_DEFECTO);
+    }
+
+    /**
+     * Abre un sistema de gestión persistente con una profundidad de deshacer
+     * específica. Debe ser la misma con la que se escribió el diario para
+     * recuperar exactamente las mismas acciones deshacibles.
+     *
+     * @param directorio el directorio de datos
+     * @param politica cuándo forzar el diario al disco
+     * @param profundidadDeshacer la cantidad máxima de acciones que se pueden
+     * deshacer
+     * @return el sistema con el estado recuperado
+     * @throws IOException si el diario no se puede leer o está dañado
+     */
+    public static SistemaDeGestion abrir(Path directorio, PoliticaDeSincronizacion politica,
+            int profundidadDeshacer) throws IOException {
+        SistemaDeGestion sistema = new SistemaDeGestion(profundidadDeshacer, directorio);
+        long inicio = System.nanoTime();
+        Instantanea instantanea = Instantanea.cargarUltima(directorio);
+        long desde = 0;
+        if (instantanea != null) {
+            sistema.restaurar(instantanea);
+            desde = instantanea.secuencia;
+        }
+        long trasInstantanea = System.nanoTime();
+        DiarioDeOperaciones diario = DiarioDeOperaciones.abrir(directorio, politica, desde,
+                sistema::reaplicar);
+        long fin = System.nanoTime();
+
+        sistema.diario = diario;
+        sistema.secuenciaUltimaInstantanea = desde;
+        sistema.secuenciaUltimoIntento = desde;
+        sistema.informeDeRecuperacion = new InformeDeRecuperacion(desde,
+                instantanea == null ? 0 : instantanea.getCantidadClientes(),
+                trasInstantanea - inicio, diario.getRegistrosReaplicados(),
+                diario.getSegmentosLeidos(), diario.getBytesLeidos(), fin - trasInstantanea);
+        sistema.hiloDeInstantaneas = Executors.newSingleThreadExecutor(r -> {
+            Thread hilo = new Thread(r, "instantaneas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        // Una importación cortada por una caída queda como una acción que se
+        // puede deshacer
+        sistema.terminarImportacion();
+        return sistema;
+    }
+
+    /**
+     * Cierra el diario, escribiendo al disco lo que esté pendiente, y el
+     * archivo de atendidos. Espera a que termine una instantánea en curso.
+     * Después de cerrarlo el sistema no se debe seguir usando.
+     *
+     * @throws IOException si falla la escritura
+     */
+    public void cerrar() throws IOException {
+        if (diario == null) {
+            cerrarHistorial();
+            return;
+        }
+        hiloDeInstantaneas.shutdown();
+        try {
+            hiloDeInstantaneas.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            diario.close();
+        } finally {
+            cerrarHistorial();
+        }
+    }
+
+    /**
+     * Cierra el archivo de atendidos con cerrojoHistorial tomado, para no
+     * cerrarlo en medio de una lectura.
+     *
+     * @throws IOException si falla el cierre
+     */
+    private void cerrarHistorial() throws IOException {
+        long stamp = cerrojoHistorial.writeLock();
+        try {
+            historialAtendidos.cerrar();
+        } finally {
+            cerrojoHistorial.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Guarda una instantánea del estado completo y borra las instantáneas y
+     * segmentos del diario que ya no hacen falta para recuperar. Solo se
+     * bloquean las operaciones mientras se copian las referencias.
+     *
+     * @return la secuencia del diario incluida en la instantánea
+     * @throws IOException si falla la escritura
+     * @throws IllegalStateException si el sistema no es persistente
+     */
+    public long tomarInstantanea() throws IOException {
+        if (diario == null) {
+            throw new IllegalStateException("El sistema no tiene diario");
+        }
+        synchronized (cerrojoInstantanea) {
+            Instantanea instantanea;
+            long stamp = cerrojoCola.writeLock();
+            try {
+                instantanea = capturar();
+            } finally {
+                cerrojoCola.unlockWrite(stamp);
+            }
+            // Lo incluido en la instantánea debe estar en el diario antes que ella
+            diario.confirmar(instantanea.secuencia);
+            instantanea.guardar(diario.getDirectorio());
+            secuenciaUltimaInstantanea = instantanea.secuencia;
+            falloDeInstantanea = null;
+            long conservada = Instantanea.borrarAntiguas(diario.getDirectorio(),
+                    INSTANTANEAS_CONSERVADAS);
+            diario.borrarSegmentosHasta(conservada);
+            return instantanea.secuencia;
+        }
+    }
+
+    /**
+     * Obtiene el informe de la recuperación hecha al abrir el sistema.
+     *
+     * @return el informe, o null si el sistema no se abrió desde un
+     * directorio
+     */
+    public InformeDeRecuperacion getInformeDeRecuperacion() {
+        return informeDeRecuperacion;
+    }
+
+    /**
+     * Obtiene el error de la última instantánea que se intentó guardar en
+     * segundo plano. Mientras haya un error el diario sigue creciendo y la
+     * recuperación tarda más, pero no se pierde nada. Cada error además se
+     * avisa a los OyenteDeFallos.
+     *
+     * @return el error, o null si la última instantánea se guardó bien
+     */
+    public Exception getFalloDeInstantanea() {
+        return falloDeInstantanea;
+    }
+
+    /**
+     * Obtiene el último error del archivo de clientes atendidos antiguos.
+     * Mientras falle, esos clientes se quedan en memoria. Cada error además
+     * se avisa a los OyenteDeFallos.
+     *
+     * @return el error, o null si el archivo funciona
+     */
+    public Exception getFalloDeArchivo() {
+        long stamp = cerrojoHistorial.readLock();
+        try {
+            return historialAtendidos.getFalloDeArchivo();
+        } finally {
+            cerrojoHistorial.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Agrega un cliente a la cola de espera. Utiliza offer() de la
+     * ColaDeEspera para agregar al final de la cola. Registra la acción en la
+     * bitácora, junto con su nodo de la cola, para poder deshacerla.
+     *
+     * @param cliente el cliente a agregar a la cola
+     * @throws IllegalArgumentException si ya hay un cliente en espera con el
+     * mismo ID
+     */
+    public void agregarCliente(Cliente cliente) {
+        long instante = System.currentTimeMillis();
+        long secuencia;
+        Aviso aviso;
+        long stamp = cerrojoCola.writeLock();
+        try {
+            ColaDeEspera.Nodo nodo = colaClientes.ofrecer(cliente);
+            actividad.registrarLlegada(cliente, instante, colaClientes.size());
+            registrarEnBitacora(TipoAccion.AGREGAR, cliente, nodo, -1, instante);
+            if (diario != null) {
+                registroDiario.reiniciar();
+                registroDiario.escribirCliente(cliente);
+            }
+            secuencia = anexarAlDiario(OP_AGREGAR, instante);
+            nodoCambiado = nodo;
+            nodoCambiadoAgregado = true;
+            aviso = tomarAviso();
+        } finally {
+            cerrojoCola.unlockWrite(stamp);
+        }
+        avisar(aviso);
+        confirmarEnDiario(secuencia);
+    }
+
+    /**
+     * Atiende al siguiente cliente de la cola según la política de atención;
+     * con la regla 2:1, por defecto, después de dos clientes que no son
+     * URGENTE se atiende al primer URGENTE en espera. Como cada prioridad y cada
+     * tipo tienen su propia sub-cola, el planificador elige en O(1). Registra
+     * la hora de atención, lo agrega al historial (HistorialAtendidos) y guarda la acción
+     * en la bitácora. Lo pasa al puesto 0, reemplazando al cliente que
+     * estuviera en atención ahí.
+     *
+     * @return el cliente atendido, o null si la cola está vacía
+     */
+    public Cliente atenderCliente() {
+        return atenderCliente(0, false);
+    }
+
+    /**
+     * Pasa el siguiente cliente de la cola a un puesto de atención, con la
+     * misma política de atención que comparten todos los puestos. La consulta de si el
+     * puesto está libre y la atención ocurren con cerrojoCola tomado, así que
+     * varios técnicos pueden pedir el siguiente a la vez sin coordinarse y
+     * cada cliente va a un solo puesto.
+     *
+     * @param puesto el número del puesto, desde 0
+     * @return el cliente atendido, o null si la cola está vacía
+     * @throws IllegalArgumentException si el puesto está fuera de rango
+     * @throws IllegalStateException si el puesto ya tiene un cliente en
+     * atención
+     */
+    public Cliente atenderCliente(int puesto) {
+        return atenderCliente(puesto, true);
+    }
+
+    /**
+     * Pasa el siguiente cliente a un puesto y lo guarda en el diario.
+     *
+     * @param puesto el número del puesto
+     * @param soloSiEstaLibre true para no reemplazar a un cliente en atención
+     * @return el cliente atendido, o null si la cola está vacía
+     */
+    private Cliente atenderCliente(int puesto, boolean soloSiEstaLibre) {
+        validarPuesto(puesto);
+        long instante = System.currentTimeMillis();
+        Cliente cliente;
+        long secuencia;
+        Aviso aviso;
+        long stamp = cerrojoCola.writeLock();
+        try {
+            if (soloSiEstaLibre && clienteEnAtencion(puesto) != null) {
+                throw new IllegalStateException("El puesto " + (puesto + 1)
+                        + " ya tiene un cliente en atención");
+            }
+            cliente = atender(puesto, LocalDateTime.now(), instante);
+            if (cliente == null) {
+                return null;
+            }
+            if (diario != null) {
+                registroDiario.reiniciar();
+                registroDiario.escribirTexto(cliente.getId());
+                registroDiario.escribirFecha(cliente.getHoraAtencion());
+                registroDiario.escribirInt(puesto);
+            }
+            secuencia = anexarAlDiario(OP_ATENDER, instante);
+            aviso = tomarAviso();
+        } finally {
+            cerrojoCola.unlockWrite(stamp);
+        }
+        avisar(aviso);
+        confirmarEnDiario(secuencia);
+        return cliente;
+    }
+
+    /**
+     * Pide al planificador el siguiente cliente y lo pasa a atención en un
+     * puesto.
+     * Se llama con cerrojoCola tomado o al reaplicar el diario.
+     *
+     * @param numeroPuesto el número del puesto
+     * @param horaAtencion la hora de atención a asignar
+     * @param instante los milisegundos desde la época para la bitácora
+     * @return el cliente atendido, o null si la cola está vacía
+     */
+    private Cliente atender(int numeroPuesto, LocalDateTime horaAtencion, long instante) {
+        nodoCambiado = null;
+        PuestoDeAtencion puesto = puesto(numeroPuesto);
+        if (colaClientes.isEmpty()) {
+            return null;
+        }
+        envejecer(horaAtencion);
+
+        ColaDeEspera.Nodo nodo = planificador.extraer(colaClientes);
+        nodoCambiado = nodo;
+        nodoCambiadoAgregado = false;
+        Cliente cliente = nodo.getCliente();
+        cliente.setHoraAtencion(horaAtencion);
+        int posicion = agregarAlHistorial(cliente);
+        puesto.atender(cliente, posicion);
+        actividad.registrarAtencion(cliente, instante, colaClientes.size());
+        registrarEnBitacora(TipoAccion.ATENDER, cliente, nodo, posicion, null, numeroPuesto,
+                instante);
+
+        return cliente;
+    }
+
+    /**
+     * Elimina un cliente específico de la cola de espera por su ID. Usa el
+     * índice por ID de la ColaDeEspera, por lo que es O(1). Registra la acción
+     * en la bitácora para poder deshacerla.
+     *
+     * @param id el identificador del cliente a eliminar
+     * @return true si se eliminó exitosamente, false si no se encontró
+     */
+    public boolean eliminarClienteDeCola(String id) {
+        long instante = System.currentTimeMillis();
+        long secuencia;
+        Aviso aviso;
+        long stamp = cerrojoCola.writeLock();
+        try {
+            if (!eliminar(id, instante)) {
+                return false;
+            }
+            if (diario != null) {
+                registroDiario.reiniciar();
+                registroDiario.escribirTexto(id);
+            }
+            secuencia = anexarAlDiario(OP_ELIMINAR, instante);
+            aviso = tomarAviso();
+        } finally {
+            cerrojoCola.unlockWrite(stamp);
+        }
+        avisar(aviso);
+        confirmarEnDiario(secuencia);
+        return true;
+    }
+
+    /**
+     * Quita un cliente de la cola y registra la acción. Se llama con
+     * cerrojoCola tomado o al reaplicar el diario.
+     *
+     * @param id el identificador del cliente a eliminar
+     * @param instante los milisegundos desde la época para la bitácora
+     * @return true si el cliente estaba en la cola
+     */
+    private boolean eliminar(String id, long instante) {
+        ColaDeEspera.Nodo nodo = colaClientes.extraerPorId(id);
+        nodoCambiado = nodo;
+        nodoCambiadoAgregado = false;
+        if (nodo == null) {
+            return false;
+        }
+        actividad.registrarEliminacion(instante, colaClientes.size());
+        registrarEnBitacora(TipoAccion.ELIMINAR, nodo.getCliente(), nodo, -1, instante);
+        return true;
+    }
+
+    /**
+     * 🆕 Reinicia el contador de prioridad (útil para deshacer). Con otras
+     * políticas vuelve su planificador al estado inicial.
+     */
+    public void reiniciarContadorPrioridad() {
+        long secuencia;
+        long stamp = cerrojoCola.writeLock();
+        try {
+            planificador.reiniciar();
+            registroDiario.reiniciar();
+            secuencia = anexarAlDiario(OP_REINICIAR_CONTADOR, System.currentTimeMillis());
+        } finally {
+            cerrojoCola.unlockWrite(stamp);
+        }
+        confirmarEnDiario(secuencia);
+    }
+
+    /**
+     * 🆕 Obtiene el contador actual de normales atendidos, o 0 si la política
+     * no es la regla 2:1
+     */
+    public int getContadorNormalesAtendidos() {
+        long stamp = cerrojoCola.readLock();
+        try {
+            return planificador instanceof PlanificadorDosAUno
+                    ? ((PlanificadorDosAUno) planificador).getContadorNormalesAtendidos() : 0;
+        } finally {
+            cerrojoCola.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Cambia la política con que los puestos toman al siguiente cliente. La
+     * cola no se toca: el planificador nuevo empieza en su estado inicial y
+     * elige desde la próxima atención. El cambio se guarda en el diario.
+     *
+     * @param politica la política nueva
+     * @throws IllegalArgumentException si la política es null
+     */
+    public void setPoliticaDeAtencion(PoliticaDeAtencion politica) {
+        if (politica == null) {
+            throw new IllegalArgumentException("La política de atención no puede ser nula");
+        }
+        long secuencia;
+        long stamp = cerrojoCola.writeLock();
+        try {
+            planificador = politica.crearPlanificador();
+            if (diario != null) {
+                registroDiario.reiniciar();
+                politica.escribir(registroDiario);
+            }
+            secuencia = anexarAlDiario(OP_CAMBIAR_POLITICA, System.currentTimeMillis());
+        } finally {
+            cerrojoCola.unlockWrite(stamp);
+        }
+        confirmarEnDiario(secuencia);
+    }
+
+    /**
+     * Obtiene la política de atención vigente.
+     *
+     * @return la política
+     */
+    public PoliticaDeAtencion getPoliticaDeAtencion() {
+        long stamp = cerrojoCola.tryOptimisticRead();
+        Planificador actual = planificador;
+        if (!cerrojoCola.validate(stamp)) {
+            stamp = cerrojoCola.readLock();
+            try {
+                actual = planificador;
+            } finally {
+                cerrojoCola.unlockRead(stamp);
+            }
+        }
+        return actual.getPolitica();
+    }
+
+    /**
+     * Cambia los umbrales del envejecimiento por espera. Un cliente sube al
+     * nivel de prioridad siguiente, al final de su lista, cuando su espera
+     * desde la hora de llegada supera el umbral de su nivel, y así hasta
+     * URGENTE; las subidas se aplican en cada atención y en envejecerCola().
+     * Reprogramar a los clientes en espera es O(n); después cada subida es
+     * O(1). El cambio se guarda en el diario.
+     *
+     * @param minutos la espera a partir de la cual sube un cliente de cada
+     * nivel, uno por nivel del menos al más urgente sin contar URGENTE (BAJA,
+     * NORMAL y PREFERENTE); 0 para que ese nivel no suba, y todos 0 para
+     * desactivar el envejecimiento
+     * @throws IllegalArgumentException si falta un umbral o alguno es
+     * negativo
+     */
+    public void setUmbralesDeEnvejecimiento(int... minutos) {
+        if (minutos == null || minutos.length != NIVELES_QUE_ENVEJECEN) {
+            throw new IllegalArgumentException("Se esperaban " + NIVELES_QUE_ENVEJECEN
+                    + " umbrales de envejecimiento");
+        }
+        for (int umbral : minutos) {
+            if (umbral < 0) {
+                throw new IllegalArgumentException("Los umbrales de envejecimiento no pueden ser negativos: "
+                        + umbral);
+            }
+        }
+        long secuencia;
+        long stamp = cerrojoCola.writeLock();
+        try {
+            colaClientes.setUmbralesDeEnvejecimiento(aSegundos(minutos));
+            if (diario != null) {
+                registroDiario.reiniciar();
+                escribirUmbrales(registroDiario, minutos);
+            }
+            secuencia = anexarAlDiario(OP_CAMBIAR_ENVEJECIMIENTO, System.currentTimeMillis());
+        } finally {
+            cerrojoCola.unlockWrite(stamp);
+        }
+        confirmarEnDiario(secuencia);
+    }
+
+    /**
+     * Obtiene los umbrales del envejecimiento por espera.
+     *
+     * @return los minutos de cada nivel, en el orden de
+     * setUmbralesDeEnvejecimiento(); todos 0 si no hay envejecimiento
+     */
+    public int[] getUmbralesDeEnvejecimiento() {
+        long stamp = cerrojoCola.readLock();
+        try {
+            return aMinutos(colaClientes.getUmbralesDeEnvejecimiento());
+        } finally {
+            cerrojoCola.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Sube de nivel a los clientes en espera que ya superaron el umbral del
+     * suyo, sin esperar a la próxima atención. Solo visita a los que
+     * vencieron, así que se puede llamar seguido aunque la cola sea grande.
+     * Si alguno subió, se guarda en el diario y los oyentes de la cola
+     * reciben un aviso en bloque.
+     *
+     * @return la cantidad de subidas de nivel, 0 si no hay envejecimiento
+     */
+    public int envejecerCola() {
+        long instante = System.currentTimeMillis();
+        LocalDateTime ahora = LocalDateTime.now();
+        int subidas;
+        long secuencia;
+        Aviso aviso;
+        long stamp = cerrojoCola.writeLock();
+        try {
+            subidas = envejecer(ahora);
+            if (subidas == 0) {
+                return 0;
+            }
+            if (diario != null) {
+                registroDiario.reiniciar();
+                registroDiario.escribirFecha(ahora);
+            }
+            secuencia = anexarAlDiario(OP_ENVEJECER, instante);
+            aviso = tomarAviso();
+        } finally {
+            cerrojoCola.unlockWrite(stamp);
+        }
+        avisar(aviso);
+        confirmarEnDiario(secuencia);
+        return subidas;
+    }
+
+    /**
+     * Sube de nivel a los clientes que vencieron hasta una hora. Se llama
+     * con cerrojoCola tomado o al reaplicar el diario, siempre con una hora
+     * guardada en el diario para que se repitan las mismas subidas.
+     *
+     * @param hora la hora hasta la que se envejece
+     * @return la cantidad de subidas de nivel
+     */
+    private int envejecer(LocalDateTime hora) {
+        int subidas = colaClientes.envejecer(Cliente.aNanos(hora));
+        if (subidas > 0) {
+            colaCambiadaEnBloque = true;
+        }
+        return subidas;
+    }
+
+    /**
+     * Deshace la última acción realizada en el sistema. Toma la cima de la
+     * bitácora y usa los manejadores guardados con ella (nodo de la cola y
+     * posición en el historial), así que ningún caso recorre la cola ni el
+     * historial. Revierte el estado según el tipo de acción: - AGREGAR:
+     * desenlaza el nodo de la ColaDeEspera - ATENDER: devuelve el nodo al
+     * inicio de la cola - ELIMINAR: devuelve el nodo al final de la cola -
+     * FINALIZAR: remueve el cliente del historial y lo pone en atención en
+     * su puesto - IMPORTAR: desenlaza los nodos importados que sigan en la
+     * cola
+     *
+     * La acción se revierte entera o no se revierte: si no se puede, la
+     * bitácora, la cola y el historial quedan como estaban.
+     *
+     * @return el registro de la acción deshecha, o null si no había acciones
+     * @throws IllegalStateException si la acción ya no se puede deshacer, por
+     * ejemplo porque otro cliente con el mismo ID volvió a la cola
+     */
+    public RegistroDeAcciones deshacerUltimaAccion() {
+        long instante = System.currentTimeMillis();
+        RegistroDeAcciones registro;
+        long secuencia;
+        Aviso aviso;
+        long stamp = cerrojoCola.writeLock();
+        try {
+            registro = deshacer(0, instante);
+            if (registro == null) {
+                return null;
+            }
+            registroDiario.reiniciar();
+            secuencia = anexarAlDiario(OP_DESHACER, instante);
+            aviso = tomarAviso();
+        } finally {
+            cerrojoCola.unlockWrite(stamp);
+        }
+        avisar(aviso);
+        confirmarEnDiario(secuencia);
+        return registro;
+    }
+
+    /**
+     * Deshace la última acción (ATENDER o FINALIZAR) de un puesto de
+     * atención, aunque otros puestos o la recepción hayan registrado
+     * acciones después. Buscarla recorre la bitácora desde la cima y
+     * quitarla solo mueve las acciones más recientes que ella; las demás
+     * acciones no cambian.
+     *
+     * @param puesto el número del puesto, desde 0
+     * @return el registro de la acción deshecha, o null si el puesto no
+     * tiene acciones para deshacer
+     * @throws IllegalArgumentException si el puesto está fuera de rango
+     * @throws IllegalStateException si la acción ya no se puede deshacer, por
+     * ejemplo porque otro cliente con el mismo ID volvió a la cola
+     */
+    public RegistroDeAcciones deshacerUltimaAccion(int puesto) {
+        validarPuesto(puesto);
+        long instante = System.currentTimeMillis();
+        RegistroDeAcciones registro;
+        long secuencia;
+        Aviso aviso;
+        long stamp = cerrojoCola.writeLock();
+        try {
+            registro = deshacer(bitacora.buscarDePuesto(puesto), instante);
+            if (registro == null) {
+                return null;
+            }
+            registroDiario.reiniciar();
+            registroDiario.escribirInt(puesto);
+            secuencia = anexarAlDiario(OP_DESHACER, instante);
+            aviso = tomarAviso();
+        } finally {
+            cerrojoCola.unlockWrite(stamp);
+        }
+        avisar(aviso);
+        confirmarEnDiario(secuencia);
+        return registro;
+    }
+
+    /**
+     * Revierte una acción de la bitácora y la quita. Se llama con
+     * cerrojoCola tomado o al reaplicar el diario.
+     *
+     * @param indice la posición de la acción, 0 para la cima, o -1
+     * @param instante los milisegundos desde la época del deshacer
+     * @return el registro de la acción deshecha, o null si no había una
+     * acción en esa posición
+     * @throws IllegalStateException si la acción ya no se puede deshacer;
+     * en ese caso no se cambia nada
+     */
+    private RegistroDeAcciones deshacer(int indice, long instante) {
+        nodoCambiado = null;
+        accionRegistrada = false;
+        accionDeshecha = null;
+        if (indice < 0 || indice >= bitacora.tamanio()) {
+            return null;
+        }
+
+        RegistroDeAcciones registro = bitacora.getRegistro(indice);
+        TipoAccion tipoAccion = registro.getTipoAccion();
+        Cliente cliente = registro.getCliente();
+        ColaDeEspera.Nodo nodo = bitacora.getNodo(indice);
+        int posicion = bitacora.getPosicion(indice);
+        ColaDeEspera.Nodo[] lote = bitacora.getLote(indice);
+        long original = bitacora.getInstante(indice);
+        // Las acciones registradas a mano con registrarAccion() no tienen
+        // puesto; ATENDER y FINALIZAR se deshacen en el puesto 0
+        int numeroPuesto = Math.max(0, registro.getPuesto());
+        // Todo lo que puede fallar se revisa antes de tocar el estado
+        validarDeshacer(tipoAccion, cliente, numeroPuesto);
+        bitacora.quitar(indice);
+        accionDeshecha = registro;
+        accionDeshechaEn = indice;
+
+        switch (tipoAccion) {
+            case AGREGAR:
+                if (nodo == null) {
+                    nodo = colaClientes.nodoDe(cliente);
+                }
+                if (nodo != null && colaClientes.quitar(nodo)) {
+                    nodoCambiado = nodo;
+                    nodoCambiadoAgregado = false;
+                    actividad.revertirLlegada(cliente, instante, colaClientes.size());
+                }
+                break;
+
+            case ATENDER:
+                quitarDelHistorial(posicion, cliente);
+                if (nodo == null) {
+                    nodo = ColaDeEspera.crearNodo(cliente);
+                }
+                colaClientes.reinsertarAlInicio(nodo);
+                actividad.revertirAtencion(cliente, instante, colaClientes.size());
+                nodoCambiado = nodo;
+                nodoCambiadoAgregado = true;
+                puesto(numeroPuesto).revertirAtencion(cliente);
+                planificador.revertir(cliente);
+                break;
+
+            case ELIMINAR:
+                if (nodo == null) {
+                    nodo = ColaDeEspera.crearNodo(cliente);
+                }
+                colaClientes.reinsertarAlFinal(nodo);
+                nodoCambiado = nodo;
+                nodoCambiadoAgregado = true;
+                actividad.revertirEliminacion(original, instante, colaClientes.size());
+                break;
+
+            case FINALIZAR:
+                quitarDelHistorial(posicion, cliente);
+                actividad.revertirFinalizacion(original);
+                puesto(numeroPuesto).revertirFinalizacion(cliente, original);
+                break;
+
+            case IMPORTAR:
+                // Los importados que ya se atendieron o eliminaron no están
+                // en la cola y quitar() los ignora
+                if (lote != null) {
+                    for (ColaDeEspera.Nodo importado : lote) {
+                        if (colaClientes.quitar(importado)) {
+                            actividad.revertirLlegada(importado.getCliente(), instante,
+                                    colaClientes.size());
+                        }
+                    }
+                    colaCambiadaEnBloque = true;
+                }
+                break;
+        }
+        return registro;
+    }
+
+    /**
+     * Revisa que una acción se pueda revertir en el estado actual. ATENDER y
+     * ELIMINAR devuelven al cliente a la cola, lo que no se puede si
+     * mientras tanto se agregó otro cliente con su ID; FINALIZAR lo vuelve a
+     * poner en atención, lo que no se puede si el puesto ya atiende a otro.
+     * Se llama con cerrojoCola tomado.
+     *
+     * @param tipoAccion el tipo de la acción a deshacer
+     * @param cliente el cliente de la acción
+     * @param numeroPuesto el puesto de la acción
+     * @throws IllegalStateException si la acción no se puede deshacer
+     */
+    private void validarDeshacer(TipoAccion tipoAccion, Cliente cliente, int numeroPuesto) {
+        switch (tipoAccion) {
+            case ATENDER:
+            case ELIMINAR:
+                if (colaClientes.contains(cliente.getId())) {
+                    throw new IllegalStateException("No se puede deshacer la acción " + tipoAccion
+                            + ": ya hay otro cliente en espera con ID " + cliente.getId());
+                }
+                break;
+
+            case FINALIZAR:
+                Cliente enAtencion = puesto(numeroPuesto).getClienteEnAtencion();
+                if (enAtencion != null && enAtencion != cliente) {
+                    throw new IllegalStateException("No se puede deshacer la acción " + tipoAccion
+                            + ": el PUESTO " + (numeroPuesto + 1) + " ya atiende a otro cliente");
+                }
+                break;
+        }
+    }
+
+    /**
+     * Agrega un cliente al historial y registra su tiempo de espera en las
+     * estadísticas. Se llama con cerrojoCola tomado.
+     *
+     * @param cliente el cliente atendido
+     * @return la posición del cliente en el historial
+     */
+    private int agregarAlHistorial(Cliente cliente) {
+        long stamp = cerrojoHistorial.writeLock();
+        try {
+            Exception falloAnterior = historialAtendidos.getFalloDeArchivo();
+            int posicion = historialAtendidos.agregar(cliente);
+            estadisticas.registrar(cliente);
+            Exception fallo = historialAtendidos.getFalloDeArchivo();
+            if (fallo != null && fallo != falloAnterior) {
+                avisarFallo("No se pudo archivar clientes atendidos; siguen en memoria", fallo);
+            }
+            return posicion;
+        } finally {
+            cerrojoHistorial.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Quita un cliente del historial, revierte su tiempo de espera en las
+     * estadísticas y lo saca del índice de casos si estaba finalizado. Se
+     * llama con cerrojoCola tomado.
+     *
+     * @param posicion la posición guardada en la bitácora, o -1
+     * @param cliente el cliente a quitar
+     */
+    private void quitarDelHistorial(int posicion, Cliente cliente) {
+        long stamp = cerrojoHistorial.writeLock();
+        try {
+            int quitada = historialAtendidos.quitar(posicion, cliente);
+            if (quitada >= 0) {
+                estadisticas.revertir(cliente);
+                indiceDeCasos.quitar(quitada, cliente.getProblema(), cliente.getDiagnostico());
+            }
+        } finally {
+            cerrojoHistorial.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Agrega al índice de casos el problema y el diagnóstico de un cliente
+     * finalizado. Se llama con cerrojoCola tomado.
+     *
+     * @param posicion la posición del cliente en el historial
+     * @param cliente el cliente finalizado
+     */
+    private void indexarCaso(int posicion, Cliente cliente) {
+        long stamp = cerrojoHistorial.writeLock();
+        try {
+            indiceDeCasos.agregar(posicion, cliente.getProblema(), cliente.getDiagnostico());
+        } finally {
+            cerrojoHistorial.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Registra una acción en la bitácora y anota el cambio para avisar a los
+     * oyentes. Se llama con cerrojoCola tomado o al reaplicar el diario.
+     *
+     * @param tipo el tipo de acción
+     * @param cliente el cliente involucrado
+     * @param nodo el nodo de la cola asociado, o null
+     * @param posicion la posición en el historial asociada, o -1
+     * @param instante los milisegundos desde la época de la acción
+     */
+    private void registrarEnBitacora(TipoAccion tipo, Cliente cliente, ColaDeEspera.Nodo nodo,
+            int posicion, long instante) {
+        registrarEnBitacora(tipo, cliente, nodo, posicion, null, instante);
+    }
+
+    /**
+     * Registra una acción con los nodos que agregó de una vez y anota el
+     * cambio para avisar a los oyentes. Se llama con cerrojoCola tomado o al
+     * reaplicar el diario.
+     *
+     * @param tipo el tipo de acción
+     * @param cliente el cliente que representa a la acción
+     * @param nodo el nodo de la cola asociado, o null
+     * @param posicion la posición en el historial asociada, o -1
+     * @param lote los nodos agregados, o null
+     * @param instante los milisegundos desde la época de la acción
+     */
+    private void registrarEnBitacora(TipoAccion tipo, Cliente cliente, ColaDeEspera.Nodo nodo,
+            int posicion, ColaDeEspera.Nodo[] lote, long instante) {
+        registrarEnBitacora(tipo, cliente, nodo, posicion, lote, RegistroDeAcciones.SIN_PUESTO,
+                instante);
+    }
+
+    /**
+     * Registra una acción de un puesto de atención y anota el cambio para
+     * avisar a los oyentes. Se llama con cerrojoCola tomado o al reaplicar
+     * el diario.
+     *
+     * @param tipo el tipo de acción
+     * @param cliente el cliente que representa a la acción
+     * @param nodo el nodo de la cola asociado, o null
+     * @param posicion la posición en el historial asociada, o -1
+     * @param lote los nodos agregados, o null
+     * @param puesto el número del puesto, o RegistroDeAcciones.SIN_PUESTO
+     * @param instante los milisegundos desde la época de la acción
+     */
+    private void registrarEnBitacora(TipoAccion tipo, Cliente cliente, ColaDeEspera.Nodo nodo,
+            int posicion, ColaDeEspera.Nodo[] lote, int puesto, long instante) {
+        accionDescartada = bitacora.tamanio() == bitacora.getProfundidad();
+        bitacora.registrar(tipo, cliente, nodo, posicion, lote, puesto, instante);
+        accionRegistrada = true;
+        accionDeshecha = null;
+    }
+
+    /**
+     * Prepara el aviso a los oyentes de los cambios de la cola y de la
+     * bitácora que dejó la última operación interna. Se llama con cerrojoCola
+     * tomado, para que la posición corresponda a ese momento.
+     *
+     * @return el aviso, o null si no hubo cambios o no hay oyentes
+     */
+    private Aviso tomarAviso() {
+        ColaDeEspera.Nodo nodo = nodoCambiado;
+        boolean enBloque = colaCambiadaEnBloque;
+        boolean registrada = accionRegistrada;
+        RegistroDeAcciones deshecha = accionDeshecha;
+        nodoCambiado = null;
+        colaCambiadaEnBloque = false;
+        accionRegistrada = false;
+        accionDeshecha = null;
+        boolean avisarCola = (nodo != null || enBloque) && !oyentesDeCola.isEmpty();
+        boolean avisarBitacora = (registrada || deshecha != null) && !oyentesDeBitacora.isEmpty();
+        if (!avisarCola && !avisarBitacora) {
+            return null;
+        }
+        Aviso aviso = new Aviso();
+        if (avisarCola && enBloque) {
+            aviso.enBloque = true;
+        } else if (avisarCola) {
+            aviso.cliente = nodo.getCliente();
+            aviso.agregado = nodoCambiadoAgregado;
+            aviso.posicion = colaClientes.posicion(nodo);
+        }
+        if (avisarBitacora) {
+            aviso.registrada = registrada ? bitacora.getRegistro(0) : null;
+            aviso.descartada = registrada && accionDescartada;
+            aviso.deshecha = deshecha;
+            aviso.deshechaEn = accionDeshechaEn;
+        }
+        return aviso;
+    }
+
+    /**
+     * Entrega un aviso a los oyentes de la cola y de la bitácora. Se llama
+     * después de soltar cerrojoCola.
+     *
+     * @param aviso el aviso, o null
+     */
+    private void avisar(Aviso aviso) {
+        if (aviso == null) {
+            return;
+        }
+        if (aviso.enBloque) {
+            for (OyenteDeCola oyente : oyentesDeCola) {
+                oyente.colaCambiada();
+            }
+        } else if (aviso.cliente != null) {
+            for (OyenteDeCola oyente : oyentesDeCola) {
+                if (aviso.agregado) {
+                    oyente.clienteAgregado(aviso.posicion, aviso.cliente);
+                } else {
+                    oyente.clienteQuitado(aviso.posicion, aviso.cliente);
+                }
+            }
+        }
+        for (OyenteDeBitacora oyente : oyentesDeBitacora) {
+            if (aviso.registrada != null) {
+                oyente.accionRegistrada(aviso.registrada, aviso.descartada);
+            } else if (aviso.deshecha != null) {
+                oyente.accionDeshecha(aviso.deshechaEn, aviso.deshecha);
+            }
+        }
+    }
+
+    /**
+     * Registra una acción en la bitácora sin ejecutar ninguna lógica. Útil
+     * para registrar acciones que se manejan manualmente en el controlador.
+     * Al deshacerla, el cliente se ubica en la cola o en el historial por su
+     * ID.
+     *
+     * @param tipoAccion el tipo de acción a registrar
+     * @param cliente el cliente involucrado en la acción
+     */
+    public void registrarAccion(TipoAccion tipoAccion, Cliente cliente) {
+        long instante = System.currentTimeMillis();
+        long secuencia;
+        Aviso aviso;
+        long stamp = cerrojoCola.writeLock();
+        try {
+            nodoCambiado = null;
+            registrarEnBitacora(tipoAccion, cliente, null, -1, instante);
+            if (diario != null) {
+                registroDiario.reiniciar();
+                registroDiario.escribirByte(tipoAccion.ordinal());
+                registroDiario.escribirCliente(cliente);
+            }
+            secuencia = anexarAlDiario(OP_REGISTRAR, instante);
+            aviso = tomarAviso();
+        } finally {
+            cerrojoCola.unlockWrite(stamp);
+        }
+        avisar(aviso);
+        confirmarEnDiario(secuencia);
+    }
+
+    /**
+     * Obtiene el cliente actualmente en atención en el puesto 0.
+     *
+     * @return el cliente en atención, o null si no hay ninguno
+     */
+    public Cliente getClienteEnAtencion() {
+        return getClienteEnAtencion(0);
+    }
+
+    /**
+     * Obtiene el cliente en atención en un puesto, con una lectura optimista.
+     *
+     * @param puesto el número del puesto, desde 0
+     * @return el cliente en atención, o null si el puesto está libre
+     * @throws IllegalArgumentException si el puesto está fuera de rango
+     */
+    public Cliente getClienteEnAtencion(int puesto) {
+        validarPuesto(puesto);
+        long stamp = cerrojoCola.tryOptimisticRead();
+        Cliente cliente = clienteEnAtencion(puesto);
+        if (!cerrojoCola.validate(stamp)) {
+            stamp = cerrojoCola.readLock();
+            try {
+                cliente = clienteEnAtencion(puesto);
+            } finally {
+                cerrojoCola.unlockRead(stamp);
+            }
+        }
+        return cliente;
+    }
+
+    /**
+     * Obtiene el resumen de un puesto de atención: su cliente en atención y
+     * sus contadores.
+     *
+     * @param puesto el número del puesto, desde 0
+     * @return el resumen del puesto
+     * @throws IllegalArgumentException si el puesto está fuera de rango
+     */
+    public ResumenDePuesto getResumenDePuesto(int puesto) {
+        validarPuesto(puesto);
+        long stamp = cerrojoCola.readLock();
+        try {
+            if (puesto >= puestos.length) {
+                return new PuestoDeAtencion(puesto).resumir();
+            }
+            return puestos[puesto].resumir();
+        } finally {
+            cerrojoCola.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Obtiene los resúmenes de los puestos usados hasta ahora, del puesto 0
+     * al de mayor número.
+     *
+     * @return una List con un resumen por puesto
+     */
+    public List<ResumenDePuesto> getResumenesDePuestos() {
+        long stamp = cerrojoCola.readLock();
+        try {
+            List<ResumenDePuesto> resumenes = new ArrayList<>(puestos.length);
+            for (PuestoDeAtencion puesto : puestos) {
+                resumenes.add(puesto.resumir());
+            }
+            return resumenes;
+        } finally {
+            cerrojoCola.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Finaliza la atención del cliente actual del puesto 0 sin registrar un
+     * diagnóstico.
+     */
+    public void finalizarAtencion() {
+        finalizarAtencion(0);
+    }
+
+    /**
+     * Libera el puesto de atención indicado sin registrar un diagnóstico.
+     *
+     * @param puesto el número del puesto, desde 0
+     * @throws IllegalArgumentException si el puesto está fuera de rango
+     */
+    public void finalizarAtencion(int puesto) {
+        validarPuesto(puesto);
+        long instante = System.currentTimeMillis();
+        long secuencia;
+        long stamp = cerrojoCola.writeLock();
+        try {
+            liberarAtencion(puesto, instante);
+            registroDiario.reiniciar();
+            registroDiario.escribirInt(puesto);
+            secuencia = anexarAlDiario(OP_LIBERAR_ATENCION, instante);
+        } finally {
+            cerrojoCola.unlockWrite(stamp);
+        }
+        confirmarEnDiario(secuencia);
+    }
+
+    /**
+     * Libera al cliente en atención de un puesto sin registrar un
+     * diagnóstico. Si ya estaba en el historial, queda como caso finalizado
+     * en el índice de casos con el diagnóstico que tenga. Se llama con
+     * cerrojoCola tomado o al reaplicar el diario.
+     *
+     * @param numeroPuesto el número del puesto
+     * @param instante los milisegundos desde la época de la operación
+     */
+    private void liberarAtencion(int numeroPuesto, long instante) {
+        PuestoDeAtencion puesto = puesto(numeroPuesto);
+        Cliente cliente = puesto.getClienteEnAtencion();
+        if (cliente != null && puesto.getPosicionEnAtencion() >= 0) {
+            indexarCaso(puesto.getPosicionEnAtencion(), cliente);
+        }
+        if (cliente != null) {
+            actividad.registrarFinalizacion(instante);
+        }
+        puesto.liberar();
+    }
+
+    /**
+     * Finaliza la atención del cliente actual del puesto 0 registrando su
+     * diagnóstico. Si el cliente no está en el historial (por ejemplo, tras
+     * deshacer una finalización) lo vuelve a agregar, manteniendo los índices
+     * al día. Registra la acción FINALIZAR en la bitácora.
+     *
+     * @param diagnostico el diagnóstico dado al cliente
+     * @return el cliente finalizado, o null si no había cliente en atención
+     */
+    public Cliente finalizarAtencion(String diagnostico) {
+        return finalizarAtencion(0, diagnostico);
+    }
+
+    /**
+     * Finaliza la atención del cliente de un puesto registrando su
+     * diagnóstico, como finalizarAtencion(String). Suma la finalización y su
+     * tiempo de servicio a los contadores del puesto.
+     *
+     * @param puesto el número del puesto, desde 0
+     * @param diagnostico el diagnóstico dado al cliente
+     * @return el cliente finalizado, o null si el puesto estaba libre
+     * @throws IllegalArgumentException si el puesto está fuera de rango
+     */
+    public Cliente finalizarAtencion(int puesto, String diagnostico) {
+        validarPuesto(puesto);
+        long instante = System.currentTimeMillis();
+        Cliente cliente;
+        long secuencia;
+        Aviso aviso;
+        long stamp = cerrojoCola.writeLock();
+        try {
+            cliente = finalizar(puesto, diagnostico, instante);
+            if (cliente == null) {
+                return null;
+            }
+            if (diario != null) {
+                registroDiario.reiniciar();
+                registroDiario.escribirTexto(diagnostico);
+                registroDiario.escribirInt(puesto);
+            }
+            secuencia = anexarAlDiario(OP_FINALIZAR, instante);
+            aviso = tomarAviso();
+        } finally {
+            cerrojoCola.unlockWrite(stamp);
+        }
+        avisar(aviso);
+        confirmarEnDiario(secuencia);
+        return cliente;
+    }
+
+    /**
+     * Registra el diagnóstico del cliente en atención de un puesto y lo
+     * libera. Se llama con cerrojoCola tomado o al reaplicar el diario.
+     *
+     * @param numeroPuesto el número del puesto
+     * @param diagnostico el diagnóstico dado al cliente
+     * @param instante los milisegundos desde la época para la bitácora
+     * @return el cliente finalizado, o null si el puesto estaba libre
+     */
+    private Cliente finalizar(int numeroPuesto, String diagnostico, long instante) {
+        nodoCambiado = null;
+        PuestoDeAtencion puesto = puesto(numeroPuesto);
+        Cliente cliente = puesto.getClienteEnAtencion();
+        if (cliente == null) {
+            return null;
+        }
+        cliente.setDiagnostico(diagnostico);
+        if (puesto.getPosicionEnAtencion() < 0) {
+            puesto.setPosicionEnAtencion(agregarAlHistorial(cliente));
+        }
+        int posicion = puesto.getPosicionEnAtencion();
+        indexarCaso(posicion, cliente);
+        actividad.registrarFinalizacion(instante);
+        registrarEnBitacora(TipoAccion.FINALIZAR, cliente, null, posicion, null, numeroPuesto,
+                instante);
+        puesto.finalizar(instante);
+        return cliente;
+    }
+
+    /**
+     * Obtiene un puesto de atención para modificarlo, creando los que falten
+     * hasta él. Se llama con cerrojoCola tomado o al reaplicar el diario.
+     *
+     * @param numero el número del puesto
+     * @return el puesto
+     */
+    private PuestoDeAtencion puesto(int numero) {
+        validarPuesto(numero);
+        if (numero >= puestos.length) {
+            PuestoDeAtencion[] ampliados = Arrays.copyOf(puestos, numero + 1);
+            for (int i = puestos.length; i < ampliados.length; i++) {
+                ampliados[i] = new PuestoDeAtencion(i);
+            }
+            puestos = ampliados;
+        }
+        return puestos[numero];
+    }
+
+    /**
+     * Lee el cliente en atención de un puesto sin crearlo. Tolera una lectura
+     * optimista: el arreglo de puestos se reemplaza entero al crecer.
+     *
+     * @param numero el número del puesto
+     * @return el cliente, o null si el puesto está libre o no se usó
+     */
+    private Cliente clienteEnAtencion(int numero) {
+        PuestoDeAtencion[] actuales = puestos;
+        return numero < actuales.length ? actuales[numero].getClienteEnAtencion() : null;
+    }
+
+    private static void validarPuesto(int numero) {
+        if (numero < 0 || numero >= MAXIMO_PUESTOS) {
+            throw new IllegalArgumentException("Puesto fuera de rango: " + numero);
+        }
+    }
+
+    // ==================== IMPORTACIÓN ====================
+    /**
+     * Agrega a la cola los clientes de un archivo CSV, con los campos id,
+     * nombre, tipo de solicitud, prioridad, problema y, opcionalmente, fecha
+     * de registro (ver ImportadorDeClientes). El archivo se lee de a una
+     * línea con un buffer fijo y los clientes entran de a lotes, de modo que
+     * la memoria usada no depende del tamaño del archivo y las demás
+     * operaciones siguen funcionando durante la importación. Las líneas
+     * inválidas y los IDs que ya están en espera se descartan y se cuentan
+     * en el informe.
+     *
+     * Toda la importación se registra en la bitácora como una sola acción
+     * IMPORTAR. Si la lectura falla a la mitad, lo ya agregado queda en la
+     * cola y también se puede deshacer.
+     *
+     * @param archivo el archivo CSV
+     * @return el informe con lo importado y lo descartado
+     * @throws IOException si el archivo no se puede leer
+     */
+    public InformeDeImportacion importarClientes(Path archivo) throws IOException {
+        Cliente[] lote = new Cliente[LOTE_DE_IMPORTACION];
+        int importados = 0;
+        // Con el cerrojo de instantáneas tomado ninguna instantánea queda en
+        // medio de la importación, antes de que llegue a la bitácora
+        synchronized (cerrojoInstantanea) {
+            try (ImportadorDeClientes importador = new ImportadorDeClientes(archivo)) {
+                try {
+                    int leidos;
+                    while ((leidos = importador.leerLote(lote)) > 0) {
+                        importados += agregarLote(lote, leidos, importador);
+                    }
+                } finally {
+                    terminarImportacion();
+                }
+                return importador.informe(importados);
+            }
+        }
+    }
+
+    /**
+     * Agrega a la cola un lote de clientes importados y lo guarda en el
+     * diario como un solo registro.
+     *
+     * @param lote los clientes leídos del archivo
+     * @param cantidad cuántos clientes del lote usar
+     * @param importador donde anotar los IDs repetidos
+     * @return la cantidad de clientes agregados
+     */
+    private int agregarLote(Cliente[] lote, int cantidad, ImportadorDeClientes importador) {
+        long instante = System.currentTimeMillis();
+        int agregados = 0;
+        long secuencia = 0;
+        Aviso aviso;
+        long stamp = cerrojoCola.writeLock();
+        try {
+            for (int i = 0; i < cantidad; i++) {
+                Cliente cliente = lote[i];
+                if (colaClientes.contains(cliente.getId())) {
+                    importador.rechazarDuplicado(cliente.getId());
+                    continue;
+                }
+                importar(cliente, instante);
+                lote[agregados++] = cliente;
+            }
+            if (agregados > 0) {
+                if (diario != null) {
+                    registroDiario.reiniciar();
+                    registroDiario.escribirInt(agregados);
+                    for (int i = 0; i < agregados; i++) {
+                        registroDiario.escribirCliente(lote[i]);
+                    }
+                }
+                secuencia = anexarAlDiario(OP_IMPORTAR_LOTE, instante);
+            }
+            aviso = tomarAviso();
+        } finally {
+            cerrojoCola.unlockWrite(stamp);
+        }
+        avisar(aviso);
+        if (agregados > 0) {
+            confirmarEnDiario(secuencia);
+        }
+        return agregados;
+    }
+
+    /**
+     * Agrega un cliente importado al final de la cola y lo suma a la
+     * importación en curso. Se llama con cerrojoCola tomado o al reaplicar el
+     * diario.
+     *
+     * @param cliente el cliente importado
+     * @param instante los milisegundos desde la época del lote
+     */
+    private void importar(Cliente cliente, long instante) {
+        ColaDeEspera.Nodo nodo = colaClientes.ofrecer(cliente);
+        actividad.registrarLlegada(cliente, instante, colaClientes.size());
+        if (importacionEnCurso == null) {
+            importacionEnCurso = new ArrayList<>();
+        }
+        importacionEnCurso.add(nodo);
+        nodoCambiado = null;
+        colaCambiadaEnBloque = true;
+    }
+
+    /**
+     * Registra en la bitácora la importación en curso, si agregó algún
+     * cliente, y lo guarda en el diario.
+     */
+    private void terminarImportacion() {
+        long instante = System.currentTimeMillis();
+        long secuencia;
+        Aviso aviso;
+        long stamp = cerrojoCola.writeLock();
+        try {
+            if (!cerrarImportacion(instante)) {
+                return;
+            }
+            registroDiario.reiniciar();
+            secuencia = anexarAlDiario(OP_IMPORTAR_FIN, instante);
+            aviso = tomarAviso();
+        } finally {
+            cerrojoCola.unlockWrite(stamp);
+        }
+        avisar(aviso);
+        confirmarEnDiario(secuencia);
+    }
 
     /**
-     * Constructor del sistema de gestión. Inicializa las tres estructuras de
-     * datos vacías: - ArrayDeque para la cola de clientes - LinkedList para el
-     * historial de atendidos - Stack para el registro de acciones
+     * Registra la importación en curso como una sola acción IMPORTAR, con el
+     * primer cliente importado como representante. Se llama con cerrojoCola
+     * tomado o al reaplicar el diario.
+     *
+     * @param instante los milisegundos desde la época del fin de la
+     * importación
+     * @return true si había una importación en curso
      */
-    public SistemaDeGestion() {
-        this.colaClientes = new ArrayDeque<>();
-        this.historialAtendidos = new LinkedList<>();
-        this.pilaAcciones = new Stack<>();
-        this.clienteEnAtencion = null;
-        this.contadorNormalesAtendidos = 0;
+    private boolean cerrarImportacion(long instante) {
+        if (importacionEnCurso == null) {
+            return false;
+        }
+        ColaDeEspera.Nodo[] lote = importacionEnCurso.toArray(new ColaDeEspera.Nodo[0]);
+        importacionEnCurso = null;
+        registrarEnBitacora(TipoAccion.IMPORTAR, lote[0].getCliente(), null, -1, lote, instante);
+        return true;
     }
 
+    // ==================== EXPORTACIÓN ====================
     /**
-     * Agrega un cliente a la cola de espera. Utiliza offer() del ArrayDeque
-     * para agregar al final de la cola. Registra la acción en el Stack para
-     * poder deshacerla.
+     * Escribe el historial de atendidos en un archivo CSV o NDJSON, un
+     * cliente por línea en orden de atención, con id, nombre, tipo,
+     * prioridad, problema, fecha de registro, diagnóstico y horas de llegada
+     * y de atención. Los datos van del modelo al archivo fila por fila, sin
+     * armar el texto completo en memoria.
      *
-     * @param cliente el cliente a agregar a la cola
+     * El archivo refleja el historial del momento en que se llama: el corte
+     * se toma con los cerrojos en una pausa breve (solo copia los clientes
+     * que todavía están en memoria) y después las atenciones, búsquedas y
+     * recepciones siguen mientras se escribe. Se puede llamar desde un hilo
+     * en segundo plano. El archivo se escribe aparte y reemplaza al destino
+     * solo si se completa.
+     *
+     * @param archivo el archivo de destino
+     * @param formato el formato del archivo
+     * @return la cantidad de clientes exportados
+     * @throws IOException si no se puede escribir el archivo
      */
-    public void agregarCliente(Cliente cliente) {
-        colaClientes.offer(cliente);
-        pilaAcciones.push(new RegistroDeAcciones("agregar", cliente));
+    public long exportarHistorial(Path archivo, FormatoDeExportacion formato) throws IOException {
+        ExportadorDeDatos.CorteDeHistorial corte;
+        HistorialAtendidos historial;
+        long stamp = cerrojoCola.readLock();
+        try {
+            long stampHistorial = cerrojoHistorial.readLock();
+            try {
+                historial = historialAtendidos;
+                corte = ExportadorDeDatos.CorteDeHistorial.tomar(historial);
+            } finally {
+                cerrojoHistorial.unlockRead(stampHistorial);
+            }
+        } finally {
+            cerrojoCola.unlockRead(stamp);
+        }
+        return corte.escribir(historial, cerrojoHistorial, archivo, formato);
     }
 
     /**
-     * Atiende al siguiente cliente de la cola. Utiliza poll() del ArrayDeque
-     * para extraer el primer cliente. Registra la hora de atención, lo agrega
-     * al historial (LinkedList) y guarda la acción en el Stack.
+     * Escribe la bitácora de acciones en un archivo CSV o NDJSON, una acción
+     * por línea de la más antigua a la más reciente, con fecha y hora, tipo
+     * de acción, id, nombre, tipo y prioridad del cliente, cuántos clientes
+     * abarcó (más de uno solo en una importación) y el puesto de atención
+     * que la hizo. Como
+     * exportarHistorial(), usa un corte tomado al llamar y escribe fuera de
+     * los cerrojos.
      *
-     * @return el cliente atendido, o null si la cola está vacía
+     * @param archivo el archivo de destino
+     * @param formato el formato del archivo
+     * @return la cantidad de acciones exportadas
+     * @throws IOException si no se puede escribir el archivo
      */
-    public Cliente atenderCliente() {
-        if (colaClientes.isEmpty()) {
-            return null;
+    public long exportarAcciones(Path archivo, FormatoDeExportacion formato) throws IOException {
+        ExportadorDeDatos.CorteDeBitacora corte;
+        long stamp = cerrojoCola.readLock();
+        try {
+            corte = ExportadorDeDatos.CorteDeBitacora.tomar(bitacora);
+        } finally {
+            cerrojoCola.unlockRead(stamp);
         }
+        return corte.escribir(archivo, formato);
+    }
 
-        Cliente cliente = null;
+    // ==================== DIARIO ====================
+    /**
+     * Anexa al diario la operación cuyos datos están en registroDiario. Se
+     * llama con cerrojoCola tomado, justo después de aplicar la operación.
+     *
+     * @param operacion el código de la operación
+     * @param instante los milisegundos desde la época
+     * @return el número de secuencia del registro, o 0 si no hay diario
+     */
+    private long anexarAlDiario(byte operacion, long instante) {
+        if (diario == null) {
+            return 0;
+        }
+        return diario.anexar(operacion, instante, registroDiario);
+    }
 
-        if (contadorNormalesAtendidos >= 2) {
-            cliente = buscarYExtraerUrgente();
+    /**
+     * Espera a que el registro quede escrito. Se llama después de soltar
+     * cerrojoCola para que varias operaciones compartan la escritura.
+     *
+     * @param secuencia el número devuelto por anexarAlDiario()
+     * @throws UncheckedIOException si el diario no pudo escribir
+     */
+    private void confirmarEnDiario(long secuencia) {
+        if (diario == null) {
+            return;
+        }
+        try {
+            diario.confirmar(secuencia);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar la operación en el diario", e);
+        }
+        long ultima = Math.max(secuenciaUltimaInstantanea, secuenciaUltimoIntento);
+        if (secuencia - ultima >= REGISTROS_POR_INSTANTANEA
+                && instantaneaProgramada.compareAndSet(false, true)) {
+            programarInstantanea(secuencia);
+        }
+    }
 
-            // Si encontramos urgente, reiniciamos contador
-            if (cliente != null) {
-                contadorNormalesAtendidos = 0;
-            } else {
-                // No hay urgentes, atendemos normal
-                cliente = colaClientes.poll();
-                if (cliente.getPrioridad() == Prioridad.NORMAL) {
-                    contadorNormalesAtendidos++;
+    /**
+     * Pide una instantánea en el hilo de fondo. Si falla, guarda el error
+     * para getFalloDeInstantanea() y lo avisa a los OyenteDeFallos.
+     *
+     * @param secuencia la secuencia del registro que la pidió
+     */
+    private void programarInstantanea(long secuencia) {
+        secuenciaUltimoIntento = secuencia;
+        try {
+            hiloDeInstantaneas.execute(() -> {
+                try {
+                    tomarInstantanea();
+                } catch (IOException | RuntimeException e) {
+                    falloDeInstantanea = e;
+                    avisarFallo("No se pudo guardar la instantánea", e);
+                } finally {
+                    instantaneaProgramada.set(false);
                 }
-            }
-        } else {
-            // Aún no llegamos a 2 normales, atendemos el siguiente
-            cliente = colaClientes.poll();
-
-            // Incrementamos solo si es normal
-            if (cliente.getPrioridad() == Prioridad.NORMAL) {
-                contadorNormalesAtendidos++;
-            }
+            });
+        } catch (RejectedExecutionException e) {
+            // El sistema se está cerrando
+            instantaneaProgramada.set(false);
         }
+    }
 
-        if (cliente != null) {
-            cliente.setHoraAtencion(java.time.LocalDateTime.now());
-            clienteEnAtencion = cliente;
-            historialAtendidos.add(cliente);
-            pilaAcciones.push(new RegistroDeAcciones("atender", cliente));
+    // ==================== INSTANTÁNEAS ====================
+    /**
+     * Copia las referencias del estado completo y corta el diario en ese
+     * punto. Se llama con cerrojoCola tomado, que excluye toda modificación
+     * de la cola, el historial y la bitácora.
+     *
+     * @return la instantánea capturada, todavía sin codificar
+     */
+    private Instantanea capturar() {
+        int acciones = bitacora.tamanio();
+        byte[] tipos = new byte[acciones];
+        long[] instantes = new long[acciones];
+        Cliente[] clientes = new Cliente[acciones];
+        ColaDeEspera.Nodo[] nodos = new ColaDeEspera.Nodo[acciones];
+        int[] posiciones = new int[acciones];
+        ColaDeEspera.Nodo[][] lotes = new ColaDeEspera.Nodo[acciones][];
+        byte[] puestosDeAcciones = new byte[acciones];
+        for (int i = 0; i < acciones; i++) {
+            // La instantánea guarda de la más antigua a la más reciente
+            int desdeCima = acciones - 1 - i;
+            tipos[i] = (byte) bitacora.getTipo(desdeCima).ordinal();
+            instantes[i] = bitacora.getInstante(desdeCima);
+            clientes[i] = bitacora.getCliente(desdeCima);
+            nodos[i] = bitacora.getNodo(desdeCima);
+            posiciones[i] = bitacora.getPosicion(desdeCima);
+            lotes[i] = bitacora.getLote(desdeCima);
+            puestosDeAcciones[i] = (byte) bitacora.getPuesto(desdeCima);
         }
-
-        return cliente;
+        PuestoDeAtencion[] copiaDePuestos = new PuestoDeAtencion[puestos.length];
+        for (int i = 0; i < puestos.length; i++) {
+            copiaDePuestos[i] = puestos[i].copiar();
+        }
+        return new Instantanea(diario.cortar(), colaClientes.nodos(),
+                colaClientes.nodosPorPrioridad(), historialAtendidos.copiarPosiciones(), copiaDePuestos,
+                planificador.getPolitica(), planificador.getEstado(),
+                aMinutos(colaClientes.getUmbralesDeEnvejecimiento()), bitacora.getDescartadas(), tipos,
+                instantes, clientes, nodos, posiciones, lotes, puestosDeAcciones);
     }
 
     /**
-     * Elimina un cliente específico de la cola de espera por su ID. Recorre el
-     * ArrayDeque usando un Iterator para buscar y eliminar. Registra la acción
-     * en el Stack para poder deshacerla.
+     * Carga una instantánea en un sistema recién creado, antes de reaplicar
+     * el diario. Las estadísticas se recalculan a partir del historial, y la
+     * actividad por tiempo a partir de las horas de llegada y atención.
      *
-     * @param id el identificador del cliente a eliminar
-     * @return true si se eliminó exitosamente, false si no se encontró
+     * @param instantanea la instantánea leída del disco
      */
-    public boolean eliminarClienteDeCola(String id) {
-        Iterator<Cliente> iterator = colaClientes.iterator();
-        while (iterator.hasNext()) {
-            Cliente c = iterator.next();
-            if (c.getId().equals(id)) {
-                iterator.remove();
-                pilaAcciones.push(new RegistroDeAcciones("eliminar", c));
-                return true;
+    private void restaurar(Instantanea instantanea) {
+        for (ColaDeEspera.Nodo nodo : instantanea.cola) {
+            colaClientes.reinsertarAlFinal(nodo);
+            actividad.restaurarEnEspera(nodo.getCliente());
+        }
+        if (instantanea.colaPorPrioridad != null) {
+            colaClientes.ordenarPrioridades(instantanea.colaPorPrioridad);
+        }
+        colaClientes.setUmbralesDeEnvejecimiento(aSegundos(instantanea.umbralesDeEnvejecimiento));
+        boolean[] enAtencion = new boolean[instantanea.historial.length];
+        for (PuestoDeAtencion puesto : instantanea.puestos) {
+            int posicion = puesto.getPosicionEnAtencion();
+            if (posicion >= 0 && posicion < enAtencion.length) {
+                enAtencion[posicion] = true;
+            }
+        }
+        for (Cliente cliente : instantanea.historial) {
+            int posicion = historialAtendidos.agregar(cliente);
+            estadisticas.registrar(cliente);
+            // Todos los del historial están finalizados salvo los en atención
+            boolean finalizado = posicion >= enAtencion.length || !enAtencion[posicion];
+            if (finalizado) {
+                indiceDeCasos.agregar(posicion, cliente.getProblema(), cliente.getDiagnostico());
+            }
+            actividad.restaurarAtendido(cliente, finalizado);
+        }
+        for (PuestoDeAtencion puesto : instantanea.puestos) {
+            if (puesto.getClienteEnAtencion() != null && puesto.getPosicionEnAtencion() < 0) {
+                // Atendido cuya finalización se deshizo: ya no está en el
+                // historial
+                actividad.restaurarAtendido(puesto.getClienteEnAtencion(), false);
             }
         }
-        return false;
+        actividad.establecerEnCola(colaClientes.size());
+        puestos = instantanea.puestos;
+        planificador = instantanea.politica.crearPlanificador();
+        planificador.setEstado(instantanea.estadoDelPlanificador);
+        bitacora.establecerDescartadas(instantanea.descartadas);
+        for (int i = 0; i < instantanea.tipos.length; i++) {
+            bitacora.registrar(TipoAccion.desdeOrdinal(instantanea.tipos[i]),
+                    instantanea.clientes[i], instantanea.nodos[i], instantanea.posiciones[i],
+                    instantanea.lotes[i], instantanea.puestosDeAcciones[i],
+                    instantanea.instantes[i]);
+        }
     }
 
     /**
-     * 🆕 Busca y extrae el primer cliente URGENTE de la cola.
+     * Reaplica un registro del diario al abrir el sistema. Las operaciones se
+     * repiten con los mismos datos (hora de atención, instante, puesto), por
+     * lo que la cola, los puestos, el historial, el planificador y la
+     * bitácora quedan como estaban. Las operaciones de atención llevan el puesto al
+     * final de sus datos; en los diarios anteriores a los puestos no está y
+     * se usa el puesto 0.
      *
-     * @return el cliente urgente encontrado, o null si no hay
+     * @param operacion el código de la operación
+     * @param instante los milisegundos desde la época del registro
+     * @param datos los datos de la operación
+     * @throws IOException si el registro no coincide con el estado
      */
-    private Cliente buscarYExtraerUrgente() {
-        Iterator<Cliente> iterator = colaClientes.iterator();
-        Cliente clienteUrgente = null;
+    private void reaplicar(byte operacion, long instante, ByteBuffer datos) throws IOException {
+        switch (operacion) {
+            case OP_AGREGAR:
+                Cliente nuevo = CodificadorBinario.leerCliente(datos);
+                ColaDeEspera.Nodo nodo = colaClientes.ofrecer(nuevo);
+                actividad.registrarLlegada(nuevo, instante, colaClientes.size());
+                bitacora.registrar(TipoAccion.AGREGAR, nuevo, nodo, -1, instante);
+                break;
 
-        while (iterator.hasNext()) {
-            Cliente c = iterator.next();
-            if (c.getPrioridad() == Prioridad.URGENTE) {
-                clienteUrgente = c;
-                iterator.remove(); // Lo sacamos de la cola
+            case OP_ATENDER:
+                String id = CodificadorBinario.leerTexto(datos);
+                LocalDateTime horaAtencion = CodificadorBinario.leerFecha(datos);
+                Cliente atendido = atender(leerPuesto(datos), horaAtencion, instante);
+                if (atendido == null || !atendido.getId().equals(id)) {
+                    throw new IOException("El diario no coincide con la cola: se esperaba atender a " + id);
+                }
                 break;
-            }
-        }
 
-        return clienteUrgente;
-    }
+            case OP_ELIMINAR:
+                eliminar(CodificadorBinario.leerTexto(datos), instante);
+                break;
 
-    /**
-     * 🆕 Reinicia el contador de prioridad (útil para deshacer)
-     */
-    public void reiniciarContadorPrioridad() {
-        this.contadorNormalesAtendidos = 0;
+            case OP_FINALIZAR:
+                String diagnostico = CodificadorBinario.leerTexto(datos);
+                finalizar(leerPuesto(datos), diagnostico, instante);
+                break;
+
+            case OP_LIBERAR_ATENCION:
+                liberarAtencion(leerPuesto(datos), instante);
+                break;
+
+            case OP_REGISTRAR:
+                TipoAccion tipoAccion = TipoAccion.desdeOrdinal(datos.get());
+                bitacora.registrar(tipoAccion, resolver(CodificadorBinario.leerCliente(datos)),
+                        null, -1, instante);
+                break;
+
+            case OP_DESHACER:
+                // Sin datos es la cima; con un puesto, la última de ese puesto
+                deshacer(datos.hasRemaining() ? bitacora.buscarDePuesto(datos.getInt()) : 0,
+                        instante);
+                break;
+
+            case OP_REINICIAR_CONTADOR:
+                planificador.reiniciar();
+                break;
+
+            case OP_CAMBIAR_POLITICA:
+                planificador = PoliticaDeAtencion.leer(datos).crearPlanificador();
+                break;
+
+            case OP_CAMBIAR_ENVEJECIMIENTO:
+                colaClientes.setUmbralesDeEnvejecimiento(aSegundos(leerUmbrales(datos)));
+                break;
+
+            case OP_ENVEJECER:
+                envejecer(CodificadorBinario.leerFecha(datos));
+                break;
+
+            case OP_IMPORTAR_LOTE:
+                int cantidad = datos.getInt();
+                for (int i = 0; i < cantidad; i++) {
+                    importar(CodificadorBinario.leerCliente(datos), instante);
+                }
+                break;
+
+            case OP_IMPORTAR_FIN:
+                cerrarImportacion(instante);
+                break;
+
+            default:
+                throw new IOException("Operación desconocida en el diario: " + operacion);
+        }
     }
 
     /**
-     * 🆕 Obtiene el contador actual de normales atendidos
+     * Escribe los umbrales de envejecimiento para el diario o una
+     * instantánea: la cantidad y los minutos de cada nivel.
+     *
+     * @param salida el codificador
+     * @param minutos los umbrales
      */
-    public int getContadorNormalesAtendidos() {
-        return contadorNormalesAtendidos;
+    private static void escribirUmbrales(CodificadorBinario salida, int[] minutos) {
+        salida.escribirInt(minutos.length);
+        for (int umbral : minutos) {
+            salida.escribirInt(umbral);
+        }
     }
 
     /**
-     * Deshace la última acción realizada en el sistema. Utiliza pop() del Stack
-     * para obtener la última acción. Revierte el estado según el tipo de
-     * acción: - "agregar": remueve el cliente del ArrayDeque - "atender":
-     * devuelve el cliente a la cola (offerFirst para ponerlo al inicio) -
-     * "eliminar": devuelve el cliente al ArrayDeque - "finalizar": remueve el
-     * cliente del historial y lo pone en atención
+     * Lee umbrales de envejecimiento escritos con escribirUmbrales().
+     *
+     * @param datos el buffer
+     * @return los minutos de cada nivel
      */
-    public void deshacerUltimaAccion() {
-        if (pilaAcciones.isEmpty()) {
-            return;
+    private static int[] leerUmbrales(ByteBuffer datos) {
+        int[] minutos = new int[datos.getInt()];
+        for (int i = 0; i < minutos.length; i++) {
+            minutos[i] = datos.getInt();
         }
+        return minutos;
+    }
 
-        RegistroDeAcciones ultimaAccion = pilaAcciones.pop();
-        String tipoAccion = ultimaAccion.getTipoAccion();
-        Cliente cliente = ultimaAccion.getCliente();
+    private static long[] aSegundos(int[] minutos) {
+        long[] segundos = new long[minutos.length];
+        for (int i = 0; i < minutos.length; i++) {
+            segundos[i] = minutos[i] * 60L;
+        }
+        return segundos;
+    }
 
-        switch (tipoAccion) {
-            case "agregar":
-                colaClientes.remove(cliente);
-                break;
+    private static int[] aMinutos(long[] segundos) {
+        int[] minutos = new int[NIVELES_QUE_ENVEJECEN];
+        if (segundos != null) {
+            for (int i = 0; i < Math.min(minutos.length, segundos.length); i++) {
+                minutos[i] = (int) (segundos[i] / 60);
+            }
+        }
+        return minutos;
+    }
 
-            case "atender":
-                historialAtendidos.remove(cliente);
-                colaClientes.offerFirst(cliente);
-                clienteEnAtencion = null;
-                if (cliente.getPrioridad() == Prioridad.NORMAL) {
-                    contadorNormalesAtendidos = Math.max(0, contadorNormalesAtendidos - 1);
-                }
-                break;
+    /**
+     * Lee el puesto al final de los datos de una operación de atención.
+     *
+     * @param datos los datos de la operación, ya leídos hasta el puesto
+     * @return el puesto, o 0 si el registro es anterior a los puestos
+     */
+    private static int leerPuesto(ByteBuffer datos) {
+        return datos.hasRemaining() ? datos.getInt() : 0;
+    }
 
-            case "eliminar":
-                colaClientes.offer(cliente);
-                break;
+    /**
+     * Busca el objeto Cliente vivo que corresponde a uno leído del diario,
+     * para que deshacer la acción lo encuentre por identidad.
+     *
+     * @param leido el cliente leído del diario
+     * @return el cliente en atención en algún puesto, en la cola o en el
+     * historial con el mismo ID, o el leído si no está en ninguno
+     */
+    private Cliente resolver(Cliente leido) {
+        String id = leido.getId();
+        for (PuestoDeAtencion puesto : puestos) {
+            Cliente enAtencion = puesto.getClienteEnAtencion();
+            if (enAtencion != null && enAtencion.getId().equals(id)) {
+                return enAtencion;
+            }
+        }
+        Cliente cliente = colaClientes.obtener(id);
+        if (cliente == null) {
+            cliente = historialAtendidos.buscarUltimoPorId(id);
+        }
+        return cliente != null ? cliente : leido;
+    }
 
-            case "finalizar":
-                historialAtendidos.remove(cliente);
-                clienteEnAtencion = cliente;
-                break;
+    /**
+     * Obtiene la actividad de los últimos minutos, hasta el minuto actual:
+     * llegadas, atenciones, eliminaciones, finalizaciones, clientes en cola
+     * y esperas por prioridad y tipo. Es O(minutos) y no recorre el
+     * historial.
+     *
+     * @param minutos la cantidad de minutos, hasta un día (1440)
+     * @return la serie, del minuto más antiguo al actual
+     */
+    public SerieDeActividad getActividadPorMinuto(int minutos) {
+        long ahora = System.currentTimeMillis();
+        long stamp = cerrojoCola.readLock();
+        try {
+            return actividad.porMinuto(ahora, minutos);
+        } finally {
+            cerrojoCola.unlockRead(stamp);
         }
     }
 
     /**
-     * Registra una acción en el Stack sin ejecutar ninguna lógica. Útil para
-     * registrar acciones que se manejan manualmente en el controlador.
+     * Obtiene la actividad de las últimas horas, hasta la hora actual, con
+     * los mismos datos que getActividadPorMinuto(). Es O(horas).
      *
-     * @param tipoAccion el tipo de acción a registrar
-     * @param cliente el cliente involucrado en la acción
+     * @param horas la cantidad de horas, hasta 30 días (720)
+     * @return la serie, de la hora más antigua a la actual
      */
-    public void registrarAccion(String tipoAccion, Cliente cliente) {
-        pilaAcciones.push(new RegistroDeAcciones(tipoAccion, cliente));
+    public SerieDeActividad getActividadPorHora(int horas) {
+        long ahora = System.currentTimeMillis();
+        long stamp = cerrojoCola.readLock();
+        try {
+            return actividad.porHora(ahora, horas);
+        } finally {
+            cerrojoCola.unlockRead(stamp);
+        }
     }
 
     /**
-     * Obtiene el cliente actualmente en atención.
+     * Obtiene los informes en paralelo sobre todo el historial, que corren
+     * en el pool común de fork-join.
      *
-     * @return el cliente en atención, o null si no hay ninguno
+     * @return el análisis del historial
      */
-    public Cliente getClienteEnAtencion() {
-        return clienteEnAtencion;
+    public AnalisisDeHistorial getAnalisis() {
+        return getAnalisis(ForkJoinPool.commonPool());
     }
 
     /**
-     * Finaliza la atención del cliente actual. Establece el cliente en atención
-     * como null.
+     * Obtiene los informes en paralelo sobre todo el historial, que corren
+     * en un pool dado (por ejemplo, para limitar los hilos que usan).
+     *
+     * @param pool el pool donde corren los informes
+     * @return el análisis del historial
      */
-    public void finalizarAtencion() {
-        clienteEnAtencion = null;
+    public AnalisisDeHistorial getAnalisis(ForkJoinPool pool) {
+        return new AnalisisDeHistorial(historialAtendidos, cerrojoHistorial, pool);
     }
 
     /**
-     * Busca clientes en el historial por tipo de solicitud. Recorre la
-     * LinkedList de historial y filtra por tipo.
+     * Busca clientes en el historial por tipo de solicitud. Usa el índice
+     * secundario del HistorialAtendidos, así que solo recorre los clientes de
+     * ese tipo.
      *
      * @param tipo el tipo de solicitud a buscar (Soporte, Mantenimiento,
      * Reclamo)
      * @return una LinkedList con los clientes que coinciden con el tipo
      */
     public LinkedList<Cliente> buscarPorTipoSolicitud(String tipo) {
-        LinkedList<Cliente> resultado = new LinkedList<>();
-        for (Cliente c : historialAtendidos) {
-            if (c.getTipoSolicitud().equalsIgnoreCase(tipo)) {
-                resultado.add(c);
+        // Escritura: la búsqueda compacta de paso el índice por tipo
+        long stamp = cerrojoHistorial.writeLock();
+        try {
+            return historialAtendidos.buscarPorTipoSolicitud(tipo);
+        } finally {
+            cerrojoHistorial.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Cuenta los clientes atendidos de un filtro.
+     *
+     * @param tipo el tipo de solicitud, o null para todos
+     * @return la cantidad de clientes atendidos que cumplen el filtro
+     */
+    public int contarAtendidos(String tipo) {
+        long stamp = bloquearHistorialParaFiltro(tipo);
+        try {
+            return historialAtendidos.contar(tipo);
+        } finally {
+            cerrojoHistorial.unlock(stamp);
+        }
+    }
+
+    /**
+     * Obtiene una página de los clientes atendidos de un filtro, en orden de
+     * atención. Solo copia los clientes de la página, así que una vista puede
+     * recorrer un historial grande de a poco.
+     *
+     * @param tipo el tipo de solicitud, o null para todos
+     * @param desde cuántos clientes del filtro saltar
+     * @param cantidad la cantidad máxima de clientes a devolver
+     * @return los clientes de la página
+     */
+    public List<Cliente> getPaginaDeAtendidos(String tipo, int desde, int cantidad) {
+        long stamp = bloquearHistorialParaFiltro(tipo);
+        try {
+            return historialAtendidos.obtenerPagina(tipo, desde, cantidad);
+        } finally {
+            cerrojoHistorial.unlock(stamp);
+        }
+    }
+
+    /**
+     * Toma cerrojoHistorial para consultar un filtro. Basta la lectura, salvo
+     * que el filtro por tipo tenga que compactar antes su índice; eso solo
+     * pasa después de deshacer una atención.
+     *
+     * @param tipo el tipo de solicitud, o null para todos
+     * @return el sello a liberar con unlock()
+     */
+    private long bloquearHistorialParaFiltro(String tipo) {
+        long stamp = cerrojoHistorial.readLock();
+        if (tipo != null && historialAtendidos.necesitaCompactar()) {
+            long escritura = cerrojoHistorial.tryConvertToWriteLock(stamp);
+            if (escritura == 0L) {
+                cerrojoHistorial.unlockRead(stamp);
+                escritura = cerrojoHistorial.writeLock();
             }
+            stamp = escritura;
         }
-        return resultado;
+        return stamp;
     }
 
     /**
-     * Busca un cliente específico en el historial por su ID. Recorre la
-     * LinkedList de historial buscando coincidencia.
+     * Busca un cliente específico en el historial por su ID. Usa el índice
+     * primario del HistorialAtendidos, por lo que es O(1).
      *
      * @param id el identificador del cliente a buscar
      * @return el cliente encontrado, o null si no existe
      */
     public Cliente buscarPorId(String id) {
-        for (Cliente c : historialAtendidos) {
-            if (c.getId().equals(id)) {
-                return c;
+        long stamp = cerrojoHistorial.readLock();
+        try {
+            return historialAtendidos.buscarPorId(id);
+        } finally {
+            cerrojoHistorial.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Busca los clientes atendidos cuyo ID empieza con un prefijo, en orden
+     * de ID. Usa los IDs ordenados del HistorialAtendidos, así que cuesta
+     * unas pocas búsquedas binarias más el límite y sirve para buscar
+     * mientras se escribe.
+     *
+     * @param prefijo el comienzo del ID
+     * @param limite la cantidad máxima de clientes a devolver
+     * @return los clientes encontrados, a lo sumo limite
+     */
+    public List<Cliente> buscarPorPrefijoDeId(String prefijo, int limite) {
+        long stamp = cerrojoHistorial.readLock();
+        try {
+            return historialAtendidos.buscarPorPrefijoDeId(prefijo, limite);
+        } finally {
+            cerrojoHistorial.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Busca casos atendidos parecidos a una consulta de texto libre sobre el
+     * problema y el diagnóstico. Usa el índice invertido de casos
+     * finalizados y ordena los resultados por relevancia (BM25), así que
+     * solo lee las listas de las palabras consultadas.
+     *
+     * @param consulta una o más palabras a buscar
+     * @param limite la cantidad máxima de clientes a devolver
+     * @return los clientes encontrados, del más al menos relevante
+     */
+    public List<Cliente> buscarCasos(String consulta, int limite) {
+        long stamp = cerrojoHistorial.readLock();
+        try {
+            int[] posiciones = indiceDeCasos.buscar(consulta, limite);
+            List<Cliente> resultado = new ArrayList<>(posiciones.length);
+            for (int posicion : posiciones) {
+                Cliente cliente = historialAtendidos.obtener(posicion);
+                if (cliente != null) {
+                    resultado.add(cliente);
+                }
             }
+            return resultado;
+        } finally {
+            cerrojoHistorial.unlockRead(stamp);
         }
-        return null;
     }
 
     /**
-     * Obtiene el número total de clientes en espera. Utiliza size() del
-     * ArrayDeque.
+     * Busca un cliente en la cola de espera por su ID. Usa el índice por ID
+     * de la ColaDeEspera, por lo que es O(1).
+     *
+     * @param id el identificador del cliente a buscar
+     * @return el cliente en espera, o null si no está en la cola
+     */
+    public Cliente buscarEnEspera(String id) {
+        long stamp = cerrojoCola.readLock();
+        try {
+            return colaClientes.obtener(id);
+        } finally {
+            cerrojoCola.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Obtiene el número total de clientes en espera. Utiliza size() de la
+     * ColaDeEspera con una lectura optimista.
      *
      * @return la cantidad de clientes en la cola de espera
      */
     public int getTotalClientesEnEspera() {
-        return colaClientes.size();
+        long stamp = cerrojoCola.tryOptimisticRead();
+        int total = colaClientes.size();
+        if (!cerrojoCola.validate(stamp)) {
+            stamp = cerrojoCola.readLock();
+            try {
+                total = colaClientes.size();
+            } finally {
+                cerrojoCola.unlockRead(stamp);
+            }
+        }
+        return total;
     }
 
     /**
-     * Obtiene el número total de clientes atendidos. Utiliza size() de la
-     * LinkedList.
+     * Obtiene el número total de clientes atendidos. Utiliza size() del
+     * HistorialAtendidos con una lectura optimista.
      *
      * @return la cantidad de clientes en el historial de atendidos
      */
     public int getTotalClientesAtendidos() {
-        return historialAtendidos.size();
+        long stamp = cerrojoHistorial.tryOptimisticRead();
+        int total = historialAtendidos.size();
+        if (!cerrojoHistorial.validate(stamp)) {
+            stamp = cerrojoHistorial.readLock();
+            try {
+                total = historialAtendidos.size();
+            } finally {
+                cerrojoHistorial.unlockRead(stamp);
+            }
+        }
+        return total;
     }
 
     /**
-     * Calcula el promedio de tiempo de atención de los clientes. Recorre la
-     * LinkedList de historial y calcula la diferencia entre hora de llegada y
-     * hora de atención.
+     * Obtiene el promedio de tiempo de espera (entre la hora de llegada y la
+     * hora de atención) de los clientes atendidos. Se lee de las estadísticas
+     * incrementales, sin recorrer el historial, y conserva los decimales.
      *
      * @return el promedio de tiempo en minutos, o 0.0 si no hay datos
      */
     public double getPromedioTiempoAtencion() {
-        if (historialAtendidos.isEmpty()) {
-            return 0.0;
+        long stamp = cerrojoHistorial.tryOptimisticRead();
+        double promedio = estadisticas.getPromedioMinutos();
+        if (!cerrojoHistorial.validate(stamp)) {
+            stamp = cerrojoHistorial.readLock();
+            try {
+                promedio = estadisticas.getPromedioMinutos();
+            } finally {
+                cerrojoHistorial.unlockRead(stamp);
+            }
         }
+        return promedio;
+    }
 
-        long totalMinutos = 0;
-        int count = 0;
+    /**
+     * Obtiene el resumen de tiempos de espera de todos los clientes atendidos:
+     * promedio, mínimo, máximo y percentiles.
+     *
+     * @return el resumen general
+     */
+    public ResumenDeEspera getResumenDeEspera() {
+        long stamp = cerrojoHistorial.tryOptimisticRead();
+        ResumenDeEspera resumen = estadisticas.getResumen();
+        if (!cerrojoHistorial.validate(stamp)) {
+            stamp = cerrojoHistorial.readLock();
+            try {
+                resumen = estadisticas.getResumen();
+            } finally {
+                cerrojoHistorial.unlockRead(stamp);
+            }
+        }
+        return resumen;
+    }
 
-        for (Cliente c : historialAtendidos) {
-            if (c.getHoraAtencion() != null) {
-                Duration duracion = Duration.between(c.getHoraLlegada(), c.getHoraAtencion());
-                totalMinutos += duracion.toMinutes();
-                count++;
+    /**
+     * Obtiene el resumen de tiempos de espera de una prioridad.
+     *
+     * @param prioridad la prioridad a consultar
+     * @return el resumen de esa prioridad
+     */
+    public ResumenDeEspera getResumenDeEspera(Prioridad prioridad) {
+        long stamp = cerrojoHistorial.tryOptimisticRead();
+        ResumenDeEspera resumen = estadisticas.getResumen(prioridad);
+        if (!cerrojoHistorial.validate(stamp)) {
+            stamp = cerrojoHistorial.readLock();
+            try {
+                resumen = estadisticas.getResumen(prioridad);
+            } finally {
+                cerrojoHistorial.unlockRead(stamp);
             }
         }
+        return resumen;
+    }
 
-        return count > 0 ? (double) totalMinutos / count : 0.0;
+    /**
+     * Obtiene el resumen de tiempos de espera de un tipo de solicitud.
+     *
+     * @param tipo el tipo de solicitud (Soporte, Mantenimiento, Reclamo)
+     * @return el resumen de ese tipo
+     */
+    public ResumenDeEspera getResumenDeEspera(String tipo) {
+        // Lectura completa: el mapa por tipo puede crecer mientras se consulta
+        long stamp = cerrojoHistorial.readLock();
+        try {
+            return estadisticas.getResumen(tipo);
+        } finally {
+            cerrojoHistorial.unlockRead(stamp);
+        }
     }
 
     /**
-     * Obtiene la cola de clientes en espera.
+     * Obtiene la cola de clientes en espera. No está sincronizada; desde
+     * varios hilos use getClientesEnEspera().
      *
-     * @return el ArrayDeque con todos los clientes en espera
+     * @return la ColaDeEspera con todos los clientes en espera
      */
-    public ArrayDeque<Cliente> getColaClientes() {
+    public ColaDeEspera getColaClientes() {
         return colaClientes;
     }
 
     /**
-     * Obtiene el historial de clientes atendidos.
+     * Obtiene una copia de los clientes en espera en orden de llegada.
+     *
+     * @return una List con los clientes en espera
+     */
+    public List<Cliente> getClientesEnEspera() {
+        long stamp = cerrojoCola.readLock();
+        try {
+            List<Cliente> clientes = new ArrayList<>(colaClientes.size());
+            for (Cliente c : colaClientes) {
+                clientes.add(c);
+            }
+            return clientes;
+        } finally {
+            cerrojoCola.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Obtiene el cliente en una posición de la cola de espera, en orden de
+     * llegada. Es O(log n), así que una tabla puede leer solo las filas
+     * visibles.
+     *
+     * @param posicion la posición, desde 0
+     * @return el cliente en esa posición
+     * @throws IndexOutOfBoundsException si la posición no existe
+     */
+    public Cliente getClienteEnEspera(int posicion) {
+        long stamp = cerrojoCola.readLock();
+        try {
+            return colaClientes.get(posicion);
+        } finally {
+            cerrojoCola.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Obtiene la posición de un cliente en la cola de espera. Es O(log n).
      *
-     * @return la LinkedList con todos los clientes atendidos
+     * @param id el identificador del cliente
+     * @return la posición desde 0, o -1 si no está en espera
      */
-    public LinkedList<Cliente> getHistorialAtendidos() {
+    public int getPosicionEnEspera(String id) {
+        long stamp = cerrojoCola.readLock();
+        try {
+            return colaClientes.indexOf(id);
+        } finally {
+            cerrojoCola.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Registra un oyente de los cambios de la cola de espera.
+     *
+     * @param oyente el oyente a registrar
+     */
+    public void agregarOyenteDeCola(OyenteDeCola oyente) {
+        oyentesDeCola.add(oyente);
+    }
+
+    /**
+     * Quita un oyente de la cola de espera.
+     *
+     * @param oyente el oyente a quitar
+     */
+    public void quitarOyenteDeCola(OyenteDeCola oyente) {
+        oyentesDeCola.remove(oyente);
+    }
+
+    /**
+     * Registra un oyente de los cambios de la bitácora de acciones.
+     *
+     * @param oyente el oyente a registrar
+     */
+    public void agregarOyenteDeBitacora(OyenteDeBitacora oyente) {
+        oyentesDeBitacora.add(oyente);
+    }
+
+    /**
+     * Quita un oyente de la bitácora de acciones.
+     *
+     * @param oyente el oyente a quitar
+     */
+    public void quitarOyenteDeBitacora(OyenteDeBitacora oyente) {
+        oyentesDeBitacora.remove(oyente);
+    }
+
+    /**
+     * Registra un oyente de los errores al guardar en segundo plano.
+     *
+     * @param oyente el oyente a registrar
+     */
+    public void agregarOyenteDeFallos(OyenteDeFallos oyente) {
+        oyentesDeFallos.add(oyente);
+    }
+
+    /**
+     * Quita un oyente de los errores al guardar.
+     *
+     * @param oyente el oyente a quitar
+     */
+    public void quitarOyenteDeFallos(OyenteDeFallos oyente) {
+        oyentesDeFallos.remove(oyente);
+    }
+
+    /**
+     * Entrega un error al guardar a los OyenteDeFallos.
+     *
+     * @param descripcion qué no se pudo guardar
+     * @param error el error encontrado
+     */
+    private void avisarFallo(String descripcion, Exception error) {
+        for (OyenteDeFallos oyente : oyentesDeFallos) {
+            oyente.falloAlGuardar(descripcion, error);
+        }
+    }
+
+    /**
+     * Obtiene el historial de clientes atendidos. No está sincronizado; desde
+     * varios hilos use getClientesAtendidos().
+     *
+     * @return el HistorialAtendidos con todos los clientes atendidos
+     */
+    public HistorialAtendidos getHistorialAtendidos() {
         return historialAtendidos;
     }
 
     /**
-     * Obtiene la pila de acciones realizadas.
+     * Obtiene una copia de los clientes atendidos en orden de atención.
+     *
+     * @return una List con los clientes atendidos
+     */
+    public List<Cliente> getClientesAtendidos() {
+        long stamp = cerrojoHistorial.readLock();
+        try {
+            return new ArrayList<>(historialAtendidos);
+        } finally {
+            cerrojoHistorial.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Obtiene la bitácora de acciones realizadas. No está sincronizada; desde
+     * varios hilos use getAccionesEnOrdenInverso().
      *
-     * @return el Stack con todos los registros de acciones
+     * @return la BitacoraDeAcciones con las acciones que se pueden deshacer
      */
-    public Stack<RegistroDeAcciones> getPilaAcciones() {
-        return pilaAcciones;
+    public BitacoraDeAcciones getBitacora() {
+        return bitacora;
     }
 
     /**
      * Obtiene las acciones en orden inverso (de más reciente a más antigua).
-     * Convierte el Stack en una List y la invierte usando
-     * Collections.reverse().
+     * La bitácora ya se indexa desde la cima, así que no hace falta invertir.
      *
      * @return una List con las acciones en orden inverso
      */
     public List<RegistroDeAcciones> getAccionesEnOrdenInverso() {
-        List<RegistroDeAcciones> acciones = new ArrayList<>(pilaAcciones);
-        Collections.reverse(acciones);
-        return acciones;
+        long stamp = cerrojoCola.readLock();
+        try {
+            List<RegistroDeAcciones> acciones = new ArrayList<>(bitacora.tamanio());
+            for (int i = 0; i < bitacora.tamanio(); i++) {
+                acciones.add(bitacora.getRegistro(i));
+            }
+            return acciones;
+        } finally {
+            cerrojoCola.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de acciones que se pueden deshacer.
+     *
+     * @return el tamaño de la bitácora
+     */
+    public int getTotalAcciones() {
+        long stamp = cerrojoCola.readLock();
+        try {
+            return bitacora.tamanio();
+        } finally {
+            cerrojoCola.unlockRead(stamp);
+        }
     }
 
     /**
-     * Obtiene la última acción realizada sin removerla del Stack. Utiliza
-     * peek() del Stack para ver el elemento superior.
+     * Obtiene una acción de la bitácora por su posición, sin copiar las
+     * demás. Sirve para mostrar la bitácora fila por fila.
+     *
+     * @param indice 0 para la más reciente
+     * @return el registro de la acción
+     * @throws IndexOutOfBoundsException si no hay una acción en esa posición
+     */
+    public RegistroDeAcciones getAccion(int indice) {
+        long stamp = cerrojoCola.readLock();
+        try {
+            return bitacora.getRegistro(indice);
+        } finally {
+            cerrojoCola.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Obtiene la última acción realizada sin removerla de la bitácora.
      *
      * @return la última acción registrada, o null si no hay acciones
      */
     public RegistroDeAcciones getUltimaAccion() {
-        if (pilaAcciones.isEmpty()) {
-            return null;
+        long stamp = cerrojoCola.readLock();
+        try {
+            if (bitacora.estaVacia()) {
+                return null;
+            }
+            return bitacora.getRegistro(0);
+        } finally {
+            cerrojoCola.unlockRead(stamp);
         }
-        return pilaAcciones.peek();
     }
 }
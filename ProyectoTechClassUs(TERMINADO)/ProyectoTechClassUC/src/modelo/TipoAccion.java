@@ -0,0 +1,54 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+/**
+ * Enumeración que define los tipos de acción que se registran en la bitácora
+ * y que se pueden deshacer. Utiliza un displayName con el nombre en
+ * minúsculas que se muestra en la interfaz gráfica.
+ *
+ * @author young
+ */
+public enum TipoAccion {
+    AGREGAR("agregar"),
+    ATENDER("atender"),
+    ELIMINAR("eliminar"),
+    FINALIZAR("finalizar"),
+    IMPORTAR("importar");
+
+    private static final TipoAccion[] VALORES = values();
+
+    private final String displayName;
+
+    /**
+     * Constructor del enum TipoAccion.
+     *
+     * @param displayName el nombre a mostrar en la interfaz
+     */
+    TipoAccion(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * Obtiene el tipo de acción a partir de su posición en el enum. Se usa
+     * para leer los tipos guardados como byte en la bitácora.
+     *
+     * @param ordinal la posición del tipo de acción
+     * @return el tipo de acción correspondiente
+     */
+    static TipoAccion desdeOrdinal(int ordinal) {
+        return VALORES[ordinal];
+    }
+
+    /**
+     * Devuelve la representación en String del tipo de acción.
+     *
+     * @return el nombre legible del tipo de acción
+     */
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
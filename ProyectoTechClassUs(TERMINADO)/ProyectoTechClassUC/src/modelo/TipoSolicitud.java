@@ -0,0 +1,77 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package modelo;
+
+/**
+ * Tipos de solicitud que recibe TechClassUC. Cliente guarda el tipo como
+ * texto por compatibilidad, pero cuando es uno de estos usa siempre el mismo
+ * String, y las ColumnasDeClientes lo guardan como un byte.
+ *
+ * @author young
+ */
+public enum TipoSolicitud {
+    SOPORTE("Soporte"),
+    MANTENIMIENTO("Mantenimiento"),
+    RECLAMO("Reclamo");
+
+    private static final TipoSolicitud[] VALORES = values();
+
+    private final String texto;
+
+    /**
+     * Constructor del enum TipoSolicitud.
+     *
+     * @param texto el texto con que se muestra el tipo
+     */
+    TipoSolicitud(String texto) {
+        this.texto = texto;
+    }
+
+    /**
+     * Obtiene el texto del tipo, tal como se muestra en la interfaz.
+     *
+     * @return el texto del tipo
+     */
+    public String getTexto() {
+        return texto;
+    }
+
+    /**
+     * Busca el tipo cuyo texto es exactamente el indicado.
+     *
+     * @param texto el texto del tipo
+     * @return el tipo, o null si el texto no es uno de los conocidos
+     */
+    public static TipoSolicitud desdeTexto(String texto) {
+        if (texto != null) {
+            for (TipoSolicitud tipo : VALORES) {
+                if (tipo.texto.equals(texto)) {
+                    return tipo;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Obtiene el tipo a partir de su posición en el enum.
+     *
+     * @param ordinal la posición del tipo
+     * @return el tipo correspondiente
+     */
+    static TipoSolicitud desdeOrdinal(int ordinal) {
+        return VALORES[ordinal];
+    }
+
+    /**
+     * Devuelve el texto del tipo.
+     *
+     * @return el texto del tipo
+     */
+    @Override
+    public String toString() {
+        return texto;
+    }
+}
@@ -5,6 +5,13 @@
 package proyectotechclassuc;
 
 import controlador.MVCTechClassUC;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import javax.swing.JOptionPane;
+import modelo.PoliticaDeSincronizacion;
+import modelo.SistemaDeGestion;
+import servicio.ServidorDeGestion;
 import vista.VentanaTechClassUC;
 
 /**
@@ -13,25 +20,129 @@ import vista.VentanaTechClassUC;
  * de gestión de clientes siguiendo el patrón MVC (Modelo-Vista-Controlador).
  * 
  * El sistema utiliza tres estructuras de datos fundamentales:
- * - ArrayDeque: Para la cola de clientes en espera (FIFO)
+ * - ColaDeEspera: Para la cola de clientes en espera (FIFO por prioridad)
  * - LinkedList: Para el historial de clientes atendidos
- * - Stack: Para el registro de acciones y funcionalidad deshacer (LIFO)
+ * - BitacoraDeAcciones: Para el registro de acciones y funcionalidad deshacer (LIFO acotada)
+ * 
+ * El estado se guarda en un diario de operaciones e instantáneas en el
+ * directorio indicado por la propiedad techclassuc.datos (por defecto
+ * "datos"); al iniciar se imprime cuánto tardó la recuperación. La propiedad
+ * techclassuc.fsync elige cuándo se fuerza al disco: siempre (por defecto),
+ * periodica o nunca.
+ * 
+ * Con el argumento --servidor [puerto] no se abre la ventana: el sistema se
+ * expone como API JSON con ServidorDeGestion (puerto 8080 por defecto) en la
+ * dirección de la propiedad techclassuc.host, por defecto 127.0.0.1.
  * 
  *
  */
 public class ProyectoTechClassUC {
 
+    private static final int PUERTO_POR_DEFECTO = 8080;
+
     /** 
      * Método principal que inicia la aplicación.
      * Crea la ventana principal, inicializa el controlador MVC
-     * y muestra la interfaz gráfica al usuario.
+     * y muestra la interfaz gráfica al usuario, o inicia el servidor HTTP
+     * si se pide con --servidor.
      * 
      * @param args the command line arguments
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--servidor")) {
+            iniciarServidor(args.length > 1 ? Integer.parseInt(args[1]) : PUERTO_POR_DEFECTO);
+            return;
+        }
+        SistemaDeGestion sistema;
+        try {
+            sistema = abrirSistema();
+            cerrarAlSalir(sistema, null);
+        } catch (IOException | IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(null, "No se pudo abrir el diario en " + directorioDeDatos()
+                    + ": " + e.getMessage() + "\nLos datos de esta sesión no se guardarán.",
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            sistema = new SistemaDeGestion();
+        }
         VentanaTechClassUC ventana = new VentanaTechClassUC();
-        MVCTechClassUC controlador = new MVCTechClassUC(ventana);
+        MVCTechClassUC controlador = new MVCTechClassUC(ventana, sistema);
         controlador.iniciar();
     }
+
+    /**
+     * Inicia el modo servidor sin interfaz gráfica. El proceso sigue vivo
+     * mientras el servidor atiende; al terminarlo se detiene el servidor y
+     * se cierra el diario.
+     *
+     * @param puerto el puerto donde escuchar
+     */
+    private static void iniciarServidor(int puerto) {
+        SistemaDeGestion sistema;
+        ServidorDeGestion servidor;
+        try {
+            sistema = abrirSistema();
+            servidor = new ServidorDeGestion(sistema, new InetSocketAddress(
+                    System.getProperty("techclassuc.host", "127.0.0.1"), puerto));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("No se pudo iniciar el servidor: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        cerrarAlSalir(sistema, servidor);
+        // Sin ventana, los errores al guardar en segundo plano van al log
+        sistema.agregarOyenteDeFallos((descripcion, error)
+                -> System.err.println(descripcion + ": " + error.getMessage()));
+        if (sistema.getFalloDeArchivo() != null) {
+            System.err.println("No se pudo archivar clientes atendidos; siguen en memoria: "
+                    + sistema.getFalloDeArchivo().getMessage());
+        }
+        servidor.iniciar();
+        System.out.println("Servidor TechClassUC escuchando en el puerto " + servidor.getPuerto());
+    }
+
+    /**
+     * Abre el sistema de gestión recuperando su diario.
+     *
+     * @return el sistema de gestión
+     * @throws IOException si el diario no se puede abrir
+     * @throws IllegalArgumentException si la política de sincronización no
+     * existe
+     */
+    private static SistemaDeGestion abrirSistema() throws IOException {
+        PoliticaDeSincronizacion politica = PoliticaDeSincronizacion.desdeNombre(
+                System.getProperty("techclassuc.fsync", "siempre"));
+        SistemaDeGestion sistema = SistemaDeGestion.abrir(directorioDeDatos(), politica);
+        System.out.println(sistema.getInformeDeRecuperacion());
+        return sistema;
+    }
+
+    /**
+     * Registra un gancho que al salir escribe lo que quede pendiente en el
+     * diario. Si hay servidor, primero lo detiene para que ninguna petición
+     * en curso encuentre el diario cerrado.
+     *
+     * @param sistema el sistema a cerrar
+     * @param servidor el servidor a detener antes, o null
+     */
+    private static void cerrarAlSalir(SistemaDeGestion sistema, ServidorDeGestion servidor) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (servidor != null) {
+                servidor.detener(1);
+            }
+            try {
+                sistema.cerrar();
+            } catch (IOException e) {
+                System.err.println("No se pudo cerrar el diario: " + e.getMessage());
+            }
+        }));
+    }
+
+    /**
+     * Obtiene el directorio de datos configurado.
+     *
+     * @return la ruta de la propiedad techclassuc.datos, o "datos"
+     */
+    private static Path directorioDeDatos() {
+        return Path.of(System.getProperty("techclassuc.datos", "datos"));
+    }
     
 }
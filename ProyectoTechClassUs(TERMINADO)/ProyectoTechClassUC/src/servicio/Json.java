@@ -0,0 +1,297 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package servicio;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lectura y escritura del JSON mínimo que usa el servidor, sin bibliotecas
+ * externas. Escribe objetos con Objeto y arreglos con arreglo(); lee solo
+ * objetos planos (valores texto, número, booleano o null), que es todo lo que
+ * reciben los puntos de acceso.
+ *
+ * @author young
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * Constructor de un objeto JSON campo por campo.
+     */
+    static final class Objeto {
+
+        private final StringBuilder texto = new StringBuilder("{");
+
+        /**
+         * Agrega un campo de texto.
+         *
+         * @param nombre el nombre del campo
+         * @param valor el valor, puede ser null
+         * @return este objeto
+         */
+        Objeto texto(String nombre, String valor) {
+            nombre(nombre);
+            escribirTexto(texto, valor);
+            return this;
+        }
+
+        /**
+         * Agrega un campo entero.
+         *
+         * @param nombre el nombre del campo
+         * @param valor el valor
+         * @return este objeto
+         */
+        Objeto numero(String nombre, long valor) {
+            nombre(nombre);
+            texto.append(valor);
+            return this;
+        }
+
+        /**
+         * Agrega un campo decimal. Los valores no finitos se escriben null.
+         *
+         * @param nombre el nombre del campo
+         * @param valor el valor
+         * @return este objeto
+         */
+        Objeto numero(String nombre, double valor) {
+            nombre(nombre);
+            if (Double.isFinite(valor)) {
+                texto.append(valor);
+            } else {
+                texto.append("null");
+            }
+            return this;
+        }
+
+        /**
+         * Agrega un campo con un valor que ya es JSON (objeto o arreglo).
+         *
+         * @param nombre el nombre del campo
+         * @param json el valor en JSON, o null
+         * @return este objeto
+         */
+        Objeto json(String nombre, String json) {
+            nombre(nombre);
+            texto.append(json == null ? "null" : json);
+            return this;
+        }
+
+        /**
+         * Cierra el objeto.
+         *
+         * @return el objeto en JSON
+         */
+        String cerrar() {
+            return texto.append('}').toString();
+        }
+
+        private void nombre(String nombre) {
+            if (texto.length() > 1) {
+                texto.append(',');
+            }
+            escribirTexto(texto, nombre);
+            texto.append(':');
+        }
+    }
+
+    /**
+     * Une valores JSON en un arreglo.
+     *
+     * @param elementos los elementos ya escritos en JSON
+     * @return el arreglo en JSON
+     */
+    static String arreglo(List<String> elementos) {
+        StringBuilder texto = new StringBuilder("[");
+        for (int i = 0; i < elementos.size(); i++) {
+            if (i > 0) {
+                texto.append(',');
+            }
+            texto.append(elementos.get(i));
+        }
+        return texto.append(']').toString();
+    }
+
+    /**
+     * Escribe un texto entre comillas escapando los caracteres especiales.
+     *
+     * @param destino donde escribir
+     * @param valor el texto, o null
+     */
+    static void escribirTexto(StringBuilder destino, String valor) {
+        if (valor == null) {
+            destino.append("null");
+            return;
+        }
+        destino.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"' -> destino.append("\\\"");
+                case '\\' -> destino.append("\\\\");
+                case '\n' -> destino.append("\\n");
+                case '\r' -> destino.append("\\r");
+                case '\t' -> destino.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        destino.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        destino.append(c);
+                    }
+                }
+            }
+        }
+        destino.append('"');
+    }
+
+    // ==================== LECTURA ====================
+    /**
+     * Lee un objeto JSON plano. Los números y booleanos se devuelven como su
+     * texto y null como null.
+     *
+     * @param json el texto del objeto
+     * @return los campos en el orden en que aparecen
+     * @throws IllegalArgumentException si el texto no es un objeto plano
+     * válido
+     */
+    static Map<String, String> leerObjeto(String json) {
+        Lector lector = new Lector(json);
+        Map<String, String> campos = new LinkedHashMap<>();
+        lector.saltarEspacios();
+        lector.esperar('{');
+        lector.saltarEspacios();
+        if (!lector.consumir('}')) {
+            do {
+                lector.saltarEspacios();
+                String nombre = lector.leerTexto();
+                lector.saltarEspacios();
+                lector.esperar(':');
+                lector.saltarEspacios();
+                campos.put(nombre, lector.leerValor());
+                lector.saltarEspacios();
+            } while (lector.consumir(','));
+            lector.esperar('}');
+        }
+        lector.saltarEspacios();
+        if (!lector.alFinal()) {
+            throw new IllegalArgumentException("Contenido después del objeto JSON");
+        }
+        return campos;
+    }
+
+    /**
+     * Recorre el texto de entrada carácter por carácter.
+     */
+    private static final class Lector {
+
+        private final String texto;
+        private int posicion;
+
+        Lector(String texto) {
+            this.texto = texto;
+        }
+
+        boolean alFinal() {
+            return posicion >= texto.length();
+        }
+
+        void saltarEspacios() {
+            while (!alFinal() && Character.isWhitespace(texto.charAt(posicion))) {
+                posicion++;
+            }
+        }
+
+        boolean consumir(char c) {
+            if (!alFinal() && texto.charAt(posicion) == c) {
+                posicion++;
+                return true;
+            }
+            return false;
+        }
+
+        void esperar(char c) {
+            if (!consumir(c)) {
+                throw new IllegalArgumentException("Se esperaba '" + c + "' en la posición " + posicion);
+            }
+        }
+
+        String leerValor() {
+            if (alFinal()) {
+                throw new IllegalArgumentException("Falta un valor al final del JSON");
+            }
+            char c = texto.charAt(posicion);
+            if (c == '"') {
+                return leerTexto();
+            }
+            if (c == '{' || c == '[') {
+                throw new IllegalArgumentException("No se admiten objetos ni arreglos anidados");
+            }
+            int inicio = posicion;
+            while (!alFinal() && "-+.eE0123456789truefalsn".indexOf(texto.charAt(posicion)) >= 0) {
+                posicion++;
+            }
+            String literal = texto.substring(inicio, posicion);
+            if (literal.equals("null")) {
+                return null;
+            }
+            if (literal.equals("true") || literal.equals("false")) {
+                return literal;
+            }
+            try {
+                Double.parseDouble(literal);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Valor JSON inválido en la posición " + inicio);
+            }
+            return literal;
+        }
+
+        String leerTexto() {
+            esperar('"');
+            StringBuilder valor = new StringBuilder();
+            while (true) {
+                if (alFinal()) {
+                    throw new IllegalArgumentException("Texto JSON sin cerrar");
+                }
+                char c = texto.charAt(posicion++);
+                if (c == '"') {
+                    return valor.toString();
+                }
+                if (c != '\\') {
+                    valor.append(c);
+                    continue;
+                }
+                if (alFinal()) {
+                    throw new IllegalArgumentException("Escape JSON incompleto");
+                }
+                char escape = texto.charAt(posicion++);
+                switch (escape) {
+                    case '"', '\\', '/' -> valor.append(escape);
+                    case 'b' -> valor.append('\b');
+                    case 'f' -> valor.append('\f');
+                    case 'n' -> valor.append('\n');
+                    case 'r' -> valor.append('\r');
+                    case 't' -> valor.append('\t');
+                    case 'u' -> {
+                        if (posicion + 4 > texto.length()) {
+                            throw new IllegalArgumentException("Escape \\u incompleto");
+                        }
+                        try {
+                            valor.append((char) Integer.parseInt(texto.substring(posicion, posicion + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("Escape \\u inválido");
+                        }
+                        posicion += 4;
+                    }
+                    default -> throw new IllegalArgumentException("Escape JSON desconocido: \\" + escape);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,574 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package servicio;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import modelo.Cliente;
+import modelo.PoliticaDeAtencion;
+import modelo.Prioridad;
+import modelo.RegistroDeAcciones;
+import modelo.ResumenDeEspera;
+import modelo.ResumenDePuesto;
+import modelo.SistemaDeGestion;
+
+/**
+ * Servidor HTTP que expone un SistemaDeGestion como API JSON, para que
+ * kioscos de recepción y tabletas de técnicos compartan un mismo sistema sin
+ * la ventana Swing. Usa el com.sun.net.httpserver del JDK y atiende cada
+ * petición en su propio hilo virtual, así que miles de peticiones pueden
+ * esperar a la vez (por ejemplo al fsync del diario) sin ocupar un hilo del
+ * sistema operativo cada una.
+ *
+ * Puntos de acceso: - GET /clientes: clientes en espera en orden de llegada -
+ * POST /clientes: agrega un cliente ({"id", "nombre", "tipoSolicitud",
+ * "prioridad", "problema", "fechaRegistro"}) - GET /clientes/{id}: busca un
+ * cliente en espera, en atención o atendido - DELETE /clientes/{id}: lo quita
+ * de la cola - GET /atencion: el cliente en atención - POST
+ * /atencion/siguiente: pasa el siguiente cliente a atención según la
+ * política de atención - POST /atencion/finalizar: finaliza la atención
+ * ({"diagnostico"}) - POST /deshacer: deshace la última acción - GET
+ * /politica: la política de atención vigente - POST /politica: la cambia
+ * ({"politica": "ponderada:4,2,1,1"}, con el formato de
+ * PoliticaDeAtencion.desdeTexto) - GET /envejecimiento: los minutos de
+ * espera con que sube de nivel un cliente BAJA, NORMAL y PREFERENTE - POST
+ * /envejecimiento: los cambia ({"umbrales": "20,30,45"}; 0 no sube) - GET
+ * /estadisticas: totales, tiempos de espera, resumen de cada puesto y los
+ * errores de la última instantánea de fondo y del archivo de atendidos, si
+ * fallaron, opcionalmente de un tipo con ?tipo=
+ *
+ * GET /clientes sube primero de nivel a los que esperaron de más, así que
+ * las prioridades que devuelve están al día aunque nadie pase a atención.
+ *
+ * Las rutas de /atencion trabajan sobre un puesto de atención elegido con
+ * ?puesto= (numerado desde 1, como en la ventana; por defecto el 1), de modo
+ * que cada tableta de técnico usa el suyo. POST /deshacer?puesto= deshace la
+ * última acción de ese puesto en lugar de la última de todas. El sistema
+ * comprueba que el puesto esté libre en la misma operación que lo ocupa, así
+ * que las peticiones de distintos puestos no se esperan entre sí.
+ *
+ * Los errores se responden con {"error": mensaje} y el código HTTP que
+ * corresponde: 400 datos inválidos, 404 no encontrado, 409 conflicto con el
+ * estado (ID repetido, el puesto ya tiene un cliente en atención, nada que
+ * deshacer), 503 si el diario no pudo guardar la operación.
+ *
+ * @author young
+ */
+public class ServidorDeGestion {
+
+    private static final int MAXIMO_CUERPO = 64 * 1024;
+    private static final String TIPO_JSON = "application/json; charset=utf-8";
+    private static final String[] TIPOS_SOLICITUD = {"Soporte", "Mantenimiento", "Reclamo"};
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private final SistemaDeGestion sistema;
+    private final HttpServer servidor;
+    private final ExecutorService hilos;
+
+    /**
+     * Error que se responde al cliente HTTP con un código y un mensaje.
+     */
+    private static final class ErrorHttp extends RuntimeException {
+
+        private final int codigo;
+
+        ErrorHttp(int codigo, String mensaje) {
+            super(mensaje);
+            this.codigo = codigo;
+        }
+    }
+
+    /**
+     * Atiende una petición ya validada y devuelve el cuerpo de la respuesta.
+     */
+    @FunctionalInterface
+    private interface Manejador {
+
+        /**
+         * Atiende la petición.
+         *
+         * @param intercambio la petición HTTP
+         * @return el código HTTP y el cuerpo JSON de la respuesta
+         * @throws IOException si falla la lectura del cuerpo
+         */
+        Respuesta atender(HttpExchange intercambio) throws IOException;
+    }
+
+    /**
+     * Código y cuerpo de una respuesta.
+     */
+    private static final class Respuesta {
+
+        private final int codigo;
+        private final String cuerpo;
+
+        Respuesta(int codigo, String cuerpo) {
+            this.codigo = codigo;
+            this.cuerpo = cuerpo;
+        }
+    }
+
+    /**
+     * Constructor del servidor. Crea el socket pero no empieza a atender.
+     *
+     * @param sistema el sistema de gestión a exponer
+     * @param direccion la dirección y el puerto donde escuchar (puerto 0 para
+     * uno libre)
+     * @throws IOException si no se puede abrir el socket
+     */
+    public ServidorDeGestion(SistemaDeGestion sistema, InetSocketAddress direccion) throws IOException {
+        this.sistema = sistema;
+        this.servidor = HttpServer.create(direccion, 0);
+        this.hilos = Executors.newVirtualThreadPerTaskExecutor();
+        servidor.setExecutor(hilos);
+        servidor.createContext("/clientes", intercambio -> manejar(intercambio, this::clientes));
+        servidor.createContext("/atencion", intercambio -> manejar(intercambio, this::atencion));
+        servidor.createContext("/deshacer", intercambio -> manejar(intercambio, this::deshacer));
+        servidor.createContext("/politica", intercambio -> manejar(intercambio, this::politica));
+        servidor.createContext("/envejecimiento", intercambio -> manejar(intercambio, this::envejecimiento));
+        servidor.createContext("/estadisticas", intercambio -> manejar(intercambio, this::estadisticas));
+    }
+
+    /**
+     * Empieza a atender peticiones.
+     */
+    public void iniciar() {
+        servidor.start();
+    }
+
+    /**
+     * Deja de aceptar peticiones y espera a que terminen las que están en
+     * curso.
+     *
+     * @param segundosDeGracia el máximo de segundos a esperar
+     */
+    public void detener(int segundosDeGracia) {
+        servidor.stop(segundosDeGracia);
+        hilos.close();
+    }
+
+    /**
+     * Obtiene el puerto en que escucha el servidor.
+     *
+     * @return el puerto local
+     */
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    // ==================== PUNTOS DE ACCESO ====================
+    /**
+     * /clientes y /clientes/{id}.
+     */
+    private Respuesta clientes(HttpExchange intercambio) throws IOException {
+        String id = subruta(intercambio, "/clientes");
+        String metodo = intercambio.getRequestMethod();
+        if (id == null) {
+            if (metodo.equals("GET")) {
+                sistema.envejecerCola();
+                List<String> elementos = new ArrayList<>();
+                for (Cliente cliente : sistema.getClientesEnEspera()) {
+                    elementos.add(cliente(cliente));
+                }
+                return new Respuesta(200, Json.arreglo(elementos));
+            }
+            exigirMetodo(intercambio, "POST");
+            Cliente cliente = leerCliente(leerCuerpo(intercambio));
+            try {
+                sistema.agregarCliente(cliente);
+            } catch (IllegalArgumentException e) {
+                throw new ErrorHttp(409, e.getMessage());
+            }
+            return new Respuesta(201, cliente(cliente));
+        }
+        if (metodo.equals("DELETE")) {
+            if (!sistema.eliminarClienteDeCola(id)) {
+                throw new ErrorHttp(404, "No hay un cliente en espera con ID " + id);
+            }
+            return new Respuesta(200, new Json.Objeto().texto("eliminado", id).cerrar());
+        }
+        exigirMetodo(intercambio, "GET");
+        String estado = "en espera";
+        Cliente cliente = sistema.buscarEnEspera(id);
+        if (cliente == null) {
+            for (ResumenDePuesto puesto : sistema.getResumenesDePuestos()) {
+                Cliente enAtencion = puesto.getClienteEnAtencion();
+                if (enAtencion != null && enAtencion.getId().equals(id)) {
+                    estado = "en atencion";
+                    cliente = enAtencion;
+                }
+            }
+        }
+        if (cliente == null) {
+            estado = "atendido";
+            cliente = sistema.buscarPorId(id);
+        }
+        if (cliente == null) {
+            throw new ErrorHttp(404, "No existe un cliente con ID " + id);
+        }
+        return new Respuesta(200, new Json.Objeto()
+                .texto("estado", estado)
+                .json("cliente", cliente(cliente))
+                .cerrar());
+    }
+
+    /**
+     * /atencion, /atencion/siguiente y /atencion/finalizar, con ?puesto=.
+     */
+    private Respuesta atencion(HttpExchange intercambio) throws IOException {
+        String accion = subruta(intercambio, "/atencion");
+        String textoPuesto = parametro(intercambio.getRequestURI(), "puesto");
+        int puesto = textoPuesto == null ? 0 : puesto(textoPuesto);
+        if (accion == null) {
+            exigirMetodo(intercambio, "GET");
+            Cliente cliente = sistema.getClienteEnAtencion(puesto);
+            return new Respuesta(200, new Json.Objeto()
+                    .numero("puesto", puesto + 1)
+                    .json("cliente", cliente == null ? null : cliente(cliente))
+                    .cerrar());
+        }
+        exigirMetodo(intercambio, "POST");
+        switch (accion) {
+            case "siguiente" -> {
+                Cliente cliente;
+                try {
+                    cliente = sistema.atenderCliente(puesto);
+                } catch (IllegalStateException e) {
+                    throw new ErrorHttp(409, e.getMessage());
+                }
+                if (cliente == null) {
+                    throw new ErrorHttp(404, "No hay clientes en espera");
+                }
+                return new Respuesta(200, cliente(cliente));
+            }
+            case "finalizar" -> {
+                String diagnostico = texto(leerCuerpo(intercambio), "diagnostico");
+                Cliente cliente = sistema.finalizarAtencion(puesto, diagnostico);
+                if (cliente == null) {
+                    throw new ErrorHttp(409, "No hay cliente en atención en el puesto " + (puesto + 1));
+                }
+                return new Respuesta(200, cliente(cliente));
+            }
+            default -> throw new ErrorHttp(404, "Ruta desconocida: /atencion/" + accion);
+        }
+    }
+
+    /**
+     * /deshacer y /deshacer?puesto=.
+     */
+    private Respuesta deshacer(HttpExchange intercambio) {
+        sinSubruta(intercambio, "/deshacer");
+        exigirMetodo(intercambio, "POST");
+        String textoPuesto = parametro(intercambio.getRequestURI(), "puesto");
+        int puesto = textoPuesto == null ? -1 : puesto(textoPuesto);
+        RegistroDeAcciones registro;
+        try {
+            registro = puesto < 0
+                    ? sistema.deshacerUltimaAccion()
+                    : sistema.deshacerUltimaAccion(puesto);
+        } catch (IllegalStateException e) {
+            throw new ErrorHttp(409, e.getMessage());
+        }
+        if (registro == null) {
+            throw new ErrorHttp(409, "No hay acciones para deshacer");
+        }
+        Json.Objeto respuesta = new Json.Objeto()
+                .texto("accion", registro.getTipoAccion().toString())
+                .texto("fechaHora", String.valueOf(registro.getFechaHora()));
+        if (registro.getPuesto() != RegistroDeAcciones.SIN_PUESTO) {
+            respuesta.numero("puesto", registro.getPuesto() + 1);
+        }
+        return new Respuesta(200, respuesta
+                .json("cliente", cliente(registro.getCliente()))
+                .cerrar());
+    }
+
+    /**
+     * /politica.
+     */
+    private Respuesta politica(HttpExchange intercambio) throws IOException {
+        sinSubruta(intercambio, "/politica");
+        if (!intercambio.getRequestMethod().equals("GET")) {
+            exigirMetodo(intercambio, "POST");
+            sistema.setPoliticaDeAtencion(
+                    PoliticaDeAtencion.desdeTexto(texto(leerCuerpo(intercambio), "politica")));
+        }
+        return new Respuesta(200, new Json.Objeto()
+                .texto("politica", sistema.getPoliticaDeAtencion().toString())
+                .cerrar());
+    }
+
+    /**
+     * /envejecimiento.
+     */
+    private Respuesta envejecimiento(HttpExchange intercambio) throws IOException {
+        sinSubruta(intercambio, "/envejecimiento");
+        if (!intercambio.getRequestMethod().equals("GET")) {
+            exigirMetodo(intercambio, "POST");
+            String[] partes = texto(leerCuerpo(intercambio), "umbrales").split(",");
+            int[] minutos = new int[partes.length];
+            for (int i = 0; i < partes.length; i++) {
+                try {
+                    minutos[i] = Integer.parseInt(partes[i].trim());
+                } catch (NumberFormatException e) {
+                    throw new ErrorHttp(400, "Umbral inválido: " + partes[i].trim());
+                }
+            }
+            sistema.setUmbralesDeEnvejecimiento(minutos);
+        }
+        StringBuilder umbrales = new StringBuilder();
+        for (int minutos : sistema.getUmbralesDeEnvejecimiento()) {
+            umbrales.append(umbrales.length() == 0 ? "" : ",").append(minutos);
+        }
+        return new Respuesta(200, new Json.Objeto()
+                .texto("umbrales", umbrales.toString())
+                .cerrar());
+    }
+
+    /**
+     * /estadisticas y /estadisticas?tipo=.
+     */
+    private Respuesta estadisticas(HttpExchange intercambio) {
+        sinSubruta(intercambio, "/estadisticas");
+        exigirMetodo(intercambio, "GET");
+        String tipo = parametro(intercambio.getRequestURI(), "tipo");
+        if (tipo != null) {
+            return new Respuesta(200, new Json.Objeto()
+                    .texto("tipo", tipo)
+                    .json("espera", resumen(sistema.getResumenDeEspera(tipo)))
+                    .cerrar());
+        }
+        Json.Objeto porPrioridad = new Json.Objeto();
+        for (Prioridad prioridad : Prioridad.values()) {
+            porPrioridad.json(prioridad.name(), resumen(sistema.getResumenDeEspera(prioridad)));
+        }
+        Json.Objeto porTipo = new Json.Objeto();
+        for (String tipoSolicitud : TIPOS_SOLICITUD) {
+            porTipo.json(tipoSolicitud, resumen(sistema.getResumenDeEspera(tipoSolicitud)));
+        }
+        List<String> puestos = new ArrayList<>();
+        for (ResumenDePuesto puesto : sistema.getResumenesDePuestos()) {
+            puestos.add(new Json.Objeto()
+                    .numero("puesto", puesto.getNumero() + 1)
+                    .texto("enAtencion", puesto.estaLibre() ? null : puesto.getClienteEnAtencion().getId())
+                    .numero("atendidos", puesto.getAtendidos())
+                    .numero("finalizados", puesto.getFinalizados())
+                    .numero("servicioPromedioMinutos", puesto.getPromedioServicio())
+                    .cerrar());
+        }
+        return new Respuesta(200, new Json.Objeto()
+                .numero("enEspera", sistema.getTotalClientesEnEspera())
+                .numero("atendidos", sistema.getTotalClientesAtendidos())
+                .texto("politica", sistema.getPoliticaDeAtencion().toString())
+                .numero("normalesSeguidos", sistema.getContadorNormalesAtendidos())
+                .json("espera", resumen(sistema.getResumenDeEspera()))
+                .json("porPrioridad", porPrioridad.cerrar())
+                .json("porTipo", porTipo.cerrar())
+                .json("puestos", Json.arreglo(puestos))
+                .texto("falloDeInstantanea", mensajeDe(sistema.getFalloDeInstantanea()))
+                .texto("falloDeArchivo", mensajeDe(sistema.getFalloDeArchivo()))
+                .cerrar());
+    }
+
+    // ==================== PETICIONES Y RESPUESTAS ====================
+    /**
+     * Atiende una petición con un manejador y envía su respuesta o el error
+     * que corresponda.
+     */
+    private void manejar(HttpExchange intercambio, Manejador manejador) throws IOException {
+        Respuesta respuesta;
+        try {
+            respuesta = manejador.atender(intercambio);
+        } catch (ErrorHttp e) {
+            respuesta = error(e.codigo, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            respuesta = error(400, e.getMessage());
+        } catch (UncheckedIOException e) {
+            respuesta = error(503, e.getMessage());
+        } catch (RuntimeException e) {
+            respuesta = error(500, "Error interno: " + e);
+        }
+        byte[] cuerpo = respuesta.cuerpo.getBytes(StandardCharsets.UTF_8);
+        try (intercambio) {
+            intercambio.getResponseHeaders().set("Content-Type", TIPO_JSON);
+            intercambio.sendResponseHeaders(respuesta.codigo, cuerpo.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(cuerpo);
+            }
+        }
+    }
+
+    private static Respuesta error(int codigo, String mensaje) {
+        return new Respuesta(codigo, new Json.Objeto().texto("error", mensaje).cerrar());
+    }
+
+    /**
+     * Obtiene lo que sigue al prefijo de la ruta, sin la barra inicial.
+     *
+     * @return el resto decodificado, o null si la ruta es solo el prefijo
+     */
+    private static String subruta(HttpExchange intercambio, String prefijo) {
+        String ruta = intercambio.getRequestURI().getPath();
+        String resto = ruta.substring(Math.min(prefijo.length(), ruta.length()));
+        if (resto.isEmpty() || resto.equals("/")) {
+            return null;
+        }
+        if (resto.charAt(0) != '/' || resto.indexOf('/', 1) >= 0) {
+            throw new ErrorHttp(404, "Ruta desconocida: " + ruta);
+        }
+        return resto.substring(1);
+    }
+
+    private static void sinSubruta(HttpExchange intercambio, String prefijo) {
+        if (subruta(intercambio, prefijo) != null) {
+            throw new ErrorHttp(404, "Ruta desconocida: " + intercambio.getRequestURI().getPath());
+        }
+    }
+
+    private static void exigirMetodo(HttpExchange intercambio, String metodo) {
+        if (!intercambio.getRequestMethod().equals(metodo)) {
+            intercambio.getResponseHeaders().set("Allow", metodo);
+            throw new ErrorHttp(405, "Método no permitido: " + intercambio.getRequestMethod());
+        }
+    }
+
+    private static String parametro(URI uri, String nombre) {
+        String consulta = uri.getRawQuery();
+        if (consulta == null) {
+            return null;
+        }
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            String clave = igual < 0 ? par : par.substring(0, igual);
+            if (URLDecoder.decode(clave, StandardCharsets.UTF_8).equals(nombre)) {
+                return igual < 0 ? "" : URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Convierte el número de puesto de la consulta, desde 1, al del sistema.
+     */
+    private static int puesto(String texto) {
+        int numero;
+        try {
+            numero = Integer.parseInt(texto.trim());
+        } catch (NumberFormatException e) {
+            throw new ErrorHttp(400, "Puesto inválido: " + texto);
+        }
+        if (numero < 1 || numero > SistemaDeGestion.MAXIMO_PUESTOS) {
+            throw new ErrorHttp(400, "El puesto debe estar entre 1 y " + SistemaDeGestion.MAXIMO_PUESTOS);
+        }
+        return numero - 1;
+    }
+
+    /**
+     * Lee el cuerpo de la petición como un objeto JSON plano.
+     */
+    private static Map<String, String> leerCuerpo(HttpExchange intercambio) throws IOException {
+        byte[] cuerpo;
+        try (InputStream entrada = intercambio.getRequestBody()) {
+            cuerpo = entrada.readNBytes(MAXIMO_CUERPO + 1);
+        }
+        if (cuerpo.length > MAXIMO_CUERPO) {
+            throw new ErrorHttp(413, "El cuerpo supera " + MAXIMO_CUERPO + " bytes");
+        }
+        return Json.leerObjeto(new String(cuerpo, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Obtiene un campo de texto obligatorio, sin espacios a los lados.
+     */
+    private static String texto(Map<String, String> campos, String nombre) {
+        String valor = campos.get(nombre);
+        if (valor == null || valor.isBlank()) {
+            throw new ErrorHttp(400, "El campo " + nombre + " es obligatorio");
+        }
+        return valor.trim();
+    }
+
+    /**
+     * Crea un cliente con los campos recibidos, con las mismas reglas que el
+     * formulario de recepción: ID, nombre y problema obligatorios, prioridad
+     * NORMAL y fecha de hoy por defecto.
+     */
+    private static Cliente leerCliente(Map<String, String> campos) {
+        String id = texto(campos, "id");
+        String nombre = texto(campos, "nombre");
+        String problema = texto(campos, "problema");
+        String tipoSolicitud = TIPOS_SOLICITUD[0];
+        if (campos.get("tipoSolicitud") != null) {
+            tipoSolicitud = null;
+            for (String tipo : TIPOS_SOLICITUD) {
+                if (tipo.equalsIgnoreCase(campos.get("tipoSolicitud").trim())) {
+                    tipoSolicitud = tipo;
+                }
+            }
+            if (tipoSolicitud == null) {
+                throw new ErrorHttp(400, "Tipo de solicitud desconocido: " + campos.get("tipoSolicitud"));
+            }
+        }
+        Prioridad prioridad = Prioridad.NORMAL;
+        if (campos.get("prioridad") != null) {
+            try {
+                prioridad = Prioridad.valueOf(campos.get("prioridad").trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ErrorHttp(400, "Prioridad desconocida: " + campos.get("prioridad"));
+            }
+        }
+        String fecha = campos.get("fechaRegistro");
+        if (fecha == null || fecha.isBlank()) {
+            fecha = LocalDate.now().format(FORMATO_FECHA);
+        }
+        return new Cliente(id, nombre, tipoSolicitud, prioridad, problema, fecha.trim());
+    }
+
+    private static String cliente(Cliente cliente) {
+        return new Json.Objeto()
+                .texto("id", cliente.getId())
+                .texto("nombre", cliente.getNombre())
+                .texto("tipoSolicitud", cliente.getTipoSolicitud())
+                .texto("prioridad", cliente.getPrioridad().name())
+                .texto("problema", cliente.getProblema())
+                .texto("fechaRegistro", cliente.getFechaRegistro())
+                .texto("horaLlegada", cliente.getHoraLlegada() == null ? null : cliente.getHoraLlegada().toString())
+                .texto("horaAtencion", cliente.getHoraAtencion() == null ? null : cliente.getHoraAtencion().toString())
+                .texto("diagnostico", cliente.getDiagnostico())
+                .cerrar();
+    }
+
+    private static String resumen(ResumenDeEspera resumen) {
+        return new Json.Objeto()
+                .numero("cantidad", resumen.getCantidad())
+                .numero("promedioMinutos", resumen.getPromedio())
+                .numero("minimoMinutos", resumen.getMinimo())
+                .numero("maximoMinutos", resumen.getMaximo())
+                .numero("p50Minutos", resumen.getP50())
+                .numero("p90Minutos", resumen.getP90())
+                .numero("p99Minutos", resumen.getP99())
+                .cerrar();
+    }
+
+    private static String mensajeDe(Exception error) {
+        return error == null ? null : String.valueOf(error.getMessage());
+    }
+}
@@ -7,6 +7,8 @@ package vista;
 import com.toedter.calendar.JCalendar;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JList;
 import javax.swing.JRadioButton;
 import javax.swing.JTable;
 import javax.swing.JTextArea;
@@ -56,6 +58,7 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
         campoId = new javax.swing.JTextField();
         campoNombre = new javax.swing.JTextField();
         botonAgregar = new javax.swing.JButton();
+        botonImportar = new javax.swing.JButton();
         jScrollPane1 = new javax.swing.JScrollPane();
         TablaClientes = new javax.swing.JTable();
         botonEliminar = new javax.swing.JButton();
@@ -71,7 +74,9 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
         problemaDelCliente = new javax.swing.JTextField();
         jSeparator2 = new javax.swing.JSeparator();
         radioPrioridadUrgente = new javax.swing.JRadioButton();
+        radioPrioridadPreferente = new javax.swing.JRadioButton();
         radioPrioridadNormal = new javax.swing.JRadioButton();
+        radioPrioridadBaja = new javax.swing.JRadioButton();
         jPanel2 = new javax.swing.JPanel();
         jLabel8 = new javax.swing.JLabel();
         jScrollPane2 = new javax.swing.JScrollPane();
@@ -84,23 +89,29 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
         Diagnostico = new javax.swing.JTextArea();
         botonAtender = new javax.swing.JButton();
         botonDeshacer2 = new javax.swing.JButton();
+        comboPuesto = new javax.swing.JComboBox<>();
+        resumenPuesto = new javax.swing.JLabel();
         jSeparator1 = new javax.swing.JSeparator();
         jPanel4 = new javax.swing.JPanel();
         jLabel11 = new javax.swing.JLabel();
         jScrollPane5 = new javax.swing.JScrollPane();
-        reporteAtendidos = new javax.swing.JTextArea();
+        reporteAtendidos = new javax.swing.JList<>();
         jLabel12 = new javax.swing.JLabel();
         comboFiltro = new javax.swing.JComboBox<>();
         jLabel13 = new javax.swing.JLabel();
         jLabel14 = new javax.swing.JLabel();
         FiltrarID = new javax.swing.JTextField();
+        jLabel20 = new javax.swing.JLabel();
+        BuscarCasos = new javax.swing.JTextField();
         jLabel15 = new javax.swing.JLabel();
         jScrollPane6 = new javax.swing.JScrollPane();
         totalAtendidos = new javax.swing.JTextArea();
+        botonExportarHistorial = new javax.swing.JButton();
         jPanel3 = new javax.swing.JPanel();
         jLabel17 = new javax.swing.JLabel();
         jScrollPane7 = new javax.swing.JScrollPane();
-        informeAcciones = new javax.swing.JTextArea();
+        informeAcciones = new javax.swing.JList<>();
+        botonExportarAcciones = new javax.swing.JButton();
 
         setDefaultCloseOperation(javax.swing.WindowConstants.EXIT_ON_CLOSE);
 
@@ -131,6 +142,9 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
         botonAgregar.setText("AGREGAR CLIENTE");
         jPanel1.add(botonAgregar, new org.netbeans.lib.awtextra.AbsoluteConstraints(916, 105, -1, -1));
 
+        botonImportar.setText("IMPORTAR CSV");
+        jPanel1.add(botonImportar, new org.netbeans.lib.awtextra.AbsoluteConstraints(916, 135, -1, -1));
+
         TablaClientes.setModel(new javax.swing.table.DefaultTableModel(
             new Object [][] {
                 {null, null, null, null},
@@ -184,10 +198,18 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
         radioPrioridadUrgente.setText("Alta");
         jPanel1.add(radioPrioridadUrgente, new org.netbeans.lib.awtextra.AbsoluteConstraints(270, 190, -1, -1));
 
+        grupoPrioridad.add(radioPrioridadPreferente);
+        radioPrioridadPreferente.setText("Preferente");
+        jPanel1.add(radioPrioridadPreferente, new org.netbeans.lib.awtextra.AbsoluteConstraints(330, 190, -1, -1));
+
         grupoPrioridad.add(radioPrioridadNormal);
         radioPrioridadNormal.setSelected(true);
         radioPrioridadNormal.setText("Normal");
-        jPanel1.add(radioPrioridadNormal, new org.netbeans.lib.awtextra.AbsoluteConstraints(350, 190, -1, -1));
+        jPanel1.add(radioPrioridadNormal, new org.netbeans.lib.awtextra.AbsoluteConstraints(440, 190, -1, -1));
+
+        grupoPrioridad.add(radioPrioridadBaja);
+        radioPrioridadBaja.setText("Baja");
+        jPanel1.add(radioPrioridadBaja, new org.netbeans.lib.awtextra.AbsoluteConstraints(520, 190, -1, -1));
 
         jTabbedPane1.addTab("RECEPCION", jPanel1);
 
@@ -216,6 +238,9 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
 
         botonDeshacer2.setText("DESHACER");
 
+        resumenPuesto.setFont(new java.awt.Font("Segoe UI", 2, 12)); // NOI18N
+        resumenPuesto.setText("PUESTO 1");
+
         javax.swing.GroupLayout jPanel2Layout = new javax.swing.GroupLayout(jPanel2);
         jPanel2.setLayout(jPanel2Layout);
         jPanel2Layout.setHorizontalGroup(
@@ -242,10 +267,12 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
                     .addGroup(jPanel2Layout.createSequentialGroup()
                         .addGap(476, 476, 476)
                         .addGroup(jPanel2Layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                            .addComponent(comboPuesto, javax.swing.GroupLayout.PREFERRED_SIZE, 159, javax.swing.GroupLayout.PREFERRED_SIZE)
                             .addComponent(botonAtender, javax.swing.GroupLayout.PREFERRED_SIZE, 159, javax.swing.GroupLayout.PREFERRED_SIZE)
                             .addGroup(jPanel2Layout.createSequentialGroup()
                                 .addGap(30, 30, 30)
-                                .addComponent(botonDeshacer2, javax.swing.GroupLayout.PREFERRED_SIZE, 106, javax.swing.GroupLayout.PREFERRED_SIZE))))
+                                .addComponent(botonDeshacer2, javax.swing.GroupLayout.PREFERRED_SIZE, 106, javax.swing.GroupLayout.PREFERRED_SIZE))
+                            .addComponent(resumenPuesto, javax.swing.GroupLayout.PREFERRED_SIZE, 420, javax.swing.GroupLayout.PREFERRED_SIZE)))
                     .addGroup(jPanel2Layout.createSequentialGroup()
                         .addGap(507, 507, 507)
                         .addComponent(jLabel8, javax.swing.GroupLayout.PREFERRED_SIZE, 219, javax.swing.GroupLayout.PREFERRED_SIZE)))
@@ -270,10 +297,14 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
                     .addComponent(jScrollPane4, javax.swing.GroupLayout.DEFAULT_SIZE, 102, Short.MAX_VALUE)
                     .addComponent(jScrollPane3))
                 .addGap(23, 23, 23)
+                .addComponent(comboPuesto, javax.swing.GroupLayout.PREFERRED_SIZE, 30, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(botonAtender, javax.swing.GroupLayout.PREFERRED_SIZE, 36, javax.swing.GroupLayout.PREFERRED_SIZE)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(botonDeshacer2, javax.swing.GroupLayout.PREFERRED_SIZE, 34, javax.swing.GroupLayout.PREFERRED_SIZE)
-                .addContainerGap(154, Short.MAX_VALUE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(resumenPuesto)
+                .addContainerGap(92, Short.MAX_VALUE))
         );
 
         jTabbedPane1.addTab("DIAGNOSTICO", jPanel2);
@@ -281,8 +312,6 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
         jLabel11.setFont(new java.awt.Font("Segoe UI", 1, 14)); // NOI18N
         jLabel11.setText("HISTORIAL DE CLIENTES ATENDIDOS");
 
-        reporteAtendidos.setColumns(20);
-        reporteAtendidos.setRows(5);
         jScrollPane5.setViewportView(reporteAtendidos);
 
         jLabel12.setFont(new java.awt.Font("Segoe UI", 1, 14)); // NOI18N
@@ -294,6 +323,9 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
         jLabel14.setFont(new java.awt.Font("Segoe UI", 3, 14)); // NOI18N
         jLabel14.setText("ID del cliente:");
 
+        jLabel20.setFont(new java.awt.Font("Segoe UI", 3, 14)); // NOI18N
+        jLabel20.setText("Buscar en casos:");
+
         jLabel15.setFont(new java.awt.Font("Segoe UI", 1, 14)); // NOI18N
         jLabel15.setText("TOTAL CLIENTES ATENDIDOS:");
 
@@ -301,6 +333,8 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
         totalAtendidos.setRows(5);
         jScrollPane6.setViewportView(totalAtendidos);
 
+        botonExportarHistorial.setText("EXPORTAR HISTORIAL");
+
         javax.swing.GroupLayout jPanel4Layout = new javax.swing.GroupLayout(jPanel4);
         jPanel4.setLayout(jPanel4Layout);
         jPanel4Layout.setHorizontalGroup(
@@ -320,9 +354,12 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
                         .addGroup(jPanel4Layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING, false)
                             .addComponent(jLabel14, javax.swing.GroupLayout.DEFAULT_SIZE, 129, Short.MAX_VALUE)
                             .addComponent(FiltrarID, javax.swing.GroupLayout.DEFAULT_SIZE, 129, Short.MAX_VALUE)
+                            .addComponent(jLabel20, javax.swing.GroupLayout.DEFAULT_SIZE, 129, Short.MAX_VALUE)
+                            .addComponent(BuscarCasos, javax.swing.GroupLayout.DEFAULT_SIZE, 129, Short.MAX_VALUE)
                             .addComponent(comboFiltro, 0, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)))
                     .addComponent(jScrollPane6, javax.swing.GroupLayout.PREFERRED_SIZE, 324, javax.swing.GroupLayout.PREFERRED_SIZE)
-                    .addComponent(jLabel15, javax.swing.GroupLayout.PREFERRED_SIZE, 245, javax.swing.GroupLayout.PREFERRED_SIZE))
+                    .addComponent(jLabel15, javax.swing.GroupLayout.PREFERRED_SIZE, 245, javax.swing.GroupLayout.PREFERRED_SIZE)
+                    .addComponent(botonExportarHistorial))
                 .addContainerGap(371, Short.MAX_VALUE))
         );
         jPanel4Layout.setVerticalGroup(
@@ -344,12 +381,18 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
                         .addGap(34, 34, 34)
                         .addComponent(jLabel14)
                         .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
-                        .addComponent(FiltrarID, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)))
+                        .addComponent(FiltrarID, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                        .addGap(34, 34, 34)
+                        .addComponent(jLabel20)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                        .addComponent(BuscarCasos, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)))
                 .addGap(34, 34, 34)
                 .addComponent(jLabel15)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(jScrollPane6, javax.swing.GroupLayout.PREFERRED_SIZE, 70, javax.swing.GroupLayout.PREFERRED_SIZE)
-                .addContainerGap(106, Short.MAX_VALUE))
+                .addGap(18, 18, 18)
+                .addComponent(botonExportarHistorial)
+                .addContainerGap(65, Short.MAX_VALUE))
         );
 
         jTabbedPane1.addTab("INFORME", jPanel4);
@@ -357,10 +400,10 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
         jLabel17.setFont(new java.awt.Font("Segoe UI", 1, 18)); // NOI18N
         jLabel17.setText("REPORTE DE ACCIONES REALIZADAS");
 
-        informeAcciones.setColumns(20);
-        informeAcciones.setRows(5);
         jScrollPane7.setViewportView(informeAcciones);
 
+        botonExportarAcciones.setText("EXPORTAR ACCIONES");
+
         javax.swing.GroupLayout jPanel3Layout = new javax.swing.GroupLayout(jPanel3);
         jPanel3.setLayout(jPanel3Layout);
         jPanel3Layout.setHorizontalGroup(
@@ -373,6 +416,10 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
                 .addGap(451, 451, 451)
                 .addComponent(jLabel17, javax.swing.GroupLayout.PREFERRED_SIZE, 341, javax.swing.GroupLayout.PREFERRED_SIZE)
                 .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
+            .addGroup(jPanel3Layout.createSequentialGroup()
+                .addGap(400, 400, 400)
+                .addComponent(botonExportarAcciones)
+                .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
         jPanel3Layout.setVerticalGroup(
             jPanel3Layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
@@ -381,7 +428,9 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
                 .addComponent(jLabel17)
                 .addGap(18, 18, 18)
                 .addComponent(jScrollPane7, javax.swing.GroupLayout.PREFERRED_SIZE, 421, javax.swing.GroupLayout.PREFERRED_SIZE)
-                .addContainerGap(106, Short.MAX_VALUE))
+                .addGap(18, 18, 18)
+                .addComponent(botonExportarAcciones)
+                .addContainerGap(65, Short.MAX_VALUE))
         );
 
         jTabbedPane1.addTab("REPORTE DE PROCESOS", jPanel3);
@@ -420,6 +469,10 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
         return FiltrarID;
     }
 
+    public JTextField getBuscarCasos() {
+        return BuscarCasos;
+    }
+
     public JTable getTablaClientes() {
         return TablaClientes;
     }
@@ -448,6 +501,18 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
         return botonEliminar;
     }
 
+    public JButton getBotonImportar() {
+        return botonImportar;
+    }
+
+    public JButton getBotonExportarHistorial() {
+        return botonExportarHistorial;
+    }
+
+    public JButton getBotonExportarAcciones() {
+        return botonExportarAcciones;
+    }
+
     public JTextField getCampoId() {
         return campoId;
     }
@@ -463,6 +528,14 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
     public JRadioButton getRadioPrioridadUrgente() {
         return radioPrioridadUrgente;
     }
+
+    public JRadioButton getRadioPrioridadPreferente() {
+        return radioPrioridadPreferente;
+    }
+
+    public JRadioButton getRadioPrioridadBaja() {
+        return radioPrioridadBaja;
+    }
     
     public JComboBox<String> getComboRecepcion() {
         return comboRecepcion;
@@ -472,7 +545,15 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
         return comboFiltro;
     }
 
-    public JTextArea getInformeAcciones() {
+    public JComboBox<String> getComboPuesto() {
+        return comboPuesto;
+    }
+
+    public JLabel getResumenPuesto() {
+        return resumenPuesto;
+    }
+
+    public JList<String> getInformeAcciones() {
     return informeAcciones;
 }
 
@@ -480,7 +561,7 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
     return problemaDelCliente;
 }
 
-    public JTextArea getReporteAtendidos() {
+    public JList<String> getReporteAtendidos() {
     return reporteAtendidos;
 }
 
@@ -494,6 +575,7 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JTextArea AreaDeDiagnostico;
     private javax.swing.JTextArea AreaDeEspera;
+    private javax.swing.JTextField BuscarCasos;
     private com.toedter.calendar.JCalendar Calendario;
     private javax.swing.JTextArea Diagnostico;
     private javax.swing.JTextField FiltrarID;
@@ -504,6 +586,9 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
     private javax.swing.JButton botonDeshacer;
     private javax.swing.JButton botonDeshacer2;
     private javax.swing.JButton botonEliminar;
+    private javax.swing.JButton botonExportarAcciones;
+    private javax.swing.JButton botonExportarHistorial;
+    private javax.swing.JButton botonImportar;
     private javax.swing.ButtonGroup buttonGroup1;
     private javax.swing.ButtonGroup buttonGroup2;
     private javax.swing.ButtonGroup buttonGroup3;
@@ -512,9 +597,10 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
     private javax.swing.JTextField campoId;
     private javax.swing.JTextField campoNombre;
     private javax.swing.JComboBox<String> comboFiltro;
+    private javax.swing.JComboBox<String> comboPuesto;
     private javax.swing.JComboBox<String> comboRecepcion;
     private javax.swing.ButtonGroup grupoPrioridad;
-    private javax.swing.JTextArea informeAcciones;
+    private javax.swing.JList<String> informeAcciones;
     private javax.swing.JLabel jLabel1;
     private javax.swing.JLabel jLabel10;
     private javax.swing.JLabel jLabel11;
@@ -527,6 +613,7 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
     private javax.swing.JLabel jLabel18;
     private javax.swing.JLabel jLabel19;
     private javax.swing.JLabel jLabel2;
+    private javax.swing.JLabel jLabel20;
     private javax.swing.JLabel jLabel3;
     private javax.swing.JLabel jLabel4;
     private javax.swing.JLabel jLabel5;
@@ -549,9 +636,12 @@ public class VentanaTechClassUC extends javax.swing.JFrame {
     private javax.swing.JSeparator jSeparator2;
     private javax.swing.JTabbedPane jTabbedPane1;
     private javax.swing.JTextField problemaDelCliente;
+    private javax.swing.JRadioButton radioPrioridadBaja;
     private javax.swing.JRadioButton radioPrioridadNormal;
+    private javax.swing.JRadioButton radioPrioridadPreferente;
     private javax.swing.JRadioButton radioPrioridadUrgente;
-    private javax.swing.JTextArea reporteAtendidos;
+    private javax.swing.JList<String> reporteAtendidos;
+    private javax.swing.JLabel resumenPuesto;
     private javax.swing.JTextArea totalAtendidos;
     // End of variables declaration//GEN-END:variables
 }